@@ -3,6 +3,7 @@ plugins {
 	id("org.springframework.boot") version "4.1.0-M1"
 	id("io.spring.dependency-management") version "1.1.7"
 	id("org.flywaydb.flyway") version "10.18.2"
+	id("me.champeau.jmh") version "0.7.3"
 }
 
 group = "com.flashlink"
@@ -50,8 +51,33 @@ dependencies {
 	testImplementation("org.springframework.kafka:spring-kafka-test")
 	testImplementation("com.fasterxml.jackson.core:jackson-databind")
 	testRuntimeOnly("org.junit.platform:junit-platform-launcher")
+	jmh("com.h2database:h2")
+	jmh("com.fasterxml.jackson.core:jackson-databind")
+	jmh("com.fasterxml.jackson.datatype:jackson-datatype-jsr310")
 }
 
 tasks.withType<Test> {
 	useJUnitPlatform()
 }
+
+tasks.test {
+	useJUnitPlatform {
+		excludeTags("benchmark")
+	}
+}
+
+tasks.register<Test>("kafkaBenchmark") {
+	description = "Runs the benchmark-tagged tests: Kafka consumer throughput and cache invalidation latency."
+	group = "verification"
+	testClassesDirs = sourceSets.test.get().output.classesDirs
+	classpath = sourceSets.test.get().runtimeClasspath
+	useJUnitPlatform {
+		includeTags("benchmark")
+	}
+}
+
+jmh {
+	warmupIterations = 3
+	iterations = 5
+	fork = 1
+}
@@ -0,0 +1,105 @@
+package com.flashlink.demoflashlink_url_service.repository;
+
+import com.flashlink.demoflashlink_url_service.model.UrlMapping;
+import com.flashlink.demoflashlink_url_service.util.Base62Encoder;
+import com.flashlink.demoflashlink_url_service.util.SnowflakeIdGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Links/sec for the single-item create path (one transaction and one INSERT per link) vs. the bulk
+ * path (one transaction per chunk, JDBC batches of 50). Scores are per link.
+ * Defaults to H2 in MySQL mode; for MySQL pass
+ * {@code -p jdbcUrl=jdbc:mysql://.../flashlink_bench?rewriteBatchedStatements=true&user=...&password=...}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class BulkInsertBenchmark {
+
+    private static final int LINKS_PER_INVOCATION = 1_000;
+
+    @Param("jdbc:h2:mem:bulk;MODE=MySQL;DB_CLOSE_DELAY=-1")
+    public String jdbcUrl;
+
+    private final SnowflakeIdGenerator idGenerator = new SnowflakeIdGenerator(1L);
+    private final Base62Encoder base62 = new Base62Encoder(10);
+    private SingleConnectionDataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate transactionTemplate;
+    private UrlMappingBatchRepository batchRepository;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        dataSource = new SingleConnectionDataSource(jdbcUrl, true);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("DROP TABLE IF EXISTS url_mapping");
+        jdbcTemplate.execute("CREATE TABLE url_mapping (id BIGINT NOT NULL PRIMARY KEY, "
+                + "short_code VARCHAR(10) NOT NULL UNIQUE, long_url VARCHAR(2048) NOT NULL, "
+                + "created_at TIMESTAMP NOT NULL, expiry_at TIMESTAMP NULL, owner_id VARCHAR(255), "
+                + "ttl_seconds INT, redirect_count BIGINT DEFAULT 0)");
+        transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        batchRepository = new UrlMappingBatchRepository(jdbcTemplate);
+    }
+
+    @TearDown(Level.Iteration)
+    public void truncate() {
+        jdbcTemplate.execute("TRUNCATE TABLE url_mapping");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        jdbcTemplate.execute("DROP TABLE url_mapping");
+        dataSource.destroy();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LINKS_PER_INVOCATION)
+    public void singleItem() {
+        for (int i = 0; i < LINKS_PER_INVOCATION; i++) {
+            UrlMapping mapping = newMapping(idGenerator.nextId(), i);
+            transactionTemplate.executeWithoutResult(status -> batchRepository.insertAll(List.of(mapping)));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LINKS_PER_INVOCATION)
+    public void bulk() {
+        long[] ids = idGenerator.nextIds(LINKS_PER_INVOCATION);
+        List<UrlMapping> mappings = new ArrayList<>(LINKS_PER_INVOCATION);
+        for (int i = 0; i < ids.length; i++) {
+            mappings.add(newMapping(ids[i], i));
+        }
+        transactionTemplate.executeWithoutResult(status -> batchRepository.insertAll(mappings));
+    }
+
+    private UrlMapping newMapping(long id, int i) {
+        LocalDateTime now = LocalDateTime.now();
+        return UrlMapping.builder()
+                .id(id)
+                .shortCode(base62.encode(id))
+                .longUrl("https://example.com/campaign/" + i)
+                .createdAt(now)
+                .expiryAt(now.plusDays(30))
+                .redirectCount(0L)
+                .build();
+    }
+}
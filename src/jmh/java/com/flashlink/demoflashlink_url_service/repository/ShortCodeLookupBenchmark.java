@@ -0,0 +1,126 @@
+package com.flashlink.demoflashlink_url_service.repository;
+
+import com.flashlink.demoflashlink_url_service.util.Base62Encoder;
+import com.flashlink.demoflashlink_url_service.util.SnowflakeIdGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cache-miss lookup cost: url_mapping by short_code (secondary index, then clustered row) vs. by the
+ * id decoded from the code (clustered index only). Defaults to H2 in MySQL mode; point it at a real
+ * MySQL with {@code -p jdbcUrl=jdbc:mysql://localhost:3306/flashlink_bench?user=...&password=...}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ShortCodeLookupBenchmark {
+
+    @Param("jdbc:h2:mem:lookup;MODE=MySQL;DB_CLOSE_DELAY=-1")
+    public String jdbcUrl;
+
+    @Param("200000")
+    public int rows;
+
+    private final Base62Encoder base62 = new Base62Encoder(10);
+    private Connection connection;
+    private String[] codes;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        connection = DriverManager.getConnection(jdbcUrl);
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("DROP TABLE IF EXISTS url_mapping_bench");
+            statement.execute("CREATE TABLE url_mapping_bench (id BIGINT NOT NULL PRIMARY KEY, "
+                    + "short_code VARCHAR(10) NOT NULL, long_url VARCHAR(2048) NOT NULL, "
+                    + "created_at TIMESTAMP NOT NULL, expiry_at TIMESTAMP NULL, redirect_count BIGINT)");
+            statement.execute("CREATE UNIQUE INDEX idx_short_code_bench ON url_mapping_bench (short_code)");
+        }
+
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(1L);
+        codes = new String[rows];
+        connection.setAutoCommit(false);
+        try (PreparedStatement insert = connection.prepareStatement(
+                "INSERT INTO url_mapping_bench (id, short_code, long_url, created_at, redirect_count) VALUES (?, ?, ?, ?, 0)")) {
+            Timestamp now = new Timestamp(System.currentTimeMillis());
+            long[] ids = generator.nextIds(rows);
+            for (int i = 0; i < rows; i++) {
+                codes[i] = base62.encode(ids[i]);
+                insert.setLong(1, ids[i]);
+                insert.setString(2, codes[i]);
+                insert.setString(3, "https://example.com/articles/" + i);
+                insert.setTimestamp(4, now);
+                insert.addBatch();
+                if (i % 1_000 == 999) {
+                    insert.executeBatch();
+                }
+            }
+            insert.executeBatch();
+        }
+        connection.commit();
+        connection.setAutoCommit(true);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("DROP TABLE url_mapping_bench");
+        }
+        connection.close();
+    }
+
+    @State(Scope.Thread)
+    public static class Lookup {
+        private final SplittableRandom random = new SplittableRandom();
+        private PreparedStatement byShortCode;
+        private PreparedStatement byId;
+
+        @Setup(Level.Trial)
+        public void prepare(ShortCodeLookupBenchmark benchmark) throws SQLException {
+            byShortCode = benchmark.connection.prepareStatement(
+                    "SELECT id, short_code, long_url, created_at, expiry_at FROM url_mapping_bench WHERE short_code = ?");
+            byId = benchmark.connection.prepareStatement(
+                    "SELECT id, short_code, long_url, created_at, expiry_at FROM url_mapping_bench WHERE id = ?");
+        }
+
+        String nextCode(ShortCodeLookupBenchmark benchmark) {
+            return benchmark.codes[random.nextInt(benchmark.codes.length)];
+        }
+    }
+
+    @Benchmark
+    public String findByShortCode(Lookup lookup) throws SQLException {
+        lookup.byShortCode.setString(1, lookup.nextCode(this));
+        return readLongUrl(lookup.byShortCode);
+    }
+
+    @Benchmark
+    public String findByDecodedId(Lookup lookup) throws SQLException {
+        String code = lookup.nextCode(this);
+        lookup.byId.setLong(1, base62.tryDecode(code));
+        return readLongUrl(lookup.byId);
+    }
+
+    private static String readLongUrl(PreparedStatement statement) throws SQLException {
+        try (ResultSet resultSet = statement.executeQuery()) {
+            return resultSet.next() ? resultSet.getString(3) : null;
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.flashlink.demoflashlink_url_service.service;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Rate limit decisions/sec against a Redis stand-in: {@link LocalTokenBucketStore} behind a spin
+ * of {@code roundTripMicros} per call, with 1,000 clients each well under a 6,000/min limit.
+ * In {@code shared} mode {@code leaseSize=1} is one store call per request and larger leases spend
+ * tokens locally; {@code hybrid} spends each pod's local share first. The {@code storeCallsPer1k}
+ * counter reports store (Redis) calls per 1,000 requests.
+ * Run with {@code ./gradlew jmh}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class RateLimitBenchmark {
+
+    private static final int CLIENTS = 1_000;
+
+    @Param({"shared", "hybrid"})
+    public String mode;
+
+    @Param({"1", "10", "50"})
+    public int leaseSize;
+
+    @Param({"0", "200"})
+    public long roundTripMicros;
+
+    private final LongAdder storeCalls = new LongAdder();
+    private final LongAdder requests = new LongAdder();
+    private final String[] clients = new String[CLIENTS];
+    private RateLimitService rateLimitService;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Calls {
+        public long storeCallsPer1k;
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        for (int i = 0; i < CLIENTS; i++) {
+            clients[i] = "10.0." + (i / 256) + "." + (i % 256);
+        }
+        LocalTokenBucketStore store = new LocalTokenBucketStore(6_000, 100, 100_000, System::currentTimeMillis);
+        TokenBucketStore standIn = (key, requested) -> {
+            storeCalls.increment();
+            long until = System.nanoTime() + TimeUnit.MICROSECONDS.toNanos(roundTripMicros);
+            while (System.nanoTime() < until) {
+                Thread.onSpinWait();
+            }
+            return store.acquire(key, requested);
+        };
+        rateLimitService = new RateLimitService(standIn, 6_000, 100, mode, 0.5, 1, leaseSize, 1_000, 100_000,
+                100_000);
+    }
+
+    @Setup(Level.Iteration)
+    public void resetCounters() {
+        storeCalls.reset();
+        requests.reset();
+    }
+
+    @Benchmark
+    public boolean isAllowed(Calls calls) {
+        requests.increment();
+        boolean allowed = rateLimitService.isAllowed(clients[(int) (requests.sum() % CLIENTS)]);
+        calls.storeCallsPer1k = storeCalls.sum() * 1_000 / requests.sum();
+        return allowed;
+    }
+}
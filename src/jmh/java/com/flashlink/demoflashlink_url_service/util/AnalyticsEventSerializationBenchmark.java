@@ -0,0 +1,104 @@
+package com.flashlink.demoflashlink_url_service.util;
+
+import com.flashlink.demoflashlink_url_service.model.AnalyticsEvent;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.kafka.support.serializer.JsonDeserializer;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Spring's JSON serde vs. the binary AnalyticsEvent format on redirect events. Encoded sizes are
+ * printed once per trial as bytes/event. Run with {@code ./gradlew jmh -Pjmh.includes=AnalyticsEventSerialization}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class AnalyticsEventSerializationBenchmark {
+
+    private static final String TOPIC = "analytics-events-topic";
+    private static final String[] USER_AGENTS = {
+            "Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/124.0.0.0 Safari/537.36",
+            "Mozilla/5.0 (iPhone; CPU iPhone OS 17_4 like Mac OS X) AppleWebKit/605.1.15 (KHTML, like Gecko) Version/17.4 Mobile/15E148 Safari/604.1",
+            "Mozilla/5.0 (X11; Linux x86_64; rv:125.0) Gecko/20100101 Firefox/125.0",
+            "curl/8.5.0"
+    };
+
+    private final JsonSerializer<AnalyticsEvent> jsonSerializer = new JsonSerializer<>();
+    private final JsonDeserializer<AnalyticsEvent> jsonDeserializer = new JsonDeserializer<>(AnalyticsEvent.class, false);
+    private final AnalyticsEventSerializer binarySerializer = new AnalyticsEventSerializer();
+    private final AnalyticsEventDeserializer binaryDeserializer = new AnalyticsEventDeserializer();
+
+    private AnalyticsEvent[] events;
+    private byte[][] jsonPayloads;
+    private byte[][] binaryPayloads;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        events = new AnalyticsEvent[1024];
+        jsonPayloads = new byte[events.length][];
+        binaryPayloads = new byte[events.length][];
+        long jsonBytes = 0;
+        long binaryBytes = 0;
+        for (int i = 0; i < events.length; i++) {
+            events[i] = AnalyticsEvent.builder()
+                    .eventId(UUID.randomUUID().toString())
+                    .shortCode(String.format("%010d", i))
+                    .longUrl("https://example.com/articles/" + i + "?utm_source=newsletter")
+                    .clientIp("203.0.113." + (i % 256))
+                    .userAgent(USER_AGENTS[i % USER_AGENTS.length])
+                    .referer(i % 3 == 0 ? "https://news.ycombinator.com/" : null)
+                    .timestamp(LocalDateTime.now())
+                    .eventType(AnalyticsEvent.EventType.REDIRECT.name())
+                    .build();
+            jsonPayloads[i] = jsonSerializer.serialize(TOPIC, events[i]);
+            binaryPayloads[i] = binarySerializer.serialize(TOPIC, events[i]);
+            jsonBytes += jsonPayloads[i].length;
+            binaryBytes += binaryPayloads[i].length;
+        }
+        System.out.printf("%nbytes/event: json=%.1f binary=%.1f%n",
+                (double) jsonBytes / events.length, (double) binaryBytes / events.length);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        jsonSerializer.close();
+        jsonDeserializer.close();
+    }
+
+    private int nextIndex() {
+        next = (next + 1) & (events.length - 1);
+        return next;
+    }
+
+    @Benchmark
+    public byte[] jsonSerialize() {
+        return jsonSerializer.serialize(TOPIC, events[nextIndex()]);
+    }
+
+    @Benchmark
+    public byte[] binarySerialize() {
+        return binarySerializer.serialize(TOPIC, events[nextIndex()]);
+    }
+
+    @Benchmark
+    public AnalyticsEvent jsonDeserialize() {
+        return jsonDeserializer.deserialize(TOPIC, jsonPayloads[nextIndex()]);
+    }
+
+    @Benchmark
+    public AnalyticsEvent binaryDeserialize() {
+        return binaryDeserializer.deserialize(TOPIC, binaryPayloads[nextIndex()]);
+    }
+}
@@ -0,0 +1,72 @@
+package com.flashlink.demoflashlink_url_service.util;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Table-driven Base62 vs. the previous StringBuilder/charAt/reverse encoder, on Snowflake-sized ids.
+ * Run with {@code ./gradlew jmh -Pjmh.includes=Base62} or add {@code -prof gc} for allocation rates.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class Base62EncoderBenchmark {
+
+    private static final String CHARSET = "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz";
+
+    private final Base62Encoder encoder = new Base62Encoder();
+    private final Base62Encoder fixedWidthEncoder = new Base62Encoder(10);
+    private final byte[] buffer = new byte[Base62Encoder.MAX_LENGTH];
+
+    private long id;
+    private String code;
+
+    @Setup
+    public void setUp() {
+        id = new SnowflakeIdGenerator(1L).nextId();
+        code = fixedWidthEncoder.encode(id);
+    }
+
+    @Benchmark
+    public String stringBuilderEncode() {
+        long value = id;
+        StringBuilder sb = new StringBuilder();
+        while (value > 0) {
+            sb.append(CHARSET.charAt((int) (value % 62)));
+            value /= 62;
+        }
+        return sb.reverse().toString();
+    }
+
+    @Benchmark
+    public String encode() {
+        return encoder.encode(id);
+    }
+
+    @Benchmark
+    public String encodeFixedWidth() {
+        return fixedWidthEncoder.encode(id);
+    }
+
+    @Benchmark
+    public int encodeIntoBuffer() {
+        return fixedWidthEncoder.encode(id, buffer, 0);
+    }
+
+    @Benchmark
+    public long decode() {
+        return fixedWidthEncoder.decode(code);
+    }
+
+    @Benchmark
+    public long tryDecode() {
+        return fixedWidthEncoder.tryDecode(code);
+    }
+}
@@ -0,0 +1,95 @@
+package com.flashlink.demoflashlink_url_service.util;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lock-free vs. synchronized Snowflake generation at 1-64 threads.
+ * Both WAIT generators are capped at 4096 ids/ms per node; the BORROW variant shows the
+ * uncapped cost of the CAS loop itself. Run with {@code ./gradlew jmh}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SnowflakeIdGeneratorBenchmark {
+
+    private static final int BATCH_SIZE = 64;
+
+    private final SynchronizedSnowflakeIdGenerator synchronizedGenerator = new SynchronizedSnowflakeIdGenerator(1L);
+    private final SnowflakeIdGenerator lockFreeGenerator = new SnowflakeIdGenerator(1L);
+    private final SnowflakeIdGenerator borrowingGenerator = new SnowflakeIdGenerator(1L,
+            SnowflakeIdGenerator.ClockRegressionPolicy.BORROW, Long.MAX_VALUE / 2);
+
+    @Benchmark
+    @Threads(1)
+    public long synchronized01() {
+        return synchronizedGenerator.nextId();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public long synchronized04() {
+        return synchronizedGenerator.nextId();
+    }
+
+    @Benchmark
+    @Threads(16)
+    public long synchronized16() {
+        return synchronizedGenerator.nextId();
+    }
+
+    @Benchmark
+    @Threads(64)
+    public long synchronized64() {
+        return synchronizedGenerator.nextId();
+    }
+
+    @Benchmark
+    @Threads(1)
+    public long lockFree01() {
+        return lockFreeGenerator.nextId();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public long lockFree04() {
+        return lockFreeGenerator.nextId();
+    }
+
+    @Benchmark
+    @Threads(16)
+    public long lockFree16() {
+        return lockFreeGenerator.nextId();
+    }
+
+    @Benchmark
+    @Threads(64)
+    public long lockFree64() {
+        return lockFreeGenerator.nextId();
+    }
+
+    @Benchmark
+    @Threads(64)
+    public long lockFreeBorrowing64() {
+        return borrowingGenerator.nextId();
+    }
+
+    @Benchmark
+    @Threads(16)
+    public long[] lockFreeBatch16() {
+        return lockFreeGenerator.nextIds(BATCH_SIZE);
+    }
+
+    @Benchmark
+    @Threads(64)
+    public long[] lockFreeBatch64() {
+        return lockFreeGenerator.nextIds(BATCH_SIZE);
+    }
+}
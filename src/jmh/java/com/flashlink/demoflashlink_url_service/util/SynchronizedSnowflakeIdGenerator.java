@@ -0,0 +1,28 @@
+package com.flashlink.demoflashlink_url_service.util;
+
+/**
+ * The previous monitor-based generator, kept verbatim as the benchmark baseline.
+ */
+public class SynchronizedSnowflakeIdGenerator {
+    private final long nodeId;
+    private long sequence = 0L;
+    private long lastTimestamp = -1L;
+
+    public SynchronizedSnowflakeIdGenerator(long nodeId) {
+        this.nodeId = nodeId;
+    }
+
+    public synchronized long nextId() {
+        long timestamp = System.currentTimeMillis();
+
+        if (timestamp == lastTimestamp) {
+            sequence = (sequence + 1) & 4095;
+            if (sequence == 0) {
+                while ((timestamp = System.currentTimeMillis()) <= lastTimestamp);
+            }
+        } else sequence = 0;
+
+        lastTimestamp = timestamp;
+        return ((timestamp - 1672531200000L) << 22) | (nodeId << 12) | sequence;
+    }
+}
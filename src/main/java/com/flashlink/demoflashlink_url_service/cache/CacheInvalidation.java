@@ -0,0 +1,28 @@
+package com.flashlink.demoflashlink_url_service.cache;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A shortCode-level eviction broadcast to every pod. An empty key list means "clear the cache".
+ * Keys are joined with ',' on the wire, which is safe for the base62 short codes cached here.
+ */
+public record CacheInvalidation(String origin, String cacheName, List<String> keys, long publishedAt) {
+
+    private static final String FIELD_SEPARATOR = "|";
+    private static final String KEY_SEPARATOR = ",";
+
+    public String encode() {
+        return origin + FIELD_SEPARATOR + cacheName + FIELD_SEPARATOR + publishedAt + FIELD_SEPARATOR
+                + String.join(KEY_SEPARATOR, keys);
+    }
+
+    public static CacheInvalidation decode(String message) {
+        String[] fields = message.split("\\|", 4);
+        if (fields.length != 4) {
+            throw new IllegalArgumentException("Malformed cache invalidation: " + message);
+        }
+        List<String> keys = fields[3].isEmpty() ? List.of() : Arrays.asList(fields[3].split(KEY_SEPARATOR));
+        return new CacheInvalidation(fields[0], fields[1], keys, Long.parseLong(fields[2]));
+    }
+}
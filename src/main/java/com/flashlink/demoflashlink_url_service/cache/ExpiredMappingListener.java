@@ -0,0 +1,46 @@
+package com.flashlink.demoflashlink_url_service.cache;
+
+import com.flashlink.demoflashlink_url_service.model.UrlMapping;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.github.benmanes.caffeine.cache.RemovalListener;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.function.Consumer;
+
+/**
+ * Hands mappings that L1 dropped because the link itself expired (not because it went idle) to a
+ * callback, which publishes their LINK_EXPIRED events.
+ */
+@Slf4j
+public class ExpiredMappingListener implements RemovalListener<Object, Object> {
+
+    private static final Duration CLOCK_TOLERANCE = Duration.ofSeconds(1);
+
+    private final Consumer<UrlMapping> onExpired;
+    private final Clock clock;
+
+    public ExpiredMappingListener(Consumer<UrlMapping> onExpired, Clock clock) {
+        this.onExpired = onExpired;
+        this.clock = clock;
+    }
+
+    @Override
+    public void onRemoval(Object key, Object value, RemovalCause cause) {
+        if (cause != RemovalCause.EXPIRED || !(value instanceof UrlMapping mapping)) {
+            return;
+        }
+        LocalDateTime expiry = ShortCodeExpiry.expiryOf(mapping);
+        // Allows for the timer wheel firing slightly ahead of the wall clock
+        if (expiry == null || expiry.isAfter(LocalDateTime.now(clock).plus(CLOCK_TOLERANCE))) {
+            return;
+        }
+        try {
+            onExpired.accept(mapping);
+        } catch (RuntimeException e) {
+            log.warn("Could not report expiry of {}: {}", key, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.flashlink.demoflashlink_url_service.cache;
+
+import com.flashlink.demoflashlink_url_service.model.UrlMapping;
+import com.github.benmanes.caffeine.cache.Expiry;
+import org.springframework.cache.support.NullValue;
+import org.springframework.data.redis.cache.RedisCacheWriter;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * Per-entry L1 expiry: "not found" entries live for the short negative TTL so a code created
+ * shortly after a miss becomes visible quickly. A mapping stays cached for the TTL since it was
+ * last written or read, so hot links stay resident, but never past the link's own expiry. Caffeine
+ * keeps these deadlines on its timer wheel; with a scheduler it evicts entries as they fall due.
+ */
+public class ShortCodeExpiry implements Expiry<Object, Object> {
+
+    private static final Duration MIN_REMOTE_TTL = Duration.ofMillis(1);
+
+    private final Duration ttl;
+    private final long negativeTtlNanos;
+    private final Clock clock;
+
+    public ShortCodeExpiry(Duration ttl, Duration negativeTtl) {
+        this(ttl, negativeTtl, Clock.systemDefaultZone());
+    }
+
+    public ShortCodeExpiry(Duration ttl, Duration negativeTtl, Clock clock) {
+        this.ttl = ttl;
+        this.negativeTtlNanos = negativeTtl.toNanos();
+        this.clock = clock;
+    }
+
+    @Override
+    public long expireAfterCreate(Object key, Object value, long currentTime) {
+        return value instanceof NullValue ? negativeTtlNanos : lifetime(value, ttl, clock).toNanos();
+    }
+
+    @Override
+    public long expireAfterUpdate(Object key, Object value, long currentTime, long currentDuration) {
+        return expireAfterCreate(key, value, currentTime);
+    }
+
+    @Override
+    public long expireAfterRead(Object key, Object value, long currentTime, long currentDuration) {
+        return value instanceof NullValue ? currentDuration : expireAfterCreate(key, value, currentTime);
+    }
+
+    // The same cap for L2 entries; Redis treats a zero TTL as no expiry, so it is at least 1 ms
+    public static RedisCacheWriter.TtlFunction remoteTtl(Duration ttl, Clock clock) {
+        return (key, value) -> {
+            Duration lifetime = lifetime(value, ttl, clock);
+            return lifetime.compareTo(MIN_REMOTE_TTL) < 0 ? MIN_REMOTE_TTL : lifetime;
+        };
+    }
+
+    // When the link stops resolving: expiryAt, or else createdAt plus ttlSeconds; null if never
+    public static LocalDateTime expiryOf(UrlMapping mapping) {
+        if (mapping.getExpiryAt() != null) {
+            return mapping.getExpiryAt();
+        }
+        if (mapping.getTtlSeconds() != null && mapping.getCreatedAt() != null) {
+            return mapping.getCreatedAt().plusSeconds(mapping.getTtlSeconds());
+        }
+        return null;
+    }
+
+    private static Duration lifetime(Object value, Duration ttl, Clock clock) {
+        if (!(value instanceof UrlMapping mapping)) {
+            return ttl;
+        }
+        LocalDateTime expiry = expiryOf(mapping);
+        if (expiry == null) {
+            return ttl;
+        }
+        Duration remaining = Duration.between(LocalDateTime.now(clock), expiry);
+        if (remaining.isNegative()) {
+            return Duration.ZERO;
+        }
+        return remaining.compareTo(ttl) < 0 ? remaining : ttl;
+    }
+}
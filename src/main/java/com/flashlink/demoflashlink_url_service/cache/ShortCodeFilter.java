@@ -0,0 +1,203 @@
+package com.flashlink.demoflashlink_url_service.cache;
+
+import com.flashlink.demoflashlink_url_service.repository.ShortCodeView;
+import com.flashlink.demoflashlink_url_service.repository.UrlMappingRepository;
+import com.flashlink.demoflashlink_url_service.util.Base62Encoder;
+import com.flashlink.demoflashlink_url_service.util.BloomFilter;
+import com.flashlink.demoflashlink_url_service.util.SnowflakeIdGenerator;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Membership filter over every short code in url_mapping, consulted before the cache so random
+ * probes are rejected without a cache slot or a database query. It answers "maybe" for
+ * everything until the first build finishes. Codes created on other pods arrive through the
+ * cache invalidation bus, which is at most once, so a miss is only trusted for codes issued
+ * before the current filter was built: a code whose Snowflake timestamp is newer (within
+ * {@code recent-margin-ms} of clock skew) goes through L2 and the database under the negative
+ * cache, and the periodic rebuild folds it in. Without an invalidation bus the filter stays off.
+ */
+@Slf4j
+@Component
+public class ShortCodeFilter {
+
+    private static final String URL_MAPPING_CACHE = "urlMapping";
+    private static final int PAGE_SIZE = 5_000;
+
+    private final UrlMappingRepository repository;
+    private final Base62Encoder base62;
+    private final boolean enabled;
+    private final long expectedInsertions;
+    private final double falsePositiveRate;
+    private final long recentMarginMs;
+    private final Counter rejected;
+    private final Counter falsePositives;
+    private volatile BloomFilter filter;
+    // Wall clock time the current filter's snapshot started; codes issued later may be missing
+    private volatile long builtFrom;
+    private BloomFilter building;
+
+    public ShortCodeFilter(UrlMappingRepository repository,
+                           MeterRegistry meterRegistry,
+                           ObjectProvider<CacheInvalidationBus> invalidationBus,
+                           Base62Encoder base62,
+                           @Value("${flashlink.shortcode-filter.expected-insertions:10000000}") long expectedInsertions,
+                           @Value("${flashlink.shortcode-filter.false-positive-rate:0.01}") double falsePositiveRate,
+                           @Value("${flashlink.shortcode-filter.recent-margin-ms:60000}") long recentMarginMs) {
+        CacheInvalidationBus bus = invalidationBus.getIfAvailable();
+        this.repository = repository;
+        this.base62 = base62;
+        this.enabled = bus != null;
+        this.expectedInsertions = expectedInsertions;
+        this.falsePositiveRate = falsePositiveRate;
+        this.recentMarginMs = recentMarginMs;
+        this.rejected = Counter.builder("shortcode.filter.rejected")
+                .description("Lookups rejected by the short code filter without touching cache or database")
+                .register(meterRegistry);
+        this.falsePositives = Counter.builder("shortcode.filter.false_positives")
+                .description("Lookups the filter let through that the database did not find")
+                .register(meterRegistry);
+        Gauge.builder("shortcode.filter.expected_fpp", this, ShortCodeFilter::expectedFalsePositiveRate)
+                .description("False positive probability implied by the current filter fill")
+                .register(meterRegistry);
+        Gauge.builder("shortcode.filter.observed_fpp", this, ShortCodeFilter::observedFalsePositiveRate)
+                .description("Share of unknown codes the filter failed to reject")
+                .register(meterRegistry);
+        Gauge.builder("shortcode.filter.memory", this, ShortCodeFilter::memoryBytes)
+                .description("Memory held by the short code filter bit array")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("shortcode.filter.elements", this, ShortCodeFilter::approximateElementCount)
+                .description("Approximate number of short codes in the filter")
+                .register(meterRegistry);
+        if (enabled) {
+            bus.subscribe(this::onInvalidation);
+        } else {
+            log.info("No cache invalidation bus; short code filter disabled");
+        }
+    }
+
+    public boolean mightContain(String shortCode) {
+        BloomFilter current = filter;
+        if (current == null || current.mightContain(shortCode) || isNewerThanFilter(shortCode)) {
+            return true;
+        }
+        rejected.increment();
+        return false;
+    }
+
+    // A code issued after the snapshot started may have been created on a pod whose broadcast
+    // never arrived; a random probe almost never decodes to a timestamp this close to now
+    private boolean isNewerThanFilter(String shortCode) {
+        long id = base62.tryDecode(shortCode);
+        if (id < 0) {
+            return false;
+        }
+        long issuedAt = SnowflakeIdGenerator.timestampOf(id);
+        return issuedAt >= builtFrom - recentMarginMs && issuedAt <= System.currentTimeMillis() + recentMarginMs;
+    }
+
+    public synchronized void add(String shortCode) {
+        if (filter != null) {
+            filter.put(shortCode);
+        }
+        if (building != null) {
+            building.put(shortCode);
+        }
+    }
+
+    public void recordFalsePositive() {
+        if (filter != null) {
+            falsePositives.increment();
+        }
+    }
+
+    public boolean isReady() {
+        return filter != null;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        rebuild();
+    }
+
+    @Scheduled(fixedDelayString = "${flashlink.shortcode-filter.rebuild-interval-ms:300000}",
+            initialDelayString = "${flashlink.shortcode-filter.rebuild-interval-ms:300000}")
+    public void rebuild() {
+        if (!enabled) {
+            return;
+        }
+        long started = System.currentTimeMillis();
+        try {
+            long existing = repository.count();
+            BloomFilter next = BloomFilter.create(Math.max(expectedInsertions, existing * 2), falsePositiveRate);
+            synchronized (this) {
+                building = next;
+            }
+            long loaded = 0;
+            long afterId = Long.MIN_VALUE;
+            List<ShortCodeView> page;
+            do {
+                page = repository.findShortCodesAfter(afterId, PageRequest.of(0, PAGE_SIZE));
+                for (ShortCodeView view : page) {
+                    next.put(view.getShortCode());
+                    afterId = view.getId();
+                }
+                loaded += page.size();
+            } while (page.size() == PAGE_SIZE);
+            synchronized (this) {
+                builtFrom = started;
+                filter = next;
+                building = null;
+            }
+            log.info("Short code filter built with {} codes ({} KiB) in {} ms",
+                    loaded, next.memoryBytes() / 1024, System.currentTimeMillis() - started);
+        } catch (Exception e) {
+            synchronized (this) {
+                building = null;
+            }
+            log.error("Failed to build short code filter; lookups keep using the previous filter", e);
+        }
+    }
+
+    private void onInvalidation(CacheInvalidation invalidation) {
+        // An invalidated code may have just been created on another pod, so treat it as present
+        if (URL_MAPPING_CACHE.equals(invalidation.cacheName())) {
+            for (String key : invalidation.keys()) {
+                add(key);
+            }
+        }
+    }
+
+    private double expectedFalsePositiveRate() {
+        BloomFilter current = filter;
+        return current != null ? current.expectedFalsePositiveRate() : 0.0;
+    }
+
+    private double observedFalsePositiveRate() {
+        double passed = falsePositives.count();
+        double unknown = passed + rejected.count();
+        return unknown > 0 ? passed / unknown : 0.0;
+    }
+
+    private double memoryBytes() {
+        BloomFilter current = filter;
+        return current != null ? current.memoryBytes() : 0.0;
+    }
+
+    private double approximateElementCount() {
+        BloomFilter current = filter;
+        return current != null ? current.approximateElementCount() : 0.0;
+    }
+}
@@ -0,0 +1,234 @@
+package com.flashlink.demoflashlink_url_service.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.AbstractValueAdaptingCache;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Read-through cache with a local (L1) and a shared remote (L2) tier. Lookups go L1, then L2,
+ * then the caller's loader, and every tier that missed is filled on the way back. The remote
+ * tier is best effort: failures count as a miss so Redis trouble never fails a redirect.
+ * Null values ("not found") are only ever kept locally. Writes and evictions are broadcast on
+ * the invalidation bus so other pods drop their L1 copy of the same key.
+ */
+@Slf4j
+public class TwoTierCache extends AbstractValueAdaptingCache {
+
+    public static final String LOCAL_TIER = "l1";
+    public static final String REMOTE_TIER = "l2";
+
+    private final String name;
+    private final Cache local;
+    private final Cache remote;
+    private final TierMetrics localMetrics;
+    private final TierMetrics remoteMetrics;
+    private final CacheInvalidationBus invalidationBus;
+    private final String origin;
+
+    public TwoTierCache(String name, Cache local, Cache remote, MeterRegistry meterRegistry) {
+        this(name, local, remote, meterRegistry, null, null);
+    }
+
+    public TwoTierCache(String name, Cache local, Cache remote, MeterRegistry meterRegistry,
+                        CacheInvalidationBus invalidationBus, String origin) {
+        super(true);
+        this.name = name;
+        this.local = local;
+        this.remote = remote;
+        this.invalidationBus = invalidationBus;
+        this.origin = origin;
+        this.localMetrics = new TierMetrics(name, LOCAL_TIER, meterRegistry);
+        this.remoteMetrics = new TierMetrics(name, REMOTE_TIER, meterRegistry);
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return local.getNativeCache();
+    }
+
+    public Cache getLocal() {
+        return local;
+    }
+
+    @Override
+    protected Object lookup(Object key) {
+        ValueWrapper wrapper = getLocal(key);
+        if (wrapper != null) {
+            return toStoreValue(wrapper.get());
+        }
+        wrapper = getRemote(key);
+        if (wrapper != null) {
+            local.put(key, wrapper.get());
+            return toStoreValue(wrapper.get());
+        }
+        return null;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        ValueWrapper wrapper = getLocal(key);
+        if (wrapper != null) {
+            return (T) wrapper.get();
+        }
+        // The local tier serializes concurrent loads of the same key, so a burst of misses on
+        // one pod produces a single L2 read and at most one repository call.
+        return local.get(key, () -> {
+            ValueWrapper remoteValue = getRemote(key);
+            if (remoteValue != null) {
+                return (T) remoteValue.get();
+            }
+            T value = valueLoader.call();
+            putRemote(key, value);
+            return value;
+        });
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        local.put(key, value);
+        putRemote(key, value);
+        broadcast(List.of(key.toString()));
+    }
+
+    @Override
+    public void evict(Object key) {
+        local.evict(key);
+        evictRemote(key);
+        broadcast(List.of(key.toString()));
+    }
+
+    // Evicts a batch of keys with a single broadcast instead of one message per key
+    public void evictAll(Collection<?> keys) {
+        if (keys.isEmpty()) {
+            return;
+        }
+        List<String> broadcastKeys = new ArrayList<>(keys.size());
+        for (Object key : keys) {
+            local.evict(key);
+            evictRemote(key);
+            broadcastKeys.add(key.toString());
+        }
+        broadcast(broadcastKeys);
+    }
+
+    @Override
+    public void clear() {
+        local.clear();
+        if (remote != null) {
+            try {
+                remote.clear();
+            } catch (RuntimeException e) {
+                remoteMetrics.errors.increment();
+                log.warn("Remote cache clear failed for {}: {}", name, e.getMessage());
+            }
+        }
+        broadcast(List.of());
+    }
+
+    public void evictLocal(Object key) {
+        local.evict(key);
+    }
+
+    public void clearLocal() {
+        local.clear();
+    }
+
+    private void evictRemote(Object key) {
+        if (remote == null) {
+            return;
+        }
+        try {
+            remote.evict(key);
+        } catch (RuntimeException e) {
+            remoteMetrics.errors.increment();
+            log.warn("Remote cache evict failed for {}::{}: {}", name, key, e.getMessage());
+        }
+    }
+
+    private void broadcast(List<String> keys) {
+        if (invalidationBus != null) {
+            invalidationBus.publish(new CacheInvalidation(origin, name, keys, System.currentTimeMillis()));
+        }
+    }
+
+    private ValueWrapper getLocal(Object key) {
+        long start = System.nanoTime();
+        ValueWrapper wrapper = local.get(key);
+        localMetrics.record(wrapper != null, System.nanoTime() - start);
+        return wrapper;
+    }
+
+    private ValueWrapper getRemote(Object key) {
+        if (remote == null) {
+            return null;
+        }
+        long start = System.nanoTime();
+        try {
+            ValueWrapper wrapper = remote.get(key);
+            remoteMetrics.record(wrapper != null, System.nanoTime() - start);
+            return wrapper;
+        } catch (RuntimeException e) {
+            remoteMetrics.errors.increment();
+            log.warn("Remote cache read failed for {}::{}: {}", name, key, e.getMessage());
+            return null;
+        }
+    }
+
+    private void putRemote(Object key, Object value) {
+        if (remote == null || value == null) {
+            return;
+        }
+        try {
+            remote.put(key, value);
+        } catch (RuntimeException e) {
+            remoteMetrics.errors.increment();
+            log.warn("Remote cache write failed for {}::{}: {}", name, key, e.getMessage());
+        }
+    }
+
+    private static final class TierMetrics {
+        private final Counter hits;
+        private final Counter misses;
+        private final Counter errors;
+        private final Timer latency;
+
+        private TierMetrics(String cacheName, String tier, MeterRegistry meterRegistry) {
+            this.hits = Counter.builder("cache.tier.gets")
+                    .description("Lookups per cache tier")
+                    .tags("cache", cacheName, "tier", tier, "result", "hit")
+                    .register(meterRegistry);
+            this.misses = Counter.builder("cache.tier.gets")
+                    .description("Lookups per cache tier")
+                    .tags("cache", cacheName, "tier", tier, "result", "miss")
+                    .register(meterRegistry);
+            this.errors = Counter.builder("cache.tier.errors")
+                    .description("Failed operations per cache tier")
+                    .tags("cache", cacheName, "tier", tier)
+                    .register(meterRegistry);
+            this.latency = Timer.builder("cache.tier.latency")
+                    .description("Lookup latency per cache tier")
+                    .tags("cache", cacheName, "tier", tier)
+                    .register(meterRegistry);
+        }
+
+        private void record(boolean hit, long nanos) {
+            (hit ? hits : misses).increment();
+            latency.record(nanos, TimeUnit.NANOSECONDS);
+        }
+    }
+}
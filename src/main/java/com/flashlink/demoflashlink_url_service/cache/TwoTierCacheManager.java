@@ -0,0 +1,90 @@
+package com.flashlink.demoflashlink_url_service.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+public class TwoTierCacheManager implements CacheManager {
+
+    private final CacheManager localCacheManager;
+    private final CacheManager remoteCacheManager;
+    private final MeterRegistry meterRegistry;
+    private final CacheInvalidationBus invalidationBus;
+    private final String origin = UUID.randomUUID().toString();
+    private final ConcurrentMap<String, TwoTierCache> caches = new ConcurrentHashMap<>();
+    private final Counter invalidationsApplied;
+    private final Timer invalidationLag;
+
+    public TwoTierCacheManager(CacheManager localCacheManager, CacheManager remoteCacheManager,
+                               MeterRegistry meterRegistry) {
+        this(localCacheManager, remoteCacheManager, meterRegistry, null);
+    }
+
+    public TwoTierCacheManager(CacheManager localCacheManager, CacheManager remoteCacheManager,
+                               MeterRegistry meterRegistry, CacheInvalidationBus invalidationBus) {
+        this.localCacheManager = localCacheManager;
+        this.remoteCacheManager = remoteCacheManager;
+        this.meterRegistry = meterRegistry;
+        this.invalidationBus = invalidationBus;
+        this.invalidationsApplied = Counter.builder("cache.invalidation.applied")
+                .description("Remote cache invalidations applied to the local tier")
+                .register(meterRegistry);
+        this.invalidationLag = Timer.builder("cache.invalidation.lag")
+                .description("Time from publishing an invalidation to applying it on this pod")
+                .register(meterRegistry);
+        if (invalidationBus != null) {
+            invalidationBus.subscribe(this::applyRemoteInvalidation);
+        }
+    }
+
+    @Override
+    public Cache getCache(String name) {
+        return caches.computeIfAbsent(name, this::createCache);
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return Collections.unmodifiableSet(caches.keySet());
+    }
+
+    public String getOrigin() {
+        return origin;
+    }
+
+    void applyRemoteInvalidation(CacheInvalidation invalidation) {
+        if (origin.equals(invalidation.origin())) {
+            return;
+        }
+        TwoTierCache cache = caches.get(invalidation.cacheName());
+        if (cache == null) {
+            return;
+        }
+        if (invalidation.keys().isEmpty()) {
+            cache.clearLocal();
+        } else {
+            for (String key : invalidation.keys()) {
+                cache.evictLocal(key);
+            }
+        }
+        invalidationsApplied.increment();
+        invalidationLag.record(Math.max(0, System.currentTimeMillis() - invalidation.publishedAt()), TimeUnit.MILLISECONDS);
+    }
+
+    private TwoTierCache createCache(String name) {
+        Cache local = localCacheManager.getCache(name);
+        if (local == null) {
+            return null;
+        }
+        Cache remote = remoteCacheManager != null ? remoteCacheManager.getCache(name) : null;
+        return new TwoTierCache(name, local, remote, meterRegistry, invalidationBus, origin);
+    }
+}
@@ -1,6 +1,17 @@
 package com.flashlink.demoflashlink_url_service.config;
 
+import com.flashlink.demoflashlink_url_service.cache.CacheInvalidationBus;
+import com.flashlink.demoflashlink_url_service.cache.ExpiredMappingListener;
+import com.flashlink.demoflashlink_url_service.cache.RedisCacheInvalidationBus;
+import com.flashlink.demoflashlink_url_service.cache.ShortCodeExpiry;
+import com.flashlink.demoflashlink_url_service.cache.TwoTierCacheManager;
+import com.flashlink.demoflashlink_url_service.service.AnalyticsProducerService;
 import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Scheduler;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.cache.caffeine.CaffeineCacheManager;
@@ -10,8 +21,11 @@ import org.springframework.context.annotation.Primary;
 import org.springframework.data.redis.cache.RedisCacheConfiguration;
 import org.springframework.data.redis.cache.RedisCacheManager;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import java.time.Clock;
 import java.time.Duration;
-import java.util.concurrent.TimeUnit;
 
 @Configuration
 @EnableCaching
@@ -19,23 +33,64 @@ public class CacheConfig {
 
     @Bean
     @Primary
-    public CacheManager caffeineCacheManager() {
+    public CacheManager cacheManager(CaffeineCacheManager caffeineCacheManager,
+                                     RedisCacheManager redisCacheManager,
+                                     MeterRegistry meterRegistry,
+                                     ObjectProvider<CacheInvalidationBus> invalidationBus,
+                                     @Value("${flashlink.cache.l2.enabled:true}") boolean l2Enabled) {
+        return new TwoTierCacheManager(caffeineCacheManager, l2Enabled ? redisCacheManager : null, meterRegistry,
+                invalidationBus.getIfAvailable());
+    }
+
+    // The scheduler evicts entries as the timer wheel reaches them rather than on the next cache
+    // access, so LINK_EXPIRED is reported close to the link's expiry even for idle entries.
+    @Bean
+    public CaffeineCacheManager caffeineCacheManager(
+            @Value("${flashlink.cache.l1.max-size:10000}") long maxSize,
+            @Value("${flashlink.cache.l1.ttl:5m}") Duration ttl,
+            @Value("${flashlink.cache.l1.negative-ttl:30s}") Duration negativeTtl,
+            ObjectProvider<AnalyticsProducerService> producers) {
+        Clock clock = Clock.systemDefaultZone();
         CaffeineCacheManager cacheManager = new CaffeineCacheManager();
         cacheManager.setCaffeine(Caffeine.newBuilder()
-                .maximumSize(10_000)
-                .expireAfterWrite(5, TimeUnit.MINUTES)
+                .maximumSize(maxSize)
+                .expireAfter(new ShortCodeExpiry(ttl, negativeTtl, clock))
+                .scheduler(Scheduler.systemScheduler())
+                .removalListener(new ExpiredMappingListener(mapping -> producers.ifAvailable(producer ->
+                        producer.publishLinkExpiredEvent(mapping.getShortCode(), mapping.getOwnerId(),
+                                ShortCodeExpiry.expiryOf(mapping))), clock))
                 .recordStats());
         return cacheManager;
     }
 
+    // Redis has no per-cache entry bound; L2 size is held by the TTL here and the server's
+    // maxmemory/allkeys-lru policy (see docker-compose.yml).
     @Bean
-    public RedisCacheManager redisCacheManager(RedisConnectionFactory connectionFactory) {
+    public RedisCacheManager redisCacheManager(RedisConnectionFactory connectionFactory,
+                                               @Value("${flashlink.cache.l2.ttl:30m}") Duration ttl) {
         RedisCacheConfiguration config = RedisCacheConfiguration.defaultCacheConfig()
-                .entryTtl(Duration.ofMinutes(30))
+                .entryTtl(ShortCodeExpiry.remoteTtl(ttl, Clock.systemDefaultZone()))
                 .disableCachingNullValues();
-        
+
         return RedisCacheManager.builder(connectionFactory)
                 .cacheDefaults(config)
                 .build();
     }
+
+    @Bean
+    @ConditionalOnProperty(name = "flashlink.cache.invalidation.enabled", havingValue = "true", matchIfMissing = true)
+    public RedisCacheInvalidationBus cacheInvalidationBus(StringRedisTemplate redisTemplate,
+            @Value("${flashlink.cache.invalidation.channel:flashlink:cache-invalidation}") String channel) {
+        return new RedisCacheInvalidationBus(redisTemplate, channel);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "flashlink.cache.invalidation.enabled", havingValue = "true", matchIfMissing = true)
+    public RedisMessageListenerContainer cacheInvalidationListenerContainer(RedisConnectionFactory connectionFactory,
+                                                                           RedisCacheInvalidationBus invalidationBus) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.addMessageListener(invalidationBus, new ChannelTopic(invalidationBus.getChannel()));
+        return container;
+    }
 }
@@ -1,18 +1,21 @@
 package com.flashlink.demoflashlink_url_service.config;
 
 import com.flashlink.demoflashlink_url_service.model.AnalyticsEvent;
+import com.flashlink.demoflashlink_url_service.util.AnalyticsEventDeserializer;
+import com.flashlink.demoflashlink_url_service.util.AnalyticsEventSerializer;
 import org.apache.kafka.clients.consumer.ConsumerConfig;
 import org.apache.kafka.clients.producer.ProducerConfig;
 import org.apache.kafka.common.serialization.StringDeserializer;
 import org.apache.kafka.common.serialization.StringSerializer;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.kafka.annotation.EnableKafka;
 import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
 import org.springframework.kafka.core.*;
+import org.springframework.kafka.listener.ConsumerAwareRebalanceListener;
 import org.springframework.kafka.listener.ContainerProperties;
-import org.springframework.kafka.support.serializer.JsonDeserializer;
 import org.springframework.kafka.support.serializer.JsonSerializer;
 
 import java.util.HashMap;
@@ -25,12 +28,31 @@ public class KafkaConfig {
     @Value("${spring.kafka.bootstrap-servers}")
     private String bootstrapServers;
 
+    @Value("${kafka.serialization.format:json}")
+    private String serializationFormat = "json";
+
+    @Value("${kafka.consumer.max-poll-records:100}")
+    private int maxPollRecords = 100;
+
+    @Value("${kafka.consumer.fetch-min-bytes:1024}")
+    private int fetchMinBytes = 1024;
+
+    @Value("${kafka.consumer.fetch-max-wait-ms:500}")
+    private int fetchMaxWaitMs = 500;
+
+    @Value("${kafka.consumer.max-partition-fetch-bytes:1048576}")
+    private int maxPartitionFetchBytes = 1048576;
+
+    @Value("${kafka.consumer.concurrency:3}")
+    private int concurrency = 3;
+
     @Bean
     public ProducerFactory<String, AnalyticsEvent> producerFactory() {
         Map<String, Object> configProps = new HashMap<>();
         configProps.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
         configProps.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
-        configProps.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, JsonSerializer.class);
+        configProps.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG,
+                "binary".equalsIgnoreCase(serializationFormat) ? AnalyticsEventSerializer.class : JsonSerializer.class);
         configProps.put(ProducerConfig.ACKS_CONFIG, "all");
         configProps.put(ProducerConfig.RETRIES_CONFIG, 3);
         configProps.put(ProducerConfig.BATCH_SIZE_CONFIG, 16384);
@@ -54,28 +76,47 @@ public class KafkaConfig {
         configProps.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
         configProps.put(ConsumerConfig.GROUP_ID_CONFIG, "url-service-analytics");
         configProps.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
-        configProps.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, JsonDeserializer.class);
+        // Reads both the binary and the JSON format, whichever the producers are on
+        configProps.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, AnalyticsEventDeserializer.class);
         configProps.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
         configProps.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
-        configProps.put(JsonDeserializer.TRUSTED_PACKAGES, "com.flashlink.demoflashlink_url_service.model");
-        configProps.put(JsonDeserializer.VALUE_DEFAULT_TYPE, AnalyticsEvent.class);
-        configProps.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, 100);
-        configProps.put(ConsumerConfig.FETCH_MIN_BYTES_CONFIG, 1024);
-        configProps.put(ConsumerConfig.FETCH_MAX_WAIT_MS_CONFIG, 500);
+        configProps.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, maxPollRecords);
+        configProps.put(ConsumerConfig.FETCH_MIN_BYTES_CONFIG, fetchMinBytes);
+        configProps.put(ConsumerConfig.FETCH_MAX_WAIT_MS_CONFIG, fetchMaxWaitMs);
+        configProps.put(ConsumerConfig.MAX_PARTITION_FETCH_BYTES_CONFIG, maxPartitionFetchBytes);
         
         return new DefaultKafkaConsumerFactory<>(configProps);
     }
 
+    // The rebalance listener flushes acks held back by the redirect count aggregator before revocation
     @Bean
-    public ConcurrentKafkaListenerContainerFactory<String, AnalyticsEvent> kafkaListenerContainerFactory() {
+    public ConcurrentKafkaListenerContainerFactory<String, AnalyticsEvent> kafkaListenerContainerFactory(
+            ObjectProvider<ConsumerAwareRebalanceListener> rebalanceListener) {
         ConcurrentKafkaListenerContainerFactory<String, AnalyticsEvent> factory =
                 new ConcurrentKafkaListenerContainerFactory<>();
         factory.setConsumerFactory(consumerFactory());
-        factory.setConcurrency(3);
+        factory.setConcurrency(concurrency);
         factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.MANUAL_IMMEDIATE);
+        rebalanceListener.ifAvailable(factory.getContainerProperties()::setConsumerRebalanceListener);
         factory.getContainerProperties().setPollTimeout(3000);
         factory.getContainerProperties().setIdleBetweenPolls(100);
         
         return factory;
     }
+
+    // Hands the listener a whole poll; one acknowledgment commits every record in it
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, AnalyticsEvent> kafkaBatchListenerContainerFactory(
+            ObjectProvider<ConsumerAwareRebalanceListener> rebalanceListener) {
+        ConcurrentKafkaListenerContainerFactory<String, AnalyticsEvent> factory =
+                new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(consumerFactory());
+        factory.setConcurrency(concurrency);
+        factory.setBatchListener(true);
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.MANUAL);
+        rebalanceListener.ifAvailable(factory.getContainerProperties()::setConsumerRebalanceListener);
+        factory.getContainerProperties().setPollTimeout(3000);
+
+        return factory;
+    }
 }
@@ -1,43 +1,25 @@
 package com.flashlink.demoflashlink_url_service.config;
 
-import io.micrometer.core.instrument.MeterRegistry;
-import io.micrometer.core.instrument.Timer;
+import com.flashlink.demoflashlink_url_service.service.HotKeyMetrics;
+import io.micrometer.core.instrument.config.MeterFilter;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.core.RedisTemplate;
 
-import java.time.Duration;
+import java.util.Set;
 
 @Configuration
 public class MetricsConfig {
 
-    @Bean
-    public Timer urlShorteningTimer(MeterRegistry meterRegistry) {
-        return Timer.builder("url.shortening.duration")
-                .description("Time taken to shorten URLs")
-                .register(meterRegistry);
-    }
-
-    @Bean
-    public Timer redirectTimer(MeterRegistry meterRegistry) {
-        return Timer.builder("redirect.duration")
-                .description("Time taken to process redirects")
-                .register(meterRegistry);
-    }
-
-    @Bean
-    public Timer cacheAccessTimer(MeterRegistry meterRegistry) {
-        return Timer.builder("cache.access.duration")
-                .description("Time taken for cache operations")
-                .register(meterRegistry);
-    }
+    // Tags with one value per link or owner; only the bounded hot key meters may carry them
+    static final Set<String> UNBOUNDED_TAG_KEYS = Set.of("short_code", "owner_id");
 
+    // Guards the registry size: any other meter tagged per link or owner is replaced by a no-op
     @Bean
-    public Timer databaseAccessTimer(MeterRegistry meterRegistry) {
-        return Timer.builder("database.access.duration")
-                .description("Time taken for database operations")
-                .register(meterRegistry);
+    public MeterFilter unboundedTagGuard() {
+        return MeterFilter.deny(id -> !HotKeyMetrics.METER_NAMES.contains(id.getName())
+                && id.getTags().stream().anyMatch(tag -> UNBOUNDED_TAG_KEYS.contains(tag.getKey())));
     }
 
     @Bean
@@ -0,0 +1,25 @@
+package com.flashlink.demoflashlink_url_service.config;
+
+import com.flashlink.demoflashlink_url_service.service.RequestMetrics;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+// /actuator/redirectstages: p50/p99/max per redirect stage over the stage window; counts are since startup
+@Component
+@Endpoint(id = "redirectstages")
+@RequiredArgsConstructor
+public class RedirectStagesEndpoint {
+
+    private final RequestMetrics requestMetrics;
+
+    public record RedirectStages(int windowMinutes, Map<String, RequestMetrics.StageLatency> stages) {}
+
+    @ReadOperation
+    public RedirectStages stages() {
+        return new RedirectStages(requestMetrics.stageWindowMinutes(), requestMetrics.stageLatencies());
+    }
+}
@@ -0,0 +1,64 @@
+package com.flashlink.demoflashlink_url_service.controller;
+
+import com.flashlink.demoflashlink_url_service.model.ClickRollupGranularity;
+import com.flashlink.demoflashlink_url_service.service.ClickAnalyticsService;
+import com.flashlink.demoflashlink_url_service.service.LinkSketchService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/v1/analytics")
+@RequiredArgsConstructor
+public class AnalyticsController {
+
+    private final ClickAnalyticsService clickAnalyticsService;
+    private final LinkSketchService linkSketchService;
+
+    // Defaults to the last 24 hours; granularity is picked from the range unless given
+    @GetMapping("/{shortCode}/clicks")
+    public ClickAnalyticsService.ClickSeries clicks(
+            @PathVariable String shortCode,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) ClickRollupGranularity granularity) {
+        LocalDateTime end = to != null ? to : LocalDateTime.now();
+        LocalDateTime start = from != null ? from : end.minusDays(1);
+        return clickAnalyticsService.clickSeries(shortCode, start, end, granularity);
+    }
+
+    @GetMapping("/{shortCode}/breakdown")
+    public ClickAnalyticsService.Breakdown breakdown(
+            @PathVariable String shortCode,
+            @RequestParam String dimension,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(defaultValue = "10") int limit) {
+        LocalDateTime end = to != null ? to : LocalDateTime.now();
+        LocalDateTime start = from != null ? from : end.minusDays(1);
+        return clickAnalyticsService.breakdown(shortCode, dimension, start, end, limit);
+    }
+
+    // Approximate all-time unique visitors and top referer hosts (counts are upper bounds within error)
+    @GetMapping("/{shortCode}/audience")
+    public ResponseEntity<LinkSketchService.Audience> audience(
+            @PathVariable String shortCode,
+            @RequestParam(defaultValue = "10") int top) {
+        if (top < 1 || top > 100) {
+            throw new IllegalArgumentException("top must be between 1 and 100: " + top);
+        }
+        return linkSketchService.audience(shortCode, top)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<Map<String, String>> invalidQuery(IllegalArgumentException ex) {
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(Map.of("error", ex.getMessage()));
+    }
+}
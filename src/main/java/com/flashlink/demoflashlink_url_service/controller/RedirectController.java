@@ -1,12 +1,13 @@
 package com.flashlink.demoflashlink_url_service.controller;
 
 import com.flashlink.demoflashlink_url_service.model.UrlMapping;
-import com.flashlink.demoflashlink_url_service.service.AnalyticsProducerService;
 import com.flashlink.demoflashlink_url_service.service.RateLimitService;
+import com.flashlink.demoflashlink_url_service.service.RedirectEventEmitter;
+import com.flashlink.demoflashlink_url_service.service.RequestMetrics;
+import com.flashlink.demoflashlink_url_service.service.RequestMetrics.RedirectOutcome;
+import com.flashlink.demoflashlink_url_service.service.RequestMetrics.Stage;
 import com.flashlink.demoflashlink_url_service.service.UrlService;
-import io.github.resilience4j.ratelimiter.annotation.RateLimiter;
-import io.micrometer.core.instrument.Timer;
-import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.tracing.Span;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
@@ -25,8 +26,8 @@ public class RedirectController {
 
     private final UrlService urlService;
     private final RateLimitService rateLimitService;
-    private final AnalyticsProducerService analyticsProducerService;
-    private final MeterRegistry meterRegistry;
+    private final RedirectEventEmitter redirectEventEmitter;
+    private final RequestMetrics requestMetrics;
 
     @GetMapping("/")
     public String index() {
@@ -34,50 +35,60 @@ public class RedirectController {
     }
 
     @GetMapping("/{shortCode:[a-zA-Z0-9]+}")
-    @RateLimiter(name = "redirect", fallbackMethod = "redirectFallback")
     public RedirectView redirectToLongUrl(@PathVariable String shortCode, HttpServletRequest request) {
-        Timer.Sample sample = Timer.start(meterRegistry);
+        long start = requestMetrics.start();
+        RedirectOutcome outcome = RedirectOutcome.ERROR;
         try {
-            RedirectView result = performRedirect(shortCode, request);
-            sample.stop(Timer.builder("redirect.duration").register(meterRegistry));
-            return result;
-        } catch (Exception e) {
-            sample.stop(Timer.builder("redirect.duration").register(meterRegistry));
-            throw e;
-        }
-    }
-    
-    private RedirectView performRedirect(String shortCode, HttpServletRequest request) {
-        String clientIp = getClientIp(request);
-        String userAgent = request.getHeader("User-Agent");
-        String referer = request.getHeader("Referer");
-        
-        if (!rateLimitService.isAllowed(clientIp)) {
-            log.warn("Rate limit exceeded for IP: {}", clientIp);
-            throw new RateLimitExceededException("Rate limit exceeded");
-        }
-        
-        Optional<String> longUrl = urlService.getLongUrl(shortCode);
-        
-        if (longUrl.isPresent()) {
-            log.info("Redirecting {} to {}", shortCode, longUrl.get());
-            
-            // Emit analytics event asynchronously
-            analyticsProducerService.publishRedirectEvent(
-                    shortCode, 
-                    longUrl.get(), 
-                    clientIp, 
-                    userAgent, 
-                    referer
-            );
-            
-            RedirectView redirectView = new RedirectView(longUrl.get());
-            redirectView.setStatusCode(HttpStatus.MOVED_PERMANENTLY); // 301 for SEO
-            return redirectView;
+            String clientIp = getClientIp(request);
+            String userAgent = request.getHeader("User-Agent");
+            String referer = request.getHeader("Referer");
+
+            long stageStart = requestMetrics.start();
+            Span span = requestMetrics.stageSpan(Stage.RATE_LIMIT);
+            boolean allowed;
+            try {
+                allowed = rateLimitService.isAllowed(clientIp);
+            } finally {
+                requestMetrics.recordStage(Stage.RATE_LIMIT, stageStart, span);
+            }
+            if (!allowed) {
+                log.warn("Rate limit exceeded for IP: {}", clientIp);
+                outcome = RedirectOutcome.RATE_LIMITED;
+                throw new RateLimitExceededException("Rate limit exceeded");
+            }
+
+            Optional<String> longUrl = urlService.getLongUrl(shortCode);
+
+            if (longUrl.isPresent()) {
+                log.info("Redirecting {} to {}", shortCode, longUrl.get());
+                outcome = requestMetrics.foundOutcome();
+
+                // Queued for the emitter's drainer; never blocks on Kafka
+                stageStart = requestMetrics.start();
+                span = requestMetrics.stageSpan(Stage.PUBLISH);
+                try {
+                    redirectEventEmitter.emitRedirect(
+                            shortCode,
+                            longUrl.get(),
+                            clientIp,
+                            userAgent,
+                            referer
+                    );
+                } finally {
+                    requestMetrics.recordStage(Stage.PUBLISH, stageStart, span);
+                }
+
+                RedirectView redirectView = new RedirectView(longUrl.get());
+                redirectView.setStatusCode(HttpStatus.MOVED_PERMANENTLY); // 301 for SEO
+                return redirectView;
+            }
+
+            log.warn("Short code not found: {}", shortCode);
+            outcome = RedirectOutcome.NOT_FOUND;
+            return new RedirectView("/");
+        } finally {
+            requestMetrics.recordRedirect(start, outcome);
         }
-        
-        log.warn("Short code not found: {}", shortCode);
-        return new RedirectView("/");
     }
     
     private String getClientIp(HttpServletRequest request) {
@@ -88,11 +99,6 @@ public class RedirectController {
         return request.getRemoteAddr();
     }
     
-    public RedirectView redirectFallback(String shortCode, HttpServletRequest request, Exception ex) {
-        log.warn("Rate limit fallback triggered for IP: {}", getClientIp(request));
-        return new RedirectView("/");
-    }
-    
     @ResponseStatus(HttpStatus.TOO_MANY_REQUESTS)
     public static class RateLimitExceededException extends RuntimeException {
         public RateLimitExceededException(String message) {
@@ -1,21 +1,30 @@
 package com.flashlink.demoflashlink_url_service.controller;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.flashlink.demoflashlink_url_service.model.UrlMapping;
+import com.flashlink.demoflashlink_url_service.service.BulkShortenService;
 import com.flashlink.demoflashlink_url_service.service.RateLimitService;
 import com.flashlink.demoflashlink_url_service.service.UrlService;
 import io.github.resilience4j.ratelimiter.annotation.RateLimiter;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 
 import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Size;
+import tools.jackson.databind.MappingIterator;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.SequenceWriter;
+
+import java.io.IOException;
 import java.time.LocalDateTime;
 import java.util.Map;
 
@@ -28,6 +37,8 @@ public class UrlApiController {
 
     private final UrlService urlService;
     private final RateLimitService rateLimitService;
+    private final BulkShortenService bulkShortenService;
+    private final ObjectMapper objectMapper;
 
     @PostMapping("/shorten")
     @RateLimiter(name = "shorten", fallbackMethod = "shortenFallback")
@@ -54,6 +65,38 @@ public class UrlApiController {
         return ResponseEntity.ok(response);
     }
 
+    // Accepts a JSON array or NDJSON of {url, expiryAt?, ownerId?} and streams one NDJSON result per
+    // item, in input order, as each chunk commits.
+    @PostMapping(value = "/shorten/batch",
+            consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE},
+            produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public void shortenBatch(HttpServletRequest httpRequest, HttpServletResponse httpResponse) throws IOException {
+        String clientIp = getClientIp(httpRequest);
+        if (!rateLimitService.isAllowed(clientIp)) {
+            log.warn("Rate limit exceeded for IP: {}", clientIp);
+            throw new RateLimitExceededException("Rate limit exceeded");
+        }
+
+        String shortUrlPrefix = getBaseUrl(httpRequest) + "/";
+        httpResponse.setStatus(HttpStatus.OK.value());
+        httpResponse.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+
+        try (MappingIterator<BulkShortenService.Item> items = objectMapper
+                     .readerFor(BulkShortenService.Item.class)
+                     .readValues(httpRequest.getInputStream());
+             SequenceWriter writer = objectMapper.writer()
+                     .withRootValueSeparator("\n")
+                     .writeValues(httpResponse.getOutputStream())) {
+            int created = bulkShortenService.shorten(items, results -> {
+                for (BulkShortenService.Result result : results) {
+                    writer.write(BatchShortenResult.from(result, shortUrlPrefix));
+                }
+                writer.flush();
+            });
+            log.info("Bulk shorten created {} links for IP: {}", created, clientIp);
+        }
+    }
+
     @GetMapping("/expand/{shortCode}")
     @RateLimiter(name = "expand", fallbackMethod = "expandFallback")
     public ResponseEntity<Map<String, Object>> expandUrl(@PathVariable String shortCode) {
@@ -114,4 +157,24 @@ public class UrlApiController {
             @NotBlank @Size(max = 2048) String url,
             LocalDateTime expiryAt
     ) {}
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public record BatchShortenResult(
+            int index,
+            String shortCode,
+            String shortUrl,
+            String longUrl,
+            String expiryAt,
+            String error
+    ) {
+        static BatchShortenResult from(BulkShortenService.Result result, String shortUrlPrefix) {
+            return new BatchShortenResult(
+                    result.index(),
+                    result.shortCode(),
+                    result.shortCode() != null ? shortUrlPrefix + result.shortCode() : null,
+                    result.longUrl(),
+                    result.expiryAt() != null ? result.expiryAt().toString() : null,
+                    result.error());
+        }
+    }
 }
@@ -23,11 +23,18 @@ public class AnalyticsEvent {
     private LocalDateTime timestamp;
     private String eventType;
     private Map<String, Object> metadata;
+    // Set on sampled REDIRECT events: the number of redirects this event stands for. Sampled
+    // events are not counted exactly; their code's REDIRECT_COUNT events carry the exact count.
+    private Double sampleWeight;
+    // Exact number of redirects carried by a REDIRECT_COUNT event
+    private Long countDelta;
     
+    // Ordinals are part of the binary wire format: append only
     public enum EventType {
         REDIRECT,
         LINK_CREATED,
         LINK_EXPIRED,
-        LINK_DELETED
+        LINK_DELETED,
+        REDIRECT_COUNT
     }
 }
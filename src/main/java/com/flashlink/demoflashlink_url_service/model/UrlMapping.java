@@ -2,6 +2,8 @@ package com.flashlink.demoflashlink_url_service.model;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.springframework.data.domain.Persistable;
+import java.io.Serializable;
 import java.time.LocalDateTime;
 
 @Entity
@@ -15,7 +17,9 @@ import java.time.LocalDateTime;
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
-public class UrlMapping {
+public class UrlMapping implements Persistable<Long>, Serializable {
+    private static final long serialVersionUID = 1L;
+
     @Id
     private Long id; // Snowflake ID
 
@@ -45,4 +49,24 @@ public class UrlMapping {
     
     @Column(name = "metadata", columnDefinition = "TEXT")
     private String metadata; // JSON metadata for extensibility
+
+    // Ids are assigned Snowflake values, so Spring Data cannot tell new from detached by the id.
+    // New instances persist with a plain INSERT; anything loaded or saved merges as before.
+    @Transient
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private boolean persisted;
+
+    @Override
+    public boolean isNew() {
+        return !persisted;
+    }
+
+    @PostLoad
+    @PostPersist
+    void markPersisted() {
+        this.persisted = true;
+    }
 }
@@ -0,0 +1,87 @@
+package com.flashlink.demoflashlink_url_service.repository;
+
+import com.flashlink.demoflashlink_url_service.model.ClickRollupGranularity;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * JDBC access to the click_rollup_minute/hour/day tables. Increments are batched upserts; reads are
+ * range scans over the (short_code, dimension, dimension_value, bucket_start) primary key.
+ */
+@Repository
+@RequiredArgsConstructor
+public class ClickRollupRepository {
+
+    public static final String TOTAL = "total";
+    public static final String REFERER = "referer";
+    public static final String COUNTRY = "country";
+
+    private static final String UPSERT_SQL = "INSERT INTO %s "
+            + "(short_code, dimension, dimension_value, bucket_start, clicks) VALUES (?, ?, ?, ?, ?) "
+            + "ON DUPLICATE KEY UPDATE clicks = clicks + VALUES(clicks)";
+    private static final String SERIES_SQL = "SELECT bucket_start, clicks FROM %s "
+            + "WHERE short_code = ? AND dimension = ? AND dimension_value = ? "
+            + "AND bucket_start >= ? AND bucket_start < ? ORDER BY bucket_start";
+    private static final String BREAKDOWN_SQL = "SELECT dimension_value, SUM(clicks) AS clicks FROM %s "
+            + "WHERE short_code = ? AND dimension = ? AND bucket_start >= ? AND bucket_start < ? "
+            + "GROUP BY dimension_value ORDER BY clicks DESC, dimension_value LIMIT ?";
+    // Oldest buckets first along idx_click_rollup_*_bucket, so each batch touches a bounded range
+    private static final String PURGE_SQL = "DELETE FROM %s WHERE bucket_start < ? ORDER BY bucket_start LIMIT ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${database.optimization.batch.size:50}")
+    private int batchSize = 50;
+
+    // As with redirect counts, pass increments in a stable order so concurrent upserts from
+    // several pods lock rows in the same order.
+    public void increment(ClickRollupGranularity granularity, List<RollupIncrement> increments) {
+        jdbcTemplate.batchUpdate(UPSERT_SQL.formatted(table(granularity)), increments, batchSize, (ps, increment) -> {
+            ps.setString(1, increment.shortCode());
+            ps.setString(2, increment.dimension());
+            ps.setString(3, increment.dimensionValue());
+            ps.setTimestamp(4, Timestamp.valueOf(increment.bucketStart()));
+            ps.setLong(5, increment.clicks());
+        });
+    }
+
+    public List<BucketCount> findSeries(ClickRollupGranularity granularity, String shortCode, String dimension,
+                                        String dimensionValue, LocalDateTime from, LocalDateTime to) {
+        return jdbcTemplate.query(SERIES_SQL.formatted(table(granularity)),
+                (rs, rowNum) -> new BucketCount(rs.getTimestamp(1).toLocalDateTime(), rs.getLong(2)),
+                shortCode, dimension, dimensionValue, Timestamp.valueOf(from), Timestamp.valueOf(to));
+    }
+
+    public List<DimensionCount> findTopValues(ClickRollupGranularity granularity, String shortCode, String dimension,
+                                              LocalDateTime from, LocalDateTime to, int limit) {
+        return jdbcTemplate.query(BREAKDOWN_SQL.formatted(table(granularity)),
+                (rs, rowNum) -> new DimensionCount(rs.getString(1), rs.getLong(2)),
+                shortCode, dimension, Timestamp.valueOf(from), Timestamp.valueOf(to), limit);
+    }
+
+    // Deletes at most limit buckets older than cutoff; outside a transaction each call commits alone
+    public int deleteOlderThan(ClickRollupGranularity granularity, LocalDateTime cutoff, int limit) {
+        return jdbcTemplate.update(PURGE_SQL.formatted(table(granularity)), Timestamp.valueOf(cutoff), limit);
+    }
+
+    private static String table(ClickRollupGranularity granularity) {
+        return switch (granularity) {
+            case MINUTE -> "click_rollup_minute";
+            case HOUR -> "click_rollup_hour";
+            case DAY -> "click_rollup_day";
+        };
+    }
+
+    public record RollupIncrement(String shortCode, String dimension, String dimensionValue,
+                                  LocalDateTime bucketStart, long clicks) {}
+
+    public record BucketCount(LocalDateTime bucketStart, long clicks) {}
+
+    public record DimensionCount(String value, long clicks) {}
+}
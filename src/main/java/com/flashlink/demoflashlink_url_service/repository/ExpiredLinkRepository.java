@@ -0,0 +1,78 @@
+package com.flashlink.demoflashlink_url_service.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Keyset access to expired links in {@code (expiry_at, id)} order, which {@code idx_expiry_at}
+ * serves directly since InnoDB secondary indexes end with the primary key.
+ */
+@Repository
+@RequiredArgsConstructor
+public class ExpiredLinkRepository {
+
+    private static final String SELECT_EXPIRED = "SELECT id, short_code, owner_id, expiry_at FROM url_mapping ";
+    private static final String FIND_FROM_START_SQL = SELECT_EXPIRED
+            + "WHERE expiry_at <= ? ORDER BY expiry_at, id LIMIT ? FOR UPDATE";
+    private static final String FIND_AFTER_SQL = SELECT_EXPIRED
+            + "WHERE expiry_at <= ? AND expiry_at >= ? AND (expiry_at > ? OR id > ?) "
+            + "ORDER BY expiry_at, id LIMIT ? FOR UPDATE";
+    private static final String DELETE_SQL = "DELETE FROM url_mapping WHERE id IN (%s)";
+    private static final String CREATE_CHECKPOINT_SQL = "INSERT IGNORE INTO purge_checkpoint "
+            + "(name, last_expiry_at, last_id, updated_at) VALUES (?, NULL, 0, ?)";
+    private static final String LOCK_CHECKPOINT_SQL = "SELECT last_expiry_at, last_id FROM purge_checkpoint "
+            + "WHERE name = ? FOR UPDATE";
+    private static final String SAVE_CHECKPOINT_SQL = "UPDATE purge_checkpoint "
+            + "SET last_expiry_at = ?, last_id = ?, updated_at = ? WHERE name = ?";
+    private static final RowMapper<ExpiredLink> ROW_MAPPER = (rs, rowNum) -> new ExpiredLink(
+            rs.getLong(1), rs.getString(2), rs.getString(3), rs.getTimestamp(4).toLocalDateTime());
+
+    private final JdbcTemplate jdbcTemplate;
+
+    // Row-locks the checkpoint, creating it on first use; must run inside a transaction
+    public PurgeCheckpoint lockCheckpoint(String name) {
+        jdbcTemplate.update(CREATE_CHECKPOINT_SQL, name, Timestamp.valueOf(LocalDateTime.now()));
+        return jdbcTemplate.queryForObject(LOCK_CHECKPOINT_SQL, (rs, rowNum) -> {
+            Timestamp expiryAt = rs.getTimestamp(1);
+            return new PurgeCheckpoint(expiryAt != null ? expiryAt.toLocalDateTime() : null, rs.getLong(2));
+        }, name);
+    }
+
+    public void saveCheckpoint(String name, PurgeCheckpoint checkpoint, LocalDateTime updatedAt) {
+        jdbcTemplate.update(SAVE_CHECKPOINT_SQL,
+                checkpoint.expiryAt() != null ? Timestamp.valueOf(checkpoint.expiryAt()) : null,
+                checkpoint.id(), Timestamp.valueOf(updatedAt), name);
+    }
+
+    // The next links expired by cutoff past the checkpoint, row-locked until the transaction ends
+    public List<ExpiredLink> lockExpiredAfter(PurgeCheckpoint checkpoint, LocalDateTime cutoff, int limit) {
+        Timestamp cutoffTimestamp = Timestamp.valueOf(cutoff);
+        if (checkpoint.expiryAt() == null) {
+            return jdbcTemplate.query(FIND_FROM_START_SQL, ROW_MAPPER, cutoffTimestamp, limit);
+        }
+        Timestamp after = Timestamp.valueOf(checkpoint.expiryAt());
+        return jdbcTemplate.query(FIND_AFTER_SQL, ROW_MAPPER, cutoffTimestamp, after, after, checkpoint.id(), limit);
+    }
+
+    public int deleteAll(List<ExpiredLink> links) {
+        if (links.isEmpty()) {
+            return 0;
+        }
+        String placeholders = String.join(", ", Collections.nCopies(links.size(), "?"));
+        return jdbcTemplate.update(DELETE_SQL.formatted(placeholders), links.stream().map(ExpiredLink::id).toArray());
+    }
+
+    public record ExpiredLink(long id, String shortCode, String ownerId, LocalDateTime expiryAt) {}
+
+    // Position after the last purged row; a null expiryAt starts from the beginning of the index
+    public record PurgeCheckpoint(LocalDateTime expiryAt, long id) {
+        public static final PurgeCheckpoint START = new PurgeCheckpoint(null, 0);
+    }
+}
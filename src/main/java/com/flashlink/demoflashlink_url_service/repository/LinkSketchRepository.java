@@ -0,0 +1,55 @@
+package com.flashlink.demoflashlink_url_service.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+@Repository
+@RequiredArgsConstructor
+public class LinkSketchRepository {
+
+    private static final String SELECT_COLUMNS = "SELECT short_code, visitors, top_referers FROM link_sketch ";
+    private static final String FIND_SQL = SELECT_COLUMNS + "WHERE short_code = ?";
+    private static final String LOCK_SQL = SELECT_COLUMNS + "WHERE short_code IN (%s) FOR UPDATE";
+    private static final String UPSERT_SQL = "INSERT INTO link_sketch (short_code, visitors, top_referers, updated_at) "
+            + "VALUES (?, ?, ?, ?) ON DUPLICATE KEY UPDATE visitors = VALUES(visitors), "
+            + "top_referers = VALUES(top_referers), updated_at = VALUES(updated_at)";
+    private static final RowMapper<StoredSketch> ROW_MAPPER = (rs, rowNum) ->
+            new StoredSketch(rs.getString(1), rs.getBytes(2), rs.getBytes(3));
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public Optional<StoredSketch> findByShortCode(String shortCode) {
+        return jdbcTemplate.query(FIND_SQL, ROW_MAPPER, shortCode).stream().findFirst();
+    }
+
+    // Row-locks the stored sketches for a read-merge-write; must run inside a transaction
+    public Map<String, StoredSketch> lockAll(List<String> shortCodes) {
+        String placeholders = String.join(", ", Collections.nCopies(shortCodes.size(), "?"));
+        Map<String, StoredSketch> stored = new HashMap<>();
+        jdbcTemplate.query(LOCK_SQL.formatted(placeholders), ROW_MAPPER, shortCodes.toArray())
+                .forEach(sketch -> stored.put(sketch.shortCode(), sketch));
+        return stored;
+    }
+
+    public void upsertAll(List<StoredSketch> sketches, LocalDateTime updatedAt) {
+        Timestamp timestamp = Timestamp.valueOf(updatedAt);
+        jdbcTemplate.batchUpdate(UPSERT_SQL, sketches, sketches.size(), (ps, sketch) -> {
+            ps.setString(1, sketch.shortCode());
+            ps.setBytes(2, sketch.visitors());
+            ps.setBytes(3, sketch.topReferers());
+            ps.setTimestamp(4, timestamp);
+        });
+    }
+
+    public record StoredSketch(String shortCode, byte[] visitors, byte[] topReferers) {}
+}
@@ -0,0 +1,6 @@
+package com.flashlink.demoflashlink_url_service.repository;
+
+public interface RedirectCountView {
+    Long getId();
+    Long getRedirectCount();
+}
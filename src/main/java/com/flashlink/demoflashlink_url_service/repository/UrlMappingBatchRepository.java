@@ -0,0 +1,73 @@
+package com.flashlink.demoflashlink_url_service.repository;
+
+import com.flashlink.demoflashlink_url_service.model.UrlMapping;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Plain JDBC batch inserts for bulk creation. Bypasses the persistence context entirely; with
+ * {@code rewriteBatchedStatements=true} MySQL Connector/J turns each batch into one multi-row INSERT.
+ */
+@Repository
+@RequiredArgsConstructor
+public class UrlMappingBatchRepository {
+
+    private static final String INSERT_SQL = "INSERT INTO url_mapping "
+            + "(id, short_code, long_url, created_at, expiry_at, owner_id, ttl_seconds, redirect_count) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String INCREMENT_REDIRECTS_SQL = "UPDATE url_mapping "
+            + "SET redirect_count = COALESCE(redirect_count, 0) + ?, last_redirect_at = ? WHERE short_code = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${database.optimization.batch.size:50}")
+    private int batchSize = 50;
+
+    public void insertAll(List<UrlMapping> mappings) {
+        jdbcTemplate.batchUpdate(INSERT_SQL, mappings, batchSize, UrlMappingBatchRepository::bind);
+    }
+
+    // Callers should pass deltas in a stable order (e.g. sorted by code) so that concurrent
+    // flushes from several pods lock rows in the same order.
+    public void incrementRedirectCounts(List<RedirectCountDelta> deltas) {
+        jdbcTemplate.batchUpdate(INCREMENT_REDIRECTS_SQL, deltas, batchSize, (ps, delta) -> {
+            ps.setLong(1, delta.count());
+            setTimestamp(ps, 2, delta.lastRedirectAt());
+            ps.setString(3, delta.shortCode());
+        });
+    }
+
+    public record RedirectCountDelta(String shortCode, long count, LocalDateTime lastRedirectAt) {}
+
+    private static void bind(PreparedStatement ps, UrlMapping mapping) throws SQLException {
+        ps.setLong(1, mapping.getId());
+        ps.setString(2, mapping.getShortCode());
+        ps.setString(3, mapping.getLongUrl());
+        ps.setTimestamp(4, Timestamp.valueOf(mapping.getCreatedAt()));
+        setTimestamp(ps, 5, mapping.getExpiryAt());
+        ps.setString(6, mapping.getOwnerId());
+        if (mapping.getTtlSeconds() != null) {
+            ps.setInt(7, mapping.getTtlSeconds());
+        } else {
+            ps.setNull(7, Types.INTEGER);
+        }
+        ps.setLong(8, mapping.getRedirectCount() != null ? mapping.getRedirectCount() : 0L);
+    }
+
+    private static void setTimestamp(PreparedStatement ps, int index, LocalDateTime value) throws SQLException {
+        if (value != null) {
+            ps.setTimestamp(index, Timestamp.valueOf(value));
+        } else {
+            ps.setNull(index, Types.TIMESTAMP);
+        }
+    }
+}
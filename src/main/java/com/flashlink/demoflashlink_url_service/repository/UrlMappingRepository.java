@@ -1,13 +1,14 @@
 package com.flashlink.demoflashlink_url_service.repository;
 
 import com.flashlink.demoflashlink_url_service.model.UrlMapping;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
-import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -18,7 +19,13 @@ public interface UrlMappingRepository extends JpaRepository<UrlMapping, Long> {
     @Query("SELECT u FROM UrlMapping u WHERE u.shortCode = :shortCode AND (u.expiryAt IS NULL OR u.expiryAt > :now)")
     Optional<UrlMapping> findValidByShortCode(@Param("shortCode") String shortCode, @Param("now") LocalDateTime now);
     
-    @Modifying   
-    @Query("DELETE FROM UrlMapping u WHERE u.expiryAt <= :now")
-    void deleteExpiredMappings(@Param("now") LocalDateTime now);
+    @Query("SELECT u.id AS id, u.shortCode AS shortCode FROM UrlMapping u WHERE u.id > :afterId ORDER BY u.id")
+    List<ShortCodeView> findShortCodesAfter(@Param("afterId") long afterId, Pageable pageable);
+
+    // Walks idx_last_redirect_at back from the newest redirect, so the page size bounds the rows read
+    @Query("SELECT u.id AS id, u.redirectCount AS redirectCount FROM UrlMapping u "
+            + "WHERE u.lastRedirectAt >= :since AND (u.expiryAt IS NULL OR u.expiryAt > :now) "
+            + "ORDER BY u.lastRedirectAt DESC")
+    List<RedirectCountView> findRecentlyRedirected(@Param("since") LocalDateTime since,
+                                                   @Param("now") LocalDateTime now, Pageable pageable);
 }
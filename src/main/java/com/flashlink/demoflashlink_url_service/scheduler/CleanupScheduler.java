@@ -1,34 +1,52 @@
 package com.flashlink.demoflashlink_url_service.scheduler;
 
-import com.flashlink.demoflashlink_url_service.repository.UrlMappingRepository;
+import com.flashlink.demoflashlink_url_service.service.ClickAnalyticsService;
+import com.flashlink.demoflashlink_url_service.service.ExpiredLinkPurger;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
-import java.time.LocalDateTime;
-
 @Slf4j
 @Component
 @RequiredArgsConstructor
 public class CleanupScheduler {
 
-    private final UrlMappingRepository repository;
+    private static final String URL_MAPPING_CACHE = "urlMapping";
+
+    private final ExpiredLinkPurger expiredLinkPurger;
+    private final ClickAnalyticsService clickAnalyticsService;
+    private final CaffeineCacheManager localCacheManager;
 
+    // Expired links are purged continuously in chunks; once a day the purge rescans the whole
+    // expiry index for links whose expiry was moved behind its checkpoint
     @Scheduled(cron = "0 0 2 * * ?") // Run daily at 2 AM
     public void cleanupExpiredUrls() {
-        log.info("Starting cleanup of expired URLs");
+        log.info("Requesting a full sweep of expired URLs");
+        expiredLinkPurger.requestFullSweep();
+    }
+
+    // Frequent short runs rather than one nightly DELETE; each run is capped by purge-max-run
+    @Scheduled(fixedDelayString = "${flashlink.analytics.rollups.purge-interval-ms:10000}")
+    public void purgeClickRollups() {
         try {
-            LocalDateTime now = LocalDateTime.now();
-            repository.deleteExpiredMappings(now);
-            log.info("Completed cleanup of expired URLs");
+            clickAnalyticsService.purgeExpiredRollups();
         } catch (Exception e) {
-            log.error("Error during expired URL cleanup", e);
+            log.error("Error during click rollup retention purge", e);
         }
     }
 
-    @Scheduled(fixedRate = 300000) // Run every 5 minutes for cache warming
+    // The cache is warmed at startup by CacheWarmer; this only reports how L1 is doing
+    @Scheduled(fixedRate = 300000) // Run every 5 minutes
     public void logCacheStats() {
-        log.debug("Cache warming task executed");
+        if (localCacheManager.getCache(URL_MAPPING_CACHE) instanceof CaffeineCache cache) {
+            CacheStats stats = cache.getNativeCache().stats();
+            log.debug("L1 {} cache: {} entries, hit rate {}, {} evictions", URL_MAPPING_CACHE,
+                    cache.getNativeCache().estimatedSize(), String.format("%.3f", stats.hitRate()),
+                    stats.evictionCount());
+        }
     }
 }
@@ -1,11 +1,12 @@
 package com.flashlink.demoflashlink_url_service.service;
 
 import com.flashlink.demoflashlink_url_service.model.AnalyticsEvent;
-import com.flashlink.demoflashlink_url_service.repository.UrlMappingRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import io.micrometer.core.instrument.Counter;
 import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.factory.annotation.Autowired;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.springframework.kafka.annotation.KafkaListener;
 import org.springframework.kafka.support.Acknowledgment;
 import org.springframework.kafka.support.KafkaHeaders;
@@ -13,19 +14,39 @@ import org.springframework.messaging.handler.annotation.Header;
 import org.springframework.messaging.handler.annotation.Payload;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 @Slf4j
 @Service
 public class AnalyticsConsumerService {
     
-    private final UrlMappingRepository urlMappingRepository;
+    private final RedirectCountAggregator redirectCountAggregator;
+    private final ClickRollupAggregator clickRollupAggregator;
+    private final LinkSketchService linkSketchService;
+    private final HotKeyMetrics hotKeyMetrics;
     private final MeterRegistry meterRegistry;
     private final Counter analyticsEventCounter;
     private final Counter redirectCounter;
+    // LINK_EXPIRED ids seen recently: the purge and every pod's cache report an expiry under the
+    // same id, and a link's events share a partition, so duplicates arrive at this consumer
+    private final Cache<String, Boolean> seenExpiries = Caffeine.newBuilder()
+            .maximumSize(100_000)
+            .expireAfterWrite(Duration.ofHours(1))
+            .build();
     
-    public AnalyticsConsumerService(UrlMappingRepository urlMappingRepository, MeterRegistry meterRegistry) {
-        this.urlMappingRepository = urlMappingRepository;
+    public AnalyticsConsumerService(RedirectCountAggregator redirectCountAggregator,
+                                    ClickRollupAggregator clickRollupAggregator,
+                                    LinkSketchService linkSketchService,
+                                    HotKeyMetrics hotKeyMetrics,
+                                    MeterRegistry meterRegistry) {
+        this.redirectCountAggregator = redirectCountAggregator;
+        this.clickRollupAggregator = clickRollupAggregator;
+        this.linkSketchService = linkSketchService;
+        this.hotKeyMetrics = hotKeyMetrics;
         this.meterRegistry = meterRegistry;
         this.analyticsEventCounter = Counter.builder("analytics.events.processed")
                 .description("Total number of analytics events processed")
@@ -36,9 +57,11 @@ public class AnalyticsConsumerService {
     }
     
     @KafkaListener(
+        id = "analytics-record",
         topics = "${kafka.topics.analytics-events}",
         groupId = "url-service-analytics",
-        containerFactory = "kafkaListenerContainerFactory"
+        containerFactory = "kafkaListenerContainerFactory",
+        autoStartup = "#{!${kafka.consumer.batch-listener:true}}"
     )
     public void handleAnalyticsEvent(
             @Payload AnalyticsEvent event,
@@ -54,7 +77,13 @@ public class AnalyticsConsumerService {
             switch (AnalyticsEvent.EventType.valueOf(event.getEventType())) {
                 case REDIRECT:
                     handleRedirectEvent(event);
-                    redirectCounter.increment();
+                    clickRollupAggregator.recordRedirect(event);
+                    linkSketchService.recordRedirect(event);
+                    redirectCounter.increment(weightOf(event));
+                    break;
+                case REDIRECT_COUNT:
+                    handleRedirectCountEvent(event);
+                    clickRollupAggregator.recordRedirectCount(event);
                     break;
                 case LINK_CREATED:
                     handleLinkCreatedEvent(event);
@@ -71,46 +100,163 @@ public class AnalyticsConsumerService {
             
             analyticsEventCounter.increment();
             
-            acknowledgment.acknowledge();
             log.debug("Successfully processed analytics event: {}", event.getEventId());
             
         } catch (Exception e) {
             log.error("Error processing analytics event: {}", event.getEventId(), e);
             // In production, consider dead letter queue handling
-            acknowledgment.acknowledge();
         }
+        // Offsets are committed by the aggregator once the increments before them are written
+        redirectCountAggregator.acknowledgeAfterFlush(topic, partition, acknowledgment);
+    }
+
+    // Processes a whole poll: redirects are folded per shortCode and the other event types per
+    // metric before anything is recorded, and the poll is committed with a single acknowledgment.
+    @KafkaListener(
+        id = "analytics-batch",
+        topics = "${kafka.topics.analytics-events}",
+        groupId = "url-service-analytics",
+        containerFactory = "kafkaBatchListenerContainerFactory",
+        autoStartup = "${kafka.consumer.batch-listener:true}"
+    )
+    public void handleAnalyticsEvents(List<ConsumerRecord<String, AnalyticsEvent>> records,
+                                      Acknowledgment acknowledgment) {
+        Map<String, RedirectTally> redirects = new HashMap<>();
+        Map<String, Long> linksCreatedByOwner = new HashMap<>();
+        long linksExpired = 0;
+        long linksDeleted = 0;
+        double redirectWeight = 0;
+        long processed = 0;
+
+        for (ConsumerRecord<String, AnalyticsEvent> record : records) {
+            AnalyticsEvent event = record.value();
+            if (event == null) {
+                continue;
+            }
+            try {
+                switch (AnalyticsEvent.EventType.valueOf(event.getEventType())) {
+                    case REDIRECT:
+                        if (event.getShortCode() != null && event.getSampleWeight() == null) {
+                            redirects.computeIfAbsent(event.getShortCode(), code -> new RedirectTally())
+                                    .add(1, event.getTimestamp());
+                        }
+                        clickRollupAggregator.recordRedirect(event);
+                        linkSketchService.recordRedirect(event);
+                        redirectWeight += weightOf(event);
+                        break;
+                    case REDIRECT_COUNT:
+                        if (event.getShortCode() != null && event.getCountDelta() != null) {
+                            redirects.computeIfAbsent(event.getShortCode(), code -> new RedirectTally())
+                                    .add(event.getCountDelta(), event.getTimestamp());
+                        }
+                        clickRollupAggregator.recordRedirectCount(event);
+                        break;
+                    case LINK_CREATED:
+                        linksCreatedByOwner.merge(ownerId(event), 1L, Long::sum);
+                        break;
+                    case LINK_EXPIRED:
+                        if (firstExpiryReport(event)) {
+                            linksExpired++;
+                        }
+                        break;
+                    case LINK_DELETED:
+                        linksDeleted++;
+                        break;
+                    default:
+                        log.warn("Unknown event type: {}", event.getEventType());
+                }
+                processed++;
+            } catch (Exception e) {
+                log.error("Error processing analytics event: {}", event.getEventId(), e);
+            }
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        redirects.forEach((shortCode, tally) -> {
+            redirectCountAggregator.add(shortCode, tally.count,
+                    tally.lastRedirectAt != null ? tally.lastRedirectAt : now);
+            hotKeyMetrics.recordRedirects(shortCode, tally.count);
+        });
+        if (!linksCreatedByOwner.isEmpty()) {
+            linksCreatedByOwner.forEach(hotKeyMetrics::recordLinksCreated);
+            meterRegistry.counter("links.created")
+                    .increment(linksCreatedByOwner.values().stream().mapToLong(Long::longValue).sum());
+        }
+        if (linksExpired > 0) {
+            meterRegistry.counter("links.expired").increment(linksExpired);
+        }
+        if (linksDeleted > 0) {
+            meterRegistry.counter("links.deleted").increment(linksDeleted);
+        }
+        redirectCounter.increment(redirectWeight);
+        analyticsEventCounter.increment(processed);
+
+        log.debug("Processed batch of {} analytics events (~{} redirects, exact counts for {} short codes)",
+                records.size(), Math.round(redirectWeight), redirects.size());
+        redirectCountAggregator.acknowledgeAfterFlush(acknowledgment);
     }
     
+    // Sampled events stand in for many redirects in estimates; their exact count arrives as REDIRECT_COUNT
+    private static double weightOf(AnalyticsEvent event) {
+        return event.getSampleWeight() != null ? event.getSampleWeight() : 1.0;
+    }
+
     private void handleRedirectEvent(AnalyticsEvent event) {
-        urlMappingRepository.findByShortCode(event.getShortCode())
-                .ifPresent(mapping -> {
-                    mapping.setRedirectCount(mapping.getRedirectCount() + 1);
-                    mapping.setLastRedirectAt(LocalDateTime.now());
-                    urlMappingRepository.save(mapping);
-                    
-                    meterRegistry.counter("redirects.by_short_code", "short_code", event.getShortCode())
-                            .increment();
-                    
-                    log.debug("Updated redirect count for {}: {}", 
-                            event.getShortCode(), mapping.getRedirectCount());
-                });
+        if (event.getShortCode() == null || event.getSampleWeight() != null) {
+            return;
+        }
+        redirectCountAggregator.add(event.getShortCode(),
+                event.getTimestamp() != null ? event.getTimestamp() : LocalDateTime.now());
+        hotKeyMetrics.recordRedirects(event.getShortCode(), 1);
     }
     
+    private void handleRedirectCountEvent(AnalyticsEvent event) {
+        if (event.getShortCode() == null || event.getCountDelta() == null) {
+            return;
+        }
+        redirectCountAggregator.add(event.getShortCode(), event.getCountDelta(),
+                event.getTimestamp() != null ? event.getTimestamp() : LocalDateTime.now());
+        hotKeyMetrics.recordRedirects(event.getShortCode(), event.getCountDelta());
+    }
+
     private void handleLinkCreatedEvent(AnalyticsEvent event) {
-        String ownerId = event.getMetadata() != null && event.getMetadata().containsKey("ownerId") 
-                ? event.getMetadata().get("ownerId").toString() 
-                : "unknown";
-        meterRegistry.counter("links.created", "owner_id", ownerId).increment();
+        meterRegistry.counter("links.created").increment();
+        hotKeyMetrics.recordLinksCreated(ownerId(event), 1);
         log.debug("Link created event processed for: {}", event.getShortCode());
     }
+
+    private static String ownerId(AnalyticsEvent event) {
+        return event.getMetadata() != null && event.getMetadata().containsKey("ownerId")
+                ? event.getMetadata().get("ownerId").toString()
+                : "unknown";
+    }
     
     private void handleLinkExpiredEvent(AnalyticsEvent event) {
+        if (!firstExpiryReport(event)) {
+            return;
+        }
         meterRegistry.counter("links.expired").increment();
         log.debug("Link expired event processed for: {}", event.getShortCode());
     }
     
+    private boolean firstExpiryReport(AnalyticsEvent event) {
+        return event.getEventId() == null || seenExpiries.asMap().putIfAbsent(event.getEventId(), Boolean.TRUE) == null;
+    }
+
     private void handleLinkDeletedEvent(AnalyticsEvent event) {
         meterRegistry.counter("links.deleted").increment();
         log.debug("Link deleted event processed for: {}", event.getShortCode());
     }
+
+    private static final class RedirectTally {
+        private long count;
+        private LocalDateTime lastRedirectAt;
+
+        void add(long redirects, LocalDateTime redirectAt) {
+            count += redirects;
+            if (redirectAt != null && (lastRedirectAt == null || redirectAt.isAfter(lastRedirectAt))) {
+                lastRedirectAt = redirectAt;
+            }
+        }
+    }
 }
@@ -1,12 +1,18 @@
 package com.flashlink.demoflashlink_url_service.service;
 
 import com.flashlink.demoflashlink_url_service.model.AnalyticsEvent;
+import com.flashlink.demoflashlink_url_service.repository.ExpiredLinkRepository.ExpiredLink;
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 @Slf4j
@@ -15,12 +21,23 @@ import java.util.UUID;
 public class AnalyticsProducerService {
     
     private final KafkaTemplate<String, AnalyticsEvent> kafkaTemplate;
+    private final RedirectSampler redirectSampler;
     
     @Value("${kafka.topics.analytics-events}")
     private String analyticsTopic;
     
     public void publishRedirectEvent(String shortCode, String longUrl, String clientIp, 
                                    String userAgent, String referer) {
+        publishRedirectEvent(shortCode, longUrl, clientIp, userAgent, referer, java.time.LocalDateTime.now());
+    }
+
+    public void publishRedirectEvent(String shortCode, String longUrl, String clientIp,
+                                     String userAgent, String referer, java.time.LocalDateTime timestamp) {
+        double sampleWeight = redirectSampler.sample(shortCode);
+        if (sampleWeight == 0) {
+            // Hot code, not sampled: counted in its next REDIRECT_COUNT delta
+            return;
+        }
         AnalyticsEvent event = AnalyticsEvent.builder()
                 .eventId(UUID.randomUUID().toString())
                 .shortCode(shortCode)
@@ -28,8 +45,9 @@ public class AnalyticsProducerService {
                 .clientIp(clientIp)
                 .userAgent(userAgent)
                 .referer(referer)
-                .timestamp(java.time.LocalDateTime.now())
+                .timestamp(timestamp)
                 .eventType(AnalyticsEvent.EventType.REDIRECT.name())
+                .sampleWeight(sampleWeight == RedirectSampler.EXACT ? null : sampleWeight)
                 .build();
                 
         try {
@@ -47,7 +65,7 @@ public class AnalyticsProducerService {
                 .longUrl(longUrl)
                 .timestamp(java.time.LocalDateTime.now())
                 .eventType(AnalyticsEvent.EventType.LINK_CREATED.name())
-                .metadata(java.util.Map.of("ownerId", ownerId))
+                .metadata(ownerId != null ? java.util.Map.of("ownerId", ownerId) : java.util.Map.of())
                 .build();
                 
         try {
@@ -56,4 +74,77 @@ public class AnalyticsProducerService {
             log.error("Error publishing link created event", e);
         }
     }
+
+    // One event per purged link, all handed to the producer together
+    public void publishLinkExpiredEvents(List<ExpiredLink> links) {
+        for (ExpiredLink link : links) {
+            publishLinkExpiredEvent(link.shortCode(), link.ownerId(), link.expiryAt());
+        }
+    }
+
+    // The event id is derived from the link and its expiry, so the purge and every pod that had
+    // the link cached report it under one id that consumers can deduplicate
+    public void publishLinkExpiredEvent(String shortCode, String ownerId, java.time.LocalDateTime expiryAt) {
+        AnalyticsEvent event = AnalyticsEvent.builder()
+                .eventId(linkExpiredEventId(shortCode, expiryAt))
+                .shortCode(shortCode)
+                .timestamp(java.time.LocalDateTime.now())
+                .eventType(AnalyticsEvent.EventType.LINK_EXPIRED.name())
+                .metadata(ownerId != null ? Map.of("ownerId", ownerId) : Map.of())
+                .build();
+        try {
+            kafkaTemplate.send(analyticsTopic, shortCode, event);
+        } catch (Exception e) {
+            log.error("Failed to publish link expired event for {}", shortCode, e);
+        }
+    }
+
+    // Whole epoch seconds, because a cached mapping can carry a fractional expiry that the DATETIME
+    // column read by the purge has dropped
+    public static String linkExpiredEventId(String shortCode, java.time.LocalDateTime expiryAt) {
+        return "expired:" + shortCode + ":"
+                + (expiryAt != null ? expiryAt.toEpochSecond(java.time.ZoneOffset.UTC) : "none");
+    }
+
+    // Exact redirect counts for the hot codes whose REDIRECT events are being sampled. A delta whose
+    // send fails, at once or later on the producer thread, goes back to the sampler for the next tick.
+    @Scheduled(fixedDelayString = "${flashlink.analytics.sampling.tick-ms:1000}")
+    public void publishRedirectCountDeltas() {
+        if (!redirectSampler.isEnabled()) {
+            return;
+        }
+        // Sent outside the sampler's lock so a blocked send never holds up sampling
+        Map<String, Long> deltas = new LinkedHashMap<>();
+        redirectSampler.tick(deltas::put);
+        java.time.LocalDateTime now = java.time.LocalDateTime.now();
+        deltas.forEach((shortCode, delta) -> {
+            AnalyticsEvent event = AnalyticsEvent.builder()
+                    .eventId(UUID.randomUUID().toString())
+                    .shortCode(shortCode)
+                    .timestamp(now)
+                    .eventType(AnalyticsEvent.EventType.REDIRECT_COUNT.name())
+                    .countDelta(delta)
+                    .build();
+            try {
+                kafkaTemplate.send(analyticsTopic, shortCode, event).whenComplete((result, failure) -> {
+                    if (failure != null) {
+                        requeueRedirectCountDelta(shortCode, delta, failure);
+                    }
+                });
+            } catch (Exception e) {
+                requeueRedirectCountDelta(shortCode, delta, e);
+            }
+        });
+    }
+
+    private void requeueRedirectCountDelta(String shortCode, long delta, Throwable failure) {
+        log.warn("Failed to publish redirect count delta of {} for {}, retrying on the next tick: {}",
+                delta, shortCode, failure.getMessage());
+        redirectSampler.requeueDelta(shortCode, delta);
+    }
+
+    @PreDestroy
+    public void flushRedirectCountDeltas() {
+        publishRedirectCountDeltas();
+    }
 }
@@ -0,0 +1,205 @@
+package com.flashlink.demoflashlink_url_service.service;
+
+import com.flashlink.demoflashlink_url_service.cache.ShortCodeFilter;
+import com.flashlink.demoflashlink_url_service.cache.TwoTierCache;
+import com.flashlink.demoflashlink_url_service.model.UrlMapping;
+import com.flashlink.demoflashlink_url_service.repository.UrlMappingBatchRepository;
+import com.flashlink.demoflashlink_url_service.util.Base62Encoder;
+import com.flashlink.demoflashlink_url_service.util.DuplicateKeys;
+import com.flashlink.demoflashlink_url_service.util.SnowflakeIdGenerator;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Bulk link creation. Items are consumed lazily in chunks; each chunk reserves its ids with one
+ * {@link SnowflakeIdGenerator#nextIds(int)} call and is inserted as JDBC batches in one transaction.
+ * Results are handed back per chunk in input order, so a caller can stream them while reading.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class BulkShortenService {
+
+    private static final String URL_MAPPING_CACHE = "urlMapping";
+    private static final int MAX_URL_LENGTH = 2048;
+    private static final int MAX_OWNER_ID_LENGTH = 255;
+    private static final int MAX_RETRIES = 3;
+    private static final int DEFAULT_EXPIRY_DAYS = 30;
+
+    private final UrlMappingBatchRepository batchRepository;
+    private final SnowflakeIdGenerator idGenerator;
+    private final Base62Encoder base62;
+    private final TransactionOperations transactionOperations;
+    private final ShortCodeFilter shortCodeFilter;
+    private final CacheManager cacheManager;
+    private final AnalyticsProducerService analyticsProducerService;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${flashlink.bulk.chunk-size:1000}")
+    private int chunkSize = 1000;
+
+    public record Item(String url, LocalDateTime expiryAt, String ownerId) {}
+
+    public record Result(int index, String shortCode, String longUrl, LocalDateTime expiryAt, String error) {
+
+        static Result created(int index, UrlMapping mapping) {
+            return new Result(index, mapping.getShortCode(), mapping.getLongUrl(), mapping.getExpiryAt(), null);
+        }
+
+        static Result failed(int index, String longUrl, String error) {
+            return new Result(index, null, longUrl, null, error);
+        }
+    }
+
+    // Chunks already handed to the sink stay committed if a later chunk throws; the last index a
+    // client received tells it where to resume.
+    public int shorten(Iterator<Item> items, Consumer<List<Result>> sink) {
+        List<Item> chunk = new ArrayList<>(chunkSize);
+        int firstIndex = 0;
+        int created = 0;
+        while (items.hasNext()) {
+            chunk.add(items.next());
+            if (chunk.size() == chunkSize) {
+                created += processChunk(firstIndex, chunk, sink);
+                firstIndex += chunk.size();
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            created += processChunk(firstIndex, chunk, sink);
+        }
+        return created;
+    }
+
+    private int processChunk(int firstIndex, List<Item> chunk, Consumer<List<Result>> sink) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        Result[] results = new Result[chunk.size()];
+        List<Integer> accepted = new ArrayList<>(chunk.size());
+        for (int i = 0; i < chunk.size(); i++) {
+            String error = validate(chunk.get(i));
+            if (error != null) {
+                results[i] = Result.failed(firstIndex + i, chunk.get(i).url(), error);
+            } else {
+                accepted.add(i);
+            }
+        }
+
+        List<UrlMapping> mappings;
+        String chunkError = null;
+        try {
+            mappings = accepted.isEmpty() ? List.of() : insert(chunk, accepted);
+            if (mappings == null) {
+                chunkError = "Failed to generate unique short codes";
+            }
+        } catch (DataIntegrityViolationException e) {
+            // Not a duplicate key, so new ids would not help; the chunk is rolled back as a whole
+            log.warn("Bulk chunk at index {} rejected by the database: {}", firstIndex, e.getMessage());
+            mappings = null;
+            chunkError = "Rejected by the database: " + e.getMostSpecificCause().getMessage();
+        }
+        if (mappings == null) {
+            for (int i : accepted) {
+                results[i] = Result.failed(firstIndex + i, chunk.get(i).url(), chunkError);
+            }
+            mappings = List.of();
+        } else {
+            for (int i = 0; i < mappings.size(); i++) {
+                results[accepted.get(i)] = Result.created(firstIndex + accepted.get(i), mappings.get(i));
+            }
+            afterInsert(mappings);
+        }
+
+        sample.stop(Timer.builder("url.bulk.chunk.duration").register(meterRegistry));
+        meterRegistry.counter("url.bulk.created").increment(mappings.size());
+        meterRegistry.counter("url.bulk.rejected").increment(chunk.size() - mappings.size());
+        sink.accept(Arrays.asList(results));
+        return mappings.size();
+    }
+
+    private List<UrlMapping> insert(List<Item> chunk, List<Integer> accepted) {
+        for (int attempt = 0; attempt < MAX_RETRIES; attempt++) {
+            long[] ids = idGenerator.nextIds(accepted.size());
+            LocalDateTime now = LocalDateTime.now();
+            List<UrlMapping> mappings = new ArrayList<>(accepted.size());
+            for (int i = 0; i < ids.length; i++) {
+                mappings.add(toMapping(ids[i], chunk.get(accepted.get(i)), now));
+            }
+            try {
+                transactionOperations.executeWithoutResult(status -> batchRepository.insertAll(mappings));
+                return mappings;
+            } catch (DataIntegrityViolationException e) {
+                if (!DuplicateKeys.isDuplicateKey(e)) {
+                    throw e;
+                }
+                log.warn("Duplicate key in bulk chunk on attempt {}, retrying with new ids: {}", attempt + 1,
+                        e.getMessage());
+            }
+        }
+        return null;
+    }
+
+    private UrlMapping toMapping(long id, Item item, LocalDateTime now) {
+        // Whole seconds, as stored in the DATETIME column, so cached copies and events match the row
+        LocalDateTime expiry = (item.expiryAt() != null ? item.expiryAt()
+                : now.plus(DEFAULT_EXPIRY_DAYS, ChronoUnit.DAYS)).truncatedTo(ChronoUnit.SECONDS);
+        Integer ttlSeconds = item.expiryAt() != null ? (int) ChronoUnit.SECONDS.between(now, item.expiryAt()) : null;
+        return UrlMapping.builder()
+                .id(id)
+                .shortCode(base62.encode(id))
+                .longUrl(item.url())
+                .createdAt(now)
+                .expiryAt(expiry)
+                .ownerId(item.ownerId())
+                .ttlSeconds(ttlSeconds)
+                .redirectCount(0L)
+                .build();
+    }
+
+    // Codes are new, so only a negative entry cached after a Bloom false positive can be stale;
+    // one batched eviction clears those without a broadcast per link.
+    private void afterInsert(List<UrlMapping> mappings) {
+        List<String> codes = new ArrayList<>(mappings.size());
+        for (UrlMapping mapping : mappings) {
+            shortCodeFilter.add(mapping.getShortCode());
+            codes.add(mapping.getShortCode());
+        }
+        Cache cache = cacheManager.getCache(URL_MAPPING_CACHE);
+        if (cache instanceof TwoTierCache twoTierCache) {
+            twoTierCache.evictAll(codes);
+        } else if (cache != null) {
+            codes.forEach(cache::evict);
+        }
+        for (UrlMapping mapping : mappings) {
+            analyticsProducerService.publishLinkCreatedEvent(mapping.getShortCode(), mapping.getLongUrl(), mapping.getOwnerId());
+        }
+    }
+
+    private static String validate(Item item) {
+        if (item == null || item.url() == null || item.url().isBlank()) {
+            return "url must not be blank";
+        }
+        if (item.url().length() > MAX_URL_LENGTH) {
+            return "url must be at most " + MAX_URL_LENGTH + " characters";
+        }
+        if (item.ownerId() != null && item.ownerId().length() > MAX_OWNER_ID_LENGTH) {
+            return "ownerId must be at most " + MAX_OWNER_ID_LENGTH + " characters";
+        }
+        return null;
+    }
+}
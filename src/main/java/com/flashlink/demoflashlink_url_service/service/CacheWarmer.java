@@ -0,0 +1,165 @@
+package com.flashlink.demoflashlink_url_service.service;
+
+import com.flashlink.demoflashlink_url_service.model.UrlMapping;
+import com.flashlink.demoflashlink_url_service.repository.RedirectCountView;
+import com.flashlink.demoflashlink_url_service.repository.UrlMappingRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.cache.Cache;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Preloads the most redirected recently active links into the local (L1) cache before the pod
+ * takes traffic. It runs as an {@link ApplicationRunner}, and Spring Boot only reports the
+ * readiness probe as accepting traffic once runners have returned. The candidates are the
+ * {@code max-candidates} most recently redirected links, read from idx_last_redirect_at so the
+ * scan is bounded, and the hottest of them are loaded in parallel batches until
+ * {@code max-entries}, an estimated {@code max-bytes} or the {@code timeout} is reached, whichever
+ * comes first. The timeout covers the candidate query too; a warm-up that stops early or fails
+ * leaves the pod partly warm rather than unready. Only L1 is filled, so nothing is written to
+ * Redis or broadcast to other pods.
+ */
+@Slf4j
+@Component
+public class CacheWarmer implements ApplicationRunner {
+
+    private static final String URL_MAPPING_CACHE = "urlMapping";
+    // Object headers, boxed fields and timestamps of a cached mapping, besides its strings
+    private static final long MAPPING_OVERHEAD_BYTES = 256;
+
+    private final UrlMappingRepository repository;
+    private final CaffeineCacheManager localCacheManager;
+    private final boolean enabled;
+    private final int maxEntries;
+    private final int maxCandidates;
+    private final long maxBytes;
+    private final Duration recentWindow;
+    private final int batchSize;
+    private final int parallelism;
+    private final Duration timeout;
+
+    public CacheWarmer(UrlMappingRepository repository,
+                       CaffeineCacheManager localCacheManager,
+                       @Value("${flashlink.cache.warmup.enabled:true}") boolean enabled,
+                       @Value("${flashlink.cache.warmup.max-entries:5000}") int maxEntries,
+                       @Value("${flashlink.cache.warmup.max-candidates:100000}") int maxCandidates,
+                       @Value("${flashlink.cache.warmup.max-bytes:16777216}") long maxBytes,
+                       @Value("${flashlink.cache.warmup.recent-window:7d}") Duration recentWindow,
+                       @Value("${flashlink.cache.warmup.batch-size:500}") int batchSize,
+                       @Value("${flashlink.cache.warmup.parallelism:4}") int parallelism,
+                       @Value("${flashlink.cache.warmup.timeout:30s}") Duration timeout) {
+        if (batchSize < 1 || parallelism < 1) {
+            throw new IllegalArgumentException("Warm-up batch size and parallelism must be positive");
+        }
+        this.repository = repository;
+        this.localCacheManager = localCacheManager;
+        this.enabled = enabled;
+        this.maxEntries = maxEntries;
+        this.maxCandidates = Math.max(maxEntries, maxCandidates);
+        this.maxBytes = maxBytes;
+        this.recentWindow = recentWindow;
+        this.batchSize = batchSize;
+        this.parallelism = parallelism;
+        this.timeout = timeout;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (enabled && maxEntries > 0) {
+            warmUp();
+        }
+    }
+
+    // Returns the number of mappings loaded into L1
+    public int warmUp() {
+        long started = System.nanoTime();
+        long deadline = started + timeout.toNanos();
+        Cache cache = localCacheManager.getCache(URL_MAPPING_CACHE);
+        if (cache == null) {
+            return 0;
+        }
+        AtomicInteger loaded = new AtomicInteger();
+        AtomicLong bytes = new AtomicLong();
+        ExecutorService workers = Executors.newFixedThreadPool(parallelism, runnable -> {
+            Thread thread = new Thread(runnable, "cache-warmer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            List<Long> hottest = hottestIds(workers, deadline);
+            for (int from = 0; from < hottest.size(); from += batchSize) {
+                List<Long> batch = hottest.subList(from, Math.min(from + batchSize, hottest.size()));
+                workers.execute(() -> loadBatch(cache, batch, deadline, loaded, bytes));
+            }
+            workers.shutdown();
+            if (!workers.awaitTermination(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS)) {
+                log.warn("Cache warm-up timed out after {}", timeout);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (TimeoutException e) {
+            log.warn("Cache warm-up timed out after {} selecting the hottest links", timeout);
+        } catch (ExecutionException | RuntimeException e) {
+            log.warn("Cache warm-up failed, starting with a partly warm cache: {}", e.getMessage());
+        } finally {
+            workers.shutdownNow();
+        }
+        log.info("Cache warm-up loaded {} mappings (~{} KiB) in {} ms", loaded.get(), bytes.get() / 1024,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+        return loaded.get();
+    }
+
+    // Runs on a worker so the deadline also bounds the query; an abandoned query finishes on its own
+    private List<Long> hottestIds(ExecutorService workers, long deadline)
+            throws InterruptedException, ExecutionException, TimeoutException {
+        LocalDateTime now = LocalDateTime.now();
+        Future<List<RedirectCountView>> candidates = workers.submit(() ->
+                repository.findRecentlyRedirected(now.minus(recentWindow), now, PageRequest.of(0, maxCandidates)));
+        return candidates.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS).stream()
+                .sorted(Comparator.comparing(RedirectCountView::getRedirectCount,
+                        Comparator.nullsLast(Comparator.reverseOrder())))
+                .limit(maxEntries)
+                .map(RedirectCountView::getId)
+                .toList();
+    }
+
+    private void loadBatch(Cache cache, List<Long> ids, long deadline, AtomicInteger loaded, AtomicLong bytes) {
+        if (System.nanoTime() >= deadline || bytes.get() >= maxBytes) {
+            return;
+        }
+        try {
+            for (UrlMapping mapping : repository.findAllById(ids)) {
+                if (bytes.addAndGet(estimatedBytes(mapping)) > maxBytes) {
+                    return;
+                }
+                cache.putIfAbsent(mapping.getShortCode(), mapping);
+                loaded.incrementAndGet();
+            }
+        } catch (RuntimeException e) {
+            log.warn("Cache warm-up batch of {} mappings failed: {}", ids.size(), e.getMessage());
+        }
+    }
+
+    private static long estimatedBytes(UrlMapping mapping) {
+        return MAPPING_OVERHEAD_BYTES + 2L * (mapping.getLongUrl().length() + mapping.getShortCode().length()
+                + (mapping.getOwnerId() != null ? mapping.getOwnerId().length() : 0)
+                + (mapping.getMetadata() != null ? mapping.getMetadata().length() : 0));
+    }
+}
@@ -0,0 +1,160 @@
+package com.flashlink.demoflashlink_url_service.service;
+
+import com.flashlink.demoflashlink_url_service.model.ClickRollupGranularity;
+import com.flashlink.demoflashlink_url_service.repository.ClickRollupRepository;
+import com.flashlink.demoflashlink_url_service.repository.ClickRollupRepository.BucketCount;
+import com.flashlink.demoflashlink_url_service.repository.ClickRollupRepository.DimensionCount;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Dashboard queries over the click rollup tables. A range is served from the finest granularity
+ * that keeps it under {@link #MAX_BUCKETS} buckets and is still within retention, so each query
+ * is a single primary key range scan.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ClickAnalyticsService {
+
+    static final int MAX_BUCKETS = 1_440;
+    private static final int MAX_TOP_VALUES = 100;
+    private static final Set<String> BREAKDOWN_DIMENSIONS = Set.of(ClickRollupRepository.REFERER,
+            ClickRollupRepository.COUNTRY);
+
+    private final ClickRollupRepository rollupRepository;
+
+    @Value("${flashlink.analytics.rollups.minute-retention:2d}")
+    private Duration minuteRetention = Duration.ofDays(2);
+
+    @Value("${flashlink.analytics.rollups.hour-retention:90d}")
+    private Duration hourRetention = Duration.ofDays(90);
+
+    @Value("${flashlink.analytics.rollups.purge-batch-size:5000}")
+    private int purgeBatchSize = 5_000;
+
+    @Value("${flashlink.analytics.rollups.purge-pause-ratio:1.0}")
+    private double purgePauseRatio = 1.0;
+
+    @Value("${flashlink.analytics.rollups.purge-max-run:2s}")
+    private Duration purgeMaxRun = Duration.ofSeconds(2);
+
+    public record ClickSeries(String shortCode, ClickRollupGranularity granularity, LocalDateTime from,
+                              LocalDateTime to, long total, List<BucketCount> buckets) {}
+
+    public record Breakdown(String shortCode, String dimension, ClickRollupGranularity granularity,
+                            LocalDateTime from, LocalDateTime to, List<DimensionCount> values) {}
+
+    // Zero-filled clicks per bucket over [from, to); a null granularity picks one for the range
+    public ClickSeries clickSeries(String shortCode, LocalDateTime from, LocalDateTime to,
+                                   ClickRollupGranularity granularity) {
+        ClickRollupGranularity resolved = resolve(from, to, granularity);
+        LocalDateTime start = resolved.bucketOf(from);
+        LocalDateTime end = ceil(resolved, to);
+
+        Map<LocalDateTime, Long> stored = new HashMap<>();
+        for (BucketCount bucket : rollupRepository.findSeries(resolved, shortCode, ClickRollupRepository.TOTAL, "",
+                start, end)) {
+            stored.put(bucket.bucketStart(), bucket.clicks());
+        }
+        List<BucketCount> buckets = new ArrayList<>();
+        long total = 0;
+        for (LocalDateTime bucket = start; bucket.isBefore(end); bucket = resolved.next(bucket)) {
+            long clicks = stored.getOrDefault(bucket, 0L);
+            buckets.add(new BucketCount(bucket, clicks));
+            total += clicks;
+        }
+        return new ClickSeries(shortCode, resolved, start, end, total, buckets);
+    }
+
+    // Top referer hosts or countries over [from, to), by clicks
+    public Breakdown breakdown(String shortCode, String dimension, LocalDateTime from, LocalDateTime to, int limit) {
+        if (!BREAKDOWN_DIMENSIONS.contains(dimension)) {
+            throw new IllegalArgumentException("Dimension must be one of " + BREAKDOWN_DIMENSIONS + ": " + dimension);
+        }
+        if (limit < 1 || limit > MAX_TOP_VALUES) {
+            throw new IllegalArgumentException("Limit must be between 1 and " + MAX_TOP_VALUES + ": " + limit);
+        }
+        ClickRollupGranularity resolved = resolve(from, to, null);
+        LocalDateTime start = resolved.bucketOf(from);
+        LocalDateTime end = ceil(resolved, to);
+        return new Breakdown(shortCode, dimension, resolved, start, end,
+                rollupRepository.findTopValues(resolved, shortCode, dimension, start, end, limit));
+    }
+
+    // Deletes in small batches, each committed on its own, and rests purge-pause-ratio times as long
+    // as a batch took, so no long transaction or replication lag builds up. A run stops after
+    // purge-max-run and the next run picks up the remaining buckets. Hour rollups go first as the
+    // smaller table, so a minute backlog cannot starve them.
+    public void purgeExpiredRollups() {
+        LocalDateTime now = LocalDateTime.now();
+        long deadline = System.nanoTime() + purgeMaxRun.toNanos();
+        int hours = purgeOlderThan(ClickRollupGranularity.HOUR, now.minus(hourRetention), deadline);
+        int minutes = purgeOlderThan(ClickRollupGranularity.MINUTE, now.minus(minuteRetention), deadline);
+        if (minutes > 0 || hours > 0) {
+            log.info("Purged {} minute and {} hour click rollups past retention", minutes, hours);
+        }
+    }
+
+    private int purgeOlderThan(ClickRollupGranularity granularity, LocalDateTime cutoff, long deadline) {
+        int purged = 0;
+        while (System.nanoTime() < deadline) {
+            long start = System.nanoTime();
+            int deleted = rollupRepository.deleteOlderThan(granularity, cutoff, purgeBatchSize);
+            purged += deleted;
+            if (deleted < purgeBatchSize) {
+                break;
+            }
+            long now = System.nanoTime();
+            LockSupport.parkNanos(Math.min(Math.round((now - start) * purgePauseRatio), deadline - now));
+        }
+        return purged;
+    }
+
+    private ClickRollupGranularity resolve(LocalDateTime from, LocalDateTime to, ClickRollupGranularity requested) {
+        if (from == null || to == null || !from.isBefore(to)) {
+            throw new IllegalArgumentException("Range start must be before its end: " + from + " - " + to);
+        }
+        if (requested != null) {
+            if (buckets(requested, from, to) > MAX_BUCKETS) {
+                throw new IllegalArgumentException("Range too long for " + requested + " buckets, at most "
+                        + MAX_BUCKETS + " are returned");
+            }
+            return requested;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        if (!from.isBefore(now.minus(minuteRetention))
+                && buckets(ClickRollupGranularity.MINUTE, from, to) <= MAX_BUCKETS) {
+            return ClickRollupGranularity.MINUTE;
+        }
+        if (!from.isBefore(now.minus(hourRetention))
+                && buckets(ClickRollupGranularity.HOUR, from, to) <= MAX_BUCKETS) {
+            return ClickRollupGranularity.HOUR;
+        }
+        if (buckets(ClickRollupGranularity.DAY, from, to) > MAX_BUCKETS) {
+            throw new IllegalArgumentException("Range too long, at most " + MAX_BUCKETS + " days are returned");
+        }
+        return ClickRollupGranularity.DAY;
+    }
+
+    private static long buckets(ClickRollupGranularity granularity, LocalDateTime from, LocalDateTime to) {
+        return Duration.between(granularity.bucketOf(from), ceil(granularity, to))
+                .dividedBy(granularity.bucketDuration());
+    }
+
+    private static LocalDateTime ceil(ClickRollupGranularity granularity, LocalDateTime timestamp) {
+        LocalDateTime floor = granularity.bucketOf(timestamp);
+        return floor.equals(timestamp) ? floor : granularity.next(floor);
+    }
+}
@@ -0,0 +1,192 @@
+package com.flashlink.demoflashlink_url_service.service;
+
+import com.flashlink.demoflashlink_url_service.model.AnalyticsEvent;
+import com.flashlink.demoflashlink_url_service.model.ClickRollupGranularity;
+import com.flashlink.demoflashlink_url_service.repository.ClickRollupRepository;
+import com.flashlink.demoflashlink_url_service.repository.ClickRollupRepository.RollupIncrement;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.net.URI;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Coalesces redirects into minute/hour/day click counters per short code, and optionally per
+ * referer host and country. Flushed by {@link RedirectCountAggregator} before it writes its own
+ * window, so Kafka offsets are only committed once the rollups of their events are stored.
+ * <p>
+ * Totals are exact: sampled REDIRECT events are left out and the code's REDIRECT_COUNT deltas
+ * counted instead. Referer and country counters of sampled codes add up the sample weights, so
+ * they are estimates for hot codes.
+ */
+@Slf4j
+@Component
+public class ClickRollupAggregator {
+
+    static final String DIRECT = "direct";
+    static final String UNKNOWN = "unknown";
+    private static final int MAX_VALUE_LENGTH = 255;
+
+    private static final Comparator<RollupIncrement> UPSERT_ORDER = Comparator
+            .comparing(RollupIncrement::shortCode)
+            .thenComparing(RollupIncrement::dimension)
+            .thenComparing(RollupIncrement::dimensionValue)
+            .thenComparing(RollupIncrement::bucketStart);
+
+    private final ClickRollupRepository repository;
+    private final TransactionOperations transactionOperations;
+    private final boolean refererEnabled;
+    private final boolean countryEnabled;
+
+    private final ReadWriteLock windowLock = new ReentrantReadWriteLock();
+    private volatile Map<RollupKey, Double> window = new ConcurrentHashMap<>();
+
+    private final Counter upsertedRows;
+
+    public ClickRollupAggregator(ClickRollupRepository repository,
+                                 TransactionOperations transactionOperations,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${flashlink.analytics.rollups.referer-enabled:true}") boolean refererEnabled,
+                                 @Value("${flashlink.analytics.rollups.country-enabled:true}") boolean countryEnabled) {
+        this.repository = repository;
+        this.transactionOperations = transactionOperations;
+        this.refererEnabled = refererEnabled;
+        this.countryEnabled = countryEnabled;
+        this.upsertedRows = Counter.builder("click.rollups.upserted")
+                .description("Click rollup rows upserted across all granularities")
+                .register(meterRegistry);
+    }
+
+    public void recordRedirect(AnalyticsEvent event) {
+        if (event.getShortCode() == null) {
+            return;
+        }
+        LocalDateTime at = event.getTimestamp() != null ? event.getTimestamp() : LocalDateTime.now();
+        double weight = event.getSampleWeight() != null ? event.getSampleWeight() : 1.0;
+        String shortCode = event.getShortCode();
+        windowLock.readLock().lock();
+        try {
+            Map<RollupKey, Double> current = window;
+            if (event.getSampleWeight() == null) {
+                add(current, shortCode, ClickRollupRepository.TOTAL, "", at, 1.0);
+            }
+            if (refererEnabled) {
+                add(current, shortCode, ClickRollupRepository.REFERER, refererHost(event.getReferer()), at, weight);
+            }
+            if (countryEnabled) {
+                add(current, shortCode, ClickRollupRepository.COUNTRY, country(event.getCountry()), at, weight);
+            }
+        } finally {
+            windowLock.readLock().unlock();
+        }
+    }
+
+    public void recordRedirectCount(AnalyticsEvent event) {
+        if (event.getShortCode() == null || event.getCountDelta() == null) {
+            return;
+        }
+        LocalDateTime at = event.getTimestamp() != null ? event.getTimestamp() : LocalDateTime.now();
+        windowLock.readLock().lock();
+        try {
+            add(window, event.getShortCode(), ClickRollupRepository.TOTAL, "", at, event.getCountDelta());
+        } finally {
+            windowLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Writes the current window in one transaction. On failure the window is merged back into the
+     * live one and the exception rethrown, so the caller can hold its acknowledgments.
+     */
+    public void flush() {
+        Map<RollupKey, Double> flushing;
+        windowLock.writeLock().lock();
+        try {
+            flushing = window;
+            if (flushing.isEmpty()) {
+                return;
+            }
+            window = new ConcurrentHashMap<>();
+        } finally {
+            windowLock.writeLock().unlock();
+        }
+
+        Map<ClickRollupGranularity, List<RollupIncrement>> increments = new EnumMap<>(ClickRollupGranularity.class);
+        flushing.forEach((key, clicks) -> {
+            long rounded = Math.round(clicks);
+            if (rounded > 0) {
+                increments.computeIfAbsent(key.granularity(), granularity -> new ArrayList<>())
+                        .add(new RollupIncrement(key.shortCode(), key.dimension(), key.dimensionValue(),
+                                key.bucketStart(), rounded));
+            }
+        });
+        try {
+            transactionOperations.executeWithoutResult(status -> increments.forEach((granularity, rows) -> {
+                rows.sort(UPSERT_ORDER);
+                repository.increment(granularity, rows);
+            }));
+        } catch (RuntimeException e) {
+            requeue(flushing);
+            throw e;
+        }
+        upsertedRows.increment(increments.values().stream().mapToInt(List::size).sum());
+    }
+
+    private void requeue(Map<RollupKey, Double> failed) {
+        windowLock.readLock().lock();
+        try {
+            Map<RollupKey, Double> current = window;
+            failed.forEach((key, clicks) -> current.merge(key, clicks, Double::sum));
+        } finally {
+            windowLock.readLock().unlock();
+        }
+    }
+
+    private static void add(Map<RollupKey, Double> window, String shortCode, String dimension, String value,
+                            LocalDateTime at, double clicks) {
+        for (ClickRollupGranularity granularity : ClickRollupGranularity.values()) {
+            window.merge(new RollupKey(granularity, shortCode, dimension, value, granularity.bucketOf(at)),
+                    clicks, Double::sum);
+        }
+    }
+
+    static String refererHost(String referer) {
+        if (referer == null || referer.isBlank()) {
+            return DIRECT;
+        }
+        try {
+            String host = URI.create(referer.trim()).getHost();
+            if (host == null) {
+                return UNKNOWN;
+            }
+            host = host.toLowerCase(Locale.ROOT);
+            return truncate(host.startsWith("www.") ? host.substring(4) : host);
+        } catch (IllegalArgumentException e) {
+            return UNKNOWN;
+        }
+    }
+
+    private static String country(String country) {
+        return country == null || country.isBlank() ? UNKNOWN : truncate(country.trim().toUpperCase(Locale.ROOT));
+    }
+
+    private static String truncate(String value) {
+        return value.length() > MAX_VALUE_LENGTH ? value.substring(0, MAX_VALUE_LENGTH) : value;
+    }
+
+    private record RollupKey(ClickRollupGranularity granularity, String shortCode, String dimension,
+                             String dimensionValue, LocalDateTime bucketStart) {}
+}
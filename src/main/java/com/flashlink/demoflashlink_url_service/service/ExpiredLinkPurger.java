@@ -0,0 +1,216 @@
+package com.flashlink.demoflashlink_url_service.service;
+
+import com.flashlink.demoflashlink_url_service.cache.TwoTierCache;
+import com.flashlink.demoflashlink_url_service.repository.ExpiredLinkRepository;
+import com.flashlink.demoflashlink_url_service.repository.ExpiredLinkRepository.ExpiredLink;
+import com.flashlink.demoflashlink_url_service.repository.ExpiredLinkRepository.PurgeCheckpoint;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Deletes expired links continuously in small chunks instead of one nightly DELETE. Each chunk is
+ * its own short transaction: lock the checkpoint row (so pods take turns), lock and delete the next
+ * links past it in {@code idx_expiry_at} order, and move the checkpoint to the last one. After the
+ * commit the links are evicted from the cache and their LINK_EXPIRED events published together.
+ * <p>
+ * The chunk size adapts to the observed chunk latency (halved above {@code target-chunk-ms},
+ * grown while well under it), and the purger rests {@code pause-ratio} times as long as each chunk
+ * took, so under load it backs off on its own. Once caught up it waits {@code idle-ms}. Links whose
+ * expiry is moved before the checkpoint are picked up by the next {@link #requestFullSweep()}.
+ */
+@Slf4j
+@Service
+public class ExpiredLinkPurger {
+
+    static final String CHECKPOINT = "expired_links";
+    private static final String URL_MAPPING_CACHE = "urlMapping";
+
+    private final ExpiredLinkRepository repository;
+    private final TransactionOperations transactionOperations;
+    private final CacheManager cacheManager;
+    private final AnalyticsProducerService analyticsProducerService;
+    private final boolean enabled;
+    private final int minChunkSize;
+    private final int maxChunkSize;
+    private final long targetChunkMs;
+    private final double pauseRatio;
+    private final long idleMs;
+
+    private final Counter purged;
+    private final Timer chunkDuration;
+
+    private volatile int chunkSize;
+    private volatile boolean fullSweepRequested;
+    private volatile boolean running;
+    private Thread purger;
+
+    public ExpiredLinkPurger(ExpiredLinkRepository repository,
+                             TransactionOperations transactionOperations,
+                             CacheManager cacheManager,
+                             AnalyticsProducerService analyticsProducerService,
+                             MeterRegistry meterRegistry,
+                             @Value("${flashlink.purge.enabled:true}") boolean enabled,
+                             @Value("${flashlink.purge.min-chunk-size:50}") int minChunkSize,
+                             @Value("${flashlink.purge.max-chunk-size:2000}") int maxChunkSize,
+                             @Value("${flashlink.purge.target-chunk-ms:100}") long targetChunkMs,
+                             @Value("${flashlink.purge.pause-ratio:1.0}") double pauseRatio,
+                             @Value("${flashlink.purge.idle-ms:30000}") long idleMs) {
+        if (minChunkSize < 1 || maxChunkSize < minChunkSize) {
+            throw new IllegalArgumentException("Invalid purge chunk sizes: " + minChunkSize + " - " + maxChunkSize);
+        }
+        this.repository = repository;
+        this.transactionOperations = transactionOperations;
+        this.cacheManager = cacheManager;
+        this.analyticsProducerService = analyticsProducerService;
+        this.enabled = enabled;
+        this.minChunkSize = minChunkSize;
+        this.maxChunkSize = maxChunkSize;
+        this.targetChunkMs = targetChunkMs;
+        this.pauseRatio = pauseRatio;
+        this.idleMs = idleMs;
+        this.chunkSize = minChunkSize;
+
+        this.purged = Counter.builder("links.purged")
+                .description("Expired links deleted by the purger")
+                .register(meterRegistry);
+        this.chunkDuration = Timer.builder("links.purge.chunk.duration")
+                .description("Time to lock, delete and checkpoint one chunk of expired links")
+                .register(meterRegistry);
+        Gauge.builder("links.purge.chunk.size", this, ExpiredLinkPurger::chunkSize)
+                .description("Links the purger currently deletes per chunk")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        running = true;
+        purger = new Thread(this::purgeLoop, "expired-link-purger");
+        purger.setDaemon(true);
+        purger.start();
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        if (purger == null) {
+            return;
+        }
+        LockSupport.unpark(purger);
+        try {
+            purger.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Restarts from the beginning of the index on the next chunk, catching links whose expiry was
+    // moved earlier than the checkpoint
+    public void requestFullSweep() {
+        fullSweepRequested = true;
+        if (purger != null) {
+            LockSupport.unpark(purger);
+        }
+    }
+
+    // Purges one chunk of links expired by cutoff; a short chunk means the purge has caught up
+    public PurgeChunk purgeChunk(LocalDateTime cutoff) {
+        int size = chunkSize;
+        boolean fromStart = fullSweepRequested;
+        long start = System.nanoTime();
+        List<ExpiredLink> deleted = transactionOperations.execute(status -> {
+            PurgeCheckpoint stored = repository.lockCheckpoint(CHECKPOINT);
+            PurgeCheckpoint checkpoint = fromStart ? PurgeCheckpoint.START : stored;
+            List<ExpiredLink> expired = repository.lockExpiredAfter(checkpoint, cutoff, size);
+            if (!expired.isEmpty()) {
+                repository.deleteAll(expired);
+                ExpiredLink last = expired.get(expired.size() - 1);
+                repository.saveCheckpoint(CHECKPOINT, new PurgeCheckpoint(last.expiryAt(), last.id()),
+                        LocalDateTime.now());
+            }
+            return expired;
+        });
+        if (fromStart) {
+            fullSweepRequested = false;
+        }
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        chunkDuration.record(elapsedMs, TimeUnit.MILLISECONDS);
+        if (deleted == null || deleted.isEmpty()) {
+            return new PurgeChunk(0, true, elapsedMs);
+        }
+        purged.increment(deleted.size());
+        afterDelete(deleted);
+        return new PurgeChunk(deleted.size(), deleted.size() < size, elapsedMs);
+    }
+
+    public record PurgeChunk(int deleted, boolean caughtUp, long elapsedMs) {}
+
+    int chunkSize() {
+        return chunkSize;
+    }
+
+    // Adapts the chunk size to the chunk's latency and returns how long to rest before the next one
+    long pauseAfter(PurgeChunk chunk) {
+        if (chunk.caughtUp()) {
+            return idleMs;
+        }
+        if (chunk.elapsedMs() > targetChunkMs) {
+            chunkSize = Math.max(minChunkSize, chunkSize / 2);
+        } else if (chunk.elapsedMs() < targetChunkMs / 2) {
+            chunkSize = Math.min(maxChunkSize, chunkSize + minChunkSize);
+        }
+        return Math.round(chunk.elapsedMs() * pauseRatio);
+    }
+
+    private void purgeLoop() {
+        while (running) {
+            long pauseMs;
+            try {
+                PurgeChunk chunk = purgeChunk(LocalDateTime.now());
+                if (chunk.deleted() > 0) {
+                    log.debug("Purged {} expired links in {} ms", chunk.deleted(), chunk.elapsedMs());
+                }
+                pauseMs = pauseAfter(chunk);
+            } catch (RuntimeException e) {
+                log.warn("Expired link purge chunk failed, retrying in {} ms: {}", idleMs, e.getMessage());
+                pauseMs = idleMs;
+            }
+            if (pauseMs > 0 && running && !fullSweepRequested) {
+                LockSupport.parkNanos(this, TimeUnit.MILLISECONDS.toNanos(pauseMs));
+            }
+        }
+    }
+
+    // Deleted rows can no longer be served, so cached mappings are dropped with one broadcast
+    private void afterDelete(List<ExpiredLink> deleted) {
+        List<String> codes = new ArrayList<>(deleted.size());
+        for (ExpiredLink link : deleted) {
+            codes.add(link.shortCode());
+        }
+        Cache cache = cacheManager.getCache(URL_MAPPING_CACHE);
+        if (cache instanceof TwoTierCache twoTierCache) {
+            twoTierCache.evictAll(codes);
+        } else if (cache != null) {
+            codes.forEach(cache::evict);
+        }
+        analyticsProducerService.publishLinkExpiredEvents(deleted);
+    }
+}
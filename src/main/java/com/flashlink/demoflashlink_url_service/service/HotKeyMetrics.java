@@ -0,0 +1,50 @@
+package com.flashlink.demoflashlink_url_service.service;
+
+import com.flashlink.demoflashlink_url_service.util.HotKeyMeter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Set;
+
+/**
+ * Per-link and per-owner activity as bounded meter sets: only the busiest keys of the last
+ * {@code window-slots} x {@code slot-ms} get a series, everything else is summed under "other".
+ * Replaces tagging counters with every short code or owner id, which grew the registry (and the
+ * scraped series) with the number of links.
+ */
+@Component
+public class HotKeyMetrics {
+
+    public static final String HOT_LINKS = "redirects.hot_links";
+    public static final String TOP_OWNERS = "links.created.top_owners";
+    public static final Set<String> METER_NAMES = Set.of(HOT_LINKS, TOP_OWNERS);
+
+    private final HotKeyMeter hotLinks;
+    private final HotKeyMeter topOwners;
+
+    public HotKeyMetrics(MeterRegistry meterRegistry,
+                         @Value("${flashlink.metrics.hot-keys.top-n:20}") int topN,
+                         @Value("${flashlink.metrics.hot-keys.window-slots:6}") int windowSlots,
+                         @Value("${flashlink.metrics.hot-keys.capacity:200}") int capacity) {
+        this.hotLinks = new HotKeyMeter(meterRegistry, HOT_LINKS, "short_code",
+                "Redirects to the busiest short codes over the sliding window", topN, windowSlots, capacity);
+        this.topOwners = new HotKeyMeter(meterRegistry, TOP_OWNERS, "owner_id",
+                "Links created by the most active owners over the sliding window", topN, windowSlots, capacity);
+    }
+
+    public void recordRedirects(String shortCode, long count) {
+        hotLinks.record(shortCode, count);
+    }
+
+    public void recordLinksCreated(String ownerId, long count) {
+        topOwners.record(ownerId, count);
+    }
+
+    @Scheduled(fixedRateString = "${flashlink.metrics.hot-keys.slot-ms:10000}")
+    public void rotate() {
+        hotLinks.rotate();
+        topOwners.rotate();
+    }
+}
@@ -0,0 +1,219 @@
+package com.flashlink.demoflashlink_url_service.service;
+
+import com.flashlink.demoflashlink_url_service.model.AnalyticsEvent;
+import com.flashlink.demoflashlink_url_service.repository.LinkSketchRepository;
+import com.flashlink.demoflashlink_url_service.repository.LinkSketchRepository.StoredSketch;
+import com.flashlink.demoflashlink_url_service.util.Hash64;
+import com.flashlink.demoflashlink_url_service.util.HyperLogLog;
+import com.flashlink.demoflashlink_url_service.util.SpaceSaving;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Per-link distinct visitor counts (HyperLogLog over client IP + user agent) and top referer hosts
+ * (Space-Saving), built from redirect events without keeping them. Sketches changed since the last
+ * flush are kept in memory and periodically merged into the stored ones under a row lock, so any
+ * number of consumer instances can contribute to the same link. Each link's sketch is bounded to
+ * about 2 KB plus {@code top-k-capacity} referer counters.
+ * <p>
+ * Sketches are approximate and written outside the redirect count flush: a crash loses at most one
+ * flush interval. With sampling on, only sampled events reach hot links' sketches, so their
+ * distinct counts are lower bounds; referer counts use the sample weights.
+ */
+@Slf4j
+@Service
+public class LinkSketchService {
+
+    private static final int LOCK_CHUNK_SIZE = 100;
+
+    private final LinkSketchRepository repository;
+    private final TransactionOperations transactionOperations;
+    private final int topKCapacity;
+    private final int maxPendingCodes;
+
+    private final ReadWriteLock windowLock = new ReentrantReadWriteLock();
+    private final Object flushLock = new Object();
+    private volatile Map<String, LinkSketch> window = new ConcurrentHashMap<>();
+
+    private final Counter flushedSketches;
+    private final Counter flushFailures;
+
+    public LinkSketchService(LinkSketchRepository repository,
+                             TransactionOperations transactionOperations,
+                             MeterRegistry meterRegistry,
+                             @Value("${flashlink.analytics.sketches.top-k-capacity:64}") int topKCapacity,
+                             @Value("${flashlink.analytics.sketches.max-pending-codes:10000}") int maxPendingCodes) {
+        this.repository = repository;
+        this.transactionOperations = transactionOperations;
+        this.topKCapacity = topKCapacity;
+        this.maxPendingCodes = maxPendingCodes;
+        this.flushedSketches = Counter.builder("link.sketches.flushed")
+                .description("Link sketches merged into the database")
+                .register(meterRegistry);
+        this.flushFailures = Counter.builder("link.sketches.flush.failures")
+                .description("Link sketch flush chunks that failed and were requeued")
+                .register(meterRegistry);
+    }
+
+    public record Audience(String shortCode, long uniqueVisitors, List<SpaceSaving.Entry> topReferers) {}
+
+    public void recordRedirect(AnalyticsEvent event) {
+        if (event.getShortCode() == null) {
+            return;
+        }
+        long weight = event.getSampleWeight() != null ? Math.max(1, Math.round(event.getSampleWeight())) : 1;
+        String referer = ClickRollupAggregator.refererHost(event.getReferer());
+        int pending;
+        windowLock.readLock().lock();
+        try {
+            Map<String, LinkSketch> current = window;
+            current.computeIfAbsent(event.getShortCode(), code -> new LinkSketch(topKCapacity))
+                    .add(event.getClientIp(), event.getUserAgent(), referer, weight);
+            pending = current.size();
+        } finally {
+            windowLock.readLock().unlock();
+        }
+        if (pending >= maxPendingCodes) {
+            flush();
+        }
+    }
+
+    // Stored sketch merged with this instance's unflushed changes
+    public Optional<Audience> audience(String shortCode, int topN) {
+        LinkSketch merged = new LinkSketch(topKCapacity);
+        repository.findByShortCode(shortCode).ifPresent(stored -> merged.merge(decode(stored)));
+        LinkSketch pending = window.get(shortCode);
+        if (pending != null) {
+            synchronized (pending) {
+                merged.merge(pending);
+            }
+        }
+        if (merged.isEmpty()) {
+            return Optional.empty();
+        }
+        return Optional.of(new Audience(shortCode, merged.visitors.estimate(), merged.referers.top(topN)));
+    }
+
+    @Scheduled(fixedDelayString = "${flashlink.analytics.sketches.flush-ms:10000}")
+    public void flush() {
+        synchronized (flushLock) {
+            Map<String, LinkSketch> flushing;
+            windowLock.writeLock().lock();
+            try {
+                flushing = window;
+                if (flushing.isEmpty()) {
+                    return;
+                }
+                window = new ConcurrentHashMap<>();
+            } finally {
+                windowLock.writeLock().unlock();
+            }
+
+            // Sorted so that instances flushing overlapping links lock rows in the same order
+            List<String> codes = new ArrayList<>(flushing.keySet());
+            codes.sort(null);
+            for (int from = 0; from < codes.size(); from += LOCK_CHUNK_SIZE) {
+                List<String> chunk = codes.subList(from, Math.min(codes.size(), from + LOCK_CHUNK_SIZE));
+                try {
+                    transactionOperations.executeWithoutResult(status -> mergeIntoStored(chunk, flushing));
+                    flushedSketches.increment(chunk.size());
+                } catch (RuntimeException e) {
+                    flushFailures.increment();
+                    log.error("Failed to flush {} link sketches, requeueing", chunk.size(), e);
+                    requeue(chunk, flushing);
+                }
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    // Merges into copies of the stored sketches, so a failed chunk can be requeued unchanged
+    private void mergeIntoStored(List<String> codes, Map<String, LinkSketch> flushing) {
+        Map<String, StoredSketch> stored = repository.lockAll(codes);
+        List<StoredSketch> updated = new ArrayList<>(codes.size());
+        for (String code : codes) {
+            LinkSketch merged = new LinkSketch(topKCapacity);
+            StoredSketch current = stored.get(code);
+            if (current != null) {
+                try {
+                    merged.merge(decode(current));
+                } catch (IllegalArgumentException e) {
+                    log.warn("Discarding unreadable stored sketch for {}: {}", code, e.getMessage());
+                }
+            }
+            merged.merge(flushing.get(code));
+            updated.add(new StoredSketch(code, merged.visitors.toBytes(), merged.referers.toBytes()));
+        }
+        repository.upsertAll(updated, LocalDateTime.now());
+    }
+
+    private void requeue(List<String> codes, Map<String, LinkSketch> failed) {
+        windowLock.readLock().lock();
+        try {
+            Map<String, LinkSketch> current = window;
+            for (String code : codes) {
+                current.merge(code, failed.get(code), (newer, older) -> {
+                    synchronized (newer) {
+                        newer.merge(older);
+                    }
+                    return newer;
+                });
+            }
+        } finally {
+            windowLock.readLock().unlock();
+        }
+    }
+
+    private LinkSketch decode(StoredSketch stored) {
+        return new LinkSketch(HyperLogLog.fromBytes(stored.visitors()), SpaceSaving.fromBytes(stored.topReferers()));
+    }
+
+    private static final class LinkSketch {
+        private final HyperLogLog visitors;
+        private final SpaceSaving referers;
+
+        LinkSketch(int topKCapacity) {
+            this(new HyperLogLog(), new SpaceSaving(topKCapacity));
+        }
+
+        LinkSketch(HyperLogLog visitors, SpaceSaving referers) {
+            this.visitors = visitors;
+            this.referers = referers;
+        }
+
+        synchronized void add(String clientIp, String userAgent, String refererHost, long weight) {
+            if (clientIp != null) {
+                visitors.add(Hash64.hash(clientIp + '\0' + (userAgent != null ? userAgent : "")));
+            }
+            referers.add(refererHost, weight);
+        }
+
+        void merge(LinkSketch other) {
+            visitors.merge(other.visitors);
+            referers.merge(other.referers);
+        }
+
+        boolean isEmpty() {
+            return visitors.isEmpty() && referers.isEmpty();
+        }
+    }
+}
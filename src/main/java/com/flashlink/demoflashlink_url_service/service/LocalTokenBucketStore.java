@@ -0,0 +1,52 @@
+package com.flashlink.demoflashlink_url_service.service;
+
+import com.flashlink.demoflashlink_url_service.util.GcraTable;
+import com.flashlink.demoflashlink_url_service.util.Hash64;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.function.LongSupplier;
+
+/**
+ * In-process GCRA buckets with the same arithmetic as {@link RedisTokenBucketStore}, for a single
+ * instance without Redis and as a Redis stand-in in tests and benchmarks. Buckets live in a
+ * fixed-size {@link GcraTable} keyed by a 64-bit hash of the key, so memory stays at about 16 bytes
+ * per {@code max-keys} however many clients are seen; two keys with the same hash share a bucket.
+ */
+@Component
+@ConditionalOnProperty(name = "rate.limit.store", havingValue = "local")
+public class LocalTokenBucketStore implements TokenBucketStore {
+
+    private static final int LOCK_STRIPES = 64;
+
+    private final long emissionIntervalMs;
+    private final int burst;
+    private final LongSupplier clock;
+    private final GcraTable buckets;
+
+    @Autowired
+    public LocalTokenBucketStore(@Value("${rate.limit.requests-per-minute:60}") int requestsPerMinute,
+                                 @Value("${rate.limit.burst-capacity:10}") int burstCapacity,
+                                 @Value("${rate.limit.local.max-keys:262144}") int maxKeys) {
+        this(requestsPerMinute, burstCapacity, maxKeys, System::currentTimeMillis);
+    }
+
+    public LocalTokenBucketStore(int requestsPerMinute, int burstCapacity, int maxKeys, LongSupplier clock) {
+        this.emissionIntervalMs = TokenBucketStore.emissionIntervalMs(requestsPerMinute);
+        this.burst = burstCapacity;
+        this.clock = clock;
+        this.buckets = new GcraTable(maxKeys, LOCK_STRIPES);
+    }
+
+    @Override
+    public long acquire(String key, int requested) {
+        return buckets.acquire(Hash64.hash(key), clock.getAsLong(), emissionIntervalMs, burst, requested);
+    }
+
+    @Override
+    public void charge(String key, int tokens) {
+        buckets.charge(Hash64.hash(key), clock.getAsLong(), emissionIntervalMs, tokens);
+    }
+}
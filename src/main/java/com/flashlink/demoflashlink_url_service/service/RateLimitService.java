@@ -1,85 +1,159 @@
 package com.flashlink.demoflashlink_url_service.service;
 
-import io.github.resilience4j.ratelimiter.RateLimiter;
-import io.github.resilience4j.ratelimiter.RateLimiterConfig;
-import io.github.resilience4j.ratelimiter.RateLimiterRegistry;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.data.redis.core.RedisTemplate;
-import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
 import java.time.Duration;
-import java.util.Collections;
-import java.util.concurrent.TimeUnit;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
+/**
+ * Per-client redirect limits, one policy selected by {@code rate.limit.mode}:
+ * <ul>
+ *   <li>{@code shared}: every request is checked against the shared {@link TokenBucketStore}.
+ *   With {@code lease-size} above 1, a pod takes that many tokens per store call and spends them
+ *   locally for up to {@code lease-ttl-ms}; leased tokens are already debited in the store, so
+ *   leasing never admits more than the limit, but tokens left unspent when a lease expires are
+ *   lost.</li>
+ *   <li>{@code hybrid}: each pod first spends a local bucket holding {@code local-fraction / pods}
+ *   of the limit and burst, and only keys that have used it up go to the shared store. Requests
+ *   admitted locally are charged to the shared bucket every {@code reconcile-ms}, which may put it
+ *   into debt, so a key's shared bucket reflects its spend across every pod and the global limit
+ *   holds. Clients well under the limit never wait on a network call; the overshoot is bounded by
+ *   what the pods admit locally within one reconcile interval.</li>
+ *   <li>{@code local}: {@link #isAllowedLocal} only, a per-pod limit with no shared state.</li>
+ * </ul>
+ * Local buckets live in bounded {@link LocalTokenBucketStore}s, so a flood of distinct clients
+ * cannot grow the heap.
+ */
 @Slf4j
 @Service
 public class RateLimitService {
-    
-    private final RedisTemplate<String, String> redisTemplate;
-    private final RateLimiterRegistry rateLimiterRegistry;
-    private final DefaultRedisScript<Long> rateLimitScript;
-    
-    private final int requestsPerMinute;
-    
-    private final int burstCapacity;
-    
-    public RateLimitService(RedisTemplate<String, String> redisTemplate,
+
+    public enum Mode { SHARED, HYBRID, LOCAL }
+
+    // Keys charged per store call when reconciling, so one script never holds Redis for long
+    static final int CHARGE_BATCH_SIZE = 512;
+
+    private final TokenBucketStore tokenBucketStore;
+    private final Mode mode;
+    private final TokenBucketStore localBuckets;
+    // This pod's share of each key's limit in hybrid mode; null otherwise
+    private final TokenBucketStore hybridBuckets;
+    // Requests admitted from hybridBuckets and not yet charged to the shared store
+    private final ConcurrentHashMap<String, Integer> pendingCharges = new ConcurrentHashMap<>();
+    private final int maxPendingCharges;
+    private final int leaseSize;
+    // Unspent leased tokens per key; null when leasing is off
+    private final Cache<String, Lease> leases;
+
+    public RateLimitService(TokenBucketStore tokenBucketStore,
                             @Value("${rate.limit.requests-per-minute:60}") int requestsPerMinute,
-                            @Value("${rate.limit.burst-capacity:10}") int burstCapacity) {
-        this.redisTemplate = redisTemplate;
-        this.requestsPerMinute = requestsPerMinute;
-        this.burstCapacity = burstCapacity;
-        this.rateLimiterRegistry = RateLimiterRegistry.of(
-            RateLimiterConfig.custom()
-                .limitForPeriod(this.requestsPerMinute)
-                .limitRefreshPeriod(Duration.ofMinutes(1))
-                .timeoutDuration(Duration.ofSeconds(1))
-                .build()
-        );
-        
-        this.rateLimitScript = new DefaultRedisScript<>(
-            "local key = KEYS[1]\n" +
-            "local capacity = tonumber(ARGV[1])\n" +
-            "local tokens = tonumber(ARGV[2])\n" +
-            "local interval = tonumber(ARGV[3])\n" +
-            "local now = tonumber(ARGV[4])\n" +
-            "\n" +
-            "local bucket = redis.call('hmget', key, 'tokens', 'last_refill')\n" +
-            "local current_tokens = tonumber(bucket[1]) or capacity\n" +
-            "local last_refill = tonumber(bucket[2]) or now\n" +
-            "\n" +
-            "local elapsed = now - last_refill\n" +
-            "local tokens_to_add = math.floor(elapsed / interval * tokens)\n" +
-            "current_tokens = math.min(capacity, current_tokens + tokens_to_add)\n" +
-            "\n" +
-            "if current_tokens >= 1 then\n" +
-            "    current_tokens = current_tokens - 1\n" +
-            "    redis.call('hmset', key, 'tokens', current_tokens, 'last_refill', now)\n" +
-            "    redis.call('expire', key, math.ceil(interval * 2))\n" +
-            "    return 1\n" +
-            "else\n" +
-            "    redis.call('hmset', key, 'tokens', current_tokens, 'last_refill', now)\n" +
-            "    redis.call('expire', key, math.ceil(interval * 2))\n" +
-            "    return 0\n" +
-            "end",
-            Long.class
-        );
+                            @Value("${rate.limit.burst-capacity:10}") int burstCapacity,
+                            @Value("${rate.limit.mode:shared}") String mode,
+                            @Value("${rate.limit.local-fraction:0.5}") double localFraction,
+                            @Value("${rate.limit.pods:1}") int pods,
+                            @Value("${rate.limit.lease-size:1}") int leaseSize,
+                            @Value("${rate.limit.lease-ttl-ms:1000}") long leaseTtlMs,
+                            @Value("${rate.limit.lease-max-keys:100000}") long leaseMaxKeys,
+                            @Value("${rate.limit.local.max-keys:262144}") int localMaxKeys) {
+        if (pods < 1) {
+            throw new IllegalArgumentException("Pod count must be positive: " + pods);
+        }
+        this.tokenBucketStore = tokenBucketStore;
+        this.mode = Mode.valueOf(mode.trim().toUpperCase(Locale.ROOT));
+        this.leaseSize = Math.max(1, leaseSize);
+        this.leases = this.leaseSize > 1
+                ? Caffeine.newBuilder()
+                        .expireAfterWrite(Duration.ofMillis(leaseTtlMs))
+                        .maximumSize(leaseMaxKeys)
+                        .build()
+                : null;
+        // A full minute's worth of burst, like the fixed one-minute window this replaced
+        this.localBuckets = new LocalTokenBucketStore(requestsPerMinute, requestsPerMinute, localMaxKeys,
+                System::currentTimeMillis);
+        double podShare = localFraction / pods;
+        this.hybridBuckets = this.mode == Mode.HYBRID
+                ? new LocalTokenBucketStore(
+                        (int) Math.max(1, Math.round(requestsPerMinute * podShare)),
+                        (int) Math.max(1, Math.floor(burstCapacity * podShare)),
+                        localMaxKeys, System::currentTimeMillis)
+                : null;
+        this.maxPendingCharges = localMaxKeys;
     }
     
     public boolean isAllowed(String identifier) {
+        return switch (mode) {
+            case LOCAL -> isAllowedLocal(identifier);
+            case HYBRID -> isAllowedHybrid(identifier);
+            case SHARED -> isAllowedShared(identifier);
+        };
+    }
+
+    // Once too many keys await their charge (the store is down or slow), decide in the store directly
+    private boolean isAllowedHybrid(String identifier) {
+        if (pendingCharges.size() < maxPendingCharges && hybridBuckets.acquire(identifier, 1) > 0) {
+            pendingCharges.merge(identifier, 1, Integer::sum);
+            return true;
+        }
+        return isAllowedShared(identifier);
+    }
+
+    // Charges locally admitted requests to the shared buckets, so they count against the global limit.
+    // Keys go to the store in batches, so a pass costs one call per CHARGE_BATCH_SIZE clients.
+    @Scheduled(fixedDelayString = "${rate.limit.reconcile-ms:250}")
+    public void reconcileLocalSpend() {
+        Map<String, Integer> batch = new HashMap<>();
+        for (String key : pendingCharges.keySet()) {
+            Integer spent = pendingCharges.remove(key);
+            if (spent != null) {
+                batch.put(key, spent);
+            }
+            if (batch.size() == CHARGE_BATCH_SIZE) {
+                if (!charge(batch)) {
+                    return;
+                }
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            charge(batch);
+        }
+    }
+
+    private boolean charge(Map<String, Integer> batch) {
+        try {
+            tokenBucketStore.chargeAll(batch);
+            return true;
+        } catch (Exception e) {
+            batch.forEach((key, spent) -> pendingCharges.merge(key, spent, Integer::sum));
+            log.warn("Could not charge local rate limit spend to the shared store, retrying: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    private boolean isAllowedShared(String identifier) {
         try {
-            String key = "rate_limit:" + identifier;
-            Long result = redisTemplate.execute(
-                rateLimitScript,
-                Collections.singletonList(key),
-                String.valueOf(burstCapacity),
-                String.valueOf(requestsPerMinute),
-                String.valueOf(60.0), // 60 seconds
-                String.valueOf(System.currentTimeMillis() / 1000.0)
-            );
-            return result != null && result == 1;
+            if (leases == null) {
+                return tokenBucketStore.acquire(identifier, 1) > 0;
+            }
+            Lease lease = leases.getIfPresent(identifier);
+            if (lease != null && lease.tryTake()) {
+                return true;
+            }
+            long granted = tokenBucketStore.acquire(identifier, leaseSize);
+            if (granted == 0) {
+                return false;
+            }
+            leases.put(identifier, new Lease(granted - 1));
+            return true;
         } catch (Exception e) {
             log.warn("Rate limiting failed, allowing request: {}", e.getMessage());
             return true; // Fail open
@@ -88,11 +162,29 @@ public class RateLimitService {
     
     public boolean isAllowedLocal(String identifier) {
         try {
-            RateLimiter rateLimiter = rateLimiterRegistry.rateLimiter(identifier);
-            return rateLimiter.acquirePermission();
+            return localBuckets.acquire(identifier, 1) > 0;
         } catch (Exception e) {
             log.warn("Local rate limiting failed, allowing request: {}", e.getMessage());
             return true; // Fail open
         }
     }
+
+    private static final class Lease {
+        private final AtomicInteger remaining;
+
+        Lease(long tokens) {
+            this.remaining = new AtomicInteger((int) tokens);
+        }
+
+        boolean tryTake() {
+            int current;
+            do {
+                current = remaining.get();
+                if (current <= 0) {
+                    return false;
+                }
+            } while (!remaining.compareAndSet(current, current - 1));
+            return true;
+        }
+    }
 }
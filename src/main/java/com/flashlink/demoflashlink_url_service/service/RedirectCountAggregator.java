@@ -0,0 +1,239 @@
+package com.flashlink.demoflashlink_url_service.service;
+
+import com.flashlink.demoflashlink_url_service.repository.UrlMappingBatchRepository;
+import com.flashlink.demoflashlink_url_service.repository.UrlMappingBatchRepository.RedirectCountDelta;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.listener.ConsumerAwareRebalanceListener;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Write-behind redirect counting. Clicks are coalesced per short code in the current window and
+ * written as one batched {@code redirect_count = redirect_count + ?} UPDATE per flush. Kafka
+ * acknowledgments are held per partition (the latest covers every earlier offset) and released
+ * only once the window containing their increments has been written, so a crash replays rather
+ * than loses clicks. The {@link ClickRollupAggregator} window is written first on every flush under
+ * the same rule.
+ * <p>
+ * As the listener containers' rebalance listener it also flushes when partitions are revoked, before
+ * the container commits pending offsets, so the next owner starts after the written increments.
+ * Counting stays at least once: if that flush fails, or the pod dies between a write and its
+ * commit, the next owner replays those offsets and {@code redirect_count} is counted twice for them.
+ */
+@Slf4j
+@Component
+public class RedirectCountAggregator implements ConsumerAwareRebalanceListener {
+
+    private final UrlMappingBatchRepository batchRepository;
+    private final ClickRollupAggregator clickRollups;
+    private final TransactionOperations transactionOperations;
+    private final int maxPendingCodes;
+
+    // Recorders share the read lock; a flush takes the write lock only to swap windows
+    private final ReadWriteLock windowLock = new ReentrantReadWriteLock();
+    private final Object flushLock = new Object();
+    private volatile Window window = new Window();
+
+    private final Counter flushedRedirects;
+    private final Counter flushFailures;
+    private final Timer flushTimer;
+
+    public RedirectCountAggregator(UrlMappingBatchRepository batchRepository,
+                                   ClickRollupAggregator clickRollups,
+                                   TransactionOperations transactionOperations,
+                                   MeterRegistry meterRegistry,
+                                   @Value("${flashlink.redirect-counts.max-pending-codes:10000}") int maxPendingCodes) {
+        this.batchRepository = batchRepository;
+        this.clickRollups = clickRollups;
+        this.transactionOperations = transactionOperations;
+        this.maxPendingCodes = maxPendingCodes;
+        this.flushedRedirects = Counter.builder("redirect.counts.flushed")
+                .description("Redirects written to url_mapping by the write-behind aggregator")
+                .register(meterRegistry);
+        this.flushFailures = Counter.builder("redirect.counts.flush.failures")
+                .description("Aggregator flushes that failed and were requeued")
+                .register(meterRegistry);
+        this.flushTimer = Timer.builder("redirect.counts.flush.duration")
+                .register(meterRegistry);
+        Gauge.builder("redirect.counts.pending", this, aggregator -> aggregator.window.counts.size())
+                .description("Short codes with unflushed redirect increments")
+                .register(meterRegistry);
+    }
+
+    public void add(String shortCode, LocalDateTime redirectAt) {
+        add(shortCode, 1, redirectAt);
+    }
+
+    public void add(String shortCode, long count, LocalDateTime lastRedirectAt) {
+        int pending;
+        windowLock.readLock().lock();
+        try {
+            Window current = window;
+            current.counts.merge(shortCode, new Delta(count, lastRedirectAt), Delta::merge);
+            pending = current.counts.size();
+        } finally {
+            windowLock.readLock().unlock();
+        }
+        if (pending >= maxPendingCodes) {
+            flush();
+        }
+    }
+
+    // Must be called after add() for the same record: the ack then lands in the same or a later
+    // window than its increment, never an earlier one.
+    public void acknowledgeAfterFlush(String topic, int partition, Acknowledgment acknowledgment) {
+        windowLock.readLock().lock();
+        try {
+            window.acks.put(topic + "-" + partition, acknowledgment);
+        } finally {
+            windowLock.readLock().unlock();
+        }
+    }
+
+    // Batch listener acks commit every partition in their poll, so a later one does not cover an
+    // earlier one; they are all kept and released in arrival order.
+    public void acknowledgeAfterFlush(Acknowledgment batchAcknowledgment) {
+        windowLock.readLock().lock();
+        try {
+            window.batchAcks.add(batchAcknowledgment);
+        } finally {
+            windowLock.readLock().unlock();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${flashlink.redirect-counts.window-ms:1000}")
+    public void flush() {
+        synchronized (flushLock) {
+            Window flushing;
+            windowLock.writeLock().lock();
+            try {
+                flushing = window;
+                if (flushing.isEmpty()) {
+                    return;
+                }
+                window = new Window();
+            } finally {
+                windowLock.writeLock().unlock();
+            }
+
+            // Rollups recorded before an ack in this window are in the rollup window flushed here
+            if (!flushClickRollups() || (!flushing.counts.isEmpty() && !write(flushing))) {
+                requeue(flushing);
+                return;
+            }
+            flushing.acks.values().forEach(RedirectCountAggregator::acknowledge);
+            flushing.batchAcks.forEach(RedirectCountAggregator::acknowledge);
+        }
+    }
+
+    // Runs on the consumer thread: acks flushed here are committed by the container right after
+    @Override
+    public void onPartitionsRevokedBeforeCommit(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+        if (!partitions.isEmpty()) {
+            log.debug("Flushing redirect counts before {} partitions are revoked", partitions.size());
+            flush();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    private boolean flushClickRollups() {
+        try {
+            clickRollups.flush();
+            return true;
+        } catch (RuntimeException e) {
+            flushFailures.increment();
+            log.error("Failed to flush click rollups, requeueing", e);
+            return false;
+        }
+    }
+
+    private boolean write(Window flushing) {
+        List<RedirectCountDelta> deltas = new ArrayList<>(flushing.counts.size());
+        long redirects = 0;
+        for (Map.Entry<String, Delta> entry : flushing.counts.entrySet()) {
+            Delta delta = entry.getValue();
+            deltas.add(new RedirectCountDelta(entry.getKey(), delta.count(), delta.lastRedirectAt()));
+            redirects += delta.count();
+        }
+        deltas.sort(Comparator.comparing(RedirectCountDelta::shortCode));
+
+        try {
+            flushTimer.record(() -> transactionOperations.executeWithoutResult(
+                    status -> batchRepository.incrementRedirectCounts(deltas)));
+        } catch (RuntimeException e) {
+            flushFailures.increment();
+            log.error("Failed to flush {} redirect count deltas, requeueing", deltas.size(), e);
+            return false;
+        }
+
+        flushedRedirects.increment(redirects);
+        log.debug("Flushed {} redirects across {} short codes", redirects, deltas.size());
+        return true;
+    }
+
+    // Failed increments go back into the live window; its newer acks (if any) are only released
+    // after they are written, so the held acks only need to fill partitions it has not seen yet.
+    private void requeue(Window failed) {
+        windowLock.readLock().lock();
+        try {
+            Window current = window;
+            failed.counts.forEach((code, delta) -> current.counts.merge(code, delta, Delta::merge));
+            failed.acks.forEach(current.acks::putIfAbsent);
+            failed.batchAcks.descendingIterator().forEachRemaining(current.batchAcks::addFirst);
+        } finally {
+            windowLock.readLock().unlock();
+        }
+    }
+
+    private static void acknowledge(Acknowledgment acknowledgment) {
+        try {
+            acknowledgment.acknowledge();
+        } catch (RuntimeException e) {
+            log.warn("Failed to acknowledge flushed redirect batch: {}", e.getMessage());
+        }
+    }
+
+    private static final class Window {
+        private final ConcurrentHashMap<String, Delta> counts = new ConcurrentHashMap<>();
+        private final ConcurrentHashMap<String, Acknowledgment> acks = new ConcurrentHashMap<>();
+        private final ConcurrentLinkedDeque<Acknowledgment> batchAcks = new ConcurrentLinkedDeque<>();
+
+        boolean isEmpty() {
+            return counts.isEmpty() && acks.isEmpty() && batchAcks.isEmpty();
+        }
+    }
+
+    private record Delta(long count, LocalDateTime lastRedirectAt) {
+
+        Delta merge(Delta other) {
+            LocalDateTime latest = lastRedirectAt == null || (other.lastRedirectAt != null
+                    && other.lastRedirectAt.isAfter(lastRedirectAt)) ? other.lastRedirectAt : lastRedirectAt;
+            return new Delta(count + other.count, latest);
+        }
+    }
+}
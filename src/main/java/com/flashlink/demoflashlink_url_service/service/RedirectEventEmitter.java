@@ -0,0 +1,246 @@
+package com.flashlink.demoflashlink_url_service.service;
+
+import com.flashlink.demoflashlink_url_service.util.MpmcRingBuffer;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Decouples redirects from Kafka. The request thread only records the click in a bounded
+ * lock-free ring buffer; a dedicated drainer thread builds the events and hands them to the
+ * producer in batches, so a full producer buffer or missing metadata ({@code max.block.ms}) stalls
+ * the drainer instead of the redirect. When the ring is full the overflow policy decides what is
+ * lost, and every loss is counted.
+ */
+@Slf4j
+@Service
+public class RedirectEventEmitter {
+
+    public enum OverflowPolicy {
+        /** Evict the oldest queued click to make room for the new one. */
+        DROP_OLDEST,
+        /** Reject the new click. */
+        DROP_NEWEST,
+        /** Above the sample threshold, admit only a sample-rate fraction of new clicks; reject when full. */
+        SAMPLE
+    }
+
+    private static final int SPINS_BEFORE_PARK = 64;
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final int DROP_OLDEST_ATTEMPTS = 4;
+
+    private final AnalyticsProducerService analyticsProducerService;
+    private final MpmcRingBuffer<RedirectClick> buffer;
+    private final OverflowPolicy overflowPolicy;
+    private final int sampleThreshold;
+    private final double sampleRate;
+    private final int batchSize;
+    private final long shutdownTimeoutMs;
+
+    private final Counter accepted;
+    private final Counter droppedOldest;
+    private final Counter droppedNewest;
+    private final Counter droppedSampled;
+    private final Counter published;
+    private final Counter publishFailures;
+    private final Timer queueLag;
+
+    private volatile boolean running;
+    private Thread drainer;
+
+    public RedirectEventEmitter(AnalyticsProducerService analyticsProducerService,
+                                MeterRegistry meterRegistry,
+                                @Value("${flashlink.analytics.emitter.capacity:65536}") int capacity,
+                                @Value("${flashlink.analytics.emitter.overflow-policy:DROP_NEWEST}") OverflowPolicy overflowPolicy,
+                                @Value("${flashlink.analytics.emitter.sample-threshold:0.5}") double sampleThreshold,
+                                @Value("${flashlink.analytics.emitter.sample-rate:0.1}") double sampleRate,
+                                @Value("${flashlink.analytics.emitter.batch-size:500}") int batchSize,
+                                @Value("${flashlink.analytics.emitter.shutdown-timeout-ms:5000}") long shutdownTimeoutMs) {
+        if (sampleThreshold < 0 || sampleThreshold > 1 || sampleRate < 0 || sampleRate > 1) {
+            throw new IllegalArgumentException("Sample threshold and rate must be between 0 and 1");
+        }
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("Batch size must be positive: " + batchSize);
+        }
+        this.analyticsProducerService = analyticsProducerService;
+        this.buffer = new MpmcRingBuffer<>(capacity);
+        this.overflowPolicy = overflowPolicy;
+        this.sampleThreshold = (int) (buffer.capacity() * sampleThreshold);
+        this.sampleRate = sampleRate;
+        this.batchSize = batchSize;
+        this.shutdownTimeoutMs = shutdownTimeoutMs;
+
+        this.accepted = Counter.builder("analytics.emitter.accepted")
+                .description("Redirect events queued for publishing")
+                .register(meterRegistry);
+        this.droppedOldest = droppedCounter(meterRegistry, "drop_oldest");
+        this.droppedNewest = droppedCounter(meterRegistry, "drop_newest");
+        this.droppedSampled = droppedCounter(meterRegistry, "sampled");
+        this.published = Counter.builder("analytics.emitter.published")
+                .description("Redirect events handed to the Kafka producer")
+                .register(meterRegistry);
+        this.publishFailures = Counter.builder("analytics.emitter.publish.failures")
+                .description("Redirect events the drainer failed to hand to the producer")
+                .register(meterRegistry);
+        this.queueLag = Timer.builder("analytics.emitter.lag")
+                .description("Time from a redirect to its event leaving the ring buffer")
+                .register(meterRegistry);
+        Gauge.builder("analytics.emitter.queue.size", buffer, MpmcRingBuffer::size)
+                .description("Redirect events waiting in the ring buffer")
+                .register(meterRegistry);
+        Gauge.builder("analytics.emitter.queue.capacity", buffer, MpmcRingBuffer::capacity)
+                .register(meterRegistry);
+        Gauge.builder("analytics.emitter.drainer.alive", this, emitter -> emitter.isDrainerAlive() ? 1 : 0)
+                .description("1 while the drainer thread is running; 0 means redirect events are no longer published")
+                .register(meterRegistry);
+    }
+
+    private static Counter droppedCounter(MeterRegistry meterRegistry, String reason) {
+        return Counter.builder("analytics.emitter.dropped")
+                .description("Redirect events shed because the ring buffer was full")
+                .tag("reason", reason)
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        drainer = new Thread(this::drainLoop, "redirect-event-drainer");
+        drainer.setDaemon(true);
+        drainer.start();
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        if (drainer == null) {
+            return;
+        }
+        LockSupport.unpark(drainer);
+        try {
+            drainer.join(shutdownTimeoutMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (drainer.isAlive()) {
+            log.warn("Redirect event drainer did not finish within {} ms; {} events left unpublished",
+                    shutdownTimeoutMs, buffer.size());
+        }
+    }
+
+    /**
+     * Records a redirect for publishing. Never blocks; returns false if the click was shed.
+     */
+    public boolean emitRedirect(String shortCode, String longUrl, String clientIp, String userAgent, String referer) {
+        RedirectClick click = new RedirectClick(shortCode, longUrl, clientIp, userAgent, referer,
+                System.currentTimeMillis());
+        boolean queued = switch (overflowPolicy) {
+            case DROP_OLDEST -> offerEvictingOldest(click);
+            case DROP_NEWEST -> offerOrDrop(click);
+            case SAMPLE -> offerSampled(click);
+        };
+        if (queued) {
+            accepted.increment();
+        }
+        return queued;
+    }
+
+    private boolean offerOrDrop(RedirectClick click) {
+        if (buffer.offer(click)) {
+            return true;
+        }
+        droppedNewest.increment();
+        return false;
+    }
+
+    private boolean offerEvictingOldest(RedirectClick click) {
+        for (int attempt = 0; attempt < DROP_OLDEST_ATTEMPTS; attempt++) {
+            if (buffer.offer(click)) {
+                return true;
+            }
+            if (buffer.poll() != null) {
+                droppedOldest.increment();
+            }
+        }
+        // Other producers keep refilling the freed slots; shed this click rather than spin
+        droppedNewest.increment();
+        return false;
+    }
+
+    private boolean offerSampled(RedirectClick click) {
+        if (buffer.size() >= sampleThreshold && ThreadLocalRandom.current().nextDouble() >= sampleRate) {
+            droppedSampled.increment();
+            return false;
+        }
+        return offerOrDrop(click);
+    }
+
+    private void drainLoop() {
+        List<RedirectClick> batch = new ArrayList<>(batchSize);
+        int idleRounds = 0;
+        while (running || !buffer.isEmpty()) {
+            if (buffer.drain(batch::add, batchSize) == 0) {
+                if (++idleRounds < SPINS_BEFORE_PARK) {
+                    Thread.onSpinWait();
+                } else {
+                    LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+                }
+                continue;
+            }
+            idleRounds = 0;
+            // Nothing may end this thread: with no other drainer the ring would fill and shed every click
+            try {
+                queueLag.record(System.currentTimeMillis() - batch.get(0).redirectedAtMillis(), TimeUnit.MILLISECONDS);
+                for (RedirectClick click : batch) {
+                    publish(click);
+                }
+            } catch (Throwable t) {
+                log.error("Redirect event drainer failed on a batch of {} events; continuing", batch.size(), t);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void publish(RedirectClick click) {
+        try {
+            analyticsProducerService.publishRedirectEvent(click.shortCode(), click.longUrl(), click.clientIp(),
+                    click.userAgent(), click.referer(),
+                    LocalDateTime.ofInstant(Instant.ofEpochMilli(click.redirectedAtMillis()), ZoneId.systemDefault()));
+            published.increment();
+        } catch (RuntimeException e) {
+            publishFailures.increment();
+            log.warn("Failed to publish redirect event for {}: {}", click.shortCode(), e.getMessage());
+        } catch (Throwable t) {
+            publishFailures.increment();
+            log.error("Failed to publish redirect event for {}", click.shortCode(), t);
+        }
+    }
+
+    public boolean isDrainerAlive() {
+        return drainer != null && drainer.isAlive();
+    }
+
+    public int getQueueSize() {
+        return buffer.size();
+    }
+
+    private record RedirectClick(String shortCode, String longUrl, String clientIp, String userAgent,
+                                 String referer, long redirectedAtMillis) {
+    }
+}
@@ -0,0 +1,141 @@
+package com.flashlink.demoflashlink_url_service.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.DoubleSupplier;
+import java.util.function.LongSupplier;
+import java.util.function.ObjLongConsumer;
+
+/**
+ * Per-shortCode adaptive sampling of redirect events. Each code's redirect rate is estimated as
+ * an EWMA over {@link #tick} intervals. Codes at or below the threshold publish every redirect as
+ * an exact event. Above it, each redirect is still counted exactly into a pending delta (published
+ * on the next tick as a REDIRECT_COUNT event), and only a {@code threshold / rate} fraction is
+ * published as a sampled REDIRECT event carrying weight {@code rate / threshold}. Event volume per
+ * hot code is thus capped near the threshold while redirect counts stay exact.
+ */
+@Component
+public class RedirectSampler {
+
+    /** {@link #sample} result for a cold code: publish an exact, unweighted event. */
+    public static final double EXACT = -1.0;
+
+    private static final double EWMA_ALPHA = 0.5;
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+
+    private final boolean enabled;
+    private final double thresholdPerSecond;
+    private final int maxTrackedCodes;
+    private final LongSupplier nanoClock;
+    private final DoubleSupplier random;
+
+    private final Map<String, CodeStats> stats = new HashMap<>();
+    private long lastTickNanos;
+
+    @Autowired
+    public RedirectSampler(@Value("${flashlink.analytics.sampling.enabled:false}") boolean enabled,
+                           @Value("${flashlink.analytics.sampling.threshold-per-second:100}") double thresholdPerSecond,
+                           @Value("${flashlink.analytics.sampling.max-tracked-codes:100000}") int maxTrackedCodes) {
+        this(enabled, thresholdPerSecond, maxTrackedCodes, System::nanoTime,
+                () -> ThreadLocalRandom.current().nextDouble());
+    }
+
+    RedirectSampler(boolean enabled, double thresholdPerSecond, int maxTrackedCodes,
+                    LongSupplier nanoClock, DoubleSupplier random) {
+        if (thresholdPerSecond <= 0) {
+            throw new IllegalArgumentException("Sampling threshold must be positive: " + thresholdPerSecond);
+        }
+        this.enabled = enabled;
+        this.thresholdPerSecond = thresholdPerSecond;
+        this.maxTrackedCodes = maxTrackedCodes;
+        this.nanoClock = nanoClock;
+        this.random = random;
+        this.lastTickNanos = nanoClock.getAsLong();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Records one redirect. Returns {@link #EXACT} for a cold code, 0 for a hot-code redirect that
+     * is only counted in the delta, or the weight of the sampled event to publish.
+     */
+    public synchronized double sample(String shortCode) {
+        if (!enabled) {
+            return EXACT;
+        }
+        CodeStats code = stats.get(shortCode);
+        if (code == null) {
+            if (stats.size() >= maxTrackedCodes) {
+                return EXACT;
+            }
+            code = new CodeStats();
+            stats.put(shortCode, code);
+        }
+        code.windowCount++;
+        // A burst is caught within the window it starts in, before the EWMA catches up
+        double rate = Math.max(code.ratePerSecond, code.windowCount / tickSeconds());
+        if (rate <= thresholdPerSecond) {
+            return EXACT;
+        }
+        code.pendingDelta++;
+        double probability = thresholdPerSecond / rate;
+        return random.getAsDouble() < probability ? 1.0 / probability : 0.0;
+    }
+
+    /**
+     * Closes the current interval: updates every rate estimate, hands each hot code's exact count
+     * of redirects since the last tick to {@code deltaSink}, and forgets codes that have gone cold.
+     */
+    public synchronized void tick(ObjLongConsumer<String> deltaSink) {
+        long now = nanoClock.getAsLong();
+        double elapsedSeconds = Math.max(1e-3, (double) (now - lastTickNanos) / NANOS_PER_SECOND);
+        lastTickNanos = now;
+
+        Iterator<Map.Entry<String, CodeStats>> iterator = stats.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<String, CodeStats> entry = iterator.next();
+            CodeStats code = entry.getValue();
+            code.ratePerSecond = EWMA_ALPHA * (code.windowCount / elapsedSeconds)
+                    + (1 - EWMA_ALPHA) * code.ratePerSecond;
+            code.windowCount = 0;
+            if (code.pendingDelta > 0) {
+                deltaSink.accept(entry.getKey(), code.pendingDelta);
+                code.pendingDelta = 0;
+            }
+            if (code.ratePerSecond < thresholdPerSecond / 100) {
+                iterator.remove();
+            }
+        }
+    }
+
+    /**
+     * Returns a delta handed out by {@link #tick} that could not be published, so the next tick
+     * hands it out again. A code forgotten in the meantime is tracked again to carry the delta.
+     */
+    public synchronized void requeueDelta(String shortCode, long delta) {
+        stats.computeIfAbsent(shortCode, code -> new CodeStats()).pendingDelta += delta;
+    }
+
+    // The interval since the last tick, but never less than a second so early hits do not look hot
+    private double tickSeconds() {
+        return Math.max(1.0, (double) (nanoClock.getAsLong() - lastTickNanos) / NANOS_PER_SECOND);
+    }
+
+    public synchronized int getTrackedCodes() {
+        return stats.size();
+    }
+
+    private static final class CodeStats {
+        private double ratePerSecond;
+        private long windowCount;
+        private long pendingDelta;
+    }
+}
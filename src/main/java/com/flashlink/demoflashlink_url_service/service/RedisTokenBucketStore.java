@@ -0,0 +1,123 @@
+package com.flashlink.demoflashlink_url_service.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * GCRA buckets in Redis: one GET and one SET PX per call, using Redis server time so pods with
+ * skewed clocks share a consistent bucket. The script is loaded at startup and run by SHA;
+ * RedisTemplate falls back to EVAL if Redis has lost it. Arguments other than the key are
+ * formatted once.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "rate.limit.store", havingValue = "redis", matchIfMissing = true)
+public class RedisTokenBucketStore implements TokenBucketStore {
+
+    private static final String KEY_PREFIX = "rate_limit:";
+    private static final int MAX_CACHED_REQUEST_ARG = 64;
+
+    static final DefaultRedisScript<Long> ACQUIRE_SCRIPT = new DefaultRedisScript<>(
+            "local time = redis.call('TIME')\n" +
+            "local now = tonumber(time[1]) * 1000 + math.floor(tonumber(time[2]) / 1000)\n" +
+            "local interval = tonumber(ARGV[1])\n" +
+            "local burst = tonumber(ARGV[2])\n" +
+            "local requested = tonumber(ARGV[3])\n" +
+            "local tat = tonumber(redis.call('GET', KEYS[1])) or now\n" +
+            "if tat < now then tat = now end\n" +
+            "local granted = math.floor((now + burst * interval - tat) / interval)\n" +
+            "if granted > requested then granted = requested end\n" +
+            "if granted <= 0 then return 0 end\n" +
+            "tat = tat + granted * interval\n" +
+            "redis.call('SET', KEYS[1], tat, 'PX', tat - now)\n" +
+            "return granted",
+            Long.class);
+
+    // Unconditional debit of every key, tokens in ARGV[i + 1] for KEYS[i]: a TAT may move past
+    // now + burst * interval, so the bucket is in debt. All keys must be on one node, which holds for
+    // a single Redis server but not for a cluster.
+    static final DefaultRedisScript<Long> CHARGE_SCRIPT = new DefaultRedisScript<>(
+            "local time = redis.call('TIME')\n" +
+            "local now = tonumber(time[1]) * 1000 + math.floor(tonumber(time[2]) / 1000)\n" +
+            "local interval = tonumber(ARGV[1])\n" +
+            "for i, key in ipairs(KEYS) do\n" +
+            "  local tat = tonumber(redis.call('GET', key)) or now\n" +
+            "  if tat < now then tat = now end\n" +
+            "  tat = tat + interval * tonumber(ARGV[i + 1])\n" +
+            "  redis.call('SET', key, tat, 'PX', tat - now)\n" +
+            "end\n" +
+            "return #KEYS",
+            Long.class);
+
+    private final RedisTemplate<String, String> redisTemplate;
+    private final String emissionIntervalArg;
+    private final String burstArg;
+    private final String[] requestedArgs = new String[MAX_CACHED_REQUEST_ARG + 1];
+
+    public RedisTokenBucketStore(RedisTemplate<String, String> redisTemplate,
+                                 @Value("${rate.limit.requests-per-minute:60}") int requestsPerMinute,
+                                 @Value("${rate.limit.burst-capacity:10}") int burstCapacity) {
+        this.redisTemplate = redisTemplate;
+        this.emissionIntervalArg = String.valueOf(TokenBucketStore.emissionIntervalMs(requestsPerMinute));
+        this.burstArg = String.valueOf(burstCapacity);
+        for (int i = 0; i < requestedArgs.length; i++) {
+            requestedArgs[i] = String.valueOf(i);
+        }
+        preload();
+    }
+
+    @Override
+    public long acquire(String key, int requested) {
+        String requestedArg = requested >= 0 && requested <= MAX_CACHED_REQUEST_ARG
+                ? requestedArgs[requested]
+                : String.valueOf(requested);
+        Long granted = redisTemplate.execute(ACQUIRE_SCRIPT, Collections.singletonList(KEY_PREFIX + key),
+                emissionIntervalArg, burstArg, requestedArg);
+        return granted != null ? granted : 0;
+    }
+
+    @Override
+    public void charge(String key, int tokens) {
+        chargeAll(Map.of(key, tokens));
+    }
+
+    // One EVALSHA for the whole batch instead of a round trip per key
+    @Override
+    public void chargeAll(Map<String, Integer> charges) {
+        if (charges.isEmpty()) {
+            return;
+        }
+        List<String> keys = new ArrayList<>(charges.size());
+        Object[] args = new Object[charges.size() + 1];
+        args[0] = emissionIntervalArg;
+        charges.forEach((key, tokens) -> {
+            keys.add(KEY_PREFIX + key);
+            args[keys.size()] = String.valueOf(tokens);
+        });
+        redisTemplate.execute(CHARGE_SCRIPT, keys, args);
+    }
+
+    // Best effort: without it the first call per Redis node pays one EVAL
+    private void preload() {
+        try {
+            for (DefaultRedisScript<Long> loaded : List.of(ACQUIRE_SCRIPT, CHARGE_SCRIPT)) {
+                byte[] script = loaded.getScriptAsString().getBytes(StandardCharsets.UTF_8);
+                redisTemplate.execute((RedisCallback<String>) connection ->
+                        connection.scriptingCommands().scriptLoad(script));
+            }
+        } catch (RuntimeException e) {
+            log.warn("Could not preload the rate limit scripts, they will be loaded on first use: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package com.flashlink.demoflashlink_url_service.service;
+
+import io.micrometer.core.instrument.Clock;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import io.micrometer.tracing.Span;
+import io.micrometer.tracing.Tracer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Request-path timers, registered once per outcome and per redirect stage at startup. Callers take
+ * a start time from {@link #start()} and record against a pre-resolved timer, so timing a request
+ * performs no registry lookup, builder or {@link Timer.Sample} allocation. Request timers publish
+ * client-side percentiles and SLO buckets; the SLO boundaries are configurable in milliseconds.
+ * Stage timers keep percentiles over roughly the last {@code stage-window-minutes}, reported by the
+ * redirectstages actuator endpoint.
+ * <p>
+ * The cache stage excludes time spent in the database fallback, which is its own stage. Whether a
+ * found redirect was a cache hit is tracked per request thread from {@link #startLookup()}.
+ * With {@code stage-spans} enabled each stage is also a tracing span; that path allocates.
+ */
+@Component
+public class RequestMetrics {
+
+    public static final String REDIRECT_TIMER = "redirect.duration";
+    public static final String SHORTENING_TIMER = "url.shortening.duration";
+    public static final String STAGE_TIMER = "redirect.stage.duration";
+
+    public enum RedirectOutcome {
+        HIT("hit"), MISS("miss"), NOT_FOUND("not-found"), RATE_LIMITED("rate-limited"), ERROR("error");
+
+        private final String tag;
+
+        RedirectOutcome(String tag) {
+            this.tag = tag;
+        }
+
+        public String tag() {
+            return tag;
+        }
+    }
+
+    public enum Stage {
+        RATE_LIMIT("rate-limit"), CACHE("cache"), DATABASE("database"), PUBLISH("publish");
+
+        private final String tag;
+        private final String spanName;
+
+        Stage(String tag) {
+            this.tag = tag;
+            this.spanName = "redirect." + tag;
+        }
+
+        public String tag() {
+            return tag;
+        }
+    }
+
+    public record StageLatency(long count, double p50Ms, double p99Ms, double maxMs) {}
+
+    private final Clock clock;
+    private final Timer[] redirectTimers;
+    private final Timer shortenedTimer;
+    private final Timer shorteningFailedTimer;
+    private final Timer[] stageTimers;
+    private final Tracer tracer;
+    private final int stageWindowMinutes;
+    // Database nanos spent in this thread's current lookup, or -1 if it did not reach the database;
+    // the array is allocated once per thread
+    private final ThreadLocal<long[]> lookupDatabaseNanos = ThreadLocal.withInitial(() -> new long[]{-1});
+
+    public RequestMetrics(MeterRegistry meterRegistry,
+                          Optional<Tracer> tracer,
+                          @Value("${flashlink.metrics.redirect-slo-ms:5,10,25,50,100,250}") long[] redirectSloMs,
+                          @Value("${flashlink.metrics.shortening-slo-ms:25,50,100,250,500,1000}")
+                          long[] shorteningSloMs,
+                          @Value("${flashlink.metrics.stage-spans:false}") boolean stageSpans,
+                          @Value("${flashlink.metrics.stage-window-minutes:5}") int stageWindowMinutes) {
+        this.clock = meterRegistry.config().clock();
+        RedirectOutcome[] outcomes = RedirectOutcome.values();
+        this.redirectTimers = new Timer[outcomes.length];
+        for (RedirectOutcome outcome : outcomes) {
+            redirectTimers[outcome.ordinal()] = timer(REDIRECT_TIMER, "Time taken to process redirects",
+                    outcome.tag(), redirectSloMs, meterRegistry);
+        }
+        this.shortenedTimer = timer(SHORTENING_TIMER, "Time taken to shorten URLs", "success",
+                shorteningSloMs, meterRegistry);
+        this.shorteningFailedTimer = timer(SHORTENING_TIMER, "Time taken to shorten URLs", "error",
+                shorteningSloMs, meterRegistry);
+
+        this.stageWindowMinutes = Math.max(1, stageWindowMinutes);
+        Stage[] stages = Stage.values();
+        this.stageTimers = new Timer[stages.length];
+        for (Stage stage : stages) {
+            stageTimers[stage.ordinal()] = Timer.builder(STAGE_TIMER)
+                    .description("Time taken by each stage of a redirect")
+                    .tag("stage", stage.tag())
+                    .publishPercentiles(0.5, 0.99)
+                    .percentilePrecision(2)
+                    .distributionStatisticExpiry(Duration.ofMinutes(this.stageWindowMinutes))
+                    .distributionStatisticBufferLength(this.stageWindowMinutes)
+                    .register(meterRegistry);
+        }
+        this.tracer = stageSpans ? tracer.orElse(null) : null;
+    }
+
+    public long start() {
+        return clock.monotonicTime();
+    }
+
+    // Starts timing a cache lookup and resets the cache miss state left by this thread's previous one
+    public long startLookup() {
+        lookupDatabaseNanos.get()[0] = -1;
+        return clock.monotonicTime();
+    }
+
+    // A started span when stage spans are enabled and a tracer is present, otherwise null
+    public Span stageSpan(Stage stage) {
+        return tracer != null ? tracer.nextSpan().name(stage.spanName).start() : null;
+    }
+
+    public void recordStage(Stage stage, long startNanos, Span span) {
+        long elapsed = clock.monotonicTime() - startNanos;
+        if (stage == Stage.DATABASE) {
+            long[] databaseNanos = lookupDatabaseNanos.get();
+            databaseNanos[0] = Math.max(0, databaseNanos[0]) + elapsed;
+        } else if (stage == Stage.CACHE) {
+            elapsed -= Math.max(0, lookupDatabaseNanos.get()[0]);
+        }
+        stageTimers[stage.ordinal()].record(Math.max(0, elapsed), TimeUnit.NANOSECONDS);
+        if (span != null) {
+            span.end();
+        }
+    }
+
+    // Outcome of a redirect that resolved to a URL, from this thread's last cache lookup
+    public RedirectOutcome foundOutcome() {
+        return lookupDatabaseNanos.get()[0] >= 0 ? RedirectOutcome.MISS : RedirectOutcome.HIT;
+    }
+
+    public void recordRedirect(long startNanos, RedirectOutcome outcome) {
+        redirectTimers[outcome.ordinal()].record(clock.monotonicTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordShortening(long startNanos, boolean success) {
+        (success ? shortenedTimer : shorteningFailedTimer)
+                .record(clock.monotonicTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public int stageWindowMinutes() {
+        return stageWindowMinutes;
+    }
+
+    public Map<String, StageLatency> stageLatencies() {
+        Map<String, StageLatency> latencies = new LinkedHashMap<>();
+        for (Stage stage : Stage.values()) {
+            Timer timer = stageTimers[stage.ordinal()];
+            double p50 = 0;
+            double p99 = 0;
+            for (ValueAtPercentile value : timer.takeSnapshot().percentileValues()) {
+                if (value.percentile() == 0.5) {
+                    p50 = value.value(TimeUnit.MILLISECONDS);
+                } else if (value.percentile() == 0.99) {
+                    p99 = value.value(TimeUnit.MILLISECONDS);
+                }
+            }
+            latencies.put(stage.tag(), new StageLatency(timer.count(), p50, p99, timer.max(TimeUnit.MILLISECONDS)));
+        }
+        return latencies;
+    }
+
+    private static Timer timer(String name, String description, String outcome, long[] sloMs,
+                               MeterRegistry meterRegistry) {
+        return Timer.builder(name)
+                .description(description)
+                .tag("outcome", outcome)
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .serviceLevelObjectives(Arrays.stream(sloMs).mapToObj(Duration::ofMillis).toArray(Duration[]::new))
+                .distributionStatisticExpiry(Duration.ofMinutes(1))
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,31 @@
+package com.flashlink.demoflashlink_url_service.service;
+
+import java.util.Map;
+
+/**
+ * Shared rate limit state: one GCRA bucket per key that refills a token every
+ * {@code emissionIntervalMs} and holds at most {@code burst} tokens, the same limit as a token
+ * bucket of that capacity and refill rate. The bucket is stored as its theoretical arrival time,
+ * a single integer in milliseconds.
+ */
+public interface TokenBucketStore {
+
+    // Takes up to requested tokens from key's bucket and returns how many were granted
+    long acquire(String key, int requested);
+
+    // Debits tokens already spent without asking the store, letting the bucket go into debt.
+    // Stores that cannot hold debt take what the bucket has and forgive the rest.
+    default void charge(String key, int tokens) {
+        acquire(key, tokens);
+    }
+
+    // Debits several keys at once; stores with a network round trip do it in one call
+    default void chargeAll(Map<String, Integer> charges) {
+        charges.forEach(this::charge);
+    }
+
+    // Milliseconds between tokens for a per-minute rate, at least 1
+    static long emissionIntervalMs(int requestsPerMinute) {
+        return Math.max(1, Math.round(60_000.0 / requestsPerMinute));
+    }
+}
@@ -1,114 +1,192 @@
 package com.flashlink.demoflashlink_url_service.service;
 
+import com.flashlink.demoflashlink_url_service.cache.ShortCodeFilter;
 import com.flashlink.demoflashlink_url_service.model.UrlMapping;
 import com.flashlink.demoflashlink_url_service.repository.UrlMappingRepository;
+import com.flashlink.demoflashlink_url_service.service.RequestMetrics.Stage;
 import com.flashlink.demoflashlink_url_service.util.Base62Encoder;
+import com.flashlink.demoflashlink_url_service.util.DuplicateKeys;
 import com.flashlink.demoflashlink_url_service.util.SnowflakeIdGenerator;
-import io.micrometer.core.instrument.Timer;
-import io.micrometer.core.instrument.MeterRegistry;
-import lombok.RequiredArgsConstructor;
+import io.micrometer.tracing.Span;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.cache.annotation.CacheEvict;
-import org.springframework.cache.annotation.Cacheable;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionOperations;
+
 import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
 import java.util.Optional;
 
 @Slf4j
 @Service
-@RequiredArgsConstructor
 public class UrlService {
     private final UrlMappingRepository repository;
     private final SnowflakeIdGenerator idGenerator;
     private final Base62Encoder base62;
     private final AnalyticsProducerService analyticsProducerService;
-    private final MeterRegistry meterRegistry;
+    private final RequestMetrics requestMetrics;
+    private final CacheManager cacheManager;
+    private final ShortCodeFilter shortCodeFilter;
+    private final TransactionOperations transactionOperations;
+    private static final String URL_MAPPING_CACHE = "urlMapping";
     private static final int MAX_RETRIES = 3;
     private static final int DEFAULT_EXPIRY_DAYS = 30;
+    private final boolean lookupById;
+
+    public UrlService(UrlMappingRepository repository,
+                      SnowflakeIdGenerator idGenerator,
+                      Base62Encoder base62,
+                      AnalyticsProducerService analyticsProducerService,
+                      RequestMetrics requestMetrics,
+                      CacheManager cacheManager,
+                      ShortCodeFilter shortCodeFilter,
+                      TransactionOperations transactionOperations,
+                      @Value("${flashlink.shortcode.lookup-by-id:true}") boolean lookupById) {
+        this.repository = repository;
+        this.idGenerator = idGenerator;
+        this.base62 = base62;
+        this.analyticsProducerService = analyticsProducerService;
+        this.requestMetrics = requestMetrics;
+        this.cacheManager = cacheManager;
+        this.shortCodeFilter = shortCodeFilter;
+        this.transactionOperations = transactionOperations;
+        this.lookupById = lookupById;
+    }
 
-    @Transactional
-    @CacheEvict(value = "urlMapping", allEntries = true)
     public UrlMapping shortenUrl(String longUrl) {
         return shortenUrl(longUrl, null, null);
     }
 
-    @Transactional
-    @CacheEvict(value = "urlMapping", allEntries = true)
     public UrlMapping shortenUrl(String longUrl, LocalDateTime expiryAt) {
         return shortenUrl(longUrl, expiryAt, null);
     }
 
-    @Transactional
-    @CacheEvict(value = "urlMapping", allEntries = true)
     public UrlMapping shortenUrl(String longUrl, LocalDateTime expiryAt, String ownerId) {
-        Timer.Sample sample = Timer.start(meterRegistry);
+        long start = requestMetrics.start();
+        boolean success = false;
         try {
             UrlMapping result = performUrlShortening(longUrl, expiryAt, ownerId);
-            sample.stop(Timer.builder("url.shortening.duration").register(meterRegistry));
+            success = true;
             return result;
-        } catch (Exception e) {
-            sample.stop(Timer.builder("url.shortening.duration").register(meterRegistry));
-            throw e;
+        } finally {
+            requestMetrics.recordShortening(start, success);
         }
     }
 
+    // Insert-only: uniqueness is left to the primary key and the short_code unique index, and each
+    // attempt commits in its own transaction so a duplicate key rolls back cleanly and retries with
+    // a fresh id. A new UrlMapping is persisted without Spring Data's merge SELECT.
     private UrlMapping performUrlShortening(String longUrl, LocalDateTime expiryAt, String ownerId) {
         for (int attempt = 0; attempt < MAX_RETRIES; attempt++) {
+            long id = idGenerator.nextId();
+            String code = base62.encode(id);
+            
+            // Whole seconds, as stored in the DATETIME column, so the cached copy matches the row
+            LocalDateTime expiry = (expiryAt != null ? expiryAt :
+                LocalDateTime.now().plus(DEFAULT_EXPIRY_DAYS, ChronoUnit.DAYS)).truncatedTo(ChronoUnit.SECONDS);
+            
+            Integer ttlSeconds = expiryAt != null ? 
+                (int) ChronoUnit.SECONDS.between(LocalDateTime.now(), expiryAt) : null;
+            
+            UrlMapping mapping = UrlMapping.builder()
+                    .id(id)
+                    .shortCode(code)
+                    .longUrl(longUrl)
+                    .createdAt(LocalDateTime.now())
+                    .expiryAt(expiry)
+                    .ownerId(ownerId)
+                    .ttlSeconds(ttlSeconds)
+                    .redirectCount(0L)
+                    .build();
+            
+            UrlMapping result;
             try {
-                long id = idGenerator.nextId();
-                String code = base62.encode(id);
-                
-                if (repository.existsByShortCode(code)) {
-                    log.warn("Collision detected for short code: {} on attempt {}", code, attempt + 1);
-                    continue;
-                }
-                
-                LocalDateTime expiry = expiryAt != null ? expiryAt : 
-                    LocalDateTime.now().plus(DEFAULT_EXPIRY_DAYS, ChronoUnit.DAYS);
-                
-                Integer ttlSeconds = expiryAt != null ? 
-                    (int) ChronoUnit.SECONDS.between(LocalDateTime.now(), expiryAt) : null;
-                
-                UrlMapping mapping = UrlMapping.builder()
-                        .id(id)
-                        .shortCode(code)
-                        .longUrl(longUrl)
-                        .createdAt(LocalDateTime.now())
-                        .expiryAt(expiry)
-                        .ownerId(ownerId)
-                        .ttlSeconds(ttlSeconds)
-                        .redirectCount(0L)
-                        .build();
-                
-                UrlMapping result = repository.save(mapping);
-                log.info("Created URL mapping: {} -> {}", code, longUrl);
-                
-                // Emit analytics event for link creation
-                analyticsProducerService.publishLinkCreatedEvent(code, longUrl, ownerId);
-                
-                return result;
-                
-            } catch (Exception e) {
-                log.warn("Attempt {} failed: {}", attempt + 1, e.getMessage());
-                if (attempt == MAX_RETRIES - 1) {
-                    throw new IllegalStateException("Failed to generate unique short code after " + MAX_RETRIES + " attempts", e);
+                result = transactionOperations.execute(status -> repository.save(mapping));
+            } catch (DataIntegrityViolationException e) {
+                if (!DuplicateKeys.isDuplicateKey(e)) {
+                    throw e;
                 }
+                log.warn("Duplicate key on attempt {}, retrying with a new id: {}", attempt + 1, e.getMessage());
+                continue;
             }
+            
+            // The row is committed from here on, so nothing below may lead to another insert
+            log.info("Created URL mapping: {} -> {}", code, longUrl);
+            shortCodeFilter.add(code);
+            cacheMapping(result);
+            
+            // Emit analytics event for link creation
+            analyticsProducerService.publishLinkCreatedEvent(code, longUrl, ownerId);
+            
+            return result;
         }
-        throw new IllegalStateException("Unexpected error in URL shortening");
+        throw new IllegalStateException("Failed to generate unique short code after " + MAX_RETRIES + " attempts");
     }
 
-    @Cacheable(value = "urlMapping", key = "#shortCode")
+    // Called after the insert has committed. Only the new shortCode is touched: a negative entry
+    // cached by an earlier miss is overwritten, and every other hot entry stays in place.
+    private void cacheMapping(UrlMapping mapping) {
+        Cache cache = cacheManager.getCache(URL_MAPPING_CACHE);
+        if (cache != null) {
+            cache.put(mapping.getShortCode(), mapping);
+        }
+    }
+
+    // Read-through over the layered urlMapping cache; a miss in every tier falls back to the
+    // repository and the result (including "not found") is filled back into the tiers.
     public Optional<UrlMapping> getUrlMapping(String shortCode) {
-        return repository.findByShortCode(shortCode)
-                .filter(mapping -> mapping.getExpiryAt() == null || mapping.getExpiryAt().isAfter(LocalDateTime.now()));
+        if (!shortCodeFilter.mightContain(shortCode)) {
+            return Optional.empty();
+        }
+        long start = requestMetrics.startLookup();
+        Cache cache = cacheManager.getCache(URL_MAPPING_CACHE);
+        if (cache == null) {
+            return loadUrlMapping(shortCode);
+        }
+        Span span = requestMetrics.stageSpan(Stage.CACHE);
+        try {
+            return Optional.ofNullable(cache.get(shortCode, () -> loadUrlMapping(shortCode).orElse(null)));
+        } finally {
+            requestMetrics.recordStage(Stage.CACHE, start, span);
+        }
     }
 
-    @Cacheable(value = "longUrl", key = "#shortCode")
     public Optional<String> getLongUrl(String shortCode) {
         return getUrlMapping(shortCode)
                 .map(UrlMapping::getLongUrl);
     }
+
+    private Optional<UrlMapping> loadUrlMapping(String shortCode) {
+        long start = requestMetrics.start();
+        Span span = requestMetrics.stageSpan(Stage.DATABASE);
+        Optional<UrlMapping> mapping;
+        try {
+            mapping = findMapping(shortCode);
+        } finally {
+            requestMetrics.recordStage(Stage.DATABASE, start, span);
+        }
+        if (mapping.isEmpty()) {
+            shortCodeFilter.recordFalsePositive();
+        }
+        return mapping
+                .filter(m -> m.getExpiryAt() == null || m.getExpiryAt().isAfter(LocalDateTime.now()));
+    }
+
+    // Generated codes are base62(id), so the primary key resolves them without the idx_short_code
+    // traversal. A code that round-trips through the codec can only have been generated, so the
+    // primary key answer is final, found or not; only codes that do not round-trip (legacy or
+    // custom codes) use the secondary index. Either way a miss costs one query.
+    private Optional<UrlMapping> findMapping(String shortCode) {
+        if (lookupById) {
+            long id = base62.tryDecode(shortCode);
+            if (id >= 0 && shortCode.equals(base62.encode(id))) {
+                return repository.findById(id)
+                        .filter(m -> shortCode.equals(m.getShortCode()));
+            }
+        }
+        return repository.findByShortCode(shortCode);
+    }
 }
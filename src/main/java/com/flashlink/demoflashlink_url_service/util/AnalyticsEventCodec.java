@@ -0,0 +1,463 @@
+package com.flashlink.demoflashlink_url_service.util;
+
+import com.flashlink.demoflashlink_url_service.model.AnalyticsEvent;
+import org.apache.kafka.common.errors.SerializationException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Compact binary encoding of {@link AnalyticsEvent}. Layout (version 1):
+ * <pre>
+ * magic(0xFB) version(1) presence-flags(varint)
+ * [eventId: 16 raw bytes for a canonical lowercase UUID, else string]
+ * [shortCode] [longUrl] [clientIp] [userAgent] [referer] [country] [city]   strings: varint length + UTF-8
+ * [timestamp: zigzag varint epoch second + varint nano, wall clock as UTC]
+ * [eventType: one byte ordinal of {@link AnalyticsEvent.EventType}, else string]
+ * [metadata: varint size, then key string + tagged value per entry]
+ * [sampleWeight: 8-byte double] [countDelta: zigzag varlong]
+ * </pre>
+ * Absent fields cost nothing beyond their flag bit. Fields added later go after the existing ones
+ * under new flag bits, so older readers of the same version skip them. EventType ordinals are part
+ * of the format, so new types may only be appended. JSON never starts with the magic byte, which
+ * lets readers accept both encodings during a rollout.
+ */
+public class AnalyticsEventCodec {
+
+    public static final byte MAGIC = (byte) 0xFB;
+    public static final byte VERSION = 1;
+
+    private static final int EVENT_ID_UUID = 1;
+    private static final int EVENT_ID_STRING = 1 << 1;
+    private static final int SHORT_CODE = 1 << 2;
+    private static final int LONG_URL = 1 << 3;
+    private static final int CLIENT_IP = 1 << 4;
+    private static final int USER_AGENT = 1 << 5;
+    private static final int REFERER = 1 << 6;
+    private static final int COUNTRY = 1 << 7;
+    private static final int CITY = 1 << 8;
+    private static final int TIMESTAMP = 1 << 9;
+    private static final int EVENT_TYPE_ORDINAL = 1 << 10;
+    private static final int EVENT_TYPE_STRING = 1 << 11;
+    private static final int METADATA = 1 << 12;
+    private static final int SAMPLE_WEIGHT = 1 << 13;
+    private static final int COUNT_DELTA = 1 << 14;
+
+    private static final byte VALUE_NULL = 0;
+    private static final byte VALUE_STRING = 1;
+    private static final byte VALUE_INT = 2;
+    private static final byte VALUE_LONG = 3;
+    private static final byte VALUE_DOUBLE = 4;
+    private static final byte VALUE_TRUE = 5;
+    private static final byte VALUE_FALSE = 6;
+
+    private static final AnalyticsEvent.EventType[] EVENT_TYPES = AnalyticsEvent.EventType.values();
+    private static final Map<String, AnalyticsEvent.EventType> EVENT_TYPES_BY_NAME = new LinkedHashMap<>();
+    private static final ThreadLocal<Output> OUTPUT = ThreadLocal.withInitial(Output::new);
+
+    static {
+        for (AnalyticsEvent.EventType type : EVENT_TYPES) {
+            EVENT_TYPES_BY_NAME.put(type.name(), type);
+        }
+    }
+
+    // User agents, referers and geo fields repeat heavily; decoding them through the cache hands
+    // back one shared String per distinct value instead of a fresh copy per event.
+    private final StringCache repeatedStrings = new StringCache();
+
+    public static boolean isBinary(byte[] data) {
+        return data != null && data.length >= 2 && data[0] == MAGIC;
+    }
+
+    public byte[] encode(AnalyticsEvent event) {
+        Output out = OUTPUT.get();
+        out.reset();
+        out.writeByte(MAGIC);
+        out.writeByte(VERSION);
+
+        String eventId = event.getEventId();
+        boolean uuidEventId = isCanonicalUuid(eventId);
+        AnalyticsEvent.EventType type = event.getEventType() != null
+                ? EVENT_TYPES_BY_NAME.get(event.getEventType()) : null;
+        Map<String, Object> metadata = event.getMetadata();
+
+        int flags = 0;
+        flags |= eventId == null ? 0 : uuidEventId ? EVENT_ID_UUID : EVENT_ID_STRING;
+        flags |= event.getShortCode() != null ? SHORT_CODE : 0;
+        flags |= event.getLongUrl() != null ? LONG_URL : 0;
+        flags |= event.getClientIp() != null ? CLIENT_IP : 0;
+        flags |= event.getUserAgent() != null ? USER_AGENT : 0;
+        flags |= event.getReferer() != null ? REFERER : 0;
+        flags |= event.getCountry() != null ? COUNTRY : 0;
+        flags |= event.getCity() != null ? CITY : 0;
+        flags |= event.getTimestamp() != null ? TIMESTAMP : 0;
+        flags |= event.getEventType() == null ? 0 : type != null ? EVENT_TYPE_ORDINAL : EVENT_TYPE_STRING;
+        flags |= metadata != null ? METADATA : 0;
+        flags |= event.getSampleWeight() != null ? SAMPLE_WEIGHT : 0;
+        flags |= event.getCountDelta() != null ? COUNT_DELTA : 0;
+        out.writeVarint(flags);
+
+        if (uuidEventId) {
+            out.writeLong(parseHex(eventId, 0, 8) << 32 | parseHex(eventId, 9, 13) << 16 | parseHex(eventId, 14, 18));
+            out.writeLong(parseHex(eventId, 19, 23) << 48 | parseHex(eventId, 24, 36));
+        } else if (eventId != null) {
+            out.writeString(eventId);
+        }
+        out.writeStringIfPresent(event.getShortCode());
+        out.writeStringIfPresent(event.getLongUrl());
+        out.writeStringIfPresent(event.getClientIp());
+        out.writeStringIfPresent(event.getUserAgent());
+        out.writeStringIfPresent(event.getReferer());
+        out.writeStringIfPresent(event.getCountry());
+        out.writeStringIfPresent(event.getCity());
+        if (event.getTimestamp() != null) {
+            out.writeVarlong(zigZag(event.getTimestamp().toEpochSecond(ZoneOffset.UTC)));
+            out.writeVarint(event.getTimestamp().getNano());
+        }
+        if (type != null) {
+            out.writeByte((byte) type.ordinal());
+        } else if (event.getEventType() != null) {
+            out.writeString(event.getEventType());
+        }
+        if (metadata != null) {
+            out.writeVarint(metadata.size());
+            for (Map.Entry<String, Object> entry : metadata.entrySet()) {
+                out.writeString(entry.getKey());
+                writeValue(out, entry.getValue());
+            }
+        }
+        if (event.getSampleWeight() != null) {
+            out.writeLong(Double.doubleToRawLongBits(event.getSampleWeight()));
+        }
+        if (event.getCountDelta() != null) {
+            out.writeVarlong(zigZag(event.getCountDelta()));
+        }
+        return out.toByteArray();
+    }
+
+    public AnalyticsEvent decode(byte[] data) {
+        if (!isBinary(data)) {
+            throw new SerializationException("Not a binary AnalyticsEvent");
+        }
+        if (data[1] != VERSION) {
+            throw new SerializationException("Unsupported AnalyticsEvent wire format version " + data[1]);
+        }
+        try {
+            Input in = new Input(data, 2);
+            int flags = in.readVarint();
+            AnalyticsEvent event = new AnalyticsEvent();
+            if ((flags & EVENT_ID_UUID) != 0) {
+                event.setEventId(new UUID(in.readLong(), in.readLong()).toString());
+            } else if ((flags & EVENT_ID_STRING) != 0) {
+                event.setEventId(in.readString());
+            }
+            if ((flags & SHORT_CODE) != 0) {
+                event.setShortCode(in.readString());
+            }
+            if ((flags & LONG_URL) != 0) {
+                event.setLongUrl(in.readString());
+            }
+            if ((flags & CLIENT_IP) != 0) {
+                event.setClientIp(in.readString());
+            }
+            if ((flags & USER_AGENT) != 0) {
+                event.setUserAgent(in.readCachedString(repeatedStrings));
+            }
+            if ((flags & REFERER) != 0) {
+                event.setReferer(in.readCachedString(repeatedStrings));
+            }
+            if ((flags & COUNTRY) != 0) {
+                event.setCountry(in.readCachedString(repeatedStrings));
+            }
+            if ((flags & CITY) != 0) {
+                event.setCity(in.readCachedString(repeatedStrings));
+            }
+            if ((flags & TIMESTAMP) != 0) {
+                long epochSecond = unZigZag(in.readVarlong());
+                event.setTimestamp(LocalDateTime.ofEpochSecond(epochSecond, in.readVarint(), ZoneOffset.UTC));
+            }
+            if ((flags & EVENT_TYPE_ORDINAL) != 0) {
+                int ordinal = in.readByte() & 0xFF;
+                if (ordinal >= EVENT_TYPES.length) {
+                    throw new SerializationException("Unknown AnalyticsEvent type ordinal " + ordinal);
+                }
+                event.setEventType(EVENT_TYPES[ordinal].name());
+            } else if ((flags & EVENT_TYPE_STRING) != 0) {
+                event.setEventType(in.readString());
+            }
+            if ((flags & METADATA) != 0) {
+                int size = in.readVarint();
+                Map<String, Object> metadata = new LinkedHashMap<>(Math.max(4, size * 2));
+                for (int i = 0; i < size; i++) {
+                    metadata.put(in.readString(), readValue(in));
+                }
+                event.setMetadata(metadata);
+            }
+            if ((flags & SAMPLE_WEIGHT) != 0) {
+                event.setSampleWeight(Double.longBitsToDouble(in.readLong()));
+            }
+            if ((flags & COUNT_DELTA) != 0) {
+                event.setCountDelta(unZigZag(in.readVarlong()));
+            }
+            return event;
+        } catch (ArrayIndexOutOfBoundsException | IllegalArgumentException | java.time.DateTimeException e) {
+            throw new SerializationException("Malformed binary AnalyticsEvent", e);
+        }
+    }
+
+    // Metadata values keep their JSON-ish scalar types; anything else is carried as its toString()
+    private static void writeValue(Output out, Object value) {
+        if (value == null) {
+            out.writeByte(VALUE_NULL);
+        } else if (value instanceof Integer i) {
+            out.writeByte(VALUE_INT);
+            out.writeVarint(zigZag(i));
+        } else if (value instanceof Long l) {
+            out.writeByte(VALUE_LONG);
+            out.writeVarlong(zigZag(l));
+        } else if (value instanceof Double d) {
+            out.writeByte(VALUE_DOUBLE);
+            out.writeLong(Double.doubleToRawLongBits(d));
+        } else if (value instanceof Boolean b) {
+            out.writeByte(b ? VALUE_TRUE : VALUE_FALSE);
+        } else {
+            out.writeByte(VALUE_STRING);
+            out.writeString(value.toString());
+        }
+    }
+
+    private static Object readValue(Input in) {
+        byte tag = in.readByte();
+        return switch (tag) {
+            case VALUE_NULL -> null;
+            case VALUE_STRING -> in.readString();
+            case VALUE_INT -> (int) unZigZag(in.readVarint() & 0xFFFFFFFFL);
+            case VALUE_LONG -> unZigZag(in.readVarlong());
+            case VALUE_DOUBLE -> Double.longBitsToDouble(in.readLong());
+            case VALUE_TRUE -> Boolean.TRUE;
+            case VALUE_FALSE -> Boolean.FALSE;
+            default -> throw new SerializationException("Unknown metadata value tag " + tag);
+        };
+    }
+
+    // Only ids that survive a UUID round trip unchanged are packed into 16 bytes
+    private static boolean isCanonicalUuid(String id) {
+        if (id == null || id.length() != 36) {
+            return false;
+        }
+        for (int i = 0; i < 36; i++) {
+            char c = id.charAt(i);
+            boolean dash = i == 8 || i == 13 || i == 18 || i == 23;
+            if (dash ? c != '-' : !((c >= '0' && c <= '9') || (c >= 'a' && c <= 'f'))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static long parseHex(String s, int from, int to) {
+        long value = 0;
+        for (int i = from; i < to; i++) {
+            char c = s.charAt(i);
+            if (c == '-') {
+                continue;
+            }
+            value = value << 4 | (c <= '9' ? c - '0' : c - 'a' + 10);
+        }
+        return value;
+    }
+
+    private static long zigZag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static int zigZag(int value) {
+        return (value << 1) ^ (value >> 31);
+    }
+
+    private static long unZigZag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static final class Output {
+        private byte[] buffer = new byte[512];
+        private int position;
+
+        void reset() {
+            position = 0;
+        }
+
+        void ensure(int bytes) {
+            if (position + bytes > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, position + bytes));
+            }
+        }
+
+        void writeByte(byte value) {
+            ensure(1);
+            buffer[position++] = value;
+        }
+
+        void writeVarint(int value) {
+            ensure(5);
+            while ((value & ~0x7F) != 0) {
+                buffer[position++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            buffer[position++] = (byte) value;
+        }
+
+        void writeVarlong(long value) {
+            ensure(10);
+            while ((value & ~0x7FL) != 0) {
+                buffer[position++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            buffer[position++] = (byte) value;
+        }
+
+        void writeLong(long value) {
+            ensure(8);
+            for (int shift = 56; shift >= 0; shift -= 8) {
+                buffer[position++] = (byte) (value >>> shift);
+            }
+        }
+
+        void writeStringIfPresent(String value) {
+            if (value != null) {
+                writeString(value);
+            }
+        }
+
+        // ASCII (the common case for URLs, ids and user agents) is copied without a UTF-8 encoder pass
+        void writeString(String value) {
+            int length = value.length();
+            for (int i = 0; i < length; i++) {
+                if (value.charAt(i) >= 0x80) {
+                    byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+                    writeVarint(utf8.length);
+                    ensure(utf8.length);
+                    System.arraycopy(utf8, 0, buffer, position, utf8.length);
+                    position += utf8.length;
+                    return;
+                }
+            }
+            writeVarint(length);
+            ensure(length);
+            for (int i = 0; i < length; i++) {
+                buffer[position++] = (byte) value.charAt(i);
+            }
+        }
+
+        byte[] toByteArray() {
+            byte[] result = Arrays.copyOf(buffer, position);
+            if (buffer.length > 64 * 1024) {
+                buffer = new byte[512];
+            }
+            return result;
+        }
+    }
+
+    private static final class Input {
+        private final byte[] data;
+        private int position;
+
+        Input(byte[] data, int position) {
+            this.data = data;
+            this.position = position;
+        }
+
+        byte readByte() {
+            return data[position++];
+        }
+
+        int readVarint() {
+            int value = 0;
+            for (int shift = 0; shift < 35; shift += 7) {
+                byte b = data[position++];
+                value |= (b & 0x7F) << shift;
+                if (b >= 0) {
+                    return value;
+                }
+            }
+            throw new SerializationException("Malformed varint");
+        }
+
+        long readVarlong() {
+            long value = 0;
+            for (int shift = 0; shift < 70; shift += 7) {
+                byte b = data[position++];
+                value |= (long) (b & 0x7F) << shift;
+                if (b >= 0) {
+                    return value;
+                }
+            }
+            throw new SerializationException("Malformed varlong");
+        }
+
+        long readLong() {
+            long value = 0;
+            for (int i = 0; i < 8; i++) {
+                value = value << 8 | (data[position++] & 0xFF);
+            }
+            return value;
+        }
+
+        String readString() {
+            int length = readLength();
+            String value = new String(data, position, length, StandardCharsets.UTF_8);
+            position += length;
+            return value;
+        }
+
+        String readCachedString(StringCache cache) {
+            int length = readLength();
+            String value = cache.get(data, position, length);
+            position += length;
+            return value;
+        }
+
+        private int readLength() {
+            int length = readVarint();
+            if (length < 0 || length > data.length - position) {
+                throw new SerializationException("String length " + length + " exceeds remaining input");
+            }
+            return length;
+        }
+    }
+
+    // Direct-mapped, lossy cache keyed by the encoded bytes. Entries are immutable, so racing
+    // writers at worst replace each other's entry.
+    private static final class StringCache {
+        private static final int SIZE = 2048;
+        private static final int MAX_LENGTH = 512;
+
+        private final Entry[] entries = new Entry[SIZE];
+
+        String get(byte[] data, int offset, int length) {
+            if (length > MAX_LENGTH) {
+                return new String(data, offset, length, StandardCharsets.UTF_8);
+            }
+            int hash = 1;
+            for (int i = offset; i < offset + length; i++) {
+                hash = 31 * hash + data[i];
+            }
+            int slot = (hash ^ (hash >>> 16)) & (SIZE - 1);
+            Entry entry = entries[slot];
+            if (entry != null && Arrays.equals(entry.bytes, 0, entry.bytes.length, data, offset, offset + length)) {
+                return entry.value;
+            }
+            String value = new String(data, offset, length, StandardCharsets.UTF_8);
+            entries[slot] = new Entry(Arrays.copyOfRange(data, offset, offset + length), value);
+            return value;
+        }
+
+        private record Entry(byte[] bytes, String value) {
+        }
+    }
+}
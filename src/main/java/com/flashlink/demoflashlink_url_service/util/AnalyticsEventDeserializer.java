@@ -0,0 +1,35 @@
+package com.flashlink.demoflashlink_url_service.util;
+
+import com.flashlink.demoflashlink_url_service.model.AnalyticsEvent;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.serialization.Deserializer;
+import org.springframework.kafka.support.serializer.JsonDeserializer;
+
+/**
+ * Kafka value deserializer that reads both wire formats: payloads starting with
+ * {@link AnalyticsEventCodec#MAGIC} are decoded as binary, anything else as JSON. Consumers
+ * switch to it before producers switch formats, and records already on the topic keep reading.
+ */
+public class AnalyticsEventDeserializer implements Deserializer<AnalyticsEvent> {
+
+    private final AnalyticsEventCodec codec = new AnalyticsEventCodec();
+    private final JsonDeserializer<AnalyticsEvent> json = new JsonDeserializer<>(AnalyticsEvent.class, false);
+
+    @Override
+    public AnalyticsEvent deserialize(String topic, byte[] data) {
+        if (data == null) {
+            return null;
+        }
+        return AnalyticsEventCodec.isBinary(data) ? codec.decode(data) : json.deserialize(topic, data);
+    }
+
+    @Override
+    public AnalyticsEvent deserialize(String topic, Headers headers, byte[] data) {
+        return deserialize(topic, data);
+    }
+
+    @Override
+    public void close() {
+        json.close();
+    }
+}
@@ -0,0 +1,18 @@
+package com.flashlink.demoflashlink_url_service.util;
+
+import com.flashlink.demoflashlink_url_service.model.AnalyticsEvent;
+import org.apache.kafka.common.serialization.Serializer;
+
+/**
+ * Kafka value serializer writing {@link AnalyticsEventCodec}'s binary format. Enable it with
+ * {@code kafka.serialization.format=binary} once every consumer runs {@link AnalyticsEventDeserializer}.
+ */
+public class AnalyticsEventSerializer implements Serializer<AnalyticsEvent> {
+
+    private final AnalyticsEventCodec codec = new AnalyticsEventCodec();
+
+    @Override
+    public byte[] serialize(String topic, AnalyticsEvent event) {
+        return event != null ? codec.encode(event) : null;
+    }
+}
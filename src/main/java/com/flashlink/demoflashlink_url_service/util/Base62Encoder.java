@@ -1,17 +1,144 @@
 package com.flashlink.demoflashlink_url_service.util;
 
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Table-driven Base62 codec. Ids are treated as unsigned 64-bit values, so every long has an
+ * encoding of at most {@link #MAX_LENGTH} characters. With a fixed width configured, shorter
+ * codes are left-padded with '0'; leading zeros do not change the decoded value.
+ */
 @Component
 public class Base62Encoder {
-    private static final String CHARSET = "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz";
+
+    public static final int MAX_LENGTH = 11;
+
+    private static final int BASE = 62;
+    private static final byte[] ALPHABET =
+            "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] DIGITS = new byte[128];
+    private static final long UNSIGNED_LIMIT = Long.divideUnsigned(-1L, BASE);
+
+    static {
+        Arrays.fill(DIGITS, (byte) -1);
+        for (int i = 0; i < ALPHABET.length; i++) {
+            DIGITS[ALPHABET[i]] = (byte) i;
+        }
+    }
+
+    private final int fixedWidth;
+
+    public Base62Encoder() {
+        this(0);
+    }
+
+    @Autowired
+    public Base62Encoder(@Value("${flashlink.shortcode.fixed-width:0}") int fixedWidth) {
+        if (fixedWidth < 0 || fixedWidth > MAX_LENGTH) {
+            throw new IllegalArgumentException("Fixed width must be between 0 and " + MAX_LENGTH + ": " + fixedWidth);
+        }
+        this.fixedWidth = fixedWidth;
+    }
 
     public String encode(long id) {
-        StringBuilder sb = new StringBuilder();
-        while (id > 0) {
-            sb.append(CHARSET.charAt((int) (id % 62)));
-            id /= 62;
+        byte[] buffer = new byte[MAX_LENGTH];
+        int start = encodeRightAligned(id, buffer);
+        return new String(buffer, start, MAX_LENGTH - start, StandardCharsets.ISO_8859_1);
+    }
+
+    /**
+     * Writes the ASCII encoding of {@code id} into {@code destination} at {@code offset} without
+     * allocating. The destination needs {@link #MAX_LENGTH} bytes of room. Returns the length written.
+     */
+    public int encode(long id, byte[] destination, int offset) {
+        int length = encodedLength(id);
+        long value = id;
+        for (int i = offset + length - 1; i >= offset; i--) {
+            if (value == 0) {
+                destination[i] = ALPHABET[0];
+                continue;
+            }
+            destination[i] = ALPHABET[(int) Long.remainderUnsigned(value, BASE)];
+            value = Long.divideUnsigned(value, BASE);
+        }
+        return length;
+    }
+
+    public long decode(CharSequence code) {
+        if (code == null || code.isEmpty() || code.length() > MAX_LENGTH) {
+            throw new IllegalArgumentException("Invalid Base62 code: " + code);
+        }
+        long value = 0;
+        for (int i = 0; i < code.length(); i++) {
+            char c = code.charAt(i);
+            int digit = c < DIGITS.length ? DIGITS[c] : -1;
+            if (digit < 0) {
+                throw new IllegalArgumentException("Invalid Base62 character '" + c + "' in " + code);
+            }
+            if (Long.compareUnsigned(value, UNSIGNED_LIMIT) > 0) {
+                throw new IllegalArgumentException("Base62 code overflows 64 bits: " + code);
+            }
+            long shifted = value * BASE;
+            value = shifted + digit;
+            if (Long.compareUnsigned(value, shifted) < 0) {
+                throw new IllegalArgumentException("Base62 code overflows 64 bits: " + code);
+            }
+        }
+        return value;
+    }
+
+    /**
+     * Non-throwing decode for request paths: returns the id, or -1 if the code is malformed or
+     * does not fit in a non-negative long (which no Snowflake id can be).
+     */
+    public long tryDecode(CharSequence code) {
+        if (code == null || code.isEmpty() || code.length() > MAX_LENGTH) {
+            return -1L;
+        }
+        long value = 0;
+        for (int i = 0; i < code.length(); i++) {
+            char c = code.charAt(i);
+            int digit = c < DIGITS.length ? DIGITS[c] : -1;
+            if (digit < 0 || value > (Long.MAX_VALUE - digit) / BASE) {
+                return -1L;
+            }
+            value = value * BASE + digit;
+        }
+        return value;
+    }
+
+    public int getFixedWidth() {
+        return fixedWidth;
+    }
+
+    private int encodeRightAligned(long id, byte[] buffer) {
+        int pos = MAX_LENGTH;
+        long value = id;
+        if (value < 0) {
+            buffer[--pos] = ALPHABET[(int) Long.remainderUnsigned(value, BASE)];
+            value = Long.divideUnsigned(value, BASE);
+        }
+        do {
+            buffer[--pos] = ALPHABET[(int) (value % BASE)];
+            value /= BASE;
+        } while (value > 0);
+        while (MAX_LENGTH - pos < fixedWidth) {
+            buffer[--pos] = ALPHABET[0];
+        }
+        return pos;
+    }
+
+    private int encodedLength(long id) {
+        int digits = 1;
+        long value = Long.divideUnsigned(id, BASE);
+        while (value != 0) {
+            digits++;
+            value /= BASE;
         }
-        return sb.reverse().toString();
+        return Math.max(digits, fixedWidth);
     }
 }
@@ -0,0 +1,124 @@
+package com.flashlink.demoflashlink_url_service.util;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Fixed-size table of GCRA rate limit buckets keyed by a 64-bit hash. A bucket is only its
+ * theoretical arrival time (TAT) in milliseconds, so a slot is two longs and the table never
+ * allocates after construction. Each key maps to a set of {@value #WAYS} slots. A bucket whose TAT
+ * has passed is full again and indistinguishable from a missing one, so its slot is free for
+ * reuse; when a set has no free slot the bucket closest to full is evicted, which costs that key at
+ * most a fresh burst. Sets are guarded by striped locks.
+ */
+public final class GcraTable {
+
+    private static final int WAYS = 8;
+
+    private final long[] keys;
+    private final long[] tats;
+    private final int setMask;
+    private final Object[] locks;
+    private final int lockMask;
+    private final LongAdder evictions = new LongAdder();
+
+    public GcraTable(int maxKeys, int lockStripes) {
+        if (maxKeys < 1 || lockStripes < 1) {
+            throw new IllegalArgumentException("Invalid GCRA table sizing: maxKeys=" + maxKeys
+                    + ", lockStripes=" + lockStripes);
+        }
+        int sets = ceilPowerOfTwo((maxKeys + WAYS - 1) / WAYS);
+        this.keys = new long[sets * WAYS];
+        this.tats = new long[sets * WAYS];
+        this.setMask = sets - 1;
+        int stripes = Math.min(sets, ceilPowerOfTwo(lockStripes));
+        this.locks = new Object[stripes];
+        for (int i = 0; i < stripes; i++) {
+            locks[i] = new Object();
+        }
+        this.lockMask = stripes - 1;
+    }
+
+    // Takes up to requested tokens from key's bucket and returns how many were granted
+    public long acquire(long key, long now, long emissionIntervalMs, int burst, int requested) {
+        long tag = key != 0 ? key : 1; // 0 marks an empty slot
+        int set = (int) (tag ^ (tag >>> 32)) & setMask;
+        synchronized (locks[set & lockMask]) {
+            return take(slot(tag, set, now), now, emissionIntervalMs, burst, requested);
+        }
+    }
+
+    // Debits tokens spent elsewhere whether or not the bucket holds them; a bucket in debt grants
+    // nothing until time has paid it off
+    public void charge(long key, long now, long emissionIntervalMs, int tokens) {
+        long tag = key != 0 ? key : 1;
+        int set = (int) (tag ^ (tag >>> 32)) & setMask;
+        synchronized (locks[set & lockMask]) {
+            int slot = slot(tag, set, now);
+            tats[slot] = Math.max(tats[slot], now) + tokens * emissionIntervalMs;
+        }
+    }
+
+    // The slot holding tag, or a free or evicted one claimed for it; the set's lock must be held
+    private int slot(long tag, int set, long now) {
+        int base = set * WAYS;
+        int free = -1;
+        int victim = base;
+        for (int slot = base; slot < base + WAYS; slot++) {
+            if (keys[slot] == tag) {
+                return slot;
+            }
+            if (free < 0 && (keys[slot] == 0 || tats[slot] <= now)) {
+                free = slot;
+            }
+            if (tats[slot] < tats[victim]) {
+                victim = slot;
+            }
+        }
+        int slot = free;
+        if (slot < 0) {
+            slot = victim;
+            evictions.increment();
+        }
+        keys[slot] = tag;
+        tats[slot] = now;
+        return slot;
+    }
+
+    // Tokens grantable from a bucket whose theoretical arrival time is tat, at most requested
+    public static long grantable(long tat, long now, long emissionIntervalMs, int burst, int requested) {
+        long available = (now + burst * emissionIntervalMs - Math.max(tat, now)) / emissionIntervalMs;
+        return Math.max(0, Math.min(requested, available));
+    }
+
+    // Buckets that are not yet full again; a scan, for tests and diagnostics
+    public int activeKeys(long now) {
+        int active = 0;
+        for (int slot = 0; slot < keys.length; slot++) {
+            if (keys[slot] != 0 && tats[slot] > now) {
+                active++;
+            }
+        }
+        return active;
+    }
+
+    public int capacity() {
+        return keys.length;
+    }
+
+    public long evictions() {
+        return evictions.sum();
+    }
+
+    private long take(int slot, long now, long emissionIntervalMs, int burst, int requested) {
+        long tat = tats[slot];
+        long granted = grantable(tat, now, emissionIntervalMs, burst, requested);
+        if (granted > 0) {
+            tats[slot] = Math.max(tat, now) + granted * emissionIntervalMs;
+        }
+        return granted;
+    }
+
+    private static int ceilPowerOfTwo(int value) {
+        return value <= 1 ? 1 : Integer.highestOneBit(value - 1) << 1;
+    }
+}
@@ -0,0 +1,27 @@
+package com.flashlink.demoflashlink_url_service.util;
+
+public final class Hash64 {
+
+    private Hash64() {
+    }
+
+    public static long hash(CharSequence value) {
+        long h = 0x9E3779B97F4A7C15L ^ value.length();
+        for (int i = 0; i < value.length(); i++) {
+            h ^= value.charAt(i);
+            h *= 0xBF58476D1CE4E5B9L;
+            h = Long.rotateLeft(h, 31);
+        }
+        return mix(h);
+    }
+
+    // MurmurHash3 fmix64 finalizer
+    public static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -0,0 +1,87 @@
+package com.flashlink.demoflashlink_url_service.util;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.MultiGauge;
+import io.micrometer.core.instrument.Tags;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Gauges for the heaviest keys of a high-cardinality tag over a sliding window. Counts are kept in
+ * {@code windowSlots} Space-Saving summaries of {@code capacity} counters each; every
+ * {@link #rotate()} publishes the top {@code topN} keys of the whole window plus an
+ * {@value #OTHER} series for the rest, then drops the oldest slot. Keys that fall out of the top N
+ * lose their series, so the meter never holds more than {@code topN + 1} of them.
+ */
+public final class HotKeyMeter {
+
+    public static final String OTHER = "other";
+
+    private final MultiGauge gauge;
+    private final String tagKey;
+    private final int topN;
+    private final int capacity;
+    private final SpaceSaving[] slots;
+    private final long[] slotTotals;
+    private int current;
+    private volatile List<SpaceSaving.Entry> hottest = List.of();
+
+    public HotKeyMeter(MeterRegistry meterRegistry, String name, String tagKey, String description,
+                       int topN, int windowSlots, int capacity) {
+        if (topN < 1 || windowSlots < 1 || capacity < topN) {
+            throw new IllegalArgumentException("Invalid hot key meter sizing: topN=" + topN
+                    + ", windowSlots=" + windowSlots + ", capacity=" + capacity);
+        }
+        this.gauge = MultiGauge.builder(name)
+                .description(description)
+                .register(meterRegistry);
+        this.tagKey = tagKey;
+        this.topN = topN;
+        this.capacity = capacity;
+        this.slots = new SpaceSaving[windowSlots];
+        this.slotTotals = new long[windowSlots];
+        for (int i = 0; i < windowSlots; i++) {
+            slots[i] = new SpaceSaving(capacity);
+        }
+    }
+
+    public synchronized void record(String key, long count) {
+        slots[current].add(key, count);
+        slotTotals[current] += count;
+    }
+
+    public void rotate() {
+        SpaceSaving window = new SpaceSaving(capacity);
+        long total = 0;
+        synchronized (this) {
+            for (int i = 0; i < slots.length; i++) {
+                window.merge(slots[i]);
+                total += slotTotals[i];
+            }
+            current = (current + 1) % slots.length;
+            slots[current] = new SpaceSaving(capacity);
+            slotTotals[current] = 0;
+        }
+
+        List<SpaceSaving.Entry> top = window.top(topN);
+        List<MultiGauge.Row<?>> rows = new ArrayList<>(top.size() + 1);
+        long rest = total;
+        for (SpaceSaving.Entry entry : top) {
+            if (OTHER.equals(entry.item())) {
+                continue;
+            }
+            rows.add(MultiGauge.Row.of(Tags.of(tagKey, entry.item()), entry.count()));
+            rest -= entry.count();
+        }
+        // Top counts are upper bounds, so the remainder is a lower bound
+        rows.add(MultiGauge.Row.of(Tags.of(tagKey, OTHER), Math.max(0, rest)));
+        gauge.register(rows, true);
+        hottest = top;
+    }
+
+    // The keys published by the last rotation, heaviest first
+    public List<SpaceSaving.Entry> hottest() {
+        return hottest;
+    }
+}
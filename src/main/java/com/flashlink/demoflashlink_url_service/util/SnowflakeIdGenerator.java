@@ -1,29 +1,156 @@
 package com.flashlink.demoflashlink_url_service.util;
 
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.LongSupplier;
+
+/**
+ * Lock-free Snowflake generator: 41 bits of milliseconds since 2023-01-01, 10 bits of node id and
+ * a 12 bit per-millisecond sequence. The last issued (timestamp, sequence) pair is packed into a
+ * single long and advanced with CAS, so concurrent callers never block each other.
+ */
 @Component
 public class SnowflakeIdGenerator {
-    private final long nodeId;
-    private long sequence = 0L;
-    private long lastTimestamp = -1L;
 
-    public SnowflakeIdGenerator(@Value("${flashlink.node-id:1}") long nodeId) {
-        this.nodeId = nodeId;
+    public static final long EPOCH = 1672531200000L;
+    public static final long MAX_NODE_ID = 1023L;
+
+    private static final int NODE_BITS = 10;
+    private static final int SEQUENCE_BITS = 12;
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+    private static final long RETRY = -1L;
+    private static final long DEFAULT_MAX_CLOCK_DRIFT_MS = 1000L;
+
+    /**
+     * What to do when the wall clock is behind the last issued timestamp.
+     * WAIT spins/parks until the clock catches up, BORROW keeps issuing from the last timestamp
+     * (and may run ahead of the clock when a millisecond's sequence is exhausted), FAIL throws.
+     * All three throw once the gap exceeds the configured maximum drift.
+     */
+    public enum ClockRegressionPolicy {
+        WAIT,
+        BORROW,
+        FAIL
     }
 
-    public synchronized long nextId() {
-        long timestamp = System.currentTimeMillis();
+    private final long nodeBits;
+    private final ClockRegressionPolicy regressionPolicy;
+    private final long maxClockDriftMillis;
+    private final LongSupplier clock;
+    // (timestamp - EPOCH) << SEQUENCE_BITS | sequence of the last issued id
+    private final AtomicLong state = new AtomicLong();
+
+    public SnowflakeIdGenerator(long nodeId) {
+        this(nodeId, ClockRegressionPolicy.WAIT, DEFAULT_MAX_CLOCK_DRIFT_MS, System::currentTimeMillis);
+    }
+
+    @Autowired
+    public SnowflakeIdGenerator(@Value("${flashlink.node-id:1}") long nodeId,
+                                @Value("${flashlink.id.clock-regression-policy:WAIT}") ClockRegressionPolicy regressionPolicy,
+                                @Value("${flashlink.id.max-clock-drift-ms:1000}") long maxClockDriftMillis) {
+        this(nodeId, regressionPolicy, maxClockDriftMillis, System::currentTimeMillis);
+    }
 
-        if (timestamp == lastTimestamp) {
-            sequence = (sequence + 1) & 4095;
-            if (sequence == 0) {
-                while ((timestamp = System.currentTimeMillis()) <= lastTimestamp);
+    SnowflakeIdGenerator(long nodeId, ClockRegressionPolicy regressionPolicy, long maxClockDriftMillis,
+                         LongSupplier clock) {
+        if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+            throw new IllegalArgumentException("Node ID must be between 0 and " + MAX_NODE_ID + ": " + nodeId);
+        }
+        if (maxClockDriftMillis < 0) {
+            throw new IllegalArgumentException("Max clock drift must not be negative: " + maxClockDriftMillis);
+        }
+        this.nodeBits = nodeId << SEQUENCE_BITS;
+        this.regressionPolicy = regressionPolicy;
+        this.maxClockDriftMillis = maxClockDriftMillis;
+        this.clock = clock;
+    }
+
+    public long nextId() {
+        while (true) {
+            long current = state.get();
+            long next = nextState(current);
+            if (next != RETRY && state.compareAndSet(current, next)) {
+                return toId(next);
             }
-        } else sequence = 0;
+        }
+    }
+
+    // Epoch milliseconds at which the id was issued
+    public static long timestampOf(long id) {
+        return (id >>> (NODE_BITS + SEQUENCE_BITS)) + EPOCH;
+    }
+
+    // Reserves up to a full millisecond of sequence per CAS, so a batch of n ids costs
+    // about n / 4096 atomic operations instead of n.
+    public long[] nextIds(int count) {
+        if (count < 0) {
+            throw new IllegalArgumentException("Count must not be negative: " + count);
+        }
+        long[] ids = new long[count];
+        int filled = 0;
+        while (filled < count) {
+            long current = state.get();
+            long first = nextState(current);
+            if (first == RETRY) {
+                continue;
+            }
+            int available = (int) (SEQUENCE_MASK - (first & SEQUENCE_MASK) + 1);
+            int take = Math.min(available, count - filled);
+            if (state.compareAndSet(current, first + take - 1)) {
+                for (int i = 0; i < take; i++) {
+                    ids[filled++] = toId(first + i);
+                }
+            }
+        }
+        return ids;
+    }
+
+    private long nextState(long current) {
+        long last = current >>> SEQUENCE_BITS;
+        long now = clock.getAsLong() - EPOCH;
+        if (now > last) {
+            return now << SEQUENCE_BITS;
+        }
+
+        long behind = last - now;
+        if (behind > 0) {
+            if (behind > maxClockDriftMillis || regressionPolicy == ClockRegressionPolicy.FAIL) {
+                throw new IllegalStateException("Clock moved backwards by " + behind + " ms; refusing to generate ids");
+            }
+            if (regressionPolicy == ClockRegressionPolicy.WAIT) {
+                awaitClock(last);
+                return RETRY;
+            }
+        }
+
+        if ((current & SEQUENCE_MASK) < SEQUENCE_MASK) {
+            return current + 1;
+        }
+        // Sequence exhausted for this millisecond
+        if (regressionPolicy == ClockRegressionPolicy.BORROW && behind < maxClockDriftMillis) {
+            return (last + 1) << SEQUENCE_BITS;
+        }
+        awaitClock(regressionPolicy == ClockRegressionPolicy.BORROW ? last + 1 - maxClockDriftMillis : last + 1);
+        return RETRY;
+    }
+
+    private void awaitClock(long target) {
+        long remaining;
+        while ((remaining = target - (clock.getAsLong() - EPOCH)) > 0) {
+            if (remaining > 1) {
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(remaining - 1));
+            } else {
+                Thread.onSpinWait();
+            }
+        }
+    }
 
-        lastTimestamp = timestamp;
-        return ((timestamp - 1672531200000L) << 22) | (nodeId << 12) | sequence;
+    private long toId(long packed) {
+        return ((packed >>> SEQUENCE_BITS) << (NODE_BITS + SEQUENCE_BITS)) | nodeBits | (packed & SEQUENCE_MASK);
     }
 }
@@ -0,0 +1,168 @@
+package com.flashlink.demoflashlink_url_service.util;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Space-Saving top-k summary over at most {@code capacity} counters. An unseen item evicts the
+ * smallest counter and inherits its count as error, so every reported count is an upper bound
+ * that overestimates by at most {@code error}, and any item with a true count above
+ * total / capacity is guaranteed to be present. Summaries merge by adding counts, charging an
+ * item missing from a full summary with that summary's minimum. Not thread-safe.
+ */
+public final class SpaceSaving {
+
+    private static final byte FORMAT = 1;
+
+    private final int capacity;
+    private final Map<String, Counter> counters;
+
+    public SpaceSaving(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+        }
+        this.capacity = capacity;
+        this.counters = new HashMap<>(capacity * 2);
+    }
+
+    public record Entry(String item, long count, long error) {}
+
+    public void add(String item, long weight) {
+        Counter counter = counters.get(item);
+        if (counter != null) {
+            counter.count += weight;
+        } else if (counters.size() < capacity) {
+            counters.put(item, new Counter(weight, 0));
+        } else {
+            Map.Entry<String, Counter> smallest = smallest();
+            counters.remove(smallest.getKey());
+            Counter evicted = smallest.getValue();
+            counters.put(item, new Counter(evicted.count + weight, evicted.count));
+        }
+    }
+
+    public void merge(SpaceSaving other) {
+        long thisFloor = floor();
+        long otherFloor = other.floor();
+        Set<String> items = new HashSet<>(counters.keySet());
+        items.addAll(other.counters.keySet());
+
+        List<Entry> merged = new ArrayList<>(items.size());
+        for (String item : items) {
+            Counter mine = counters.get(item);
+            Counter theirs = other.counters.get(item);
+            long count = (mine != null ? mine.count : thisFloor) + (theirs != null ? theirs.count : otherFloor);
+            long error = (mine != null ? mine.error : thisFloor) + (theirs != null ? theirs.error : otherFloor);
+            merged.add(new Entry(item, count, error));
+        }
+        merged.sort(Comparator.comparingLong(Entry::count).reversed().thenComparing(Entry::item));
+
+        counters.clear();
+        for (Entry entry : merged.subList(0, Math.min(capacity, merged.size()))) {
+            counters.put(entry.item(), new Counter(entry.count(), entry.error()));
+        }
+    }
+
+    // The n largest counters, largest first
+    public List<Entry> top(int n) {
+        List<Entry> entries = new ArrayList<>(counters.size());
+        counters.forEach((item, counter) -> entries.add(new Entry(item, counter.count, counter.error)));
+        entries.sort(Comparator.comparingLong(Entry::count).reversed().thenComparing(Entry::item));
+        return entries.subList(0, Math.min(n, entries.size()));
+    }
+
+    public boolean isEmpty() {
+        return counters.isEmpty();
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    public byte[] toBytes() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(16 + counters.size() * 24);
+        out.write(FORMAT);
+        writeVarLong(out, capacity);
+        writeVarLong(out, counters.size());
+        for (Entry entry : top(counters.size())) {
+            byte[] item = entry.item().getBytes(StandardCharsets.UTF_8);
+            writeVarLong(out, item.length);
+            out.write(item, 0, item.length);
+            writeVarLong(out, entry.count());
+            writeVarLong(out, entry.error());
+        }
+        return out.toByteArray();
+    }
+
+    public static SpaceSaving fromBytes(byte[] bytes) {
+        try {
+            int[] position = {0};
+            if (bytes[position[0]++] != FORMAT) {
+                throw new IllegalArgumentException("Unknown Space-Saving format: " + bytes[0]);
+            }
+            SpaceSaving summary = new SpaceSaving((int) readVarLong(bytes, position));
+            long size = readVarLong(bytes, position);
+            for (long i = 0; i < size; i++) {
+                int length = (int) readVarLong(bytes, position);
+                String item = new String(bytes, position[0], length, StandardCharsets.UTF_8);
+                position[0] += length;
+                summary.counters.put(item, new Counter(readVarLong(bytes, position), readVarLong(bytes, position)));
+            }
+            return summary;
+        } catch (IndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("Truncated Space-Saving summary of " + bytes.length + " bytes", e);
+        }
+    }
+
+    // The count an absent item may have had: the smallest counter once the summary is full
+    private long floor() {
+        return counters.size() < capacity ? 0 : smallest().getValue().count;
+    }
+
+    private Map.Entry<String, Counter> smallest() {
+        Map.Entry<String, Counter> smallest = null;
+        for (Map.Entry<String, Counter> entry : counters.entrySet()) {
+            if (smallest == null || entry.getValue().count < smallest.getValue().count) {
+                smallest = entry;
+            }
+        }
+        return smallest;
+    }
+
+    private static void writeVarLong(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) (value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    private static long readVarLong(byte[] bytes, int[] position) {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = bytes[position[0]++];
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Malformed varint in Space-Saving summary");
+    }
+
+    private static final class Counter {
+        private long count;
+        private final long error;
+
+        Counter(long count, long error) {
+            this.count = count;
+            this.error = error;
+        }
+    }
+}
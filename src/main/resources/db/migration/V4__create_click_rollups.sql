@@ -0,0 +1,32 @@
+-- Pre-aggregated click counters per short code and time bucket. dimension is 'total' (with an
+-- empty dimension_value), 'referer' (referer host) or 'country'.
+CREATE TABLE click_rollup_minute (
+    short_code VARCHAR(10) NOT NULL,
+    dimension VARCHAR(16) NOT NULL,
+    dimension_value VARCHAR(255) NOT NULL,
+    bucket_start DATETIME NOT NULL,
+    clicks BIGINT NOT NULL,
+    PRIMARY KEY (short_code, dimension, dimension_value, bucket_start)
+);
+
+CREATE TABLE click_rollup_hour (
+    short_code VARCHAR(10) NOT NULL,
+    dimension VARCHAR(16) NOT NULL,
+    dimension_value VARCHAR(255) NOT NULL,
+    bucket_start DATETIME NOT NULL,
+    clicks BIGINT NOT NULL,
+    PRIMARY KEY (short_code, dimension, dimension_value, bucket_start)
+);
+
+CREATE TABLE click_rollup_day (
+    short_code VARCHAR(10) NOT NULL,
+    dimension VARCHAR(16) NOT NULL,
+    dimension_value VARCHAR(255) NOT NULL,
+    bucket_start DATETIME NOT NULL,
+    clicks BIGINT NOT NULL,
+    PRIMARY KEY (short_code, dimension, dimension_value, bucket_start)
+);
+
+-- Retention purges delete by bucket age
+CREATE INDEX idx_click_rollup_minute_bucket ON click_rollup_minute(bucket_start);
+CREATE INDEX idx_click_rollup_hour_bucket ON click_rollup_hour(bucket_start);
@@ -0,0 +1,8 @@
+-- Mergeable per-link sketches: a HyperLogLog of distinct visitors and a Space-Saving summary of
+-- the top referer hosts, serialized by util.HyperLogLog and util.SpaceSaving
+CREATE TABLE link_sketch (
+    short_code VARCHAR(10) NOT NULL PRIMARY KEY,
+    visitors VARBINARY(1536) NOT NULL,
+    top_referers BLOB NOT NULL,
+    updated_at DATETIME NOT NULL
+);
@@ -0,0 +1,8 @@
+-- Resumable position of the chunked expired-link purge: the (expiry_at, id) of the last row it
+-- deleted, so each chunk seeks past ranges of idx_expiry_at that have already been purged
+CREATE TABLE purge_checkpoint (
+    name VARCHAR(64) NOT NULL PRIMARY KEY,
+    last_expiry_at DATETIME NULL,
+    last_id BIGINT NOT NULL DEFAULT 0,
+    updated_at TIMESTAMP NOT NULL
+);
@@ -0,0 +1,146 @@
+package com.flashlink.demoflashlink_url_service.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Runs several independent application contexts ("pods") in-process that share one L2 tier and
+ * one invalidation bus, and measures how long a re-targeted link stays stale in the other pods' L1.
+ * The latency measurement is tagged "benchmark", so it only runs through {@code ./gradlew kafkaBenchmark}.
+ */
+@DisplayName("Cache Invalidation Propagation Tests")
+class CacheInvalidationPropagationTest {
+
+    private static final int POD_COUNT = 4;
+    private static final int ROUNDS = 200;
+    private static final String CACHE = "urlMapping";
+
+    private InMemoryCacheInvalidationBus bus;
+    private List<AnnotationConfigApplicationContext> pods;
+
+    @BeforeEach
+    void setUp() {
+        bus = new InMemoryCacheInvalidationBus();
+        SharedTiers shared = new SharedTiers(new ConcurrentMapCacheManager(CACHE), bus);
+        pods = new ArrayList<>();
+        for (int i = 0; i < POD_COUNT; i++) {
+            AnnotationConfigApplicationContext pod = new AnnotationConfigApplicationContext();
+            pod.registerBean(SharedTiers.class, () -> shared);
+            pod.register(PodConfig.class);
+            pod.refresh();
+            pods.add(pod);
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        pods.forEach(AnnotationConfigApplicationContext::close);
+        bus.close();
+    }
+
+    @Test
+    @Tag("benchmark")
+    @DisplayName("Should drop re-targeted entries from every other pod's L1 within milliseconds")
+    void retarget_ShouldPropagateToAllPods() {
+        long[] lagNanos = new long[ROUNDS * (POD_COUNT - 1)];
+        int sample = 0;
+
+        for (int round = 0; round < ROUNDS; round++) {
+            String key = "code" + round;
+            String before = "https://example.com/" + round;
+            String after = "https://example.org/" + round;
+            for (AnnotationConfigApplicationContext pod : pods) {
+                assertThat(cache(pod).get(key, () -> before)).isEqualTo(before);
+            }
+
+            TwoTierCache writer = cache(pods.get(round % POD_COUNT));
+            long published = System.nanoTime();
+            writer.put(key, after);
+
+            for (AnnotationConfigApplicationContext pod : pods) {
+                TwoTierCache reader = cache(pod);
+                if (reader == writer) {
+                    continue;
+                }
+                lagNanos[sample++] = awaitLocalEviction(reader, key, published);
+                assertThat(reader.get(key, () -> "from-db")).isEqualTo(after);
+            }
+        }
+
+        Arrays.sort(lagNanos);
+        long p50 = TimeUnit.NANOSECONDS.toMicros(lagNanos[lagNanos.length / 2]);
+        long p99 = TimeUnit.NANOSECONDS.toMicros(lagNanos[(int) (lagNanos.length * 0.99)]);
+        long max = TimeUnit.NANOSECONDS.toMicros(lagNanos[lagNanos.length - 1]);
+        System.out.printf("Invalidation propagation across %d pods: p50=%dus p99=%dus max=%dus%n",
+                POD_COUNT, p50, p99, max);
+
+        assertThat(TimeUnit.MICROSECONDS.toMillis(p99)).isLessThan(50);
+    }
+
+    @Test
+    @DisplayName("Should not evict the publishing pod's own L1")
+    void put_ShouldKeepOwnLocalEntry() {
+        // Given
+        TwoTierCache writer = cache(pods.get(0));
+
+        // When
+        writer.put("own", "https://example.com/own");
+
+        // Then
+        assertThat(writer.getLocal().get("own", String.class)).isEqualTo("https://example.com/own");
+    }
+
+    private static long awaitLocalEviction(TwoTierCache cache, String key, long publishedNanos) {
+        long deadline = publishedNanos + TimeUnit.SECONDS.toNanos(1);
+        while (cache.getLocal().get(key) != null) {
+            if (System.nanoTime() > deadline) {
+                fail("Invalidation of " + key + " did not reach " + cache.getName() + " within 1s");
+            }
+            Thread.onSpinWait();
+        }
+        return System.nanoTime() - publishedNanos;
+    }
+
+    private static TwoTierCache cache(AnnotationConfigApplicationContext pod) {
+        return (TwoTierCache) pod.getBean(CacheManager.class).getCache(CACHE);
+    }
+
+    record SharedTiers(CacheManager remote, CacheInvalidationBus bus) {
+    }
+
+    @Configuration
+    static class PodConfig {
+
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+
+        @Bean
+        CacheManager cacheManager(SharedTiers shared, MeterRegistry meterRegistry) {
+            CaffeineCacheManager local = new CaffeineCacheManager();
+            local.setCaffeine(Caffeine.newBuilder().maximumSize(1_000));
+            return new TwoTierCacheManager(local, shared.remote(), meterRegistry, shared.bus());
+        }
+    }
+}
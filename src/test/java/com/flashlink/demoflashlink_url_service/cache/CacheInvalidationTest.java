@@ -0,0 +1,43 @@
+package com.flashlink.demoflashlink_url_service.cache;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+
+@DisplayName("CacheInvalidation Tests")
+class CacheInvalidationTest {
+
+    @Test
+    @DisplayName("Should round-trip through the wire format")
+    void encodeDecode_ShouldRoundTrip() {
+        // Given
+        CacheInvalidation invalidation = new CacheInvalidation("pod-a", "urlMapping", List.of("abc", "XYZ09"), 1234L);
+
+        // When
+        CacheInvalidation decoded = CacheInvalidation.decode(invalidation.encode());
+
+        // Then
+        assertThat(decoded).isEqualTo(invalidation);
+    }
+
+    @Test
+    @DisplayName("Should decode an empty key list as clear-all")
+    void decode_ShouldHandleEmptyKeys() {
+        // When
+        CacheInvalidation decoded = CacheInvalidation.decode(
+                new CacheInvalidation("pod-a", "urlMapping", List.of(), 1L).encode());
+
+        // Then
+        assertThat(decoded.keys()).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Should reject malformed messages")
+    void decode_ShouldRejectMalformedMessage() {
+        assertThatThrownBy(() -> CacheInvalidation.decode("garbage"))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
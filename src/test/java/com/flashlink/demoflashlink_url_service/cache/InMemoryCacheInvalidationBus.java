@@ -0,0 +1,37 @@
+package com.flashlink.demoflashlink_url_service.cache;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+
+/**
+ * In-process stand-in for Redis pub/sub: every subscriber gets its own delivery thread, so
+ * messages arrive asynchronously and in publish order, like a dedicated subscriber connection.
+ */
+class InMemoryCacheInvalidationBus implements CacheInvalidationBus, AutoCloseable {
+
+    private final List<Subscription> subscriptions = new CopyOnWriteArrayList<>();
+
+    @Override
+    public void publish(CacheInvalidation invalidation) {
+        String wireFormat = invalidation.encode();
+        for (Subscription subscription : subscriptions) {
+            subscription.executor.execute(() -> subscription.subscriber.accept(CacheInvalidation.decode(wireFormat)));
+        }
+    }
+
+    @Override
+    public void subscribe(Consumer<CacheInvalidation> subscriber) {
+        subscriptions.add(new Subscription(subscriber, Executors.newSingleThreadExecutor()));
+    }
+
+    @Override
+    public void close() {
+        subscriptions.forEach(subscription -> subscription.executor.shutdownNow());
+    }
+
+    private record Subscription(Consumer<CacheInvalidation> subscriber, ExecutorService executor) {
+    }
+}
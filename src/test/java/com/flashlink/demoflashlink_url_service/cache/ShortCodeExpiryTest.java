@@ -0,0 +1,137 @@
+package com.flashlink.demoflashlink_url_service.cache;
+
+import com.flashlink.demoflashlink_url_service.model.UrlMapping;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.support.NullValue;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+
+@DisplayName("ShortCodeExpiry Tests")
+class ShortCodeExpiryTest {
+
+    private static final Duration TTL = Duration.ofMinutes(5);
+    private static final Duration NEGATIVE_TTL = Duration.ofSeconds(30);
+
+    private final MutableClock clock = new MutableClock(Instant.parse("2026-03-14T12:00:00Z"));
+    private final ShortCodeExpiry expiry = new ShortCodeExpiry(TTL, NEGATIVE_TTL, clock);
+
+    @Test
+    @DisplayName("Should cap a mapping's lifetime at the link's own expiry")
+    void expireAfterCreate_ShouldNotOutliveLink() {
+        // Given
+        UrlMapping expiringSoon = mapping("soon", now().plusSeconds(10), null);
+        UrlMapping longLived = mapping("long", now().plusDays(30), null);
+        UrlMapping byTtlSeconds = mapping("ttl", null, 90);
+
+        // When & Then
+        assertThat(expiry.expireAfterCreate("soon", expiringSoon, 0)).isEqualTo(Duration.ofSeconds(10).toNanos());
+        assertThat(expiry.expireAfterCreate("long", longLived, 0)).isEqualTo(TTL.toNanos());
+        assertThat(expiry.expireAfterCreate("ttl", byTtlSeconds, 0)).isEqualTo(Duration.ofSeconds(90).toNanos());
+        assertThat(expiry.expireAfterCreate("missing", NullValue.INSTANCE, 0)).isEqualTo(NEGATIVE_TTL.toNanos());
+        assertThat(ShortCodeExpiry.remoteTtl(TTL, clock).getTimeToLive("old", mapping("old", now().minusDays(1), null)))
+                .isEqualTo(Duration.ofMillis(1));
+    }
+
+    @Test
+    @DisplayName("Should keep read mappings cached past the TTL, but not past their expiry")
+    void expireAfterRead_ShouldSlideUntilExpiry() {
+        // Given
+        UrlMapping longLived = mapping("long", now().plusDays(30), null);
+        UrlMapping expiringSoon = mapping("soon", now().plusMinutes(7), null);
+
+        // When
+        clock.advance(Duration.ofMinutes(4));
+
+        // Then
+        assertThat(expiry.expireAfterRead("long", longLived, 0, 1)).isEqualTo(TTL.toNanos());
+        assertThat(expiry.expireAfterRead("soon", expiringSoon, 0, 1)).isEqualTo(Duration.ofMinutes(3).toNanos());
+        assertThat(expiry.expireAfterRead("missing", NullValue.INSTANCE, 0, 42)).isEqualTo(42);
+    }
+
+    @Test
+    @DisplayName("Should evict a cached link at its expiry and report it as expired")
+    void cache_ShouldEvictAtExpiryAndReportLink() {
+        // Given
+        List<String> reported = new ArrayList<>();
+        long[] ticker = {0};
+        Cache<Object, Object> cache = Caffeine.newBuilder()
+                .ticker(() -> ticker[0])
+                .executor(Runnable::run)
+                .expireAfter(expiry)
+                .removalListener(new ExpiredMappingListener(mapping -> reported.add(mapping.getShortCode()), clock))
+                .build();
+        cache.put("soon", mapping("soon", now().plusSeconds(10), null));
+        cache.put("idle", mapping("idle", now().plusDays(30), null));
+
+        // When
+        clock.advance(Duration.ofSeconds(10));
+        ticker[0] += Duration.ofSeconds(10).toNanos();
+        cache.cleanUp();
+
+        // Then
+        assertThat(cache.getIfPresent("soon")).isNull();
+        assertThat(cache.getIfPresent("idle")).isNotNull();
+        assertThat(reported).containsExactly("soon");
+
+        // And an idle eviction is not reported as an expiry
+        clock.advance(TTL);
+        ticker[0] += TTL.toNanos();
+        cache.cleanUp();
+        assertThat(cache.getIfPresent("idle")).isNull();
+        assertThat(reported).containsExactly("soon");
+    }
+
+    private LocalDateTime now() {
+        return LocalDateTime.now(clock);
+    }
+
+    private UrlMapping mapping(String shortCode, LocalDateTime expiryAt, Integer ttlSeconds) {
+        return UrlMapping.builder()
+                .id(1L)
+                .shortCode(shortCode)
+                .longUrl("https://example.com/" + shortCode)
+                .createdAt(now())
+                .expiryAt(expiryAt)
+                .ttlSeconds(ttlSeconds)
+                .build();
+    }
+
+    private static final class MutableClock extends Clock {
+        private Instant instant;
+
+        MutableClock(Instant instant) {
+            this.instant = instant;
+        }
+
+        void advance(Duration duration) {
+            instant = instant.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return instant;
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package com.flashlink.demoflashlink_url_service.cache;
+
+import com.flashlink.demoflashlink_url_service.repository.ShortCodeView;
+import com.flashlink.demoflashlink_url_service.repository.UrlMappingRepository;
+import com.flashlink.demoflashlink_url_service.util.Base62Encoder;
+import com.flashlink.demoflashlink_url_service.util.SnowflakeIdGenerator;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.domain.Pageable;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@DisplayName("ShortCodeFilter Tests")
+class ShortCodeFilterTest {
+
+    private final Base62Encoder base62 = new Base62Encoder();
+    private UrlMappingRepository repository;
+    private SimpleMeterRegistry meterRegistry;
+    private final List<Consumer<CacheInvalidation>> subscribers = new ArrayList<>();
+    private ShortCodeFilter filter;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        repository = mock(UrlMappingRepository.class);
+        meterRegistry = new SimpleMeterRegistry();
+        CacheInvalidationBus bus = new CacheInvalidationBus() {
+            @Override
+            public void publish(CacheInvalidation invalidation) {
+                subscribers.forEach(subscriber -> subscriber.accept(invalidation));
+            }
+
+            @Override
+            public void subscribe(Consumer<CacheInvalidation> subscriber) {
+                subscribers.add(subscriber);
+            }
+        };
+        ObjectProvider<CacheInvalidationBus> busProvider = mock(ObjectProvider.class);
+        when(busProvider.getIfAvailable()).thenReturn(bus);
+
+        when(repository.count()).thenReturn(3L);
+        when(repository.findShortCodesAfter(eq(Long.MIN_VALUE), any(Pageable.class)))
+                .thenReturn(List.of(view(1L, "a1"), view(2L, "b2"), view(3L, "c3")));
+        filter = new ShortCodeFilter(repository, meterRegistry, busProvider, base62, 1_000, 0.01, 60_000);
+    }
+
+    @Test
+    @DisplayName("Should let everything through before the first build")
+    void mightContain_ShouldPassEverything_BeforeBuild() {
+        assertThat(filter.isReady()).isFalse();
+        assertThat(filter.mightContain("anything")).isTrue();
+    }
+
+    @Test
+    @DisplayName("Should reject unknown codes after building from the repository")
+    void mightContain_ShouldRejectUnknownCodes_AfterBuild() {
+        // When
+        filter.rebuild();
+
+        // Then
+        assertThat(filter.mightContain("a1")).isTrue();
+        assertThat(filter.mightContain("c3")).isTrue();
+        assertThat(filter.mightContain("zzzzzz")).isFalse();
+        assertThat(meterRegistry.get("shortcode.filter.rejected").counter().count()).isEqualTo(1.0);
+        assertThat(meterRegistry.get("shortcode.filter.memory").gauge().value()).isPositive();
+    }
+
+    @Test
+    @DisplayName("Should accept codes created locally and on other pods")
+    void add_ShouldTrackNewCodes() {
+        // Given
+        filter.rebuild();
+
+        // When
+        filter.add("local1");
+        subscribers.forEach(subscriber -> subscriber.accept(
+                new CacheInvalidation("other-pod", "urlMapping", List.of("remote1"), System.currentTimeMillis())));
+
+        // Then
+        assertThat(filter.mightContain("local1")).isTrue();
+        assertThat(filter.mightContain("remote1")).isTrue();
+    }
+
+    @Test
+    @DisplayName("Should let through codes issued after the filter was built even without a broadcast")
+    void mightContain_ShouldPassCodesNewerThanFilter() {
+        // Given: a code created on another pod whose invalidation message was lost
+        filter.rebuild();
+        String fresh = base62.encode(new SnowflakeIdGenerator(7).nextId());
+        String old = base62.encode((1L << 22) | 5);
+
+        // When / Then
+        assertThat(filter.mightContain(fresh)).isTrue();
+        assertThat(filter.mightContain(old)).isFalse();
+    }
+
+    @Test
+    @DisplayName("Should stay off when there is no invalidation bus")
+    @SuppressWarnings("unchecked")
+    void mightContain_ShouldPassEverything_WithoutBus() {
+        // Given
+        ObjectProvider<CacheInvalidationBus> noBus = mock(ObjectProvider.class);
+        ShortCodeFilter standalone = new ShortCodeFilter(repository, meterRegistry, noBus, base62, 1_000, 0.01, 60_000);
+
+        // When
+        standalone.rebuild();
+
+        // Then
+        assertThat(standalone.isReady()).isFalse();
+        assertThat(standalone.mightContain("zzzzzz")).isTrue();
+        verify(repository, never()).findShortCodesAfter(anyLong(), any(Pageable.class));
+    }
+
+    @Test
+    @DisplayName("Should report observed false positive rate")
+    void recordFalsePositive_ShouldFeedObservedRate() {
+        // Given
+        filter.rebuild();
+        filter.mightContain("zzzzzz");
+
+        // When
+        filter.recordFalsePositive();
+
+        // Then
+        assertThat(meterRegistry.get("shortcode.filter.observed_fpp").gauge().value()).isEqualTo(0.5);
+    }
+
+    private static ShortCodeView view(Long id, String shortCode) {
+        return new ShortCodeView() {
+            @Override
+            public Long getId() {
+                return id;
+            }
+
+            @Override
+            public String getShortCode() {
+                return shortCode;
+            }
+        };
+    }
+}
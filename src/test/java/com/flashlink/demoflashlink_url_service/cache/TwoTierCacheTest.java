@@ -0,0 +1,136 @@
+package com.flashlink.demoflashlink_url_service.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@DisplayName("TwoTierCache Tests")
+class TwoTierCacheTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private Cache local;
+    private Cache remote;
+    private TwoTierCache cache;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        local = new CaffeineCache("urlMapping", Caffeine.newBuilder().maximumSize(100).build());
+        // Mirrors RedisCacheConfiguration.disableCachingNullValues()
+        remote = new ConcurrentMapCache("urlMapping", false);
+        cache = new TwoTierCache("urlMapping", local, remote, meterRegistry);
+    }
+
+    @Test
+    @DisplayName("Should fill both tiers after a full miss")
+    void get_ShouldFillBothTiers_OnFullMiss() {
+        // When
+        String value = cache.get("abc", () -> "https://example.com");
+
+        // Then
+        assertThat(value).isEqualTo("https://example.com");
+        assertThat(local.get("abc", String.class)).isEqualTo("https://example.com");
+        assertThat(remote.get("abc", String.class)).isEqualTo("https://example.com");
+    }
+
+    @Test
+    @DisplayName("Should fill L1 from L2 without calling the loader")
+    void get_ShouldFillLocalFromRemote() {
+        // Given
+        remote.put("abc", "https://example.com");
+        AtomicInteger loads = new AtomicInteger();
+
+        // When
+        String value = cache.get("abc", () -> {
+            loads.incrementAndGet();
+            return "from-db";
+        });
+
+        // Then
+        assertThat(value).isEqualTo("https://example.com");
+        assertThat(loads).hasValue(0);
+        assertThat(local.get("abc", String.class)).isEqualTo("https://example.com");
+        assertThat(tierCount("l2", "hit")).isEqualTo(1.0);
+    }
+
+    @Test
+    @DisplayName("Should serve repeat lookups from L1")
+    void get_ShouldServeRepeatLookupsFromLocal() {
+        // Given
+        cache.get("abc", () -> "https://example.com");
+
+        // When
+        for (int i = 0; i < 10; i++) {
+            cache.get("abc", () -> "from-db");
+        }
+
+        // Then
+        assertThat(tierCount("l1", "hit")).isEqualTo(10.0);
+        assertThat(tierCount("l2", "hit")).isZero();
+        assertThat(tierCount("l2", "miss")).isEqualTo(1.0);
+    }
+
+    @Test
+    @DisplayName("Should keep negative entries local only")
+    void get_ShouldKeepNullsLocalOnly() {
+        // When
+        Object value = cache.get("missing", () -> null);
+
+        // Then
+        assertThat(value).isNull();
+        assertThat(local.get("missing")).isNotNull();
+        assertThat(remote.get("missing")).isNull();
+    }
+
+    @Test
+    @DisplayName("Should treat remote failures as a miss")
+    void get_ShouldFallThrough_WhenRemoteFails() {
+        // Given
+        Cache failingRemote = mock(Cache.class);
+        when(failingRemote.get(any())).thenThrow(new IllegalStateException("redis down"));
+        doThrow(new IllegalStateException("redis down")).when(failingRemote).put(any(), any());
+        TwoTierCache degraded = new TwoTierCache("degraded", local, failingRemote, meterRegistry);
+
+        // When
+        String value = degraded.get("abc", () -> "https://example.com");
+
+        // Then
+        assertThat(value).isEqualTo("https://example.com");
+        assertThat(meterRegistry.get("cache.tier.errors").tag("cache", "degraded").tag("tier", "l2")
+                .counter().count()).isEqualTo(2.0);
+    }
+
+    @Test
+    @DisplayName("Should evict from both tiers")
+    void evict_ShouldRemoveFromBothTiers() {
+        // Given
+        cache.put("abc", "https://example.com");
+
+        // When
+        cache.evict("abc");
+
+        // Then
+        assertThat(local.get("abc")).isNull();
+        assertThat(remote.get("abc")).isNull();
+    }
+
+    private double tierCount(String tier, String result) {
+        return meterRegistry.get("cache.tier.gets")
+                .tag("cache", "urlMapping")
+                .tag("tier", tier)
+                .tag("result", result)
+                .counter()
+                .count();
+    }
+}
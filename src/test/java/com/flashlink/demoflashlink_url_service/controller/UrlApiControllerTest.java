@@ -0,0 +1,96 @@
+package com.flashlink.demoflashlink_url_service.controller;
+
+import com.flashlink.demoflashlink_url_service.service.BulkShortenService;
+import com.flashlink.demoflashlink_url_service.service.RateLimitService;
+import com.flashlink.demoflashlink_url_service.service.UrlService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.hamcrest.Matchers.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+class UrlApiControllerTest {
+
+    private MockMvc mockMvc;
+    private BulkShortenService bulkShortenService;
+    private RateLimitService rateLimitService;
+
+    @BeforeEach
+    void setUp() {
+        bulkShortenService = mock(BulkShortenService.class);
+        rateLimitService = mock(RateLimitService.class);
+        when(rateLimitService.isAllowed(anyString())).thenReturn(true);
+        when(bulkShortenService.shorten(any(), any())).thenAnswer(invocation -> {
+            Iterator<BulkShortenService.Item> items = invocation.getArgument(0);
+            Consumer<List<BulkShortenService.Result>> sink = invocation.getArgument(1);
+            List<BulkShortenService.Result> results = new ArrayList<>();
+            while (items.hasNext()) {
+                BulkShortenService.Item item = items.next();
+                int index = results.size();
+                results.add(item.url().startsWith("http")
+                        ? new BulkShortenService.Result(index, "code" + index, item.url(), null, null)
+                        : new BulkShortenService.Result(index, null, item.url(), null, "invalid"));
+            }
+            sink.accept(results);
+            return results.size();
+        });
+
+        UrlApiController controller = new UrlApiController(mock(UrlService.class), rateLimitService,
+                bulkShortenService, JsonMapper.builder().build());
+        mockMvc = MockMvcBuilders.standaloneSetup(controller).build();
+    }
+
+    @Test
+    void shortenBatch_ShouldStreamNdjsonResults_ForJsonArray() throws Exception {
+        // When & Then
+        mockMvc.perform(post("/api/v1/shorten/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[{\"url\":\"https://a.com\"},{\"url\":\"https://b.com\",\"ownerId\":\"o1\"}]"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON))
+                .andExpect(content().string(matchesPattern("(?s)\\{[^\\n]*\"index\":0[^\\n]*}\\n\\{[^\\n]*\"index\":1[^\\n]*}")))
+                .andExpect(content().string(containsString("\"shortUrl\":\"http://localhost/code0\"")))
+                .andExpect(content().string(containsString("\"longUrl\":\"https://b.com\"")))
+                .andExpect(content().string(not(containsString("\"error\""))));
+    }
+
+    @Test
+    void shortenBatch_ShouldAcceptNdjson_AndReportPerItemErrors() throws Exception {
+        // When & Then
+        mockMvc.perform(post("/api/v1/shorten/batch")
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .content("{\"url\":\"https://a.com\"}\n{\"url\":\"ftp-ish\"}\n{\"url\":\"https://c.com\"}\n"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("\"error\":\"invalid\"")))
+                .andExpect(content().string(containsString("\"shortCode\":\"code2\"")))
+                .andExpect(content().string(not(containsString("\"shortCode\":\"code1\""))));
+
+        verify(bulkShortenService).shorten(any(), any());
+    }
+
+    @Test
+    void shortenBatch_ShouldRejectRequest_WhenRateLimited() throws Exception {
+        // Given
+        when(rateLimitService.isAllowed(anyString())).thenReturn(false);
+
+        // When & Then
+        mockMvc.perform(post("/api/v1/shorten/batch")
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .content("{\"url\":\"https://a.com\"}\n"))
+                .andExpect(status().isTooManyRequests());
+
+        verify(bulkShortenService, never()).shorten(any(), any());
+    }
+}
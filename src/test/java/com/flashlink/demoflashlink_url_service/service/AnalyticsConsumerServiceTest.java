@@ -0,0 +1,210 @@
+package com.flashlink.demoflashlink_url_service.service;
+
+import com.flashlink.demoflashlink_url_service.model.AnalyticsEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.kafka.support.Acknowledgment;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@DisplayName("AnalyticsConsumerService Tests")
+class AnalyticsConsumerServiceTest {
+
+    private RedirectCountAggregator aggregator;
+    private ClickRollupAggregator clickRollups;
+    private LinkSketchService linkSketches;
+    private HotKeyMetrics hotKeyMetrics;
+    private SimpleMeterRegistry meterRegistry;
+    private AnalyticsConsumerService consumerService;
+
+    @BeforeEach
+    void setUp() {
+        aggregator = mock(RedirectCountAggregator.class);
+        clickRollups = mock(ClickRollupAggregator.class);
+        linkSketches = mock(LinkSketchService.class);
+        meterRegistry = new SimpleMeterRegistry();
+        hotKeyMetrics = new HotKeyMetrics(meterRegistry, 5, 2, 50);
+        consumerService = new AnalyticsConsumerService(aggregator, clickRollups, linkSketches, hotKeyMetrics,
+                meterRegistry);
+    }
+
+    @Test
+    @DisplayName("Should fold a poll into one aggregator update per short code and ack once")
+    void handleAnalyticsEvents_ShouldGroupRedirectsByShortCode() {
+        // Given
+        LocalDateTime earlier = LocalDateTime.now().minusSeconds(10);
+        LocalDateTime latest = LocalDateTime.now();
+        List<ConsumerRecord<String, AnalyticsEvent>> records = new ArrayList<>();
+        records.add(record(0, redirect("abc", earlier)));
+        records.add(record(1, redirect("xyz", earlier)));
+        records.add(record(2, redirect("abc", latest)));
+        records.add(record(3, redirect("abc", earlier)));
+        Acknowledgment acknowledgment = mock(Acknowledgment.class);
+
+        // When
+        consumerService.handleAnalyticsEvents(records, acknowledgment);
+
+        // Then
+        verify(aggregator).add("abc", 3, latest);
+        verify(aggregator).add("xyz", 1, earlier);
+        InOrder inOrder = inOrder(aggregator);
+        inOrder.verify(aggregator, times(2)).add(anyString(), anyLong(), any());
+        inOrder.verify(aggregator).acknowledgeAfterFlush(acknowledgment);
+        verifyNoMoreInteractions(aggregator);
+        verifyNoInteractions(acknowledgment);
+        assertThat(meterRegistry.counter("redirects.processed").count()).isEqualTo(4.0);
+        assertThat(meterRegistry.counter("analytics.events.processed").count()).isEqualTo(4.0);
+        hotKeyMetrics.rotate();
+        assertThat(meterRegistry.get(HotKeyMetrics.HOT_LINKS).tag("short_code", "abc").gauge().value())
+                .isEqualTo(3.0);
+        assertThat(meterRegistry.find(HotKeyMetrics.HOT_LINKS).gauges()).hasSize(3);
+    }
+
+    @Test
+    @DisplayName("Should count lifecycle events per type and skip unreadable records")
+    void handleAnalyticsEvents_ShouldCountOtherEventTypes() {
+        // Given
+        List<ConsumerRecord<String, AnalyticsEvent>> records = new ArrayList<>();
+        records.add(record(0, event("a", AnalyticsEvent.EventType.LINK_CREATED.name(), Map.of("ownerId", "alice"))));
+        records.add(record(1, event("b", AnalyticsEvent.EventType.LINK_CREATED.name(), Map.of("ownerId", "alice"))));
+        records.add(record(2, event("c", AnalyticsEvent.EventType.LINK_CREATED.name(), null)));
+        records.add(record(3, event("d", AnalyticsEvent.EventType.LINK_EXPIRED.name(), null)));
+        records.add(record(4, event("e", AnalyticsEvent.EventType.LINK_DELETED.name(), null)));
+        records.add(record(5, event("f", "NOT_A_TYPE", null)));
+        records.add(record(6, null));
+        Acknowledgment acknowledgment = mock(Acknowledgment.class);
+
+        // When
+        consumerService.handleAnalyticsEvents(records, acknowledgment);
+
+        // Then
+        assertThat(meterRegistry.counter("links.created").count()).isEqualTo(3.0);
+        assertThat(meterRegistry.find("links.created").tagKeys("owner_id").counters()).isEmpty();
+        hotKeyMetrics.rotate();
+        assertThat(meterRegistry.get(HotKeyMetrics.TOP_OWNERS).tag("owner_id", "alice").gauge().value())
+                .isEqualTo(2.0);
+        assertThat(meterRegistry.get(HotKeyMetrics.TOP_OWNERS).tag("owner_id", "unknown").gauge().value())
+                .isEqualTo(1.0);
+        assertThat(meterRegistry.counter("links.expired").count()).isEqualTo(1.0);
+        assertThat(meterRegistry.counter("links.deleted").count()).isEqualTo(1.0);
+        assertThat(meterRegistry.counter("analytics.events.processed").count()).isEqualTo(5.0);
+        verify(aggregator, never()).add(anyString(), anyLong(), any());
+        verify(aggregator).acknowledgeAfterFlush(acknowledgment);
+    }
+
+    @Test
+    @DisplayName("Should count each link expiry once when several sources report it")
+    void handleAnalyticsEvents_ShouldDeduplicateLinkExpiries() {
+        // Given: the purge reads the expiry back from a DATETIME column, while a pod's cache still
+        // holds the expiry with the nanoseconds it was created with
+        AnalyticsEvent fromPurge = event("d", AnalyticsEvent.EventType.LINK_EXPIRED.name(), null);
+        fromPurge.setEventId(AnalyticsProducerService.linkExpiredEventId("d", LocalDateTime.of(2026, 3, 14, 0, 0)));
+        AnalyticsEvent fromCache = event("d", AnalyticsEvent.EventType.LINK_EXPIRED.name(), null);
+        fromCache.setEventId(AnalyticsProducerService.linkExpiredEventId("d",
+                LocalDateTime.of(2026, 3, 14, 0, 0, 0, 123_456_789)));
+
+        // When
+        consumerService.handleAnalyticsEvents(List.of(record(0, fromPurge)), mock(Acknowledgment.class));
+        consumerService.handleAnalyticsEvents(List.of(record(1, fromCache)), mock(Acknowledgment.class));
+
+        // Then
+        assertThat(meterRegistry.counter("links.expired").count()).isEqualTo(1.0);
+    }
+
+    @Test
+    @DisplayName("Should count sampled redirects by weight and take exact counts from REDIRECT_COUNT")
+    void handleAnalyticsEvents_ShouldUseCountDeltasForSampledCodes() {
+        // Given
+        LocalDateTime at = LocalDateTime.now();
+        AnalyticsEvent sampled = redirect("hot", at);
+        sampled.setSampleWeight(50.0);
+        AnalyticsEvent delta = event("hot", AnalyticsEvent.EventType.REDIRECT_COUNT.name(), null);
+        delta.setCountDelta(1_000L);
+        delta.setTimestamp(at);
+        List<ConsumerRecord<String, AnalyticsEvent>> records = List.of(
+                record(0, sampled), record(1, redirect("cold", at)), record(2, delta));
+
+        // When
+        consumerService.handleAnalyticsEvents(records, mock(Acknowledgment.class));
+
+        // Then
+        verify(aggregator).add("hot", 1_000, at);
+        verify(aggregator).add("cold", 1, at);
+        verify(clickRollups).recordRedirect(sampled);
+        verify(clickRollups).recordRedirectCount(delta);
+        verify(linkSketches).recordRedirect(sampled);
+        verify(linkSketches, never()).recordRedirect(delta);
+        assertThat(meterRegistry.counter("redirects.processed").count()).isEqualTo(51.0);
+    }
+
+    @Test
+    @DisplayName("Should skip sampled redirects and apply count deltas in record mode")
+    void handleAnalyticsEvent_ShouldUseCountDeltasForSampledCodes() {
+        // Given
+        LocalDateTime at = LocalDateTime.now();
+        AnalyticsEvent sampled = redirect("hot", at);
+        sampled.setSampleWeight(50.0);
+        AnalyticsEvent delta = event("hot", AnalyticsEvent.EventType.REDIRECT_COUNT.name(), null);
+        delta.setCountDelta(1_000L);
+        delta.setTimestamp(at);
+
+        // When
+        consumerService.handleAnalyticsEvent(sampled, "events", 0, 1L, mock(Acknowledgment.class));
+        consumerService.handleAnalyticsEvent(delta, "events", 0, 2L, mock(Acknowledgment.class));
+
+        // Then
+        verify(aggregator, never()).add(anyString(), any(LocalDateTime.class));
+        verify(aggregator).add("hot", 1_000, at);
+        assertThat(meterRegistry.counter("redirects.processed").count()).isEqualTo(50.0);
+    }
+
+    @Test
+    @DisplayName("Should hand record-mode acks to the aggregator after the increment")
+    void handleAnalyticsEvent_ShouldDeferAcknowledgment() {
+        // Given
+        LocalDateTime at = LocalDateTime.now();
+        Acknowledgment acknowledgment = mock(Acknowledgment.class);
+
+        // When
+        consumerService.handleAnalyticsEvent(redirect("abc", at), "events", 2, 41L, acknowledgment);
+
+        // Then
+        InOrder inOrder = inOrder(aggregator);
+        inOrder.verify(aggregator).add("abc", at);
+        inOrder.verify(aggregator).acknowledgeAfterFlush("events", 2, acknowledgment);
+        verifyNoInteractions(acknowledgment);
+    }
+
+    private static ConsumerRecord<String, AnalyticsEvent> record(long offset, AnalyticsEvent event) {
+        return new ConsumerRecord<>("events", 0, offset, event != null ? event.getShortCode() : null, event);
+    }
+
+    private static AnalyticsEvent redirect(String shortCode, LocalDateTime timestamp) {
+        return AnalyticsEvent.builder()
+                .eventId(shortCode + "-" + timestamp)
+                .shortCode(shortCode)
+                .timestamp(timestamp)
+                .eventType(AnalyticsEvent.EventType.REDIRECT.name())
+                .build();
+    }
+
+    private static AnalyticsEvent event(String shortCode, String type, Map<String, Object> metadata) {
+        return AnalyticsEvent.builder()
+                .eventId(shortCode)
+                .shortCode(shortCode)
+                .eventType(type)
+                .metadata(metadata)
+                .build();
+    }
+}
@@ -0,0 +1,181 @@
+package com.flashlink.demoflashlink_url_service.service;
+
+import com.flashlink.demoflashlink_url_service.config.KafkaConfig;
+import com.flashlink.demoflashlink_url_service.model.AnalyticsEvent;
+import com.flashlink.demoflashlink_url_service.repository.UrlMappingBatchRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerInterceptor;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.listener.AcknowledgingMessageListener;
+import org.springframework.kafka.listener.BatchAcknowledgingMessageListener;
+import org.springframework.kafka.listener.ConcurrentMessageListenerContainer;
+import org.springframework.kafka.listener.ConsumerAwareRebalanceListener;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.condition.EmbeddedKafkaCondition;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Consumes the same backlog of redirect events with the record and the batch listener against an
+ * embedded broker and reports events/s and offset commits. Tagged "benchmark", so it only runs
+ * through {@code ./gradlew kafkaBenchmark}.
+ */
+@Tag("benchmark")
+@DisplayName("Analytics Consumer Throughput Benchmark")
+@EmbeddedKafka(partitions = 3, topics = AnalyticsConsumerThroughputTest.TOPIC)
+class AnalyticsConsumerThroughputTest {
+
+    static final String TOPIC = "analytics-benchmark";
+    private static final int EVENTS = 50_000;
+    private static final int SHORT_CODES = 1_000;
+    private static final long TIMEOUT_MS = 120_000;
+
+    @BeforeAll
+    static void produceBacklog() {
+        KafkaTemplate<String, AnalyticsEvent> template = kafkaConfig().kafkaTemplate();
+        for (int i = 0; i < EVENTS; i++) {
+            String shortCode = "code" + (i % SHORT_CODES);
+            template.send(TOPIC, shortCode, AnalyticsEvent.builder()
+                    .eventId("event-" + i)
+                    .shortCode(shortCode)
+                    .eventType(AnalyticsEvent.EventType.REDIRECT.name())
+                    .build());
+        }
+        template.flush();
+    }
+
+    @Test
+    @DisplayName("Should compare record and batch listener throughput")
+    void recordVersusBatchListener() throws InterruptedException {
+        // Warm-up round first so neither mode pays for class loading and JIT alone
+        consume(false, "warmup");
+        consume(true, "warmup");
+
+        Run record = consume(false, "measured");
+        Run batch = consume(true, "measured");
+
+        System.out.printf("Analytics consumer, %d events: record listener %.0f events/s with %d commits, "
+                        + "batch listener %.0f events/s with %d commits%n",
+                EVENTS, record.eventsPerSecond(), record.commits(), batch.eventsPerSecond(), batch.commits());
+        assertThat(record.committed()).isEqualTo(EVENTS);
+        assertThat(batch.committed()).isEqualTo(EVENTS);
+    }
+
+    private Run consume(boolean batchListener, String round) throws InterruptedException {
+        String groupId = "benchmark-" + (batchListener ? "batch-" : "record-") + round;
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        ClickRollupAggregator clickRollups = mock(ClickRollupAggregator.class);
+        RedirectCountAggregator aggregator = new RedirectCountAggregator(mock(UrlMappingBatchRepository.class),
+                clickRollups, TransactionOperations.withoutTransaction(), meterRegistry, 10_000);
+        AnalyticsConsumerService consumerService = new AnalyticsConsumerService(aggregator, clickRollups,
+                mock(LinkSketchService.class), new HotKeyMetrics(meterRegistry, 20, 6, 200), meterRegistry);
+
+        KafkaConfig config = kafkaConfig();
+        ObjectProvider<ConsumerAwareRebalanceListener> rebalanceListener =
+                new StaticListableBeanFactory(Map.of("redirectCountAggregator", aggregator))
+                        .getBeanProvider(ConsumerAwareRebalanceListener.class);
+        ConcurrentMessageListenerContainer<String, AnalyticsEvent> container = batchListener
+                ? config.kafkaBatchListenerContainerFactory(rebalanceListener).createContainer(TOPIC)
+                : config.kafkaListenerContainerFactory(rebalanceListener).createContainer(TOPIC);
+        container.getContainerProperties().setGroupId(groupId);
+        Properties overrides = new Properties();
+        overrides.put(ConsumerConfig.INTERCEPTOR_CLASSES_CONFIG, CommitCounter.class.getName());
+        container.getContainerProperties().setKafkaConsumerProperties(overrides);
+        if (batchListener) {
+            container.setupMessageListener((BatchAcknowledgingMessageListener<String, AnalyticsEvent>)
+                    consumerService::handleAnalyticsEvents);
+        } else {
+            container.setupMessageListener((AcknowledgingMessageListener<String, AnalyticsEvent>)
+                    (record, acknowledgment) -> consumerService.handleAnalyticsEvent(record.value(),
+                            record.topic(), record.partition(), record.offset(), acknowledgment));
+        }
+
+        ScheduledExecutorService flusher = Executors.newSingleThreadScheduledExecutor();
+        flusher.scheduleWithFixedDelay(aggregator::flush, 100, 100, TimeUnit.MILLISECONDS);
+        long start = System.nanoTime();
+        container.start();
+        try {
+            long deadline = System.currentTimeMillis() + TIMEOUT_MS;
+            while (CommitCounter.committed(groupId) < EVENTS && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            double seconds = (System.nanoTime() - start) / 1e9;
+            return new Run(EVENTS / seconds, CommitCounter.commits(groupId), CommitCounter.committed(groupId));
+        } finally {
+            container.stop();
+            flusher.shutdownNow();
+        }
+    }
+
+    private static KafkaConfig kafkaConfig() {
+        EmbeddedKafkaBroker broker = EmbeddedKafkaCondition.getBroker();
+        KafkaConfig config = new KafkaConfig();
+        ReflectionTestUtils.setField(config, "bootstrapServers", broker.getBrokersAsString());
+        ReflectionTestUtils.setField(config, "maxPollRecords", 500);
+        ReflectionTestUtils.setField(config, "fetchMinBytes", 16384);
+        ReflectionTestUtils.setField(config, "fetchMaxWaitMs", 200);
+        return config;
+    }
+
+    private record Run(double eventsPerSecond, long commits, long committed) {
+    }
+
+    // Instantiated by the Kafka consumer; tracks commit calls and the highest committed offsets per group
+    public static class CommitCounter implements ConsumerInterceptor<String, AnalyticsEvent> {
+        private static final Map<String, AtomicLong> COMMITS = new ConcurrentHashMap<>();
+        private static final Map<String, Map<TopicPartition, Long>> OFFSETS = new ConcurrentHashMap<>();
+
+        private String groupId;
+
+        static long commits(String groupId) {
+            return COMMITS.getOrDefault(groupId, new AtomicLong()).get();
+        }
+
+        static long committed(String groupId) {
+            return OFFSETS.getOrDefault(groupId, Map.of()).values().stream().mapToLong(Long::longValue).sum();
+        }
+
+        @Override
+        public void configure(Map<String, ?> configs) {
+            groupId = String.valueOf(configs.get(ConsumerConfig.GROUP_ID_CONFIG));
+        }
+
+        @Override
+        public ConsumerRecords<String, AnalyticsEvent> onConsume(ConsumerRecords<String, AnalyticsEvent> records) {
+            return records;
+        }
+
+        @Override
+        public void onCommit(Map<TopicPartition, OffsetAndMetadata> offsets) {
+            COMMITS.computeIfAbsent(groupId, id -> new AtomicLong()).incrementAndGet();
+            Map<TopicPartition, Long> committed = OFFSETS.computeIfAbsent(groupId, id -> new ConcurrentHashMap<>());
+            offsets.forEach((partition, offset) -> committed.merge(partition, offset.offset(), Math::max));
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.flashlink.demoflashlink_url_service.service;
+
+import com.flashlink.demoflashlink_url_service.model.AnalyticsEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.KafkaException;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@DisplayName("AnalyticsProducerService Tests")
+class AnalyticsProducerServiceTest {
+
+    private static final long SECOND = 1_000_000_000L;
+
+    private final AtomicLong clock = new AtomicLong();
+    private KafkaTemplate<String, AnalyticsEvent> kafkaTemplate;
+    private RedirectSampler sampler;
+    private AnalyticsProducerService producer;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        kafkaTemplate = mock(KafkaTemplate.class);
+        sampler = new RedirectSampler(true, 10, 1_000, clock::get, new SplittableRandom(3L)::nextDouble);
+        producer = new AnalyticsProducerService(kafkaTemplate, sampler);
+        ReflectionTestUtils.setField(producer, "analyticsTopic", "events");
+        for (int i = 0; i < 100; i++) {
+            sampler.sample("hot");
+        }
+        clock.addAndGet(SECOND);
+    }
+
+    @Test
+    @DisplayName("Should retry a redirect count delta whose send throws on the next tick")
+    void publishRedirectCountDeltas_ShouldRequeueDeltaWhenSendThrows() {
+        // Given
+        when(kafkaTemplate.send(anyString(), anyString(), any(AnalyticsEvent.class)))
+                .thenThrow(new KafkaException("broker unavailable"));
+
+        // When
+        producer.publishRedirectCountDeltas();
+
+        // Then
+        assertThat(pendingDeltas()).containsEntry("hot", 90L);
+    }
+
+    @Test
+    @DisplayName("Should retry a redirect count delta whose send fails asynchronously on the next tick")
+    void publishRedirectCountDeltas_ShouldRequeueDeltaWhenSendFutureFails() {
+        // Given
+        CompletableFuture<SendResult<String, AnalyticsEvent>> pending = new CompletableFuture<>();
+        when(kafkaTemplate.send(anyString(), anyString(), any(AnalyticsEvent.class))).thenReturn(pending);
+        producer.publishRedirectCountDeltas();
+        assertThat(pendingDeltas()).isEmpty();
+
+        // When
+        pending.completeExceptionally(new KafkaException("delivery timed out"));
+
+        // Then
+        assertThat(pendingDeltas()).containsEntry("hot", 90L);
+    }
+
+    private Map<String, Long> pendingDeltas() {
+        Map<String, Long> deltas = new HashMap<>();
+        sampler.tick(deltas::put);
+        return deltas;
+    }
+}
@@ -0,0 +1,191 @@
+package com.flashlink.demoflashlink_url_service.service;
+
+import com.flashlink.demoflashlink_url_service.cache.ShortCodeFilter;
+import com.flashlink.demoflashlink_url_service.repository.UrlMappingBatchRepository;
+import com.flashlink.demoflashlink_url_service.util.Base62Encoder;
+import com.flashlink.demoflashlink_url_service.util.SnowflakeIdGenerator;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@DisplayName("BulkShortenService Tests")
+class BulkShortenServiceTest {
+
+    private EmbeddedDatabase database;
+    private JdbcTemplate jdbcTemplate;
+    private SnowflakeIdGenerator idGenerator;
+    private ShortCodeFilter shortCodeFilter;
+    private AnalyticsProducerService analyticsProducerService;
+    private BulkShortenService service;
+
+    private final Base62Encoder base62 = new Base62Encoder(10);
+
+    @BeforeEach
+    void setUp() {
+        database = new EmbeddedDatabaseBuilder()
+                .setType(EmbeddedDatabaseType.H2)
+                .generateUniqueName(true)
+                .build();
+        jdbcTemplate = new JdbcTemplate(database);
+        jdbcTemplate.execute("CREATE TABLE url_mapping (id BIGINT PRIMARY KEY, short_code VARCHAR(10) NOT NULL UNIQUE, "
+                + "long_url VARCHAR(2048) NOT NULL, created_at TIMESTAMP NOT NULL, expiry_at TIMESTAMP, "
+                + "owner_id VARCHAR(255), ttl_seconds INT, redirect_count BIGINT DEFAULT 0)");
+
+        shortCodeFilter = mock(ShortCodeFilter.class);
+        analyticsProducerService = mock(AnalyticsProducerService.class);
+        idGenerator = spy(new SnowflakeIdGenerator(1L));
+        service = new BulkShortenService(
+                new UrlMappingBatchRepository(jdbcTemplate),
+                idGenerator,
+                base62,
+                new TransactionTemplate(new DataSourceTransactionManager(database)),
+                shortCodeFilter,
+                new ConcurrentMapCacheManager(),
+                analyticsProducerService,
+                new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(service, "chunkSize", 1_000);
+    }
+
+    @AfterEach
+    void tearDown() {
+        database.shutdown();
+    }
+
+    @Test
+    @DisplayName("Should insert every item and return results in input order, one chunk at a time")
+    void shorten_ShouldInsertAllItemsInOrder() {
+        // Given
+        List<BulkShortenService.Item> items = IntStream.range(0, 2_500)
+                .mapToObj(i -> new BulkShortenService.Item("https://example.com/import/" + i, null, "campaign"))
+                .toList();
+        List<List<BulkShortenService.Result>> chunks = new ArrayList<>();
+
+        // When
+        int created = service.shorten(items.iterator(), chunks::add);
+
+        // Then
+        assertThat(created).isEqualTo(2_500);
+        assertThat(chunks).extracting(List::size).containsExactly(1_000, 1_000, 500);
+        List<BulkShortenService.Result> results = chunks.stream().flatMap(List::stream).toList();
+        Set<String> codes = new HashSet<>();
+        for (int i = 0; i < results.size(); i++) {
+            BulkShortenService.Result result = results.get(i);
+            assertThat(result.index()).isEqualTo(i);
+            assertThat(result.error()).isNull();
+            assertThat(result.longUrl()).isEqualTo("https://example.com/import/" + i);
+            assertThat(result.shortCode()).hasSize(10);
+            assertThat(codes.add(result.shortCode())).isTrue();
+        }
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM url_mapping", Long.class)).isEqualTo(2_500L);
+        String code = results.get(42).shortCode();
+        assertThat(jdbcTemplate.queryForObject("SELECT long_url FROM url_mapping WHERE id = ?", String.class,
+                base62.decode(code))).isEqualTo("https://example.com/import/42");
+        verify(shortCodeFilter, times(2_500)).add(anyString());
+        verify(analyticsProducerService, times(2_500)).publishLinkCreatedEvent(anyString(), anyString(), eq("campaign"));
+    }
+
+    @Test
+    @DisplayName("Should report invalid items without failing the rest of the chunk")
+    void shorten_ShouldReportInvalidItems() {
+        // Given
+        LocalDateTime expiry = LocalDateTime.now().plusDays(1);
+        List<BulkShortenService.Item> items = List.of(
+                new BulkShortenService.Item("https://example.com/a", expiry, null),
+                new BulkShortenService.Item(" ", null, null),
+                new BulkShortenService.Item("https://example.com/" + "x".repeat(2_048), null, null),
+                new BulkShortenService.Item("https://example.com/b", null, null));
+        List<BulkShortenService.Result> results = new ArrayList<>();
+
+        // When
+        int created = service.shorten(items.iterator(), results::addAll);
+
+        // Then
+        assertThat(created).isEqualTo(2);
+        assertThat(results).extracting(BulkShortenService.Result::index).containsExactly(0, 1, 2, 3);
+        assertThat(results.get(0).shortCode()).isNotNull();
+        assertThat(results.get(0).expiryAt()).isEqualTo(expiry.truncatedTo(ChronoUnit.SECONDS));
+        assertThat(results.get(1).error()).contains("blank");
+        assertThat(results.get(2).error()).contains("2048");
+        assertThat(results.get(3).shortCode()).isNotNull();
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM url_mapping", Long.class)).isEqualTo(2L);
+    }
+
+    @Test
+    @DisplayName("Should reject an over-long ownerId without failing the rest of its chunk")
+    void shorten_ShouldRejectOverLongOwnerIdOnly() {
+        // Given
+        List<BulkShortenService.Item> items = List.of(
+                new BulkShortenService.Item("https://example.com/a", null, "campaign"),
+                new BulkShortenService.Item("https://example.com/b", null, "o".repeat(256)),
+                new BulkShortenService.Item("https://example.com/c", null, "campaign"));
+        List<BulkShortenService.Result> results = new ArrayList<>();
+
+        // When
+        int created = service.shorten(items.iterator(), results::addAll);
+
+        // Then
+        assertThat(created).isEqualTo(2);
+        assertThat(results.get(0).shortCode()).isNotNull();
+        assertThat(results.get(1).error()).contains("ownerId").contains("255");
+        assertThat(results.get(2).shortCode()).isNotNull();
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM url_mapping", Long.class)).isEqualTo(2L);
+        verify(idGenerator, times(1)).nextIds(2);
+    }
+
+    @Test
+    @DisplayName("Should fail a chunk once with the real cause when the database rejects it for a non-duplicate reason")
+    void shorten_ShouldNotRetryNonDuplicateIntegrityErrors() {
+        // Given: a column narrower than validation allows, so the insert fails on every attempt
+        jdbcTemplate.execute("ALTER TABLE url_mapping ALTER COLUMN long_url VARCHAR(30)");
+        List<BulkShortenService.Item> items = List.of(
+                new BulkShortenService.Item("https://example.com/a", null, null),
+                new BulkShortenService.Item("https://example.com/" + "x".repeat(40), null, null));
+        List<BulkShortenService.Result> results = new ArrayList<>();
+
+        // When
+        int created = service.shorten(items.iterator(), results::addAll);
+
+        // Then
+        assertThat(created).isZero();
+        assertThat(results).extracting(BulkShortenService.Result::error)
+                .allSatisfy(error -> assertThat(error).startsWith("Rejected by the database").doesNotContain("unique"));
+        verify(idGenerator, times(1)).nextIds(anyInt());
+        verifyNoInteractions(analyticsProducerService);
+    }
+
+    @Test
+    @DisplayName("Should return nothing for an empty stream")
+    void shorten_ShouldHandleEmptyInput() {
+        // Given
+        List<List<BulkShortenService.Result>> chunks = new ArrayList<>();
+
+        // When
+        int created = service.shorten(List.<BulkShortenService.Item>of().iterator(), chunks::add);
+
+        // Then
+        assertThat(created).isZero();
+        assertThat(chunks).isEmpty();
+    }
+}
@@ -0,0 +1,137 @@
+package com.flashlink.demoflashlink_url_service.service;
+
+import com.flashlink.demoflashlink_url_service.model.UrlMapping;
+import com.flashlink.demoflashlink_url_service.repository.RedirectCountView;
+import com.flashlink.demoflashlink_url_service.repository.UrlMappingRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@DisplayName("CacheWarmer Tests")
+class CacheWarmerTest {
+
+    // 256 bytes of overhead plus two bytes per character of "https://example.com/0" and "c0"
+    private static final long MAPPING_BYTES = 256 + 2 * (21 + 2);
+
+    private UrlMappingRepository repository;
+    private CaffeineCacheManager cacheManager;
+
+    @BeforeEach
+    void setUp() {
+        repository = mock(UrlMappingRepository.class);
+        cacheManager = new CaffeineCacheManager();
+        // Most recently redirected first, with the redirect count rising with the id
+        List<RedirectCountView> recent = LongStream.range(0, 10).mapToObj(CacheWarmerTest::view).toList();
+        when(repository.findRecentlyRedirected(any(), any(), any())).thenReturn(recent);
+        when(repository.findAllById(any())).thenAnswer(invocation -> {
+            List<UrlMapping> mappings = new ArrayList<>();
+            for (Long id : invocation.<Iterable<Long>>getArgument(0)) {
+                mappings.add(mapping(id));
+            }
+            return mappings;
+        });
+    }
+
+    @Test
+    @DisplayName("Should load the hottest mappings into L1 in parallel batches")
+    void warmUp_ShouldLoadHottestMappings() {
+        // Given
+        CacheWarmer warmer = warmer(1_000_000, 4, Duration.ofSeconds(10));
+
+        // When
+        int loaded = warmer.warmUp();
+
+        // Then
+        assertThat(loaded).isEqualTo(10);
+        verify(repository, times(4)).findAllById(any());
+        assertThat(cacheManager.getCache("urlMapping").get("c7", UrlMapping.class).getId()).isEqualTo(7L);
+    }
+
+    @Test
+    @DisplayName("Should stop once the estimated memory budget is used, keeping the most redirected links")
+    void warmUp_ShouldRespectMemoryBudget() {
+        // Given
+        CacheWarmer warmer = warmer(3 * MAPPING_BYTES, 1, Duration.ofSeconds(10));
+
+        // When
+        int loaded = warmer.warmUp();
+
+        // Then
+        assertThat(loaded).isEqualTo(3);
+        assertThat(cacheManager.getCache("urlMapping").get("c9")).isNotNull();
+        assertThat(cacheManager.getCache("urlMapping").get("c6")).isNull();
+    }
+
+    @Test
+    @DisplayName("Should give up at the timeout so the pod still becomes ready")
+    void warmUp_ShouldRespectTimeout() {
+        // Given: a database that takes far longer than the warm-up allows
+        doAnswer(invocation -> {
+            LockSupport.parkNanos(TimeUnit.SECONDS.toNanos(2));
+            return List.of();
+        }).when(repository).findAllById(any());
+        CacheWarmer warmer = warmer(1_000_000, 2, Duration.ofMillis(100));
+
+        // When
+        long started = System.nanoTime();
+        int loaded = warmer.warmUp();
+
+        // Then
+        assertThat(loaded).isZero();
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started)).isLessThan(1_000);
+    }
+
+    @Test
+    @DisplayName("Should bound the candidate query by the timeout as well")
+    void warmUp_ShouldBoundCandidateQueryByTimeout() {
+        // Given: a candidate query that takes far longer than the warm-up allows
+        doAnswer(invocation -> {
+            LockSupport.parkNanos(TimeUnit.SECONDS.toNanos(2));
+            return List.of();
+        }).when(repository).findRecentlyRedirected(any(), any(), any());
+        CacheWarmer warmer = warmer(1_000_000, 2, Duration.ofMillis(100));
+
+        // When
+        long started = System.nanoTime();
+        int loaded = warmer.warmUp();
+
+        // Then
+        assertThat(loaded).isZero();
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started)).isLessThan(1_000);
+        verify(repository, never()).findAllById(any());
+    }
+
+    private CacheWarmer warmer(long maxBytes, int parallelism, Duration timeout) {
+        return new CacheWarmer(repository, cacheManager, true, 100, 1_000, maxBytes, Duration.ofDays(7), 3,
+                parallelism, timeout);
+    }
+
+    private static RedirectCountView view(long id) {
+        RedirectCountView view = mock(RedirectCountView.class);
+        when(view.getId()).thenReturn(id);
+        when(view.getRedirectCount()).thenReturn(id);
+        return view;
+    }
+
+    private static UrlMapping mapping(long id) {
+        return UrlMapping.builder()
+                .id(id)
+                .shortCode("c" + id)
+                .longUrl("https://example.com/" + id)
+                .createdAt(LocalDateTime.now())
+                .build();
+    }
+}
@@ -0,0 +1,140 @@
+package com.flashlink.demoflashlink_url_service.service;
+
+import com.flashlink.demoflashlink_url_service.model.ClickRollupGranularity;
+import com.flashlink.demoflashlink_url_service.repository.ClickRollupRepository;
+import com.flashlink.demoflashlink_url_service.repository.ClickRollupRepository.BucketCount;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@DisplayName("ClickAnalyticsService Tests")
+class ClickAnalyticsServiceTest {
+
+    private ClickRollupRepository repository;
+    private ClickAnalyticsService service;
+
+    @BeforeEach
+    void setUp() {
+        repository = mock(ClickRollupRepository.class);
+        service = new ClickAnalyticsService(repository);
+    }
+
+    @Test
+    @DisplayName("Should serve a recent range from minute rollups with empty buckets zero-filled")
+    void clickSeries_ShouldZeroFillMinuteBuckets() {
+        // Given
+        LocalDateTime from = LocalDateTime.now().truncatedTo(ChronoUnit.HOURS).minusHours(1);
+        LocalDateTime to = from.plusMinutes(30);
+        when(repository.findSeries(ClickRollupGranularity.MINUTE, "abc", "total", "", from, to)).thenReturn(List.of(
+                new BucketCount(from.plusMinutes(2), 5),
+                new BucketCount(from.plusMinutes(29), 7)));
+
+        // When
+        ClickAnalyticsService.ClickSeries series = service.clickSeries("abc", from.plusSeconds(30), to, null);
+
+        // Then
+        assertThat(series.granularity()).isEqualTo(ClickRollupGranularity.MINUTE);
+        assertThat(series.from()).isEqualTo(from);
+        assertThat(series.buckets()).hasSize(30);
+        assertThat(series.buckets().get(2)).isEqualTo(new BucketCount(from.plusMinutes(2), 5));
+        assertThat(series.buckets().get(3).clicks()).isZero();
+        assertThat(series.total()).isEqualTo(12);
+    }
+
+    @Test
+    @DisplayName("Should pick coarser rollups for longer or older ranges")
+    void clickSeries_ShouldPickGranularityFromRange() {
+        LocalDateTime now = LocalDateTime.now();
+
+        assertThat(service.clickSeries("abc", now.minusDays(7), now, null).granularity())
+                .isEqualTo(ClickRollupGranularity.HOUR);
+        // Past minute retention even though it would fit in minute buckets
+        assertThat(service.clickSeries("abc", now.minusDays(10), now.minusDays(10).plusHours(2), null).granularity())
+                .isEqualTo(ClickRollupGranularity.HOUR);
+        assertThat(service.clickSeries("abc", now.minusDays(365), now, null).granularity())
+                .isEqualTo(ClickRollupGranularity.DAY);
+    }
+
+    @Test
+    @DisplayName("Should reject invalid ranges and dimensions")
+    void queries_ShouldRejectInvalidArguments() {
+        LocalDateTime now = LocalDateTime.now();
+
+        assertThatThrownBy(() -> service.clickSeries("abc", now, now.minusHours(1), null))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> service.clickSeries("abc", now.minusDays(30), now, ClickRollupGranularity.MINUTE))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> service.breakdown("abc", "total", now.minusDays(1), now, 10))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> service.breakdown("abc", "referer", now.minusDays(1), now, 0))
+                .isInstanceOf(IllegalArgumentException.class);
+        verifyNoInteractions(repository);
+    }
+
+    @Test
+    @DisplayName("Should query top values for a breakdown dimension")
+    void breakdown_ShouldQueryTopValues() {
+        // Given
+        LocalDateTime now = LocalDateTime.now();
+        when(repository.findTopValues(any(), eq("abc"), eq("country"), any(), any(), eq(5))).thenReturn(List.of(
+                new ClickRollupRepository.DimensionCount("US", 40),
+                new ClickRollupRepository.DimensionCount("DE", 12)));
+
+        // When
+        ClickAnalyticsService.Breakdown breakdown = service.breakdown("abc", "country", now.minusHours(3), now, 5);
+
+        // Then
+        assertThat(breakdown.granularity()).isEqualTo(ClickRollupGranularity.MINUTE);
+        assertThat(breakdown.values()).extracting(ClickRollupRepository.DimensionCount::value)
+                .containsExactly("US", "DE");
+    }
+
+    @Test
+    @DisplayName("Should purge expired rollups in bounded batches until a batch comes back short")
+    void purgeExpiredRollups_ShouldDeleteInBatches() {
+        // Given
+        ReflectionTestUtils.setField(service, "purgeBatchSize", 100);
+        when(repository.deleteOlderThan(eq(ClickRollupGranularity.HOUR), any(), eq(100))).thenReturn(7);
+        when(repository.deleteOlderThan(eq(ClickRollupGranularity.MINUTE), any(), eq(100)))
+                .thenReturn(100, 100, 42);
+
+        // When
+        service.purgeExpiredRollups();
+
+        // Then
+        verify(repository).deleteOlderThan(eq(ClickRollupGranularity.HOUR), any(), eq(100));
+        verify(repository, times(3)).deleteOlderThan(eq(ClickRollupGranularity.MINUTE), any(), eq(100));
+        verify(repository, never()).deleteOlderThan(eq(ClickRollupGranularity.DAY), any(), anyInt());
+    }
+
+    @Test
+    @DisplayName("Should stop a purge run at its time budget and leave the rest to the next run")
+    void purgeExpiredRollups_ShouldStopAtMaxRun() {
+        // Given: a backlog that never runs out, at 10 ms a batch
+        ReflectionTestUtils.setField(service, "purgeBatchSize", 100);
+        ReflectionTestUtils.setField(service, "purgeMaxRun", Duration.ofMillis(200));
+        when(repository.deleteOlderThan(any(), any(), eq(100))).thenAnswer(invocation -> {
+            LockSupport.parkNanos(Duration.ofMillis(10).toNanos());
+            return 100;
+        });
+
+        // When
+        long started = System.nanoTime();
+        service.purgeExpiredRollups();
+
+        // Then
+        assertThat(Duration.ofNanos(System.nanoTime() - started)).isLessThan(Duration.ofSeconds(2));
+        verify(repository, atMost(20)).deleteOlderThan(any(), any(), anyInt());
+    }
+}
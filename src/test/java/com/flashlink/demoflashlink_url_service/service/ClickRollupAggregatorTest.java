@@ -0,0 +1,133 @@
+package com.flashlink.demoflashlink_url_service.service;
+
+import com.flashlink.demoflashlink_url_service.model.AnalyticsEvent;
+import com.flashlink.demoflashlink_url_service.model.ClickRollupGranularity;
+import com.flashlink.demoflashlink_url_service.repository.ClickRollupRepository;
+import com.flashlink.demoflashlink_url_service.repository.ClickRollupRepository.RollupIncrement;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@DisplayName("ClickRollupAggregator Tests")
+class ClickRollupAggregatorTest {
+
+    private static final LocalDateTime AT = LocalDateTime.of(2026, 3, 14, 15, 9, 26);
+
+    private ClickRollupRepository repository;
+    private ClickRollupAggregator aggregator;
+
+    @BeforeEach
+    void setUp() {
+        repository = mock(ClickRollupRepository.class);
+        aggregator = new ClickRollupAggregator(repository, TransactionOperations.withoutTransaction(),
+                new SimpleMeterRegistry(), true, true);
+    }
+
+    @Test
+    @DisplayName("Should coalesce redirects into minute, hour and day buckets per dimension")
+    void flush_ShouldUpsertEveryGranularity() {
+        // Given
+        aggregator.recordRedirect(redirect("abc", AT, "https://www.News.example.com/story?id=1", "us"));
+        aggregator.recordRedirect(redirect("abc", AT.plusSeconds(20), "https://news.example.com/", "US"));
+        aggregator.recordRedirect(redirect("abc", AT.plusMinutes(5), null, null));
+
+        // When
+        aggregator.flush();
+
+        // Then
+        assertThat(upserted(ClickRollupGranularity.MINUTE)).containsExactly(
+                new RollupIncrement("abc", "country", "US", AT.withSecond(0), 2),
+                new RollupIncrement("abc", "country", "unknown", AT.withSecond(0).plusMinutes(5), 1),
+                new RollupIncrement("abc", "referer", "direct", AT.withSecond(0).plusMinutes(5), 1),
+                new RollupIncrement("abc", "referer", "news.example.com", AT.withSecond(0), 2),
+                new RollupIncrement("abc", "total", "", AT.withSecond(0), 2),
+                new RollupIncrement("abc", "total", "", AT.withSecond(0).plusMinutes(5), 1));
+        assertThat(upserted(ClickRollupGranularity.DAY))
+                .filteredOn(row -> row.dimension().equals("total"))
+                .containsExactly(new RollupIncrement("abc", "total", "", AT.toLocalDate().atStartOfDay(), 3));
+    }
+
+    @Test
+    @DisplayName("Should take exact totals from count deltas and weighted dimensions from samples")
+    void recordRedirect_ShouldKeepTotalsExactForSampledCodes() {
+        // Given
+        AnalyticsEvent sampled = redirect("hot", AT, "https://t.co/x", "DE");
+        sampled.setSampleWeight(40.0);
+        AnalyticsEvent delta = AnalyticsEvent.builder()
+                .shortCode("hot")
+                .timestamp(AT)
+                .eventType(AnalyticsEvent.EventType.REDIRECT_COUNT.name())
+                .countDelta(37L)
+                .build();
+
+        // When
+        aggregator.recordRedirect(sampled);
+        aggregator.recordRedirectCount(delta);
+        aggregator.flush();
+
+        // Then
+        assertThat(upserted(ClickRollupGranularity.HOUR)).containsExactly(
+                new RollupIncrement("hot", "country", "DE", AT.withMinute(0).withSecond(0), 40),
+                new RollupIncrement("hot", "referer", "t.co", AT.withMinute(0).withSecond(0), 40),
+                new RollupIncrement("hot", "total", "", AT.withMinute(0).withSecond(0), 37));
+    }
+
+    @Test
+    @DisplayName("Should requeue the window and rethrow when the upsert fails")
+    void flush_ShouldRequeueOnFailure() {
+        // Given
+        doThrow(new QueryTimeoutException("timeout"))
+                .doNothing()
+                .when(repository).increment(any(), anyList());
+        aggregator.recordRedirect(redirect("abc", AT, null, null));
+
+        // When & Then
+        assertThatThrownBy(aggregator::flush).isInstanceOf(QueryTimeoutException.class);
+
+        aggregator.recordRedirect(redirect("abc", AT, null, null));
+        aggregator.flush();
+        assertThat(upserted(ClickRollupGranularity.MINUTE))
+                .filteredOn(row -> row.dimension().equals("total"))
+                .singleElement()
+                .extracting(RollupIncrement::clicks).isEqualTo(2L);
+    }
+
+    @Test
+    @DisplayName("Should normalize referer hosts")
+    void refererHost_ShouldNormalize() {
+        assertThat(ClickRollupAggregator.refererHost(null)).isEqualTo("direct");
+        assertThat(ClickRollupAggregator.refererHost(" ")).isEqualTo("direct");
+        assertThat(ClickRollupAggregator.refererHost("https://WWW.Example.com:8443/a")).isEqualTo("example.com");
+        assertThat(ClickRollupAggregator.refererHost("not a url")).isEqualTo("unknown");
+        assertThat(ClickRollupAggregator.refererHost("android-app://com.example")).isEqualTo("com.example");
+    }
+
+    // The last upsert made for the granularity
+    @SuppressWarnings("unchecked")
+    private List<RollupIncrement> upserted(ClickRollupGranularity granularity) {
+        ArgumentCaptor<List<RollupIncrement>> captor = ArgumentCaptor.forClass(List.class);
+        verify(repository, atLeastOnce()).increment(eq(granularity), captor.capture());
+        return captor.getValue();
+    }
+
+    private static AnalyticsEvent redirect(String shortCode, LocalDateTime at, String referer, String country) {
+        return AnalyticsEvent.builder()
+                .shortCode(shortCode)
+                .timestamp(at)
+                .referer(referer)
+                .country(country)
+                .eventType(AnalyticsEvent.EventType.REDIRECT.name())
+                .build();
+    }
+}
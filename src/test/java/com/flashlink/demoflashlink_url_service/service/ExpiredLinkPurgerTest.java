@@ -0,0 +1,125 @@
+package com.flashlink.demoflashlink_url_service.service;
+
+import com.flashlink.demoflashlink_url_service.repository.ExpiredLinkRepository;
+import com.flashlink.demoflashlink_url_service.repository.ExpiredLinkRepository.ExpiredLink;
+import com.flashlink.demoflashlink_url_service.repository.ExpiredLinkRepository.PurgeCheckpoint;
+import com.flashlink.demoflashlink_url_service.service.ExpiredLinkPurger.PurgeChunk;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@DisplayName("ExpiredLinkPurger Tests")
+class ExpiredLinkPurgerTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2026, 3, 14, 2, 0);
+
+    private ExpiredLinkRepository repository;
+    private Cache cache;
+    private AnalyticsProducerService analyticsProducerService;
+    private SimpleMeterRegistry meterRegistry;
+    private ExpiredLinkPurger purger;
+
+    @BeforeEach
+    void setUp() {
+        repository = mock(ExpiredLinkRepository.class);
+        cache = mock(Cache.class);
+        CacheManager cacheManager = mock(CacheManager.class);
+        when(cacheManager.getCache("urlMapping")).thenReturn(cache);
+        analyticsProducerService = mock(AnalyticsProducerService.class);
+        meterRegistry = new SimpleMeterRegistry();
+        purger = new ExpiredLinkPurger(repository, TransactionOperations.withoutTransaction(), cacheManager,
+                analyticsProducerService, meterRegistry, false, 2, 8, 100, 1.0, 30_000);
+    }
+
+    @Test
+    @DisplayName("Should delete one chunk past the checkpoint and move the checkpoint to its last link")
+    void purgeChunk_ShouldDeleteChunkAndAdvanceCheckpoint() {
+        // Given
+        PurgeCheckpoint checkpoint = new PurgeCheckpoint(NOW.minusDays(2), 7);
+        List<ExpiredLink> expired = List.of(
+                new ExpiredLink(9, "abc", "alice", NOW.minusDays(2)),
+                new ExpiredLink(4, "def", null, NOW.minusDays(1)));
+        when(repository.lockCheckpoint(ExpiredLinkPurger.CHECKPOINT)).thenReturn(checkpoint);
+        when(repository.lockExpiredAfter(checkpoint, NOW, 2)).thenReturn(expired);
+
+        // When
+        PurgeChunk chunk = purger.purgeChunk(NOW);
+
+        // Then
+        assertThat(chunk.deleted()).isEqualTo(2);
+        assertThat(chunk.caughtUp()).isFalse();
+        verify(repository).deleteAll(expired);
+        verify(repository).saveCheckpoint(eq(ExpiredLinkPurger.CHECKPOINT),
+                eq(new PurgeCheckpoint(NOW.minusDays(1), 4)), any());
+        verify(cache).evict("abc");
+        verify(cache).evict("def");
+        verify(analyticsProducerService).publishLinkExpiredEvents(expired);
+        assertThat(meterRegistry.get("links.purged").counter().count()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Should report caught up and leave the checkpoint when nothing has expired")
+    void purgeChunk_ShouldBeCaughtUpWhenNothingExpired() {
+        // Given
+        when(repository.lockCheckpoint(ExpiredLinkPurger.CHECKPOINT)).thenReturn(PurgeCheckpoint.START);
+        when(repository.lockExpiredAfter(any(), any(), anyInt())).thenReturn(List.of());
+
+        // When
+        PurgeChunk chunk = purger.purgeChunk(NOW);
+
+        // Then
+        assertThat(chunk.caughtUp()).isTrue();
+        assertThat(purger.pauseAfter(chunk)).isEqualTo(30_000);
+        verify(repository, never()).deleteAll(any());
+        verify(repository, never()).saveCheckpoint(any(), any(), any());
+        verifyNoInteractions(analyticsProducerService);
+    }
+
+    @Test
+    @DisplayName("Should restart from the beginning of the index after a full sweep request")
+    void purgeChunk_ShouldRestartFromStartOnFullSweep() {
+        // Given
+        when(repository.lockCheckpoint(ExpiredLinkPurger.CHECKPOINT))
+                .thenReturn(new PurgeCheckpoint(NOW.minusHours(1), 42));
+        when(repository.lockExpiredAfter(any(), any(), anyInt())).thenReturn(List.of());
+
+        // When
+        purger.requestFullSweep();
+        purger.purgeChunk(NOW);
+        purger.purgeChunk(NOW);
+
+        // Then
+        verify(repository).lockExpiredAfter(PurgeCheckpoint.START, NOW, 2);
+        verify(repository).lockExpiredAfter(new PurgeCheckpoint(NOW.minusHours(1), 42), NOW, 2);
+    }
+
+    @Test
+    @DisplayName("Should shrink chunks that exceed the latency target and grow fast ones")
+    void pauseAfter_ShouldAdaptChunkSizeToLatency() {
+        // When: fast chunks grow by the minimum chunk size up to the maximum
+        for (int i = 0; i < 5; i++) {
+            purger.pauseAfter(new PurgeChunk(purger.chunkSize(), false, 10));
+        }
+
+        // Then
+        assertThat(purger.chunkSize()).isEqualTo(8);
+
+        // And a slow chunk halves the size and rests as long as it took
+        assertThat(purger.pauseAfter(new PurgeChunk(8, false, 400))).isEqualTo(400);
+        assertThat(purger.chunkSize()).isEqualTo(4);
+        purger.pauseAfter(new PurgeChunk(4, false, 400));
+        purger.pauseAfter(new PurgeChunk(2, false, 400));
+        assertThat(purger.chunkSize()).isEqualTo(2);
+    }
+}
@@ -0,0 +1,127 @@
+package com.flashlink.demoflashlink_url_service.service;
+
+import com.flashlink.demoflashlink_url_service.model.AnalyticsEvent;
+import com.flashlink.demoflashlink_url_service.repository.LinkSketchRepository;
+import com.flashlink.demoflashlink_url_service.repository.LinkSketchRepository.StoredSketch;
+import com.flashlink.demoflashlink_url_service.util.Hash64;
+import com.flashlink.demoflashlink_url_service.util.HyperLogLog;
+import com.flashlink.demoflashlink_url_service.util.SpaceSaving;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@DisplayName("LinkSketchService Tests")
+class LinkSketchServiceTest {
+
+    private LinkSketchRepository repository;
+    private SimpleMeterRegistry meterRegistry;
+    private LinkSketchService service;
+
+    @BeforeEach
+    void setUp() {
+        repository = mock(LinkSketchRepository.class);
+        meterRegistry = new SimpleMeterRegistry();
+        service = new LinkSketchService(repository, TransactionOperations.withoutTransaction(), meterRegistry,
+                16, 10_000);
+    }
+
+    @Test
+    @DisplayName("Should merge unflushed sketches into the stored ones")
+    void flush_ShouldMergeWithStoredSketch() {
+        // Given: another instance already stored 100 visitors and 10 t.co clicks
+        HyperLogLog storedVisitors = new HyperLogLog();
+        for (int i = 0; i < 100; i++) {
+            storedVisitors.add(Hash64.hash("10.0.0." + i + "\0ua"));
+        }
+        SpaceSaving storedReferers = new SpaceSaving(16);
+        storedReferers.add("t.co", 10);
+        when(repository.lockAll(List.of("abc"))).thenReturn(Map.of("abc",
+                new StoredSketch("abc", storedVisitors.toBytes(), storedReferers.toBytes())));
+        for (int i = 50; i < 150; i++) {
+            service.recordRedirect(redirect("abc", "10.0.0." + i, i % 20 == 0 ? "https://t.co/x" : null));
+        }
+
+        // When
+        service.flush();
+
+        // Then
+        StoredSketch written = upserted().get(0);
+        assertThat((double) HyperLogLog.fromBytes(written.visitors()).estimate()).isCloseTo(150, withinPercentage(5));
+        assertThat(SpaceSaving.fromBytes(written.topReferers()).top(2)).containsExactly(
+                new SpaceSaving.Entry("direct", 95, 0),
+                new SpaceSaving.Entry("t.co", 15, 0));
+        assertThat(meterRegistry.counter("link.sketches.flushed").count()).isEqualTo(1.0);
+    }
+
+    @Test
+    @DisplayName("Should requeue a failed chunk without double counting it")
+    void flush_ShouldRequeueOnFailure() {
+        // Given
+        when(repository.lockAll(anyList())).thenReturn(Map.of());
+        doThrow(new QueryTimeoutException("timeout"))
+                .doNothing()
+                .when(repository).upsertAll(anyList(), any());
+        service.recordRedirect(redirect("abc", "1.1.1.1", "https://t.co/x"));
+        service.flush();
+
+        // When
+        service.recordRedirect(redirect("abc", "2.2.2.2", "https://t.co/y"));
+        service.flush();
+
+        // Then
+        StoredSketch written = upserted().get(0);
+        assertThat(HyperLogLog.fromBytes(written.visitors()).estimate()).isEqualTo(2);
+        assertThat(SpaceSaving.fromBytes(written.topReferers()).top(1))
+                .containsExactly(new SpaceSaving.Entry("t.co", 2, 0));
+        assertThat(meterRegistry.counter("link.sketches.flush.failures").count()).isEqualTo(1.0);
+    }
+
+    @Test
+    @DisplayName("Should weight sampled redirects in the referer counts")
+    void recordRedirect_ShouldWeightSampledReferers() {
+        // Given
+        AnalyticsEvent sampled = redirect("hot", "3.3.3.3", "https://t.co/x");
+        sampled.setSampleWeight(25.0);
+        when(repository.findByShortCode("hot")).thenReturn(Optional.empty());
+
+        // When
+        service.recordRedirect(sampled);
+        Optional<LinkSketchService.Audience> audience = service.audience("hot", 5);
+
+        // Then
+        assertThat(audience).get().satisfies(result -> {
+            assertThat(result.uniqueVisitors()).isEqualTo(1);
+            assertThat(result.topReferers()).containsExactly(new SpaceSaving.Entry("t.co", 25, 0));
+        });
+        assertThat(service.audience("cold", 5)).isEmpty();
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<StoredSketch> upserted() {
+        ArgumentCaptor<List<StoredSketch>> captor = ArgumentCaptor.forClass(List.class);
+        verify(repository, atLeastOnce()).upsertAll(captor.capture(), any());
+        return captor.getValue();
+    }
+
+    private static AnalyticsEvent redirect(String shortCode, String clientIp, String referer) {
+        return AnalyticsEvent.builder()
+                .shortCode(shortCode)
+                .clientIp(clientIp)
+                .userAgent("ua")
+                .referer(referer)
+                .eventType(AnalyticsEvent.EventType.REDIRECT.name())
+                .build();
+    }
+}
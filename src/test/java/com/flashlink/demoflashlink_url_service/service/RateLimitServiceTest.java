@@ -0,0 +1,200 @@
+package com.flashlink.demoflashlink_url_service.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.RedisConnectionFailureException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.*;
+
+@DisplayName("RateLimitService Tests")
+class RateLimitServiceTest {
+
+    private final AtomicLong clock = new AtomicLong(1_000_000);
+    private final AtomicInteger storeCalls = new AtomicInteger();
+    private LocalTokenBucketStore store;
+
+    @BeforeEach
+    void setUp() {
+        // 60 per minute with a burst of 10: one token per second
+        store = new LocalTokenBucketStore(60, 10, 10_000, clock::get);
+    }
+
+    @Test
+    @DisplayName("Should allow the burst, then one request per emission interval")
+    void isAllowed_ShouldEnforceBurstAndRate() {
+        // Given
+        RateLimitService service = service(1);
+
+        // When
+        int allowed = 0;
+        for (int i = 0; i < 20; i++) {
+            allowed += service.isAllowed("1.2.3.4") ? 1 : 0;
+        }
+
+        // Then
+        assertThat(allowed).isEqualTo(10);
+        assertThat(service.isAllowed("5.6.7.8")).isTrue();
+        clock.addAndGet(999);
+        assertThat(service.isAllowed("1.2.3.4")).isFalse();
+        clock.addAndGet(1);
+        assertThat(service.isAllowed("1.2.3.4")).isTrue();
+        assertThat(service.isAllowed("1.2.3.4")).isFalse();
+    }
+
+    @Test
+    @DisplayName("Should spend leased tokens locally without exceeding the limit")
+    void isAllowed_ShouldLeaseTokens() {
+        // Given: 100 clients, each well under the limit
+        RateLimitService service = service(5);
+
+        // When
+        int allowed = 0;
+        for (int round = 0; round < 10; round++) {
+            for (int client = 0; client < 100; client++) {
+                allowed += service.isAllowed("10.0.0." + client) ? 1 : 0;
+            }
+            clock.addAndGet(1_000);
+        }
+
+        // Then: 1,000 requests cost 200 store calls instead of 1,000
+        assertThat(allowed).isEqualTo(1_000);
+        assertThat(storeCalls.get()).isEqualTo(200);
+
+        // And a single client still gets no more than its burst
+        int burst = 0;
+        for (int i = 0; i < 50; i++) {
+            burst += service.isAllowed("9.9.9.9") ? 1 : 0;
+        }
+        assertThat(burst).isEqualTo(10);
+    }
+
+    @Test
+    @DisplayName("Should fail open when the store is unavailable")
+    void isAllowed_ShouldFailOpen() {
+        // Given
+        RateLimitService service = new RateLimitService((key, requested) -> {
+            throw new RedisConnectionFailureException("down");
+        }, 60, 10, "shared", 0.5, 1, 1, 1_000, 1_000, 1_000);
+
+        // When & Then
+        assertThat(service.isAllowed("1.2.3.4")).isTrue();
+    }
+
+    @Test
+    @DisplayName("Should decide clients under the limit locally in hybrid mode")
+    void isAllowed_ShouldSkipStoreUnderLimitInHybridMode() {
+        // Given: each pod admits half the burst locally
+        RateLimitService service = service("hybrid", 1);
+
+        // When: 100 clients with three requests each
+        int allowed = 0;
+        for (int client = 0; client < 100; client++) {
+            for (int i = 0; i < 3; i++) {
+                allowed += service.isAllowed("10.0.0." + client) ? 1 : 0;
+            }
+        }
+
+        // Then
+        assertThat(allowed).isEqualTo(300);
+        assertThat(storeCalls.get()).isZero();
+
+        // And a heavy client goes to the store once its local share is spent
+        int heavy = 0;
+        for (int i = 0; i < 50; i++) {
+            heavy += service.isAllowed("9.9.9.9") ? 1 : 0;
+        }
+        assertThat(heavy).isEqualTo(5 + 10);
+        assertThat(storeCalls.get()).isEqualTo(45);
+    }
+
+    @Test
+    @DisplayName("Should charge locally admitted requests to the shared limit in hybrid mode")
+    void reconcileLocalSpend_ShouldHoldGlobalLimitAcrossPods() {
+        // Given: four pods, each holding an eighth of the burst locally
+        List<RateLimitService> pods = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            pods.add(service("hybrid", 4, 1));
+        }
+        int allowed = 0;
+        for (RateLimitService pod : pods) {
+            allowed += pod.isAllowed("9.9.9.9") ? 1 : 0;
+        }
+
+        // When
+        pods.forEach(RateLimitService::reconcileLocalSpend);
+        for (int i = 0; i < 200; i++) {
+            allowed += pods.get(i % 4).isAllowed("9.9.9.9") ? 1 : 0;
+        }
+        pods.forEach(RateLimitService::reconcileLocalSpend);
+
+        // Then: the client spread over every pod gets the configured burst, not burst plus local shares
+        assertThat(allowed).isEqualTo(10);
+        assertThat(pods.get(0).isAllowed("9.9.9.9")).isFalse();
+        clock.addAndGet(1_000);
+        assertThat(pods.get(0).isAllowed("9.9.9.9")).isTrue();
+    }
+
+    @Test
+    @DisplayName("Should charge many distinct clients' local spend in a few batched store calls")
+    void reconcileLocalSpend_ShouldBatchCharges() {
+        // Given: 5,000 casual clients, each making one request per reconcile interval, and a shared
+        // store roomy enough that none of them is evicted
+        store = new LocalTokenBucketStore(60, 10, 100_000, clock::get);
+        RateLimitService service = service("hybrid", 1);
+        int requests = 0;
+
+        // When
+        for (int pass = 0; pass < 4; pass++) {
+            for (int client = 0; client < 5_000; client++) {
+                assertThat(service.isAllowed("10.0." + client / 256 + "." + client % 256)).isTrue();
+                requests++;
+            }
+            service.reconcileLocalSpend();
+        }
+
+        // Then: one store call per 512 clients and pass, not one per request
+        int batchesPerPass = (5_000 + RateLimitService.CHARGE_BATCH_SIZE - 1) / RateLimitService.CHARGE_BATCH_SIZE;
+        assertThat(storeCalls.get()).isEqualTo(4 * batchesPerPass);
+        assertThat((double) storeCalls.get() / requests).isLessThan(0.01);
+
+        // And every request was charged to the shared bucket
+        assertThat(store.acquire("10.0.0.7", 10)).isEqualTo(6);
+    }
+
+    private RateLimitService service(int leaseSize) {
+        return service("shared", 1, leaseSize);
+    }
+
+    private RateLimitService service(String mode, int leaseSize) {
+        return service(mode, 1, leaseSize);
+    }
+
+    private RateLimitService service(String mode, int pods, int leaseSize) {
+        TokenBucketStore counting = new TokenBucketStore() {
+            @Override
+            public long acquire(String key, int requested) {
+                storeCalls.incrementAndGet();
+                return store.acquire(key, requested);
+            }
+
+            @Override
+            public void charge(String key, int tokens) {
+                store.charge(key, tokens);
+            }
+
+            @Override
+            public void chargeAll(Map<String, Integer> charges) {
+                storeCalls.incrementAndGet();
+                store.chargeAll(charges);
+            }
+        };
+        return new RateLimitService(counting, 60, 10, mode, 0.5, pods, leaseSize, 60_000, 10_000, 10_000);
+    }
+}
@@ -0,0 +1,222 @@
+package com.flashlink.demoflashlink_url_service.service;
+
+import com.flashlink.demoflashlink_url_service.repository.UrlMappingBatchRepository;
+import com.flashlink.demoflashlink_url_service.repository.UrlMappingBatchRepository.RedirectCountDelta;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@DisplayName("RedirectCountAggregator Tests")
+class RedirectCountAggregatorTest {
+
+    private UrlMappingBatchRepository batchRepository;
+    private ClickRollupAggregator clickRollups;
+    private SimpleMeterRegistry meterRegistry;
+    private RedirectCountAggregator aggregator;
+
+    @BeforeEach
+    void setUp() {
+        batchRepository = mock(UrlMappingBatchRepository.class);
+        clickRollups = mock(ClickRollupAggregator.class);
+        meterRegistry = new SimpleMeterRegistry();
+        aggregator = new RedirectCountAggregator(batchRepository, clickRollups,
+                TransactionOperations.withoutTransaction(), meterRegistry, 10_000);
+    }
+
+    @Test
+    @DisplayName("Should coalesce increments per short code into one batch")
+    @SuppressWarnings("unchecked")
+    void flush_ShouldCoalesceIncrementsPerShortCode() {
+        // Given
+        LocalDateTime first = LocalDateTime.now().minusSeconds(5);
+        LocalDateTime last = LocalDateTime.now();
+        aggregator.add("bbb", first);
+        aggregator.add("aaa", first);
+        aggregator.add("bbb", last);
+        aggregator.add("bbb", first);
+
+        // When
+        aggregator.flush();
+
+        // Then
+        ArgumentCaptor<List<RedirectCountDelta>> captor = ArgumentCaptor.forClass(List.class);
+        verify(batchRepository).incrementRedirectCounts(captor.capture());
+        assertThat(captor.getValue()).containsExactly(
+                new RedirectCountDelta("aaa", 1, first),
+                new RedirectCountDelta("bbb", 3, last));
+        assertThat(meterRegistry.counter("redirect.counts.flushed").count()).isEqualTo(4.0);
+    }
+
+    @Test
+    @DisplayName("Should acknowledge offsets only after the window is written")
+    void acknowledgeAfterFlush_ShouldHoldAcksUntilFlush() {
+        // Given
+        Acknowledgment partition0Old = mock(Acknowledgment.class);
+        Acknowledgment partition0New = mock(Acknowledgment.class);
+        Acknowledgment partition1 = mock(Acknowledgment.class);
+        aggregator.add("abc", LocalDateTime.now());
+        aggregator.acknowledgeAfterFlush("events", 0, partition0Old);
+        aggregator.add("abc", LocalDateTime.now());
+        aggregator.acknowledgeAfterFlush("events", 0, partition0New);
+        aggregator.acknowledgeAfterFlush("events", 1, partition1);
+
+        // Then
+        verifyNoInteractions(partition0Old, partition0New, partition1);
+
+        // When
+        aggregator.flush();
+
+        // Then
+        verify(partition0New).acknowledge();
+        verify(partition1).acknowledge();
+        verify(partition0Old, never()).acknowledge();
+    }
+
+    @Test
+    @DisplayName("Should write held increments and release their acks before partitions are revoked")
+    void onPartitionsRevokedBeforeCommit_ShouldFlushHeldAcks() {
+        // Given
+        Acknowledgment acknowledgment = mock(Acknowledgment.class);
+        aggregator.add("abc", LocalDateTime.now());
+        aggregator.acknowledgeAfterFlush("events", 0, acknowledgment);
+
+        // When
+        aggregator.onPartitionsRevokedBeforeCommit(mock(Consumer.class), List.of(new TopicPartition("events", 0)));
+
+        // Then: the increment is written before the ack the container commits on revocation
+        InOrder inOrder = inOrder(batchRepository, acknowledgment);
+        inOrder.verify(batchRepository).incrementRedirectCounts(anyList());
+        inOrder.verify(acknowledgment).acknowledge();
+    }
+
+    @Test
+    @DisplayName("Should requeue increments and hold acks when the write fails")
+    @SuppressWarnings("unchecked")
+    void flush_ShouldRequeueOnFailure() {
+        // Given
+        Acknowledgment acknowledgment = mock(Acknowledgment.class);
+        doThrow(new QueryTimeoutException("timeout"))
+                .doNothing()
+                .when(batchRepository).incrementRedirectCounts(anyList());
+        aggregator.add("abc", LocalDateTime.now());
+        aggregator.add("abc", LocalDateTime.now());
+        aggregator.acknowledgeAfterFlush("events", 0, acknowledgment);
+
+        // When
+        aggregator.flush();
+
+        // Then
+        verify(acknowledgment, never()).acknowledge();
+        assertThat(meterRegistry.counter("redirect.counts.flush.failures").count()).isEqualTo(1.0);
+
+        // When
+        aggregator.add("abc", LocalDateTime.now());
+        aggregator.flush();
+
+        // Then
+        ArgumentCaptor<List<RedirectCountDelta>> captor = ArgumentCaptor.forClass(List.class);
+        verify(batchRepository, times(2)).incrementRedirectCounts(captor.capture());
+        assertThat(captor.getAllValues().get(1)).singleElement()
+                .extracting(RedirectCountDelta::count).isEqualTo(3L);
+        verify(acknowledgment).acknowledge();
+    }
+
+    @Test
+    @DisplayName("Should write click rollups first and hold everything when they fail")
+    void flush_ShouldHoldWindowWhenClickRollupsFail() {
+        // Given
+        Acknowledgment acknowledgment = mock(Acknowledgment.class);
+        doThrow(new QueryTimeoutException("timeout"))
+                .doNothing()
+                .when(clickRollups).flush();
+        aggregator.add("abc", LocalDateTime.now());
+        aggregator.acknowledgeAfterFlush("events", 0, acknowledgment);
+
+        // When
+        aggregator.flush();
+
+        // Then
+        verifyNoInteractions(batchRepository);
+        verify(acknowledgment, never()).acknowledge();
+
+        // When
+        aggregator.flush();
+
+        // Then
+        InOrder inOrder = inOrder(clickRollups, batchRepository, acknowledgment);
+        inOrder.verify(clickRollups, times(2)).flush();
+        inOrder.verify(batchRepository).incrementRedirectCounts(anyList());
+        inOrder.verify(acknowledgment).acknowledge();
+    }
+
+    @Test
+    @DisplayName("Should release every batch ack in order, requeued ones first")
+    void acknowledgeAfterFlush_ShouldReleaseBatchAcksInOrder() {
+        // Given
+        Acknowledgment firstPoll = mock(Acknowledgment.class);
+        Acknowledgment secondPoll = mock(Acknowledgment.class);
+        Acknowledgment thirdPoll = mock(Acknowledgment.class);
+        doThrow(new QueryTimeoutException("timeout"))
+                .doNothing()
+                .when(batchRepository).incrementRedirectCounts(anyList());
+        aggregator.add("abc", 5, LocalDateTime.now());
+        aggregator.acknowledgeAfterFlush(firstPoll);
+        aggregator.acknowledgeAfterFlush(secondPoll);
+        aggregator.flush();
+        aggregator.add("abc", 2, LocalDateTime.now());
+        aggregator.acknowledgeAfterFlush(thirdPoll);
+
+        // When
+        aggregator.flush();
+
+        // Then
+        InOrder inOrder = inOrder(firstPoll, secondPoll, thirdPoll);
+        inOrder.verify(firstPoll).acknowledge();
+        inOrder.verify(secondPoll).acknowledge();
+        inOrder.verify(thirdPoll).acknowledge();
+        assertThat(meterRegistry.counter("redirect.counts.flushed").count()).isEqualTo(7.0);
+    }
+
+    @Test
+    @DisplayName("Should flush early once the pending code limit is reached")
+    void add_ShouldFlushWhenPendingLimitReached() {
+        // Given
+        aggregator = new RedirectCountAggregator(batchRepository, clickRollups,
+                TransactionOperations.withoutTransaction(), meterRegistry, 3);
+
+        // When
+        aggregator.add("a", LocalDateTime.now());
+        aggregator.add("b", LocalDateTime.now());
+        aggregator.add("a", LocalDateTime.now());
+        verifyNoInteractions(batchRepository);
+        aggregator.add("c", LocalDateTime.now());
+
+        // Then
+        verify(batchRepository).incrementRedirectCounts(anyList());
+    }
+
+    @Test
+    @DisplayName("Should not touch the database for an empty window")
+    void flush_ShouldSkipEmptyWindow() {
+        // When
+        aggregator.flush();
+
+        // Then
+        verifyNoInteractions(batchRepository);
+    }
+}
@@ -0,0 +1,217 @@
+package com.flashlink.demoflashlink_url_service.service;
+
+import com.flashlink.demoflashlink_url_service.model.UrlMapping;
+import com.flashlink.demoflashlink_url_service.repository.ClickRollupRepository;
+import com.flashlink.demoflashlink_url_service.repository.UrlMappingBatchRepository;
+import com.flashlink.demoflashlink_url_service.repository.UrlMappingRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiFunction;
+
+import static org.assertj.core.api.Assertions.*;
+
+@DisplayName("Redirect Count Load Tests")
+@SpringJUnitConfig(RedirectCountLoadTest.TestConfig.class)
+class RedirectCountLoadTest {
+
+    private static final int CLICKS = 10_000;
+    private static final int SHORT_CODES = 200;
+    // One aggregator window per this many clicks, i.e. ~1k clicks/s with the default 1s window
+    private static final int CLICKS_PER_WINDOW = 1_000;
+
+    @Autowired
+    private UrlMappingRepository repository;
+
+    @Autowired
+    private RedirectCountAggregator aggregator;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private LongAdder roundTrips;
+
+    private final List<String> codes = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        repository.deleteAllInBatch();
+        codes.clear();
+        List<UrlMapping> mappings = new ArrayList<>();
+        for (int i = 0; i < SHORT_CODES; i++) {
+            String code = String.format("c%05d", i);
+            codes.add(code);
+            mappings.add(UrlMapping.builder()
+                    .id(1_000L + i)
+                    .shortCode(code)
+                    .longUrl("https://example.com/" + i)
+                    .createdAt(LocalDateTime.now())
+                    .redirectCount(0L)
+                    .build());
+        }
+        repository.saveAll(mappings);
+    }
+
+    @Test
+    @DisplayName("Should cut database round trips per 10k clicks by coalescing increments")
+    void redirectCounting_StatementsPer10kClicks() {
+        // Given: the same skewed click stream for both paths
+        String[] clicks = skewedClicks();
+
+        // When: the previous per-event handler (findByShortCode, increment, save)
+        roundTrips.reset();
+        for (String code : clicks) {
+            repository.findByShortCode(code).ifPresent(mapping -> {
+                mapping.setRedirectCount(mapping.getRedirectCount() + 1);
+                mapping.setLastRedirectAt(LocalDateTime.now());
+                repository.save(mapping);
+            });
+        }
+        long before = roundTrips.sum();
+
+        // When: write-behind aggregation
+        roundTrips.reset();
+        for (int i = 0; i < clicks.length; i++) {
+            aggregator.add(clicks[i], LocalDateTime.now());
+            if ((i + 1) % CLICKS_PER_WINDOW == 0) {
+                aggregator.flush();
+            }
+        }
+        aggregator.flush();
+        long after = roundTrips.sum();
+
+        // Then
+        assertThat(before).isGreaterThanOrEqualTo(2L * CLICKS);
+        assertThat(after).isLessThanOrEqualTo(CLICKS / CLICKS_PER_WINDOW * (SHORT_CODES / 50 + 1));
+        assertThat(jdbcTemplate.queryForObject("SELECT SUM(redirect_count) FROM url_mapping", Long.class))
+                .isEqualTo(2L * CLICKS);
+    }
+
+    private String[] skewedClicks() {
+        SplittableRandom random = new SplittableRandom(10_000L);
+        String[] clicks = new String[CLICKS];
+        for (int i = 0; i < CLICKS; i++) {
+            double r = random.nextDouble();
+            clicks[i] = codes.get((int) (SHORT_CODES * r * r));
+        }
+        return clicks;
+    }
+
+    // Counts every Statement.execute* call that reaches the driver; a JDBC batch is one round trip
+    static DataSource countingDataSource(DataSource target, LongAdder roundTrips) {
+        BiFunction<Method, Object, Object> onStatement = (method, result) -> {
+            if (method.getName().startsWith("execute")) {
+                roundTrips.increment();
+            }
+            return result;
+        };
+        BiFunction<Method, Object, Object> onConnection = (method, result) -> {
+            if (result instanceof PreparedStatement preparedStatement) {
+                return proxy(PreparedStatement.class, preparedStatement, onStatement);
+            }
+            if (result instanceof Statement statement) {
+                return proxy(Statement.class, statement, onStatement);
+            }
+            return result;
+        };
+        return proxy(DataSource.class, target, (method, result) -> result instanceof Connection connection
+                ? proxy(Connection.class, connection, onConnection)
+                : result);
+    }
+
+    private static <T> T proxy(Class<T> type, Object target, BiFunction<Method, Object, Object> onResult) {
+        return type.cast(Proxy.newProxyInstance(RedirectCountLoadTest.class.getClassLoader(), new Class<?>[]{type},
+                (proxy, method, args) -> {
+                    try {
+                        return onResult.apply(method, method.invoke(target, args));
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                }));
+    }
+
+    @Configuration
+    @EnableJpaRepositories(basePackageClasses = UrlMappingRepository.class)
+    @Import({UrlMappingBatchRepository.class, RedirectCountAggregator.class, ClickRollupRepository.class,
+            ClickRollupAggregator.class})
+    static class TestConfig {
+
+        @Bean
+        LongAdder roundTrips() {
+            return new LongAdder();
+        }
+
+        @Bean
+        DataSource dataSource(LongAdder roundTrips) {
+            return countingDataSource(new EmbeddedDatabaseBuilder()
+                    .setType(EmbeddedDatabaseType.H2)
+                    .generateUniqueName(true)
+                    .build(), roundTrips);
+        }
+
+        @Bean
+        LocalContainerEntityManagerFactoryBean entityManagerFactory(DataSource dataSource) {
+            LocalContainerEntityManagerFactoryBean factory = new LocalContainerEntityManagerFactoryBean();
+            factory.setDataSource(dataSource);
+            factory.setPackagesToScan(UrlMapping.class.getPackageName());
+            factory.setJpaVendorAdapter(new HibernateJpaVendorAdapter());
+            factory.setJpaPropertyMap(Map.of(
+                    "hibernate.hbm2ddl.auto", "create-drop",
+                    "hibernate.physical_naming_strategy",
+                    "org.hibernate.boot.model.naming.CamelCaseToUnderscoresNamingStrategy"));
+            return factory;
+        }
+
+        @Bean
+        PlatformTransactionManager transactionManager(EntityManagerFactory entityManagerFactory) {
+            return new JpaTransactionManager(entityManagerFactory);
+        }
+
+        @Bean
+        TransactionTemplate transactionTemplate(PlatformTransactionManager transactionManager) {
+            return new TransactionTemplate(transactionManager);
+        }
+
+        @Bean
+        JdbcTemplate jdbcTemplate(DataSource dataSource) {
+            return new JdbcTemplate(dataSource);
+        }
+
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package com.flashlink.demoflashlink_url_service.service;
+
+import com.flashlink.demoflashlink_url_service.service.RedirectEventEmitter.OverflowPolicy;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@DisplayName("RedirectEventEmitter Tests")
+class RedirectEventEmitterTest {
+
+    private AnalyticsProducerService producer;
+    private SimpleMeterRegistry meterRegistry;
+    private RedirectEventEmitter emitter;
+
+    @BeforeEach
+    void setUp() {
+        producer = mock(AnalyticsProducerService.class);
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (emitter != null) {
+            emitter.stop();
+        }
+    }
+
+    private RedirectEventEmitter emitter(OverflowPolicy policy, int capacity, double sampleRate) {
+        emitter = new RedirectEventEmitter(producer, meterRegistry, capacity, policy, 0.5, sampleRate, 100, 5_000);
+        return emitter;
+    }
+
+    private double dropped(String reason) {
+        return meterRegistry.counter("analytics.emitter.dropped", "reason", reason).count();
+    }
+
+    @Test
+    @DisplayName("Should publish queued clicks from the drainer thread")
+    void emitRedirect_ShouldPublishAsynchronously() {
+        // Given
+        emitter(OverflowPolicy.DROP_NEWEST, 1024, 0.1).start();
+
+        // When
+        for (int i = 0; i < 10; i++) {
+            assertThat(emitter.emitRedirect("code" + i, "https://example.com", "1.2.3.4", "ua", null)).isTrue();
+        }
+
+        // Then
+        verify(producer, timeout(5_000).times(10)).publishRedirectEvent(startsWith("code"),
+                eq("https://example.com"), eq("1.2.3.4"), eq("ua"), isNull(), any(LocalDateTime.class));
+        assertThat(meterRegistry.counter("analytics.emitter.accepted").count()).isEqualTo(10.0);
+    }
+
+    @Test
+    @DisplayName("Should keep draining after the producer throws an Error")
+    void emitRedirect_ShouldSurviveErrorsInPublish() {
+        // Given
+        doThrow(new NoClassDefFoundError("org/apache/kafka/Missing")).when(producer)
+                .publishRedirectEvent(eq("broken"), any(), any(), any(), any(), any(LocalDateTime.class));
+        emitter(OverflowPolicy.DROP_NEWEST, 1024, 0.1).start();
+
+        // When
+        emitter.emitRedirect("broken", "https://example.com", "1.2.3.4", "ua", null);
+        emitter.emitRedirect("next", "https://example.com", "1.2.3.4", "ua", null);
+
+        // Then
+        verify(producer, timeout(5_000)).publishRedirectEvent(eq("next"), any(), any(), any(), any(),
+                any(LocalDateTime.class));
+        assertThat(emitter.isDrainerAlive()).isTrue();
+        assertThat(meterRegistry.counter("analytics.emitter.publish.failures").count()).isEqualTo(1.0);
+        assertThat(meterRegistry.get("analytics.emitter.drainer.alive").gauge().value()).isEqualTo(1.0);
+    }
+
+    @Test
+    @DisplayName("Should keep redirects non-blocking while the producer is stalled")
+    void emitRedirect_ShouldNotBlockWhenProducerStalls() throws InterruptedException {
+        // Given
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            release.await(10, TimeUnit.SECONDS);
+            return null;
+        }).when(producer).publishRedirectEvent(anyString(), anyString(), anyString(), anyString(), any(), any());
+        emitter(OverflowPolicy.DROP_NEWEST, 8, 0.1).start();
+
+        // When
+        long start = System.nanoTime();
+        int queued = 0;
+        for (int i = 0; i < 100; i++) {
+            if (emitter.emitRedirect("code", "https://example.com", "1.2.3.4", "ua", "ref")) {
+                queued++;
+            }
+        }
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        release.countDown();
+
+        // Then: at most a full ring plus the batch the stuck drainer already took got through
+        assertThat(elapsedMs).isLessThan(1_000);
+        assertThat(queued).isLessThanOrEqualTo(16);
+        assertThat(dropped("drop_newest")).isEqualTo(100.0 - queued);
+    }
+
+    @Test
+    @DisplayName("Should evict the oldest click under DROP_OLDEST")
+    void emitRedirect_ShouldDropOldest() {
+        // Given: drainer not started, so the ring only fills
+        emitter(OverflowPolicy.DROP_OLDEST, 4, 0.1);
+        for (int i = 0; i < 6; i++) {
+            emitter.emitRedirect("code" + i, "https://example.com", null, null, null);
+        }
+
+        // When
+        emitter.start();
+
+        // Then
+        verify(producer, timeout(5_000).times(4)).publishRedirectEvent(anyString(), anyString(), any(), any(), any(),
+                any(LocalDateTime.class));
+        verify(producer, never()).publishRedirectEvent(eq("code0"), anyString(), any(), any(), any(), any());
+        verify(producer, never()).publishRedirectEvent(eq("code1"), anyString(), any(), any(), any(), any());
+        assertThat(dropped("drop_oldest")).isEqualTo(2.0);
+    }
+
+    @Test
+    @DisplayName("Should admit only sampled clicks above the threshold under SAMPLE")
+    void emitRedirect_ShouldSampleAboveThreshold() {
+        // Given: sample rate 0 sheds everything past half the ring
+        emitter(OverflowPolicy.SAMPLE, 16, 0.0);
+
+        // When
+        int queued = 0;
+        for (int i = 0; i < 32; i++) {
+            if (emitter.emitRedirect("code", "https://example.com", null, null, null)) {
+                queued++;
+            }
+        }
+
+        // Then
+        assertThat(queued).isEqualTo(8);
+        assertThat(emitter.getQueueSize()).isEqualTo(8);
+        assertThat(dropped("sampled")).isEqualTo(24.0);
+    }
+
+    @Test
+    @DisplayName("Should drain remaining clicks on shutdown")
+    void stop_ShouldDrainRemainingClicks() {
+        // Given
+        emitter(OverflowPolicy.DROP_NEWEST, 1024, 0.1);
+        for (int i = 0; i < 50; i++) {
+            emitter.emitRedirect("code" + i, "https://example.com", null, null, null);
+        }
+        emitter.start();
+
+        // When
+        emitter.stop();
+
+        // Then
+        verify(producer, times(50)).publishRedirectEvent(anyString(), anyString(), any(), any(), any(),
+                any(LocalDateTime.class));
+        assertThat(emitter.getQueueSize()).isZero();
+    }
+}
@@ -0,0 +1,132 @@
+package com.flashlink.demoflashlink_url_service.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.*;
+
+@DisplayName("RedirectSampler Tests")
+class RedirectSamplerTest {
+
+    private static final long SECOND = 1_000_000_000L;
+
+    private final AtomicLong clock = new AtomicLong();
+    private final SplittableRandom random = new SplittableRandom(14L);
+
+    private RedirectSampler sampler(double threshold) {
+        return new RedirectSampler(true, threshold, 1_000, clock::get, random::nextDouble);
+    }
+
+    @Test
+    @DisplayName("Should publish every redirect exactly when disabled")
+    void sample_ShouldBeExactWhenDisabled() {
+        RedirectSampler sampler = new RedirectSampler(false, 1, 1_000, clock::get, random::nextDouble);
+
+        for (int i = 0; i < 1_000; i++) {
+            assertThat(sampler.sample("hot")).isEqualTo(RedirectSampler.EXACT);
+        }
+        sampler.tick((code, delta) -> fail("no deltas expected"));
+    }
+
+    @Test
+    @DisplayName("Should keep cold codes exact")
+    void sample_ShouldKeepColdCodesExact() {
+        // Given
+        RedirectSampler sampler = sampler(100);
+
+        // When & Then: 50 redirects per second stays under the threshold
+        for (int second = 0; second < 5; second++) {
+            for (int i = 0; i < 50; i++) {
+                assertThat(sampler.sample("cold")).isEqualTo(RedirectSampler.EXACT);
+            }
+            clock.addAndGet(SECOND);
+            sampler.tick((code, delta) -> fail("no deltas expected"));
+        }
+    }
+
+    @Test
+    @DisplayName("Should cap hot-code events near the threshold with exact deltas and unbiased weights")
+    void sample_ShouldSampleHotCodes() {
+        // Given
+        RedirectSampler sampler = sampler(100);
+        int perSecond = 100_000;
+        Map<String, Long> deltas = new HashMap<>();
+        long exactEvents = 0;
+        long sampledEvents = 0;
+        double weightSum = 0;
+
+        // When
+        for (int second = 0; second < 10; second++) {
+            for (int i = 0; i < perSecond; i++) {
+                double weight = sampler.sample("viral");
+                if (weight == RedirectSampler.EXACT) {
+                    exactEvents++;
+                } else if (weight > 0) {
+                    sampledEvents++;
+                    weightSum += weight;
+                }
+            }
+            clock.addAndGet(SECOND);
+            sampler.tick((code, delta) -> deltas.merge(code, delta, Long::sum));
+        }
+
+        // Then: exact count is preserved and volume drops by orders of magnitude
+        long total = 10L * perSecond;
+        assertThat(exactEvents + deltas.getOrDefault("viral", 0L)).isEqualTo(total);
+        assertThat(exactEvents + sampledEvents).isLessThan(total / 100);
+        assertThat(exactEvents + weightSum).isCloseTo(total, withinPercentage(10));
+    }
+
+    @Test
+    @DisplayName("Should keep skewed traffic counts exact while shedding most events")
+    void sample_ShouldPreserveCountsOnSkewedTraffic() {
+        // Given: 1,000 codes with a Zipf-like skew, 200k redirects per second for 5 seconds
+        RedirectSampler sampler = sampler(10);
+        Map<String, Long> exact = new HashMap<>();
+        Map<String, Long> counted = new HashMap<>();
+        long events = 0;
+
+        // When
+        for (int second = 0; second < 5; second++) {
+            for (int i = 0; i < 200_000; i++) {
+                String code = "c" + (int) Math.floor(Math.pow(1_000, random.nextDouble()) - 1);
+                exact.merge(code, 1L, Long::sum);
+                double weight = sampler.sample(code);
+                if (weight == RedirectSampler.EXACT) {
+                    counted.merge(code, 1L, Long::sum);
+                }
+                if (weight != 0) {
+                    events++;
+                }
+            }
+            clock.addAndGet(SECOND);
+            sampler.tick((code, delta) -> counted.merge(code, delta, Long::sum));
+        }
+
+        // Then
+        assertThat(counted).isEqualTo(exact);
+        assertThat(events).isLessThan(1_000_000 / 10);
+    }
+
+    @Test
+    @DisplayName("Should stop tracking codes that cool down and respect the tracking limit")
+    void tick_ShouldForgetColdCodesAndBoundTracking() {
+        // Given
+        RedirectSampler sampler = new RedirectSampler(true, 100, 2, clock::get, random::nextDouble);
+        sampler.sample("a");
+        sampler.sample("b");
+
+        // When & Then: a third code is not tracked and stays exact
+        assertThat(sampler.sample("c")).isEqualTo(RedirectSampler.EXACT);
+        assertThat(sampler.getTrackedCodes()).isEqualTo(2);
+
+        clock.addAndGet(SECOND);
+        sampler.tick((code, delta) -> { });
+        assertThat(sampler.getTrackedCodes()).isZero();
+    }
+}
@@ -0,0 +1,143 @@
+package com.flashlink.demoflashlink_url_service.service;
+
+import com.flashlink.demoflashlink_url_service.service.RequestMetrics.RedirectOutcome;
+import com.flashlink.demoflashlink_url_service.service.RequestMetrics.Stage;
+import com.sun.management.ThreadMXBean;
+import io.micrometer.core.instrument.MockClock;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.CountAtBucket;
+import io.micrometer.core.instrument.simple.SimpleConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.*;
+
+@DisplayName("RequestMetrics Tests")
+class RequestMetricsTest {
+
+    private MockClock clock;
+    private SimpleMeterRegistry meterRegistry;
+    private RequestMetrics requestMetrics;
+
+    @BeforeEach
+    void setUp() {
+        clock = new MockClock();
+        meterRegistry = new SimpleMeterRegistry(SimpleConfig.DEFAULT, clock);
+        requestMetrics = new RequestMetrics(meterRegistry, Optional.empty(), new long[]{5, 10, 25},
+                new long[]{100, 500}, false, 5);
+    }
+
+    @Test
+    @DisplayName("Should register every outcome timer with its SLO buckets before any request")
+    void constructor_ShouldPreRegisterOutcomeTimers() {
+        // Then
+        assertThat(meterRegistry.find(RequestMetrics.REDIRECT_TIMER).timers())
+                .extracting(timer -> timer.getId().getTag("outcome"))
+                .containsExactlyInAnyOrder("hit", "miss", "not-found", "rate-limited", "error");
+        assertThat(meterRegistry.find(RequestMetrics.SHORTENING_TIMER).timers())
+                .extracting(timer -> timer.getId().getTag("outcome"))
+                .containsExactlyInAnyOrder("success", "error");
+        Timer hit = meterRegistry.get(RequestMetrics.REDIRECT_TIMER).tag("outcome", "hit").timer();
+        assertThat(Arrays.stream(hit.takeSnapshot().histogramCounts())
+                .map(bucket -> bucket.bucket(TimeUnit.MILLISECONDS)))
+                .containsExactly(5.0, 10.0, 25.0);
+    }
+
+    @Test
+    @DisplayName("Should tag found redirects as hit or miss by whether the cache loader ran")
+    void recordRedirect_ShouldTagCacheOutcome() {
+        // Given: a miss on the previous request must not leak into the next one
+        long start = requestMetrics.start();
+        requestMetrics.startLookup();
+        requestMetrics.recordStage(Stage.DATABASE, requestMetrics.start(), null);
+        clock.add(Duration.ofMillis(20));
+        requestMetrics.recordRedirect(start, requestMetrics.foundOutcome());
+
+        // When
+        start = requestMetrics.start();
+        requestMetrics.startLookup();
+        clock.add(Duration.ofMillis(2));
+        requestMetrics.recordRedirect(start, requestMetrics.foundOutcome());
+        requestMetrics.recordRedirect(requestMetrics.start(), RedirectOutcome.RATE_LIMITED);
+
+        // Then
+        Timer miss = meterRegistry.get(RequestMetrics.REDIRECT_TIMER).tag("outcome", "miss").timer();
+        Timer hit = meterRegistry.get(RequestMetrics.REDIRECT_TIMER).tag("outcome", "hit").timer();
+        assertThat(miss.count()).isEqualTo(1);
+        assertThat(miss.totalTime(TimeUnit.MILLISECONDS)).isEqualTo(20.0);
+        assertThat(hit.count()).isEqualTo(1);
+        CountAtBucket fastest = hit.takeSnapshot().histogramCounts()[0];
+        assertThat(fastest.bucket(TimeUnit.MILLISECONDS)).isEqualTo(5.0);
+        assertThat(fastest.count()).isEqualTo(1.0);
+        assertThat(meterRegistry.get(RequestMetrics.REDIRECT_TIMER).tag("outcome", "rate-limited").timer().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should time the cache stage without its database fallback and report stage percentiles")
+    void stageLatencies_ShouldSeparateCacheFromDatabase() {
+        // Given
+        long lookupStart = requestMetrics.startLookup();
+        clock.add(Duration.ofMillis(1));
+        long databaseStart = requestMetrics.start();
+        clock.add(Duration.ofMillis(30));
+        requestMetrics.recordStage(Stage.DATABASE, databaseStart, null);
+        clock.add(Duration.ofMillis(1));
+
+        // When
+        requestMetrics.recordStage(Stage.CACHE, lookupStart, null);
+        Map<String, RequestMetrics.StageLatency> latencies = requestMetrics.stageLatencies();
+
+        // Then
+        assertThat(latencies).containsOnlyKeys("rate-limit", "cache", "database", "publish");
+        assertThat(latencies.get("cache").count()).isEqualTo(1);
+        assertThat(latencies.get("cache").maxMs()).isEqualTo(2.0);
+        assertThat(latencies.get("database").maxMs()).isEqualTo(30.0);
+        assertThat(latencies.get("database").p99Ms()).isCloseTo(30.0, within(1.0));
+        assertThat(latencies.get("publish").count()).isZero();
+        assertThat(requestMetrics.foundOutcome()).isEqualTo(RedirectOutcome.MISS);
+    }
+
+    @Test
+    @DisplayName("Should not allocate per recorded request")
+    void recordRedirect_ShouldNotAllocate() {
+        // Given
+        ThreadMXBean threads = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        // Long enough for the JIT to compile and scalar-replace the recording path, even on one core
+        for (int i = 0; i < 200_000; i++) {
+            recordOne(i);
+        }
+
+        // When
+        long before = threads.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < 100_000; i++) {
+            recordOne(i);
+        }
+        long allocated = threads.getThreadAllocatedBytes(threadId) - before;
+
+        // Then: well under one byte per request
+        assertThat(allocated).isLessThan(50_000);
+    }
+
+    private void recordOne(int i) {
+        long start = requestMetrics.start();
+        long lookupStart = requestMetrics.startLookup();
+        if (i % 3 == 0) {
+            long databaseStart = requestMetrics.start();
+            requestMetrics.recordStage(Stage.DATABASE, databaseStart, requestMetrics.stageSpan(Stage.DATABASE));
+        }
+        requestMetrics.recordStage(Stage.CACHE, lookupStart, requestMetrics.stageSpan(Stage.CACHE));
+        requestMetrics.recordRedirect(start, requestMetrics.foundOutcome());
+        requestMetrics.recordShortening(requestMetrics.start(), i % 2 == 0);
+    }
+}
@@ -0,0 +1,176 @@
+package com.flashlink.demoflashlink_url_service.service;
+
+import com.flashlink.demoflashlink_url_service.cache.ShortCodeFilter;
+import com.flashlink.demoflashlink_url_service.model.UrlMapping;
+import com.flashlink.demoflashlink_url_service.repository.UrlMappingRepository;
+import com.flashlink.demoflashlink_url_service.util.Base62Encoder;
+import com.flashlink.demoflashlink_url_service.util.SnowflakeIdGenerator;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@DisplayName("UrlService Cache Coherence Tests")
+@SpringJUnitConfig(UrlServiceCacheCoherenceTest.TestConfig.class)
+class UrlServiceCacheCoherenceTest {
+
+    private static final int CREATE_STORM_SIZE = 1_000;
+
+    @Autowired
+    private UrlService urlService;
+
+    @Autowired
+    private UrlMappingRepository repository;
+
+    @Autowired
+    private SnowflakeIdGenerator idGenerator;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    private final Base62Encoder base62 = new Base62Encoder();
+
+    @BeforeEach
+    void setUp() {
+        reset(repository, idGenerator);
+        cacheManager.getCacheNames().forEach(name -> cacheManager.getCache(name).clear());
+
+        AtomicLong ids = new AtomicLong(1_000_000L);
+        when(idGenerator.nextId()).thenAnswer(invocation -> ids.incrementAndGet());
+        when(repository.save(any(UrlMapping.class))).thenAnswer(invocation -> invocation.getArgument(0));
+    }
+
+    @Test
+    @DisplayName("Hot entries should survive a storm of creates")
+    void hotEntries_ShouldSurviveCreateStorm() {
+        // Given
+        UrlMapping hot = mapping("hot", "https://example.com/hot");
+        when(repository.findByShortCode("hot")).thenReturn(Optional.of(hot));
+        assertThat(urlService.getLongUrl("hot")).contains("https://example.com/hot");
+        assertThat(urlService.getUrlMapping("hot")).contains(hot);
+
+        // When
+        for (int i = 0; i < CREATE_STORM_SIZE; i++) {
+            urlService.shortenUrl("https://example.com/new/" + i);
+        }
+
+        // Then
+        for (int i = 0; i < 100; i++) {
+            assertThat(urlService.getLongUrl("hot")).contains("https://example.com/hot");
+            assertThat(urlService.getUrlMapping("hot")).contains(hot);
+        }
+        // Loaded once before the storm and never again
+        verify(repository, times(1)).findByShortCode("hot");
+    }
+
+    @Test
+    @DisplayName("Should write new mappings through to the cache")
+    void shortenUrl_ShouldWriteThroughNewMapping() {
+        // When
+        UrlMapping created = urlService.shortenUrl("https://example.com/fresh");
+
+        // Then
+        assertThat(urlService.getLongUrl(created.getShortCode())).contains("https://example.com/fresh");
+        assertThat(urlService.getUrlMapping(created.getShortCode())).contains(created);
+        verify(repository, never()).findByShortCode(anyString());
+    }
+
+    @Test
+    @DisplayName("Should replace a cached negative entry when its short code is created")
+    void shortenUrl_ShouldReplaceNegativeEntry() {
+        // Given
+        String code = base62.encode(42L);
+        when(idGenerator.nextId()).thenReturn(42L);
+        when(repository.findByShortCode(code)).thenReturn(Optional.empty());
+        assertThat(urlService.getLongUrl(code)).isEmpty();
+        assertThat(urlService.getUrlMapping(code)).isEmpty();
+
+        // When
+        urlService.shortenUrl("https://example.com/late");
+
+        // Then
+        assertThat(urlService.getLongUrl(code)).contains("https://example.com/late");
+        assertThat(urlService.getUrlMapping(code)).isPresent();
+        verify(repository, times(1)).findByShortCode(code);
+    }
+
+    private static UrlMapping mapping(String shortCode, String longUrl) {
+        return UrlMapping.builder()
+                .id(1L)
+                .shortCode(shortCode)
+                .longUrl(longUrl)
+                .createdAt(LocalDateTime.now())
+                .redirectCount(0L)
+                .build();
+    }
+
+    @Configuration
+    @Import({UrlService.class, RequestMetrics.class})
+    static class TestConfig {
+
+        @Bean
+        CacheManager cacheManager() {
+            CaffeineCacheManager cacheManager = new CaffeineCacheManager();
+            cacheManager.setCaffeine(Caffeine.newBuilder()
+                    .maximumSize(10_000)
+                    .expireAfterWrite(5, TimeUnit.MINUTES));
+            return cacheManager;
+        }
+
+        @Bean
+        UrlMappingRepository urlMappingRepository() {
+            return mock(UrlMappingRepository.class);
+        }
+
+        @Bean
+        SnowflakeIdGenerator snowflakeIdGenerator() {
+            return mock(SnowflakeIdGenerator.class);
+        }
+
+        @Bean
+        Base62Encoder base62Encoder() {
+            return new Base62Encoder();
+        }
+
+        @Bean
+        AnalyticsProducerService analyticsProducerService() {
+            return mock(AnalyticsProducerService.class);
+        }
+
+        @Bean
+        ShortCodeFilter shortCodeFilter() {
+            ShortCodeFilter filter = mock(ShortCodeFilter.class);
+            when(filter.mightContain(anyString())).thenReturn(true);
+            return filter;
+        }
+
+        @Bean
+        TransactionOperations transactionOperations() {
+            return TransactionOperations.withoutTransaction();
+        }
+
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+    }
+}
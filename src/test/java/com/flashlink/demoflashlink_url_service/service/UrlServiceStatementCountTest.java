@@ -0,0 +1,209 @@
+package com.flashlink.demoflashlink_url_service.service;
+
+import com.flashlink.demoflashlink_url_service.cache.ShortCodeFilter;
+import com.flashlink.demoflashlink_url_service.model.UrlMapping;
+import com.flashlink.demoflashlink_url_service.repository.UrlMappingRepository;
+import com.flashlink.demoflashlink_url_service.util.Base62Encoder;
+import com.flashlink.demoflashlink_url_service.util.SnowflakeIdGenerator;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@DisplayName("UrlService Statement Count Tests")
+@SpringJUnitConfig(UrlServiceStatementCountTest.TestConfig.class)
+class UrlServiceStatementCountTest {
+
+    private static final AtomicLong IDS = new AtomicLong(1_000_000_000L);
+
+    @Autowired
+    private UrlService urlService;
+
+    @Autowired
+    private UrlMappingRepository repository;
+
+    @Autowired
+    private SnowflakeIdGenerator idGenerator;
+
+    @Autowired
+    private StatementCounter statementCounter;
+
+    @BeforeEach
+    void setUp() {
+        reset(idGenerator);
+        when(idGenerator.nextId()).thenAnswer(invocation -> IDS.incrementAndGet());
+        statementCounter.reset();
+    }
+
+    @Test
+    @DisplayName("Should issue a single INSERT per shorten call")
+    void shortenUrl_ShouldIssueSingleInsert() {
+        // When
+        UrlMapping created = urlService.shortenUrl("https://example.com/one");
+
+        // Then
+        assertThat(statementCounter.statements()).hasSize(1);
+        assertThat(statementCounter.statements().get(0)).startsWithIgnoringCase("insert");
+        assertThat(repository.findById(created.getId())).isPresent();
+    }
+
+    @Test
+    @DisplayName("Should not add lookups as creates accumulate")
+    void shortenUrl_ShouldScaleAtOneStatementPerCall() {
+        // When
+        for (int i = 0; i < 100; i++) {
+            urlService.shortenUrl("https://example.com/many/" + i);
+        }
+
+        // Then
+        assertThat(statementCounter.statements())
+                .hasSize(100)
+                .allSatisfy(sql -> assertThat(sql).startsWithIgnoringCase("insert"));
+    }
+
+    @Test
+    @DisplayName("Should retry with a new id when the insert hits a duplicate key")
+    void shortenUrl_ShouldRetryOnDuplicateKey() {
+        // Given
+        long taken = IDS.incrementAndGet();
+        repository.save(UrlMapping.builder()
+                .id(taken)
+                .shortCode(new Base62Encoder(10).encode(taken))
+                .longUrl("https://example.com/existing")
+                .createdAt(LocalDateTime.now())
+                .redirectCount(0L)
+                .build());
+        long fresh = IDS.incrementAndGet();
+        when(idGenerator.nextId()).thenReturn(taken, fresh);
+        statementCounter.reset();
+
+        // When
+        UrlMapping created = urlService.shortenUrl("https://example.com/retry");
+
+        // Then
+        assertThat(created.getId()).isEqualTo(fresh);
+        assertThat(statementCounter.statements()).hasSize(2);
+        assertThat(repository.findById(taken).map(UrlMapping::getLongUrl)).contains("https://example.com/existing");
+    }
+
+    static class StatementCounter implements StatementInspector {
+        private final List<String> statements = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            statements.add(sql);
+            return sql;
+        }
+
+        List<String> statements() {
+            return statements;
+        }
+
+        void reset() {
+            statements.clear();
+        }
+    }
+
+    @Configuration
+    @EnableJpaRepositories(basePackageClasses = UrlMappingRepository.class)
+    @Import({UrlService.class, RequestMetrics.class})
+    static class TestConfig {
+
+        @Bean
+        StatementCounter statementCounter() {
+            return new StatementCounter();
+        }
+
+        @Bean
+        DataSource dataSource() {
+            return new EmbeddedDatabaseBuilder()
+                    .setType(EmbeddedDatabaseType.H2)
+                    .generateUniqueName(true)
+                    .build();
+        }
+
+        @Bean
+        LocalContainerEntityManagerFactoryBean entityManagerFactory(DataSource dataSource,
+                                                                    StatementCounter statementCounter) {
+            LocalContainerEntityManagerFactoryBean factory = new LocalContainerEntityManagerFactoryBean();
+            factory.setDataSource(dataSource);
+            factory.setPackagesToScan(UrlMapping.class.getPackageName());
+            factory.setJpaVendorAdapter(new HibernateJpaVendorAdapter());
+            factory.setJpaPropertyMap(Map.of(
+                    "hibernate.hbm2ddl.auto", "create-drop",
+                    "hibernate.session_factory.statement_inspector", statementCounter));
+            return factory;
+        }
+
+        @Bean
+        PlatformTransactionManager transactionManager(EntityManagerFactory entityManagerFactory) {
+            return new JpaTransactionManager(entityManagerFactory);
+        }
+
+        @Bean
+        TransactionTemplate transactionTemplate(PlatformTransactionManager transactionManager) {
+            return new TransactionTemplate(transactionManager);
+        }
+
+        @Bean
+        SnowflakeIdGenerator snowflakeIdGenerator() {
+            return mock(SnowflakeIdGenerator.class);
+        }
+
+        @Bean
+        Base62Encoder base62Encoder() {
+            return new Base62Encoder(10);
+        }
+
+        @Bean
+        AnalyticsProducerService analyticsProducerService() {
+            return mock(AnalyticsProducerService.class);
+        }
+
+        @Bean
+        ShortCodeFilter shortCodeFilter() {
+            ShortCodeFilter filter = mock(ShortCodeFilter.class);
+            when(filter.mightContain(anyString())).thenReturn(true);
+            return filter;
+        }
+
+        @Bean
+        CacheManager cacheManager() {
+            return new ConcurrentMapCacheManager();
+        }
+
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+    }
+}
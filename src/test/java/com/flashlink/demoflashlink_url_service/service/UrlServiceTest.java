@@ -1,20 +1,24 @@
 package com.flashlink.demoflashlink_url_service.service;
 
+import com.flashlink.demoflashlink_url_service.cache.ShortCodeFilter;
 import com.flashlink.demoflashlink_url_service.model.UrlMapping;
 import com.flashlink.demoflashlink_url_service.repository.UrlMappingRepository;
 import com.flashlink.demoflashlink_url_service.util.Base62Encoder;
 import com.flashlink.demoflashlink_url_service.util.SnowflakeIdGenerator;
-import io.micrometer.core.instrument.MeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.cache.CacheManager;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionOperations;
 
+import java.sql.SQLException;
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.*;
@@ -37,17 +41,29 @@ class UrlServiceTest {
     private AnalyticsProducerService analyticsProducerService;
 
     @Mock
-    private MeterRegistry meterRegistry;
+    private RequestMetrics requestMetrics;
+
+    @Mock
+    private CacheManager cacheManager;
+
+    @Mock
+    private ShortCodeFilter shortCodeFilter;
+
+    @Mock
+    private TransactionOperations transactionOperations;
 
-    @InjectMocks
     private UrlService urlService;
 
     @BeforeEach
     void setUp() {
+        urlService = new UrlService(repository, idGenerator, base62, analyticsProducerService, requestMetrics,
+                cacheManager, shortCodeFilter, transactionOperations, true);
         // Initialize mocks with default behavior to reduce boilerplate
+        lenient().when(shortCodeFilter.mightContain(anyString())).thenReturn(true);
         lenient().when(idGenerator.nextId()).thenReturn(12345L);
         lenient().when(base62.encode(12345L)).thenReturn("abc123");
-        lenient().when(repository.existsByShortCode("abc123")).thenReturn(false);
+        lenient().when(transactionOperations.execute(any())).thenAnswer(invocation ->
+                invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
         lenient().when(repository.save(any(UrlMapping.class))).thenAnswer(invocation -> {
             UrlMapping mapping = invocation.getArgument(0);
             if (mapping.getCreatedAt() == null) {
@@ -77,7 +93,7 @@ class UrlServiceTest {
     }
 
     @Test
-    void shortenUrl_ShouldRetryOnCollision_WhenShortCodeExists() {
+    void shortenUrl_ShouldRetryOnCollision_WhenInsertHitsDuplicateKey() {
         // Given
         String longUrl = "https://example.com";
         long id1 = 12345L, id2 = 12346L;
@@ -87,13 +103,13 @@ class UrlServiceTest {
         when(idGenerator.nextId()).thenReturn(id1).thenReturn(id2);
         when(base62.encode(id1)).thenReturn(shortCode1);
         when(base62.encode(id2)).thenReturn(shortCode2);
-        when(repository.existsByShortCode(shortCode1)).thenReturn(true);
-        when(repository.existsByShortCode(shortCode2)).thenReturn(false);
-        when(repository.save(any(UrlMapping.class))).thenAnswer(invocation -> {
-            UrlMapping mapping = invocation.getArgument(0);
-            mapping.setCreatedAt(now);
-            return mapping;
-        });
+        when(repository.save(any(UrlMapping.class)))
+                .thenThrow(new DuplicateKeyException("Duplicate entry 'abc123'"))
+                .thenAnswer(invocation -> {
+                    UrlMapping mapping = invocation.getArgument(0);
+                    mapping.setCreatedAt(now);
+                    return mapping;
+                });
 
         // When
         UrlMapping result = urlService.shortenUrl(longUrl);
@@ -103,8 +119,10 @@ class UrlServiceTest {
         assertThat(result.getShortCode()).isEqualTo(shortCode2);
         assertThat(result.getId()).isEqualTo(id2);
 
-        verify(repository, times(2)).existsByShortCode(anyString());
-        verify(repository).save(any(UrlMapping.class));
+        verify(repository, times(2)).save(any(UrlMapping.class));
+        verify(repository, never()).existsByShortCode(anyString());
+        verify(shortCodeFilter, never()).add(shortCode1);
+        verify(analyticsProducerService, never()).publishLinkCreatedEvent(eq(shortCode1), anyString(), any());
     }
 
     @Test
@@ -113,15 +131,45 @@ class UrlServiceTest {
         String longUrl = "https://example.com";
         when(idGenerator.nextId()).thenReturn(12345L);
         when(base62.encode(12345L)).thenReturn("abc123");
-        when(repository.existsByShortCode("abc123")).thenReturn(true);
+        when(repository.save(any(UrlMapping.class))).thenThrow(new DuplicateKeyException("Duplicate entry"));
 
         // When & Then
         assertThatThrownBy(() -> urlService.shortenUrl(longUrl))
                 .isInstanceOf(IllegalStateException.class)
                 .hasMessageContaining("Failed to generate unique short code");
 
-        verify(repository, times(3)).existsByShortCode("abc123");
-        verify(repository, never()).save(any());
+        verify(repository, times(3)).save(any(UrlMapping.class));
+        verify(analyticsProducerService, never()).publishLinkCreatedEvent(anyString(), anyString(), any());
+    }
+
+    @Test
+    void shortenUrl_ShouldRetry_WhenDriverReportsDuplicateEntry() {
+        // Given: a constraint violation that was not translated to DuplicateKeyException
+        when(idGenerator.nextId()).thenReturn(12345L, 12346L);
+        when(base62.encode(12346L)).thenReturn("def456");
+        when(repository.save(any(UrlMapping.class)))
+                .thenThrow(new DataIntegrityViolationException("could not execute statement",
+                        new SQLException("Duplicate entry 'abc123' for key 'PRIMARY'", "23000", 1062)))
+                .thenAnswer(invocation -> invocation.getArgument(0));
+
+        // When
+        UrlMapping result = urlService.shortenUrl("https://example.com");
+
+        // Then
+        assertThat(result.getShortCode()).isEqualTo("def456");
+        verify(repository, times(2)).save(any(UrlMapping.class));
+    }
+
+    @Test
+    void shortenUrl_ShouldNotInsertAgain_WhenFailureFollowsCommit() {
+        // Given
+        IllegalStateException kafkaDown = new IllegalStateException("Kafka unavailable");
+        doThrow(kafkaDown).when(analyticsProducerService).publishLinkCreatedEvent(anyString(), anyString(), any());
+
+        // When & Then
+        assertThatThrownBy(() -> urlService.shortenUrl("https://example.com")).isSameAs(kafkaDown);
+        verify(repository, times(1)).save(any(UrlMapping.class));
+        verify(idGenerator, times(1)).nextId();
     }
 
     @Test
@@ -135,7 +183,6 @@ class UrlServiceTest {
 
         when(idGenerator.nextId()).thenReturn(id);
         when(base62.encode(id)).thenReturn(shortCode);
-        when(repository.existsByShortCode(shortCode)).thenReturn(false);
         when(repository.save(any(UrlMapping.class))).thenAnswer(invocation -> {
             UrlMapping mapping = invocation.getArgument(0);
             mapping.setCreatedAt(now);
@@ -147,7 +194,7 @@ class UrlServiceTest {
 
         // Then
         assertThat(result).isNotNull();
-        assertThat(result.getExpiryAt()).isEqualTo(expiryDate);
+        assertThat(result.getExpiryAt()).isEqualTo(expiryDate.truncatedTo(ChronoUnit.SECONDS));
         assertThat(result.getTtlSeconds()).isNotNull();
     }
 
@@ -162,7 +209,6 @@ class UrlServiceTest {
 
         when(idGenerator.nextId()).thenReturn(id);
         when(base62.encode(id)).thenReturn(shortCode);
-        when(repository.existsByShortCode(shortCode)).thenReturn(false);
         when(repository.save(any(UrlMapping.class))).thenAnswer(invocation -> {
             UrlMapping mapping = invocation.getArgument(0);
             mapping.setCreatedAt(now);
@@ -211,6 +257,98 @@ class UrlServiceTest {
         assertThat(result).isEmpty();
     }
 
+    @Test
+    void getUrlMapping_ShouldSkipRepository_WhenFilterRejectsShortCode() {
+        // Given
+        String shortCode = "unknown";
+        when(shortCodeFilter.mightContain(shortCode)).thenReturn(false);
+
+        // When
+        Optional<UrlMapping> result = urlService.getUrlMapping(shortCode);
+
+        // Then
+        assertThat(result).isEmpty();
+        verify(repository, never()).findByShortCode(anyString());
+    }
+
+    @Test
+    void getUrlMapping_ShouldResolveByPrimaryKey_WhenCodeDecodesToId() {
+        // Given
+        String shortCode = "abc123";
+        UrlMapping mapping = UrlMapping.builder()
+                .id(12345L)
+                .shortCode(shortCode)
+                .longUrl("https://example.com")
+                .createdAt(LocalDateTime.now())
+                .build();
+        when(base62.tryDecode(shortCode)).thenReturn(12345L);
+        when(repository.findById(12345L)).thenReturn(Optional.of(mapping));
+
+        // When
+        Optional<UrlMapping> result = urlService.getUrlMapping(shortCode);
+
+        // Then
+        assertThat(result).contains(mapping);
+        verify(repository, never()).findByShortCode(anyString());
+    }
+
+    @Test
+    void getUrlMapping_ShouldNotQueryShortCodeIndex_WhenGeneratedCodeHasNoRow() {
+        // Given
+        String shortCode = "abc123";
+        when(base62.tryDecode(shortCode)).thenReturn(12345L);
+        when(repository.findById(12345L)).thenReturn(Optional.empty());
+
+        // When
+        Optional<UrlMapping> result = urlService.getUrlMapping(shortCode);
+
+        // Then
+        assertThat(result).isEmpty();
+        verify(repository, times(1)).findById(12345L);
+        verify(repository, never()).findByShortCode(anyString());
+    }
+
+    @Test
+    void getUrlMapping_ShouldUseShortCodeIndexOnly_WhenCodeDoesNotRoundTrip() {
+        // Given: a legacy code that decodes, but is not what the codec would generate for that id
+        String shortCode = "legacy1";
+        UrlMapping legacy = UrlMapping.builder().id(1L).shortCode(shortCode).longUrl("https://legacy.com").build();
+        when(base62.tryDecode(shortCode)).thenReturn(777L);
+        when(base62.encode(777L)).thenReturn("other");
+        when(repository.findByShortCode(shortCode)).thenReturn(Optional.of(legacy));
+
+        // When
+        Optional<UrlMapping> result = urlService.getUrlMapping(shortCode);
+
+        // Then
+        assertThat(result).contains(legacy);
+        verify(repository, never()).findById(anyLong());
+    }
+
+    @Test
+    void getUrlMapping_ShouldUseShortCodeIndex_WhenCodeDoesNotDecode() {
+        // Given
+        String shortCode = "bad-code";
+        when(base62.tryDecode(shortCode)).thenReturn(-1L);
+        when(repository.findByShortCode(shortCode)).thenReturn(Optional.empty());
+
+        // When
+        Optional<UrlMapping> result = urlService.getUrlMapping(shortCode);
+
+        // Then
+        assertThat(result).isEmpty();
+        verify(repository, never()).findById(anyLong());
+    }
+
+    @Test
+    void shortenUrl_ShouldAddShortCodeToFilter() {
+        // When
+        urlService.shortenUrl("https://example.com");
+
+        // Then
+        verify(shortCodeFilter).add("abc123");
+    }
+
     @Test
     void shortenUrl_ShouldHandleNullUrl_WhenGivenNull() {
         // Given
@@ -285,11 +423,12 @@ class UrlServiceTest {
 
         when(idGenerator.nextId()).thenReturn(id);
         when(base62.encode(id)).thenReturn(shortCode);
-        when(repository.existsByShortCode(shortCode)).thenReturn(false);
-        when(repository.save(any(UrlMapping.class))).thenThrow(new DataIntegrityViolationException("Constraint violation"));
+        DataIntegrityViolationException notNull = new DataIntegrityViolationException("could not execute statement",
+                new SQLException("Column 'long_url' cannot be null", "23000", 1048));
+        when(repository.save(any(UrlMapping.class))).thenThrow(notNull);
 
-        // When & Then
-        assertThatThrownBy(() -> urlService.shortenUrl(longUrl))
-                .isInstanceOf(DataIntegrityViolationException.class);
+        // When & Then: only duplicate keys are retried with a fresh id
+        assertThatThrownBy(() -> urlService.shortenUrl(longUrl)).isSameAs(notNull);
+        verify(repository, times(1)).save(any(UrlMapping.class));
     }
 }
@@ -0,0 +1,159 @@
+package com.flashlink.demoflashlink_url_service.util;
+
+import com.flashlink.demoflashlink_url_service.model.AnalyticsEvent;
+import org.apache.kafka.common.errors.SerializationException;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.*;
+
+@DisplayName("AnalyticsEvent Serialization Tests")
+class AnalyticsEventSerializationTest {
+
+    private static final String TOPIC = "events";
+
+    private final AnalyticsEventSerializer serializer = new AnalyticsEventSerializer();
+    private final AnalyticsEventDeserializer deserializer = new AnalyticsEventDeserializer();
+
+    @Test
+    @DisplayName("Should round-trip every field through the binary format")
+    void binary_ShouldRoundTripAllFields() {
+        // Given
+        Map<String, Object> metadata = new LinkedHashMap<>();
+        metadata.put("ownerId", "alice");
+        metadata.put("int", Integer.MIN_VALUE);
+        metadata.put("long", 1L << 40);
+        metadata.put("double", 0.25);
+        metadata.put("flag", true);
+        metadata.put("missing", null);
+        AnalyticsEvent event = AnalyticsEvent.builder()
+                .eventId(UUID.randomUUID().toString())
+                .shortCode("000000abcD")
+                .longUrl("https://example.com/café?q=1")
+                .clientIp("203.0.113.9")
+                .userAgent("Mozilla/5.0 (X11; Linux x86_64)")
+                .referer("https://news.ycombinator.com/")
+                .country("DE")
+                .city("München")
+                .timestamp(LocalDateTime.of(2025, 3, 14, 15, 9, 26, 535_897_932))
+                .eventType(AnalyticsEvent.EventType.REDIRECT.name())
+                .metadata(metadata)
+                .sampleWeight(12.5)
+                .countDelta(1_234_567L)
+                .build();
+
+        // When
+        byte[] payload = serializer.serialize(TOPIC, event);
+        AnalyticsEvent decoded = deserializer.deserialize(TOPIC, payload);
+
+        // Then
+        assertThat(payload[0]).isEqualTo(AnalyticsEventCodec.MAGIC);
+        assertThat(decoded).isEqualTo(event);
+    }
+
+    @Test
+    @DisplayName("Should keep non-UUID ids, unknown event types and pre-epoch timestamps")
+    void binary_ShouldRoundTripIrregularValues() {
+        // Given
+        AnalyticsEvent event = AnalyticsEvent.builder()
+                .eventId("E-1B9D6BCD-BBFD-4B2D-9B5D-AB8DFBBD4BED")
+                .eventType("LINK_ARCHIVED")
+                .timestamp(LocalDateTime.of(1960, 1, 1, 0, 0, 0, 1))
+                .build();
+
+        // When
+        AnalyticsEvent decoded = deserializer.deserialize(TOPIC, serializer.serialize(TOPIC, event));
+
+        // Then
+        assertThat(decoded).isEqualTo(event);
+    }
+
+    @Test
+    @DisplayName("Should encode a redirect event in far fewer bytes than JSON")
+    void binary_ShouldBeSmallerThanJson() {
+        // Given
+        AnalyticsEvent event = AnalyticsEvent.builder()
+                .eventId(UUID.randomUUID().toString())
+                .shortCode("000000abcD")
+                .longUrl("https://example.com/")
+                .timestamp(LocalDateTime.now())
+                .eventType(AnalyticsEvent.EventType.REDIRECT.name())
+                .build();
+
+        // When
+        byte[] payload = serializer.serialize(TOPIC, event);
+
+        // Then: magic, version, 2 flag bytes, 16-byte id, 2 strings, ~10 timestamp bytes, 1 type byte
+        assertThat(payload.length).isLessThan(70);
+    }
+
+    @Test
+    @DisplayName("Should still read JSON payloads written before the rollout")
+    void deserialize_ShouldFallBackToJson() {
+        // Given
+        byte[] json = """
+                {"eventId":"e-1","shortCode":"abc","longUrl":"https://example.com","eventType":"REDIRECT",\
+                "metadata":{"ownerId":"alice"}}""".getBytes(StandardCharsets.UTF_8);
+
+        // When
+        AnalyticsEvent decoded = deserializer.deserialize(TOPIC, json);
+
+        // Then
+        assertThat(decoded.getEventId()).isEqualTo("e-1");
+        assertThat(decoded.getShortCode()).isEqualTo("abc");
+        assertThat(decoded.getEventType()).isEqualTo("REDIRECT");
+        assertThat(decoded.getMetadata()).containsEntry("ownerId", "alice");
+    }
+
+    @Test
+    @DisplayName("Should hand back the same user agent instance for repeated values")
+    void deserialize_ShouldShareRepeatedUserAgents() {
+        // Given
+        AnalyticsEvent event = AnalyticsEvent.builder()
+                .shortCode("abc")
+                .userAgent("Mozilla/5.0 (iPhone; CPU iPhone OS 17_4 like Mac OS X)")
+                .build();
+        byte[] payload = serializer.serialize(TOPIC, event);
+
+        // When
+        AnalyticsEvent first = deserializer.deserialize(TOPIC, payload);
+        AnalyticsEvent second = deserializer.deserialize(TOPIC, payload.clone());
+
+        // Then
+        assertThat(second.getUserAgent()).isSameAs(first.getUserAgent());
+    }
+
+    @Test
+    @DisplayName("Should reject unknown format versions and truncated payloads")
+    void deserialize_ShouldRejectBadBinaryPayloads() {
+        // Given
+        byte[] payload = serializer.serialize(TOPIC, AnalyticsEvent.builder()
+                .shortCode("abc")
+                .longUrl("https://example.com/")
+                .build());
+        byte[] futureVersion = payload.clone();
+        futureVersion[1] = 2;
+        byte[] truncated = Arrays.copyOf(payload, payload.length - 3);
+
+        // When & Then
+        assertThatThrownBy(() -> deserializer.deserialize(TOPIC, futureVersion))
+                .isInstanceOf(SerializationException.class)
+                .hasMessageContaining("version 2");
+        assertThatThrownBy(() -> deserializer.deserialize(TOPIC, truncated))
+                .isInstanceOf(SerializationException.class);
+    }
+
+    @Test
+    @DisplayName("Should pass null payloads through")
+    void serde_ShouldHandleNull() {
+        assertThat(serializer.serialize(TOPIC, null)).isNull();
+        assertThat(deserializer.deserialize(TOPIC, null)).isNull();
+    }
+}
@@ -2,6 +2,11 @@ package com.flashlink.demoflashlink_url_service.util;
 
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.nio.charset.StandardCharsets;
+import java.util.SplittableRandom;
 
 import static org.assertj.core.api.Assertions.*;
 
@@ -120,4 +125,111 @@ class Base62EncoderTest {
         // Then
         assertThat(result.length()).isLessThan(20); // Should be reasonably short
     }
+
+    @Test
+    @DisplayName("Should round-trip random ids through encode and decode")
+    void decode_ShouldRoundTripRandomIds() {
+        // Given
+        SplittableRandom random = new SplittableRandom(62L);
+        Base62Encoder padded = new Base62Encoder(10);
+
+        // When & Then
+        for (int i = 0; i < 100_000; i++) {
+            long id = random.nextLong();
+            assertThat(encoder.decode(encoder.encode(id))).isEqualTo(id);
+            assertThat(padded.decode(padded.encode(id))).isEqualTo(id);
+            long snowflakeLike = id >>> random.nextInt(1, 64);
+            assertThat(encoder.tryDecode(encoder.encode(snowflakeLike))).isEqualTo(snowflakeLike);
+        }
+    }
+
+    @Test
+    @DisplayName("Should preserve numeric order for fixed-width codes")
+    void encodeFixedWidth_ShouldPreserveOrder() {
+        // Given
+        SplittableRandom random = new SplittableRandom(7L);
+        Base62Encoder padded = new Base62Encoder(10);
+
+        // When & Then
+        for (int i = 0; i < 10_000; i++) {
+            long a = random.nextLong(0, 839_299_365_868_340_224L);
+            long b = random.nextLong(0, 839_299_365_868_340_224L);
+            assertThat(Integer.signum(padded.encode(a).compareTo(padded.encode(b))))
+                    .isEqualTo(Long.signum(a - b));
+        }
+    }
+
+    @Test
+    @DisplayName("Should round-trip boundary values")
+    void decode_ShouldRoundTripBoundaryValues() {
+        // Given
+        long[] ids = {0L, 1L, 61L, 62L, 3843L, 3844L, Long.MAX_VALUE, Long.MIN_VALUE, -1L};
+
+        // When & Then
+        for (long id : ids) {
+            assertThat(encoder.decode(encoder.encode(id))).isEqualTo(id);
+        }
+        assertThat(encoder.encode(61L)).isEqualTo("z");
+        assertThat(encoder.encode(62L)).isEqualTo("10");
+        assertThat(encoder.encode(-1L)).hasSize(Base62Encoder.MAX_LENGTH);
+    }
+
+    @Test
+    @DisplayName("Should zero-pad codes in fixed-width mode")
+    void encodeFixedWidth_ShouldZeroPad() {
+        // Given
+        Base62Encoder padded = new Base62Encoder(10);
+
+        // When
+        String result = padded.encode(62L);
+
+        // Then
+        assertThat(result).isEqualTo("0000000010");
+        assertThat(padded.decode(result)).isEqualTo(62L);
+        assertThat(padded.encode(Long.MAX_VALUE)).hasSize(11);
+    }
+
+    @Test
+    @DisplayName("Should write into a caller-supplied buffer")
+    void encodeIntoBuffer_ShouldMatchStringEncoding() {
+        // Given
+        Base62Encoder padded = new Base62Encoder(10);
+        byte[] buffer = new byte[2 + Base62Encoder.MAX_LENGTH];
+        SplittableRandom random = new SplittableRandom(11L);
+
+        // When & Then
+        for (int i = 0; i < 1_000; i++) {
+            long id = random.nextLong();
+            int length = padded.encode(id, buffer, 2);
+            assertThat(new String(buffer, 2, length, StandardCharsets.US_ASCII)).isEqualTo(padded.encode(id));
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"", "abc-1", "abc def", "ab\u00e9", "zzzzzzzzzzzz", "LygHa16AHYG"})
+    @DisplayName("Should reject malformed or overflowing codes")
+    void decode_ShouldRejectInvalidCodes(String code) {
+        // When & Then
+        assertThatThrownBy(() -> encoder.decode(code)).isInstanceOf(IllegalArgumentException.class);
+        assertThat(encoder.tryDecode(code)).isEqualTo(-1L);
+    }
+
+    @Test
+    @DisplayName("Should return -1 from tryDecode for codes beyond the signed range")
+    void tryDecode_ShouldRejectUnsignedValues() {
+        // Given
+        String code = encoder.encode(Long.MIN_VALUE);
+
+        // When & Then
+        assertThat(encoder.tryDecode(code)).isEqualTo(-1L);
+        assertThat(encoder.tryDecode(encoder.encode(Long.MAX_VALUE))).isEqualTo(Long.MAX_VALUE);
+        assertThat(encoder.tryDecode(null)).isEqualTo(-1L);
+    }
+
+    @Test
+    @DisplayName("Should reject an out-of-range fixed width")
+    void constructor_ShouldRejectInvalidWidth() {
+        assertThatThrownBy(() -> new Base62Encoder(12)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new Base62Encoder(-1)).isInstanceOf(IllegalArgumentException.class);
+    }
 }
@@ -0,0 +1,102 @@
+package com.flashlink.demoflashlink_url_service.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.*;
+
+@DisplayName("BloomFilter Tests")
+class BloomFilterTest {
+
+    private final Base62Encoder base62 = new Base62Encoder();
+
+    @Test
+    @DisplayName("Should never report an added value as absent")
+    void mightContain_ShouldHaveNoFalseNegatives() {
+        // Given
+        BloomFilter filter = BloomFilter.create(100_000, 0.01);
+
+        // When
+        for (long id = 1; id <= 100_000; id++) {
+            filter.put(base62.encode(id * 7919));
+        }
+
+        // Then
+        for (long id = 1; id <= 100_000; id++) {
+            assertThat(filter.mightContain(base62.encode(id * 7919))).isTrue();
+        }
+    }
+
+    @Test
+    @DisplayName("Should keep the observed false positive rate near the target")
+    void mightContain_ShouldStayNearTargetFalsePositiveRate() {
+        // Given
+        BloomFilter filter = BloomFilter.create(100_000, 0.01);
+        for (long id = 1; id <= 100_000; id++) {
+            filter.put(base62.encode(id));
+        }
+
+        // When
+        int falsePositives = 0;
+        int probes = 100_000;
+        for (long id = 1_000_000_000L; id < 1_000_000_000L + probes; id++) {
+            if (filter.mightContain(base62.encode(id))) {
+                falsePositives++;
+            }
+        }
+
+        // Then
+        double observed = (double) falsePositives / probes;
+        assertThat(observed).isLessThan(0.02);
+        assertThat(filter.expectedFalsePositiveRate()).isCloseTo(0.01, within(0.005));
+        assertThat(filter.approximateElementCount()).isCloseTo(100_000L, withinPercentage(5));
+    }
+
+    @Test
+    @DisplayName("Should size the bit array from expected insertions")
+    void create_ShouldSizeForTarget() {
+        // When
+        BloomFilter filter = BloomFilter.create(1_000_000, 0.01);
+
+        // Then
+        // ~9.6 bits per element at 1% -> ~1.2 MB
+        assertThat(filter.memoryBytes()).isBetween(1_100_000L, 1_300_000L);
+        assertThat(filter.hashCount()).isEqualTo(7);
+    }
+
+    @Test
+    @DisplayName("Should not lose bits under concurrent adds")
+    void put_ShouldBeThreadSafe() throws InterruptedException {
+        // Given
+        BloomFilter filter = BloomFilter.create(400_000, 0.01);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+
+        // When
+        for (int t = 0; t < 8; t++) {
+            int offset = t;
+            executor.execute(() -> {
+                for (long id = offset; id < 400_000; id += 8) {
+                    filter.put(base62.encode(id + 1));
+                }
+            });
+        }
+        executor.shutdown();
+        assertThat(executor.awaitTermination(30, TimeUnit.SECONDS)).isTrue();
+
+        // Then
+        for (long id = 1; id <= 400_000; id++) {
+            assertThat(filter.mightContain(base62.encode(id))).isTrue();
+        }
+    }
+
+    @Test
+    @DisplayName("Should reject invalid parameters")
+    void create_ShouldRejectInvalidParameters() {
+        assertThatThrownBy(() -> BloomFilter.create(0, 0.01)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> BloomFilter.create(100, 1.0)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,85 @@
+package com.flashlink.demoflashlink_url_service.util;
+
+import com.sun.management.ThreadMXBean;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+
+import static org.assertj.core.api.Assertions.*;
+
+@DisplayName("GcraTable Tests")
+class GcraTableTest {
+
+    private static final long INTERVAL_MS = 1_000;
+    private static final int BURST = 10;
+
+    @Test
+    @DisplayName("Should allow the burst, then one token per emission interval")
+    void acquire_ShouldEnforceBurstAndRate() {
+        // Given
+        GcraTable table = new GcraTable(1_024, 16);
+        long now = 1_000_000;
+
+        // When
+        long granted = table.acquire(42, now, INTERVAL_MS, BURST, 25);
+
+        // Then
+        assertThat(granted).isEqualTo(BURST);
+        assertThat(table.acquire(42, now + 999, INTERVAL_MS, BURST, 1)).isZero();
+        assertThat(table.acquire(42, now + 1_000, INTERVAL_MS, BURST, 1)).isEqualTo(1);
+        assertThat(table.acquire(43, now, INTERVAL_MS, BURST, 1)).isEqualTo(1);
+        assertThat(table.acquire(42, now + 20_000, INTERVAL_MS, BURST, 25)).isEqualTo(BURST);
+    }
+
+    @Test
+    @DisplayName("Should keep throttled keys while evicting the buckets closest to full")
+    void acquire_ShouldEvictBucketsClosestToFull() {
+        // Given: one client that has spent its whole burst
+        GcraTable table = new GcraTable(64, 4);
+        long now = 1_000_000;
+        table.acquire(7, now, INTERVAL_MS, BURST, BURST);
+
+        // When: far more one-off clients than the table holds
+        for (long key = 1_000; key < 101_000; key++) {
+            table.acquire(Hash64.mix(key), now, INTERVAL_MS, BURST, 1);
+        }
+
+        // Then
+        assertThat(table.evictions()).isPositive();
+        assertThat(table.activeKeys(now)).isLessThanOrEqualTo(table.capacity());
+        assertThat(table.acquire(7, now, INTERVAL_MS, BURST, 1)).isZero();
+    }
+
+    @Test
+    @DisplayName("Should hold 10M distinct IPs in a fixed heap footprint")
+    void acquire_ShouldBoundHeapForDistinctIps() {
+        // Given
+        GcraTable table = new GcraTable(100_000, 64);
+        ThreadMXBean threads = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+        StringBuilder ip = new StringBuilder(15);
+        long now = 1_000_000;
+        for (int i = 0; i < 100_000; i++) {
+            table.acquire(Hash64.hash(ipv4(ip, i)), now, INTERVAL_MS, BURST, 1);
+        }
+
+        // When
+        long allocatedBefore = threads.getCurrentThreadAllocatedBytes();
+        for (int i = 0; i < 10_000_000; i++) {
+            table.acquire(Hash64.hash(ipv4(ip, i)), now + i / 10_000, INTERVAL_MS, BURST, 1);
+        }
+        long allocated = threads.getCurrentThreadAllocatedBytes() - allocatedBefore;
+
+        // Then: nothing is allocated per key, so the heap cannot grow with the number of clients
+        assertThat(allocated).isLessThan(1_024 * 1_024);
+        assertThat(table.capacity()).isEqualTo(131_072);
+        assertThat(table.activeKeys(now + 1_000)).isLessThanOrEqualTo(table.capacity());
+        assertThat(table.evictions()).isPositive();
+    }
+
+    private static StringBuilder ipv4(StringBuilder ip, int i) {
+        ip.setLength(0);
+        return ip.append(10 + (i >>> 24)).append('.').append((i >>> 16) & 0xFF).append('.')
+                .append((i >>> 8) & 0xFF).append('.').append(i & 0xFF);
+    }
+}
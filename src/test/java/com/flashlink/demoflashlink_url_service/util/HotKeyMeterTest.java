@@ -0,0 +1,82 @@
+package com.flashlink.demoflashlink_url_service.util;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collection;
+
+import static org.assertj.core.api.Assertions.*;
+
+@DisplayName("HotKeyMeter Tests")
+class HotKeyMeterTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private HotKeyMeter meter;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        meter = new HotKeyMeter(meterRegistry, "hot", "code", "test", 3, 2, 100);
+    }
+
+    @Test
+    @DisplayName("Should keep at most top N series plus other however many keys are seen")
+    void rotate_ShouldBoundSeries() {
+        // Given: 100,000 distinct keys plus three heavy ones
+        for (int i = 0; i < 100_000; i++) {
+            meter.record("code" + i, 1);
+        }
+        meter.record("a", 5_000);
+        meter.record("b", 4_000);
+        meter.record("c", 3_000);
+
+        // When
+        meter.rotate();
+
+        // Then
+        Collection<Gauge> gauges = meterRegistry.find("hot").gauges();
+        assertThat(gauges).hasSize(4);
+        assertThat(gauges).extracting(gauge -> gauge.getId().getTag("code"))
+                .containsExactlyInAnyOrder("a", "b", "c", HotKeyMeter.OTHER);
+        assertThat(value("other")).isBetween(0.0, 100_000.0);
+        assertThat(value("a") + value("b") + value("c") + value("other")).isEqualTo(112_000.0);
+        assertThat(meterRegistry.getMeters()).hasSize(4);
+    }
+
+    @Test
+    @DisplayName("Should drop keys that leave the sliding window")
+    void rotate_ShouldSlideWindow() {
+        // Given
+        meter.record("old", 10);
+        meter.rotate();
+        meter.record("new", 1);
+
+        // When: the slot holding "old" is still inside the two-slot window
+        meter.rotate();
+
+        // Then
+        assertThat(meter.hottest()).extracting(SpaceSaving.Entry::item).containsExactly("old", "new");
+
+        // When: it slides out
+        meter.rotate();
+
+        // Then
+        assertThat(meter.hottest()).extracting(SpaceSaving.Entry::item).containsExactly("new");
+        assertThat(meterRegistry.find("hot").tag("code", "old").gauge()).isNull();
+        assertThat(value("new")).isEqualTo(1.0);
+    }
+
+    @Test
+    @DisplayName("Should reject a capacity smaller than the number of published keys")
+    void constructor_ShouldRejectInvalidSizing() {
+        assertThatThrownBy(() -> new HotKeyMeter(meterRegistry, "bad", "code", "test", 10, 2, 5))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private double value(String code) {
+        return meterRegistry.get("hot").tag("code", code).gauge().value();
+    }
+}
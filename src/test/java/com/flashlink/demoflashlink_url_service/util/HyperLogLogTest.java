@@ -0,0 +1,82 @@
+package com.flashlink.demoflashlink_url_service.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.*;
+
+@DisplayName("HyperLogLog Tests")
+class HyperLogLogTest {
+
+    private static long visitor(int i) {
+        return Hash64.hash("10.0." + i + "\0Mozilla/5.0");
+    }
+
+    @Test
+    @DisplayName("Should estimate distinct counts within a few percent across cardinalities")
+    void estimate_ShouldStayWithinError() {
+        for (int distinct : new int[]{1, 10, 100, 1_000, 10_000, 100_000, 1_000_000}) {
+            // Given
+            HyperLogLog sketch = new HyperLogLog();
+
+            // When: every visitor twice
+            for (int repeat = 0; repeat < 2; repeat++) {
+                for (int i = 0; i < distinct; i++) {
+                    sketch.add(visitor(i));
+                }
+            }
+
+            // Then: standard error is ~2.3% at 2^11 registers
+            assertThat((double) sketch.estimate()).as("distinct=%d", distinct)
+                    .isCloseTo(distinct, withinPercentage(7));
+        }
+    }
+
+    @Test
+    @DisplayName("Should merge partial sketches into exactly the sketch of the union")
+    void merge_ShouldEqualSketchOfUnion() {
+        // Given
+        HyperLogLog whole = new HyperLogLog();
+        HyperLogLog sparse = new HyperLogLog();
+        HyperLogLog dense = new HyperLogLog();
+        for (int i = 0; i < 50_000; i++) {
+            whole.add(visitor(i));
+            (i < 100 ? sparse : dense).add(visitor(i));
+        }
+
+        // When
+        sparse.merge(dense);
+        sparse.merge(dense);
+
+        // Then
+        assertThat(sparse.toBytes()).isEqualTo(whole.toBytes());
+    }
+
+    @Test
+    @DisplayName("Should round-trip sparse and dense sketches through bytes")
+    void toBytes_ShouldRoundTrip() {
+        // Given
+        HyperLogLog small = new HyperLogLog();
+        HyperLogLog large = new HyperLogLog();
+        for (int i = 0; i < 100_000; i++) {
+            if (i < 50) {
+                small.add(visitor(i));
+            }
+            large.add(visitor(i));
+        }
+
+        // When
+        byte[] smallBytes = small.toBytes();
+        byte[] largeBytes = large.toBytes();
+
+        // Then
+        // Two bytes per occupied register; a few of the 50 visitors may share one
+        assertThat(smallBytes[0]).isEqualTo((byte) 1);
+        assertThat(smallBytes.length).isBetween(3 + 2 * 45, 3 + 2 * 50);
+        assertThat(largeBytes).hasSize(1 + 1_280);
+        assertThat(HyperLogLog.fromBytes(smallBytes).estimate()).isEqualTo(small.estimate());
+        assertThat(HyperLogLog.fromBytes(largeBytes).toBytes()).isEqualTo(largeBytes);
+        assertThatThrownBy(() -> HyperLogLog.fromBytes(new byte[]{9, 9}))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
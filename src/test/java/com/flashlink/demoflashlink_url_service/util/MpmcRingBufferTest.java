@@ -0,0 +1,102 @@
+package com.flashlink.demoflashlink_url_service.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.*;
+
+@DisplayName("MpmcRingBuffer Tests")
+class MpmcRingBufferTest {
+
+    @Test
+    @DisplayName("Should round capacity up to a power of two")
+    void constructor_ShouldRoundCapacityUp() {
+        assertThat(new MpmcRingBuffer<>(2).capacity()).isEqualTo(2);
+        assertThat(new MpmcRingBuffer<>(1000).capacity()).isEqualTo(1024);
+        assertThat(new MpmcRingBuffer<>(1024).capacity()).isEqualTo(1024);
+        assertThatThrownBy(() -> new MpmcRingBuffer<>(1)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    @DisplayName("Should be FIFO, reject when full and return null when empty")
+    void offerAndPoll_ShouldRespectBounds() {
+        // Given
+        MpmcRingBuffer<Integer> buffer = new MpmcRingBuffer<>(4);
+
+        // When
+        for (int i = 0; i < 4; i++) {
+            assertThat(buffer.offer(i)).isTrue();
+        }
+
+        // Then
+        assertThat(buffer.offer(4)).isFalse();
+        assertThat(buffer.size()).isEqualTo(4);
+        assertThat(buffer.poll()).isEqualTo(0);
+        assertThat(buffer.offer(4)).isTrue();
+        List<Integer> drained = new ArrayList<>();
+        assertThat(buffer.drain(drained::add, 10)).isEqualTo(4);
+        assertThat(drained).containsExactly(1, 2, 3, 4);
+        assertThat(buffer.poll()).isNull();
+        assertThat(buffer.isEmpty()).isTrue();
+    }
+
+    @Test
+    @DisplayName("Should hand every element to exactly one consumer under contention")
+    void concurrentProducersAndConsumers_ShouldNotLoseOrDuplicate() throws InterruptedException {
+        // Given
+        int producers = 4;
+        int consumers = 4;
+        int perProducer = 50_000;
+        MpmcRingBuffer<Integer> buffer = new MpmcRingBuffer<>(256);
+        ConcurrentHashMap<Integer, Boolean> seen = new ConcurrentHashMap<>();
+        AtomicInteger consumed = new AtomicInteger();
+        AtomicInteger duplicates = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(producers + consumers);
+        CountDownLatch done = new CountDownLatch(producers + consumers);
+
+        // When
+        for (int p = 0; p < producers; p++) {
+            int base = p * perProducer;
+            executor.submit(() -> {
+                for (int i = 0; i < perProducer; i++) {
+                    while (!buffer.offer(base + i)) {
+                        Thread.yield();
+                    }
+                }
+                done.countDown();
+            });
+        }
+        for (int c = 0; c < consumers; c++) {
+            executor.submit(() -> {
+                while (consumed.get() < producers * perProducer) {
+                    Integer value = buffer.poll();
+                    if (value == null) {
+                        Thread.yield();
+                        continue;
+                    }
+                    if (seen.put(value, Boolean.TRUE) != null) {
+                        duplicates.incrementAndGet();
+                    }
+                    consumed.incrementAndGet();
+                }
+                done.countDown();
+            });
+        }
+
+        // Then
+        assertThat(done.await(30, TimeUnit.SECONDS)).isTrue();
+        executor.shutdown();
+        assertThat(duplicates.get()).isZero();
+        assertThat(seen).hasSize(producers * perProducer);
+        assertThat(buffer.isEmpty()).isTrue();
+    }
+}
@@ -1,9 +1,20 @@
 package com.flashlink.demoflashlink_url_service.util;
 
+import com.flashlink.demoflashlink_url_service.util.SnowflakeIdGenerator.ClockRegressionPolicy;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
 import static org.assertj.core.api.Assertions.*;
 
 @DisplayName("SnowflakeIdGenerator Tests")
@@ -159,4 +170,130 @@ class SnowflakeIdGeneratorTest {
         long difference = id2 - id1;
         assertThat(difference).isGreaterThan(0);
     }
+
+    @Test
+    @DisplayName("Should generate unique IDs across concurrent callers")
+    void nextId_ShouldBeUniqueUnderContention() throws Exception {
+        // Given
+        int threads = 16;
+        int perThread = 20_000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Callable<long[]>> tasks = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            tasks.add(() -> {
+                long[] ids = new long[perThread];
+                for (int i = 0; i < perThread; i++) {
+                    ids[i] = generator.nextId();
+                }
+                return ids;
+            });
+        }
+
+        // When
+        Set<Long> seen = new HashSet<>();
+        try {
+            for (Future<long[]> future : executor.invokeAll(tasks)) {
+                long[] ids = future.get();
+                for (int i = 0; i < ids.length; i++) {
+                    assertThat(seen.add(ids[i])).isTrue();
+                    if (i > 0) {
+                        assertThat(ids[i]).isGreaterThan(ids[i - 1]);
+                    }
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        // Then
+        assertThat(seen).hasSize(threads * perThread);
+    }
+
+    @Test
+    @DisplayName("Should generate a batch of unique increasing IDs spanning milliseconds")
+    void nextIds_ShouldGenerateIncreasingBatch() {
+        // When
+        long[] ids = generator.nextIds(10_000);
+        long next = generator.nextId();
+
+        // Then
+        assertThat(ids).hasSize(10_000);
+        for (int i = 1; i < ids.length; i++) {
+            assertThat(ids[i]).isGreaterThan(ids[i - 1]);
+        }
+        assertThat(next).isGreaterThan(ids[ids.length - 1]);
+        assertThat(generator.nextIds(0)).isEmpty();
+        assertThatThrownBy(() -> generator.nextIds(-1)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    @DisplayName("Should fail when the clock moves backwards under FAIL policy")
+    void nextId_ShouldFailOnClockRegression() {
+        // Given
+        AtomicLong clock = new AtomicLong(SnowflakeIdGenerator.EPOCH + 10_000);
+        SnowflakeIdGenerator failing = new SnowflakeIdGenerator(1L, ClockRegressionPolicy.FAIL, 1_000, clock::get);
+        failing.nextId();
+
+        // When
+        clock.addAndGet(-5);
+
+        // Then
+        assertThatThrownBy(failing::nextId).isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    @DisplayName("Should keep issuing from the last timestamp under BORROW policy")
+    void nextId_ShouldBorrowAheadOnClockRegression() {
+        // Given
+        AtomicLong clock = new AtomicLong(SnowflakeIdGenerator.EPOCH + 10_000);
+        SnowflakeIdGenerator borrowing = new SnowflakeIdGenerator(1L, ClockRegressionPolicy.BORROW, 1_000, clock::get);
+        long before = borrowing.nextId();
+
+        // When
+        clock.addAndGet(-5);
+        long[] after = borrowing.nextIds(10_000);
+
+        // Then
+        assertThat(after[0]).isGreaterThan(before);
+        for (int i = 1; i < after.length; i++) {
+            assertThat(after[i]).isGreaterThan(after[i - 1]);
+        }
+        // 10k ids need three milliseconds of sequence, borrowed ahead of the stalled clock
+        assertThat(after[after.length - 1] >>> 22).isEqualTo(10_002L);
+    }
+
+    @Test
+    @DisplayName("Should wait for the clock to catch up under WAIT policy")
+    void nextId_ShouldWaitOutClockRegression() {
+        // Given
+        AtomicLong clock = new AtomicLong(SnowflakeIdGenerator.EPOCH + 10_000);
+        SnowflakeIdGenerator waiting = new SnowflakeIdGenerator(1L, ClockRegressionPolicy.WAIT, 1_000,
+                () -> clock.getAndAdd(10));
+        long before = waiting.nextId();
+
+        // When
+        clock.addAndGet(-50);
+        long after = waiting.nextId();
+
+        // Then
+        assertThat(after).isGreaterThan(before);
+        assertThat(clock.get()).isGreaterThanOrEqualTo(SnowflakeIdGenerator.EPOCH + 10_000);
+    }
+
+    @Test
+    @DisplayName("Should fail when the clock regression exceeds the maximum drift")
+    void nextId_ShouldFailWhenRegressionExceedsMaxDrift() {
+        // Given
+        AtomicLong clock = new AtomicLong(SnowflakeIdGenerator.EPOCH + 10_000);
+        SnowflakeIdGenerator waiting = new SnowflakeIdGenerator(1L, ClockRegressionPolicy.WAIT, 10, clock::get);
+        waiting.nextId();
+
+        // When
+        clock.addAndGet(-1_000);
+
+        // Then
+        assertThatThrownBy(waiting::nextId)
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("1000 ms");
+    }
 }
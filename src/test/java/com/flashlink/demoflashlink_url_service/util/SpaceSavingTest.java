@@ -0,0 +1,102 @@
+package com.flashlink.demoflashlink_url_service.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+import static org.assertj.core.api.Assertions.*;
+
+@DisplayName("SpaceSaving Tests")
+class SpaceSavingTest {
+
+    private static final int STREAM = 200_000;
+
+    // Zipf-like referer stream over 10,000 hosts
+    private static String host(SplittableRandom random) {
+        return "host" + (int) Math.floor(Math.pow(10_000, random.nextDouble()) - 1) + ".example";
+    }
+
+    @Test
+    @DisplayName("Should report every heavy hitter with an upper-bound count within its error")
+    void top_ShouldContainHeavyHitters() {
+        // Given
+        SpaceSaving summary = new SpaceSaving(32);
+        Map<String, Long> exact = new HashMap<>();
+        SplittableRandom random = new SplittableRandom(16L);
+
+        // When
+        for (int i = 0; i < STREAM; i++) {
+            String host = host(random);
+            exact.merge(host, 1L, Long::sum);
+            summary.add(host, 1);
+        }
+
+        // Then: any item above total / capacity is guaranteed a counter
+        List<SpaceSaving.Entry> top = summary.top(32);
+        exact.forEach((host, count) -> {
+            if (count > STREAM / 32) {
+                assertThat(top).extracting(SpaceSaving.Entry::item).contains(host);
+            }
+        });
+        for (SpaceSaving.Entry entry : top) {
+            long trueCount = exact.getOrDefault(entry.item(), 0L);
+            assertThat(entry.count()).isGreaterThanOrEqualTo(trueCount);
+            assertThat(entry.count() - entry.error()).isLessThanOrEqualTo(trueCount);
+        }
+        assertThat(summary.top(1).get(0).item()).isEqualTo("host0.example");
+    }
+
+    @Test
+    @DisplayName("Should merge summaries of disjoint partitions keeping heavy hitters and bounds")
+    void merge_ShouldKeepHeavyHitters() {
+        // Given
+        SpaceSaving left = new SpaceSaving(32);
+        SpaceSaving right = new SpaceSaving(32);
+        Map<String, Long> exact = new HashMap<>();
+        SplittableRandom random = new SplittableRandom(17L);
+        for (int i = 0; i < STREAM; i++) {
+            String host = host(random);
+            exact.merge(host, 1L, Long::sum);
+            (i % 2 == 0 ? left : right).add(host, 1);
+        }
+
+        // When
+        left.merge(right);
+
+        // Then
+        List<SpaceSaving.Entry> top = left.top(32);
+        assertThat(top).hasSize(32);
+        assertThat(top.subList(0, 2)).extracting(SpaceSaving.Entry::item)
+                .containsExactly("host0.example", "host1.example");
+        for (SpaceSaving.Entry entry : top) {
+            long trueCount = exact.getOrDefault(entry.item(), 0L);
+            assertThat(entry.count()).isGreaterThanOrEqualTo(trueCount);
+            assertThat(entry.count() - entry.error()).isLessThanOrEqualTo(trueCount);
+        }
+    }
+
+    @Test
+    @DisplayName("Should round-trip through bytes and reject truncated input")
+    void toBytes_ShouldRoundTrip() {
+        // Given
+        SpaceSaving summary = new SpaceSaving(8);
+        summary.add("t.co", 40);
+        summary.add("news.example.com", 3);
+        summary.add("dérive.example", 1);
+
+        // When
+        byte[] bytes = summary.toBytes();
+        SpaceSaving decoded = SpaceSaving.fromBytes(bytes);
+
+        // Then
+        assertThat(decoded.capacity()).isEqualTo(8);
+        assertThat(decoded.top(8)).isEqualTo(summary.top(8));
+        assertThatThrownBy(() -> SpaceSaving.fromBytes(Arrays.copyOf(bytes, bytes.length - 2)))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}